@@ -0,0 +1,118 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Fixed inputs for the benchmarks, read from the resources of this module so that every build measures the same work.
+ */
+public class BenchmarkData {
+	/** English sentences of varying length, one per line */
+	public static final String SENTENCES = "sentences.txt";
+	/** English text with many numbers, dates, abbreviations and symbols, one paragraph per line */
+	public static final String NORMALIZATION_CORPUS = "normalization.txt";
+	/** The test utterance shipped with the cmu-slt-hsmm voice, in MARY target features format */
+	public static final String HMM_TARGET_FEATURES = "/marytts/voice/CmuSltHsmm/cmu_us_arctic_slt_b0487.pfeats";
+
+	private BenchmarkData() {
+	}
+
+	/**
+	 * Read the non-empty lines of a resource of this package; lines starting with '#' are comments.
+	 * 
+	 * @param resourceName
+	 *            resourceName
+	 * @return the lines, in file order
+	 * @throws IOException
+	 *             if the resource cannot be read
+	 */
+	public static List<String> readLines(String resourceName) throws IOException {
+		InputStream in = BenchmarkData.class.getResourceAsStream(resourceName);
+		if (in == null) {
+			throw new IOException("No such resource: " + resourceName);
+		}
+		return readLines(in);
+	}
+
+	/**
+	 * Read the lines of a text corpus: the given UTF-8 file, or the named resource of this package if no file is given.
+	 * 
+	 * @param fileName
+	 *            a file name, or null or the empty string to use the resource
+	 * @param resourceName
+	 *            resourceName
+	 * @return the non-empty, non-comment lines, in file order
+	 * @throws IOException
+	 *             if the corpus cannot be read
+	 */
+	public static List<String> readCorpus(String fileName, String resourceName) throws IOException {
+		if (fileName == null || fileName.isEmpty()) {
+			return readLines(resourceName);
+		}
+		return readLines(new FileInputStream(fileName));
+	}
+
+	private static List<String> readLines(InputStream in) throws IOException {
+		List<String> lines = new ArrayList<String>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, "UTF-8"));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				line = line.trim();
+				if (line.length() > 0 && !line.startsWith("#")) {
+					lines.add(line);
+				}
+			}
+		} finally {
+			reader.close();
+		}
+		return lines;
+	}
+
+	/**
+	 * The distinct words of the benchmark sentences, lower-cased and without punctuation, in order of first occurrence.
+	 * 
+	 * @return the words
+	 * @throws IOException
+	 *             if the sentences cannot be read
+	 */
+	public static List<String> readWords() throws IOException {
+		Set<String> words = new LinkedHashSet<String>();
+		for (String sentence : readLines(SENTENCES)) {
+			for (String token : sentence.split("\\s+")) {
+				String word = token.replaceAll("[^\\p{L}']", "").toLowerCase(Locale.ENGLISH);
+				if (word.length() > 0) {
+					words.add(word);
+				}
+			}
+		}
+		return new ArrayList<String>(words);
+	}
+}
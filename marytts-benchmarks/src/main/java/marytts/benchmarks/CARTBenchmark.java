@@ -0,0 +1,109 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import marytts.cart.CART;
+import marytts.cart.Node;
+import marytts.cart.io.HTSCARTReader;
+import marytts.config.MaryConfig;
+import marytts.features.FeatureVector;
+import marytts.htsengine.HMMData;
+import marytts.htsengine.PhoneTranslator;
+import marytts.unitselection.select.Target;
+import marytts.util.io.PropertiesAccessor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * CART traversal ({@link CART#interpretToNode(FeatureVector, int)}): every feature vector of the benchmark sentences is passed
+ * through the per-state spectrum trees of the cmu-slt-hsmm voice, as in HTS parameter lookup. With {@code compiled=false} the
+ * trees are walked node object by node object, otherwise through their flat tables (see {@link CART#compile()}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CARTBenchmark {
+	@Param({ "true", "false" })
+	public boolean compiled;
+
+	private CART[] trees;
+	private FeatureVector[] featureVectors;
+	private Node[] nodes;
+
+	@Setup(Level.Trial)
+	public void loadTrees(HMMTargets targets) throws Exception {
+		HMMData htsData = targets.htsData;
+		String prefix = "voice." + targets.voice.getName();
+		PropertiesAccessor p = MaryConfig.getVoiceConfig(targets.voice.getName()).getPropertiesAccessor(true);
+		trees = new HTSCARTReader().load(htsData.getCartTreeSet().getNumStates(), p.getStream(prefix + ".Ftm"),
+				p.getStream(prefix + ".Fmm"), HMMData.PdfFileFormat.mgc, htsData.getFeatureDefinition(), new PhoneTranslator(
+						p.getStream(prefix + ".trickyPhonesFile")));
+		for (CART tree : trees) {
+			if (!compiled) {
+				// the reader compiles the trees; setting the root node again drops the compiled form
+				tree.setRootNode(tree.getRootNode());
+			}
+		}
+		List<FeatureVector> fvs = new ArrayList<FeatureVector>();
+		for (List<Target> sentence : targets.sentences) {
+			for (Target target : sentence) {
+				fvs.add(target.getFeatureVector());
+			}
+		}
+		featureVectors = fvs.toArray(new FeatureVector[fvs.size()]);
+		nodes = new Node[featureVectors.length];
+	}
+
+	@Benchmark
+	public void interpretToNode(Blackhole bh) {
+		for (FeatureVector fv : featureVectors) {
+			for (CART tree : trees) {
+				bh.consume(tree.interpretToNode(fv, 1));
+			}
+		}
+	}
+
+	@Benchmark
+	public void interpretToNodes(Blackhole bh) {
+		for (CART tree : trees) {
+			tree.interpretToNodes(featureVectors, 1, nodes);
+			bh.consume(nodes);
+		}
+	}
+}
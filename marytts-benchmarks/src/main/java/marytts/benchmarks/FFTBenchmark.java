@@ -0,0 +1,182 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.benchmarks;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import marytts.util.math.FFT;
+import marytts.util.math.FFTPlan;
+import marytts.util.math.MathUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Frame-wise FFTs, as done by FD-PSOLA and the spectral analyses: a block of random frames of the given size is transformed
+ * frame by frame. {@code legacyTransform} is the transform as {@link FFT#transform(double[], double[], boolean)} computed it
+ * before {@link FFTPlan}, with the bit reversal and the twiddle factors computed anew on each call, and the butterflies of all
+ * blocks interleaved; the other benchmarks use the plan for the size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class FFTBenchmark {
+	@Param({ "512", "1024", "4096" })
+	public int size;
+
+	@Param({ "100" })
+	public int numFrames;
+
+	private double[][] frames;
+	private double[][] real;
+	private double[][] imag;
+	private FFTPlan plan;
+
+	@Setup(Level.Trial)
+	public void createFrames() {
+		Random random = new Random(1);
+		frames = new double[numFrames][size];
+		for (double[] frame : frames) {
+			for (int i = 0; i < size; i++) {
+				frame[i] = random.nextGaussian();
+			}
+		}
+		real = new double[numFrames][size];
+		imag = new double[numFrames][size];
+		plan = FFTPlan.forSize(size);
+	}
+
+	// the input of the complex transforms: the frames as real parts, and zero imaginary parts
+	private void copyFrames() {
+		for (int f = 0; f < numFrames; f++) {
+			System.arraycopy(frames[f], 0, real[f], 0, size);
+			Arrays.fill(imag[f], 0);
+		}
+	}
+
+	@Benchmark
+	public void legacyTransform(Blackhole bh) {
+		copyFrames();
+		for (int f = 0; f < numFrames; f++) {
+			legacyTransform(real[f], imag[f], false);
+		}
+		bh.consume(real);
+	}
+
+	@Benchmark
+	public void transform(Blackhole bh) {
+		copyFrames();
+		for (int f = 0; f < numFrames; f++) {
+			FFT.transform(real[f], imag[f], false);
+		}
+		bh.consume(real);
+	}
+
+	@Benchmark
+	public void batchTransform(Blackhole bh) {
+		copyFrames();
+		plan.transform(real, imag, false);
+		bh.consume(real);
+	}
+
+	@Benchmark
+	public void realTransform(Blackhole bh) {
+		for (int f = 0; f < numFrames; f++) {
+			System.arraycopy(frames[f], 0, real[f], 0, size);
+		}
+		FFTPlan.forSize(size / 2).realTransform(real, false);
+		bh.consume(real);
+	}
+
+	/**
+	 * The complex transform as it was before FFTPlan.
+	 */
+	private static void legacyTransform(double[] real, double[] imag, boolean inverse) {
+		int N = real.length;
+		int halfN = N / 2;
+		// Re-order arrays for FFT via bit-inversion
+		int iReverse = 0;
+		for (int i = 0; i < N; i++) {
+			if (i > iReverse) {
+				double tmpReal = real[i];
+				double tmpImag = imag[i];
+				real[i] = real[iReverse];
+				imag[i] = imag[iReverse];
+				real[iReverse] = tmpReal;
+				imag[iReverse] = tmpImag;
+			}
+			// Calculate iReverse for next round:
+			int b = halfN;
+			while (b >= 1 && iReverse >= b) {
+				iReverse -= b;
+				b >>= 1;
+			}
+			iReverse += b;
+		}
+		for (int blockLength = 2; blockLength <= N; blockLength <<= 1) {
+			double delta = -MathUtils.TWOPI / blockLength;
+			double wStepReal = Math.cos(delta);
+			double wStepImag = Math.sin(delta);
+			if (inverse)
+				wStepImag = -wStepImag;
+			double wReal = 1;
+			double wImag = 0;
+			int halfBlockLength = blockLength / 2;
+			for (int n = 0; n < halfBlockLength; n++) {
+				// Do this for all blocks at once:
+				for (int i = n; i < N; i += blockLength) {
+					int j = i + halfBlockLength;
+					double tmpReal = wReal * real[j] - wImag * imag[j];
+					double tmpImag = wReal * imag[j] + wImag * real[j];
+					real[j] = real[i] - tmpReal;
+					imag[j] = imag[i] - tmpImag;
+					real[i] += tmpReal;
+					imag[i] += tmpImag;
+				}
+				// Next w is computed by complex multiplication with wStep
+				double oldWReal = wReal;
+				wReal = oldWReal * wStepReal - wImag * wStepImag;
+				wImag = oldWReal * wStepImag + wImag * wStepReal;
+			}
+		}
+		if (inverse) {
+			for (int i = 0; i < N; i++) {
+				real[i] /= N;
+				imag[i] /= N;
+			}
+		}
+	}
+}
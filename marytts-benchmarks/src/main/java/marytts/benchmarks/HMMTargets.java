@@ -0,0 +1,73 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import marytts.features.FeatureRegistry;
+import marytts.features.TargetFeatureComputer;
+import marytts.htsengine.HMMData;
+import marytts.htsengine.HMMVoice;
+import marytts.modules.TargetFeatureLister;
+import marytts.unitselection.select.Target;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.w3c.dom.Document;
+
+/**
+ * The targets of the benchmark sentences for the cmu-slt-hsmm voice, with their feature vectors computed, as they would be
+ * passed to the HTS engine.
+ */
+@State(Scope.Benchmark)
+public class HMMTargets {
+	public HMMVoice voice;
+	public HMMData htsData;
+	public TargetFeatureComputer featureComputer;
+	/** One list of targets per sentence */
+	public List<List<Target>> sentences;
+
+	@Setup(Level.Trial)
+	public void computeTargets(MaryState state) throws Exception {
+		voice = state.getHMMVoice();
+		htsData = voice.getHMMData();
+		featureComputer = FeatureRegistry.getTargetFeatureComputer(voice, htsData.getFeatureDefinition().getFeatureNames());
+		sentences = new ArrayList<List<Target>>();
+		for (Document doc : state.process(voice.getName(), "ACOUSTPARAMS")) {
+			List<Target> targets = TargetFeatureLister.createTargetsWithPauses(MaryState.getSegmentsAndBoundaries(doc),
+					featureComputer.getPauseSymbol());
+			for (Target target : targets) {
+				target.setFeatureVector(featureComputer.computeFeatureVector(target));
+			}
+			sentences.add(targets);
+		}
+	}
+
+	public int getNumTargets() {
+		int n = 0;
+		for (List<Target> targets : sentences) {
+			n += targets.size();
+		}
+		return n;
+	}
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import marytts.fst.FSTLookup;
+import marytts.modules.phonemiser.AllophoneSet;
+import marytts.modules.phonemiser.TrainedLTS;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Pronunciation lookup for the words of the benchmark sentences with the US English lexicon ({@link FSTLookup#lookup(String)})
+ * and letter-to-sound rules ({@link TrainedLTS#predictPronunciation(String)}). These are loaded directly from the language
+ * resources, without starting MARY.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class LexiconBenchmark {
+	private static final String ALLOPHONES = "/marytts/language/en_US/lexicon/allophones.en_US.xml";
+	private static final String LEXICON = "/marytts/language/en_US/lexicon/en_US_lexicon.fst";
+	private static final String LTS = "/marytts/language/en_US/lexicon/en_US.lts";
+
+	private FSTLookup lexicon;
+	private TrainedLTS lts;
+	private String[] words;
+
+	@Setup(Level.Trial)
+	public void loadLexicon() throws Exception {
+		AllophoneSet allophoneSet = AllophoneSet.getAllophoneSet(getResource(ALLOPHONES), ALLOPHONES);
+		lexicon = new FSTLookup(getResource(LEXICON), LEXICON);
+		lts = new TrainedLTS(allophoneSet, getResource(LTS));
+		List<String> wordList = BenchmarkData.readWords();
+		words = wordList.toArray(new String[wordList.size()]);
+	}
+
+	@Benchmark
+	public void lexiconLookup(Blackhole bh) {
+		for (String word : words) {
+			bh.consume(lexicon.lookup(word));
+		}
+	}
+
+	@Benchmark
+	public void predictPronunciation(Blackhole bh) {
+		for (String word : words) {
+			bh.consume(lts.predictPronunciation(word));
+		}
+	}
+
+	private static InputStream getResource(String name) throws IOException {
+		InputStream in = LexiconBenchmark.class.getResourceAsStream(name);
+		if (in == null) {
+			throw new IOException("Resource " + name + " not found -- is marytts-lang-en on the classpath?");
+		}
+		return in;
+	}
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import marytts.htsengine.HMMData;
+import marytts.htsengine.HTSParameterGeneration;
+import marytts.htsengine.HTSUttModel;
+import marytts.modules.HTSEngine;
+import marytts.unitselection.select.Target;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Maximum likelihood parameter generation for the benchmark sentences with the cmu-slt-hsmm voice. The utterance models are
+ * rebuilt before every invocation, outside the measurement, so that only
+ * {@link HTSParameterGeneration#htsMaximumLikelihoodParameterGeneration(HTSUttModel, HMMData)}, i.e. the
+ * {@link marytts.htsengine.HTSPStream#mlpg(HMMData, boolean)} runs of all streams, is timed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class MLPGBenchmark {
+	private List<HTSUttModel> uttModels;
+
+	@Setup(Level.Invocation)
+	public void buildUttModels(HMMTargets targets) throws Exception {
+		uttModels = buildUttModels(targets.sentences, targets.htsData);
+	}
+
+	@Benchmark
+	public void mlpg(HMMTargets targets, Blackhole bh) throws Exception {
+		for (HTSUttModel um : uttModels) {
+			HTSParameterGeneration pdf2par = new HTSParameterGeneration();
+			pdf2par.htsMaximumLikelihoodParameterGeneration(um, targets.htsData);
+			bh.consume(pdf2par);
+		}
+	}
+
+	static List<HTSUttModel> buildUttModels(List<List<Target>> sentences, HMMData htsData) throws Exception {
+		UttModelBuilder builder = new UttModelBuilder();
+		List<HTSUttModel> models = new ArrayList<HTSUttModel>(sentences.size());
+		for (List<Target> targets : sentences) {
+			models.add(builder.build(targets, htsData));
+		}
+		return models;
+	}
+
+	/**
+	 * Gives access to the conversion of targets into an utterance model.
+	 */
+	private static class UttModelBuilder extends HTSEngine {
+		HTSUttModel build(List<Target> targets, HMMData htsData) throws Exception {
+			return processTargetList(targets, null, htsData);
+		}
+	}
+}
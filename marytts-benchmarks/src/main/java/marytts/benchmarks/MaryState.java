@@ -0,0 +1,117 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import marytts.LocalMaryInterface;
+import marytts.datatypes.MaryXML;
+import marytts.htsengine.HMMVoice;
+import marytts.modules.synthesis.Voice;
+import marytts.server.Mary;
+import marytts.util.dom.MaryDomUtils;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.traversal.TreeWalker;
+
+/**
+ * A running MARY system, started once per benchmark fork, together with the benchmark sentences. The synthesis cache is
+ * switched off so that repeated inputs are really processed.
+ */
+@State(Scope.Benchmark)
+public class MaryState {
+	public static final String HMM_VOICE = "cmu-slt-hsmm";
+
+	public LocalMaryInterface mary;
+	public List<String> sentences;
+
+	@Setup(Level.Trial)
+	public void startMary() throws Exception {
+		System.setProperty("cache", "false");
+		mary = new LocalMaryInterface();
+		sentences = BenchmarkData.readLines(BenchmarkData.SENTENCES);
+	}
+
+	@TearDown(Level.Trial)
+	public void stopMary() {
+		if (Mary.currentState() == Mary.STATE_RUNNING) {
+			Mary.shutdown();
+		}
+	}
+
+	public HMMVoice getHMMVoice() {
+		Voice voice = Voice.getVoice(HMM_VOICE);
+		if (!(voice instanceof HMMVoice)) {
+			throw new IllegalStateException("Voice " + HMM_VOICE + " is not available");
+		}
+		return (HMMVoice) voice;
+	}
+
+	/**
+	 * Process all benchmark sentences up to the given output type.
+	 * 
+	 * @param voiceName
+	 *            the voice to use
+	 * @param outputType
+	 *            an XML output type, such as ACOUSTPARAMS
+	 * @return one document per sentence
+	 * @throws Exception
+	 *             if processing fails
+	 */
+	public List<Document> process(String voiceName, String outputType) throws Exception {
+		mary.setVoice(voiceName);
+		mary.setOutputType(outputType);
+		List<Document> docs = new ArrayList<Document>(sentences.size());
+		for (String sentence : sentences) {
+			docs.add(mary.generateXML(sentence));
+		}
+		return docs;
+	}
+
+	/**
+	 * List the elements with the given tag names in document order.
+	 * 
+	 * @param doc
+	 *            doc
+	 * @param tagNames
+	 *            e.g. MaryXML.PHONE and MaryXML.BOUNDARY
+	 * @return the elements
+	 */
+	public static List<Element> getElements(Document doc, String... tagNames) {
+		TreeWalker tw = MaryDomUtils.createTreeWalker(doc, doc, tagNames);
+		List<Element> elements = new ArrayList<Element>();
+		Element e;
+		while ((e = (Element) tw.nextNode()) != null) {
+			elements.add(e);
+		}
+		return elements;
+	}
+
+	public static List<Element> getSegmentsAndBoundaries(Document doc) {
+		return getElements(doc, MaryXML.PHONE, MaryXML.BOUNDARY);
+	}
+}
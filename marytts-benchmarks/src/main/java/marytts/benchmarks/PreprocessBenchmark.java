@@ -0,0 +1,120 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import marytts.datatypes.MaryData;
+import marytts.datatypes.MaryDataType;
+import marytts.language.en.Preprocess;
+import marytts.language.en.TokenClassifier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.w3c.dom.Document;
+
+/**
+ * Throughput of English text normalization: classification of every token of a corpus ({@link TokenClassifier}), and the
+ * complete {@link Preprocess} module on the tokenized corpus. One operation is one pass over the whole corpus.
+ * <p>
+ * By default the corpus is the small built-in normalization.txt; pass a larger UTF-8 text file, one paragraph per line, with
+ * <code>-p corpus=/path/to/file</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PreprocessBenchmark {
+	@Param({ "" })
+	public String corpus;
+
+	private String[] tokens;
+	private List<Document> tokenized;
+	private Preprocess preprocess;
+
+	@Setup(Level.Trial)
+	public void tokenize(MaryState state) throws Exception {
+		List<String> lines = BenchmarkData.readCorpus(corpus, BenchmarkData.NORMALIZATION_CORPUS);
+		List<String> tokenList = new ArrayList<String>();
+		for (String line : lines) {
+			for (String token : line.split("\\s+")) {
+				tokenList.add(token);
+			}
+		}
+		tokens = tokenList.toArray(new String[tokenList.size()]);
+
+		state.mary.setLocale(Locale.US);
+		state.mary.setOutputType(MaryDataType.TOKENS.name());
+		tokenized = new ArrayList<Document>(lines.size());
+		for (String line : lines) {
+			tokenized.add(state.mary.generateXML(line));
+		}
+		preprocess = new Preprocess();
+	}
+
+	@Benchmark
+	public void classifyTokens(Blackhole bh) {
+		TokenClassifier classifier = new TokenClassifier(null);
+		for (String token : tokens) {
+			bh.consume(classifier.classify(token, true, false));
+		}
+	}
+
+	@Benchmark
+	public void preprocess(Inputs inputs, Blackhole bh) throws Exception {
+		for (MaryData d : inputs.data) {
+			bh.consume(preprocess.process(d));
+		}
+	}
+
+	/**
+	 * Preprocess changes the document, so each invocation works on fresh copies of the tokenized corpus.
+	 */
+	@State(Scope.Thread)
+	public static class Inputs {
+		List<MaryData> data;
+
+		@Setup(Level.Invocation)
+		public void copyDocuments(PreprocessBenchmark benchmark) {
+			data = new ArrayList<MaryData>(benchmark.tokenized.size());
+			for (Document doc : benchmark.tokenized) {
+				MaryData d = new MaryData(MaryDataType.TOKENS, Locale.US);
+				d.setDocument((Document) doc.cloneNode(true));
+				data.add(d);
+			}
+		}
+	}
+}
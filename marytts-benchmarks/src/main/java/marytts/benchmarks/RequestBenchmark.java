@@ -0,0 +1,96 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+
+import marytts.datatypes.MaryDataType;
+import marytts.modules.synthesis.Voice;
+import marytts.server.Request;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * End-to-end synthesis ({@link Request#process()}) from plain text to WAVE audio for each of the benchmark sentences. The
+ * audio is read to its end, so streaming synthesis is measured completely.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class RequestBenchmark {
+	@Param({ MaryState.HMM_VOICE })
+	public String voiceName;
+
+	private Voice voice;
+	private List<String> sentences;
+	private AudioFileFormat audioFileFormat;
+	private int requestId = 0;
+	private byte[] buf = new byte[8192];
+
+	@Setup(Level.Trial)
+	public void findVoice(MaryState state) {
+		voice = Voice.getVoice(voiceName);
+		if (voice == null) {
+			throw new IllegalStateException("Voice " + voiceName + " is not available");
+		}
+		sentences = new ArrayList<String>(state.sentences);
+		audioFileFormat = new AudioFileFormat(AudioFileFormat.Type.WAVE, voice.dbAudioFormat(), AudioSystem.NOT_SPECIFIED);
+	}
+
+	@Benchmark
+	public void process(Blackhole bh) throws Exception {
+		for (String sentence : sentences) {
+			Request request = new Request(MaryDataType.TEXT, MaryDataType.AUDIO, Locale.US, voice, null, null, requestId++,
+					audioFileFormat);
+			request.setInputData(sentence);
+			request.process();
+			AudioInputStream ais = request.getOutputData().getAudio();
+			long total = 0;
+			int n;
+			while ((n = ais.read(buf)) != -1) {
+				total += n;
+			}
+			ais.close();
+			bh.consume(total);
+		}
+	}
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import marytts.unitselection.select.Target;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Target feature computation ({@link marytts.features.TargetFeatureComputer#computeFeatureVectorDirectly(Target)}) for all
+ * targets of the benchmark sentences, and the same through the sentences' {@link marytts.features.TargetFeatureStore}, as when a
+ * second module needs the features.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TargetFeatureBenchmark {
+
+	@Benchmark
+	public void computeFeatureVectors(HMMTargets targets, Blackhole bh) {
+		for (List<Target> sentence : targets.sentences) {
+			for (Target target : sentence) {
+				bh.consume(targets.featureComputer.computeFeatureVectorDirectly(target));
+			}
+		}
+	}
+
+	@Benchmark
+	public void reuseStoredFeatureVectors(HMMTargets targets, Blackhole bh) {
+		for (List<Target> sentence : targets.sentences) {
+			for (Target target : sentence) {
+				bh.consume(targets.featureComputer.computeFeatureVector(target));
+			}
+		}
+	}
+}
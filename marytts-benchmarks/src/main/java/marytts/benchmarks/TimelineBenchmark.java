@@ -0,0 +1,161 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+import java.util.Vector;
+import java.util.concurrent.TimeUnit;
+
+import marytts.unitselection.data.TimelineReader;
+import marytts.util.data.Datagram;
+import marytts.util.data.MaryHeader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Datagram retrieval ({@link TimelineReader#getDatagrams(long, long)}) from a timeline file, with and without memory mapping, and
+ * with the sparse index stored in the file or a dense index of all datagrams.
+ * The timeline is synthetic: a fixed number of pitch-period sized datagrams generated from a fixed random seed, written in the
+ * same format as the voice import tools write waveform timelines. The queries, unit-sized time spans at random positions, are
+ * generated from a fixed seed as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TimelineBenchmark {
+	private static final long SEED = 20170301L;
+	private static final int SAMPLE_RATE = 16000;
+	private static final double INDEX_INTERVAL = 0.1; // seconds
+	private static final int NUM_QUERIES = 1000;
+
+	@Param({ "true", "false" })
+	public boolean memoryMapped;
+
+	@Param({ "sparse", "dense" })
+	public TimelineReader.IndexMode indexMode;
+
+	@Param({ "100000" })
+	public int numDatagrams;
+
+	private File timelineFile;
+	private TimelineReader timeline;
+	private long[] queryTimes;
+	private long[] querySpans;
+
+	@Setup(Level.Trial)
+	public void createTimeline() throws Exception {
+		timelineFile = File.createTempFile("benchmark", ".mry");
+		timelineFile.deleteOnExit();
+		long totalDuration = writeTimeline(timelineFile, numDatagrams, new Random(SEED));
+		timeline = new TimelineReader(timelineFile.getPath(), memoryMapped, indexMode);
+
+		Random random = new Random(SEED + 1);
+		queryTimes = new long[NUM_QUERIES];
+		querySpans = new long[NUM_QUERIES];
+		for (int i = 0; i < NUM_QUERIES; i++) {
+			// between 50 and 250 ms, roughly the duration of a diphone or half-phone
+			querySpans[i] = SAMPLE_RATE / 20 + random.nextInt(SAMPLE_RATE / 5);
+			queryTimes[i] = (long) (random.nextDouble() * (totalDuration - querySpans[i]));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteTimeline() {
+		timeline = null;
+		timelineFile.delete();
+	}
+
+	@Benchmark
+	public void getDatagrams(Blackhole bh) throws IOException {
+		for (int i = 0; i < NUM_QUERIES; i++) {
+			bh.consume(timeline.getDatagrams(queryTimes[i], querySpans[i]));
+		}
+	}
+
+	/**
+	 * Write a timeline of random datagrams in the format read by {@link TimelineReader}.
+	 * 
+	 * @return the total duration of the timeline, in samples
+	 */
+	private static long writeTimeline(File file, int numDatagrams, Random random) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.setLength(0);
+			new MaryHeader(MaryHeader.TIMELINE).writeTo(raf);
+			new TimelineReader.ProcHeader("\n").dump(raf);
+			raf.writeInt(SAMPLE_RATE);
+			raf.writeLong(numDatagrams);
+			long datagramsBytePos = raf.getFilePointer() + 16;
+			raf.writeLong(datagramsBytePos);
+			raf.writeLong(0L); // time index position, filled in below
+
+			int idxInterval = (int) Math.round(INDEX_INTERVAL * SAMPLE_RATE);
+			Vector<TimelineReader.IdxField> indexData = new Vector<TimelineReader.IdxField>();
+			long prevBytePos = datagramsBytePos;
+			long prevTimePos = 0;
+			long timePos = 0;
+			for (int i = 0; i < numDatagrams; i++) {
+				long bytePos = raf.getFilePointer();
+				long nextIdxTime = indexData.size() * (long) idxInterval;
+				while (nextIdxTime < timePos) {
+					indexData.add(new TimelineReader.IdxField(prevBytePos, prevTimePos));
+					nextIdxTime += idxInterval;
+				}
+				prevBytePos = bytePos;
+				prevTimePos = timePos;
+
+				// pitch periods of 2.5 to 10 ms, as 16 bit samples
+				int duration = SAMPLE_RATE / 400 + random.nextInt(SAMPLE_RATE / 100 - SAMPLE_RATE / 400);
+				byte[] data = new byte[2 * duration];
+				random.nextBytes(data);
+				new Datagram(duration, data).write(raf);
+				timePos += duration;
+			}
+
+			long timeIdxBytePos = raf.length();
+			raf.seek(timeIdxBytePos);
+			new TimelineReader.Index(idxInterval, indexData).dump(raf);
+			raf.seek(datagramsBytePos - 8);
+			raf.writeLong(timeIdxBytePos);
+			return timePos;
+		} finally {
+			raf.close();
+		}
+	}
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import marytts.datatypes.MaryXML;
+import marytts.modules.synthesis.Voice;
+import marytts.unitselection.UnitSelectionVoice;
+import marytts.unitselection.select.viterbi.Viterbi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.w3c.dom.Document;
+
+/**
+ * Unit selection search ({@link Viterbi#apply()}) for the benchmark sentences. Target features are computed once during setup;
+ * each invocation builds the candidate lattice and runs the search.
+ * <p>
+ * No unit selection voice is part of this build. Add one (by default <code>cmu-slt</code>) to the dependencies of this module,
+ * pass another voice name with <code>-p voiceName=...</code>, or exclude this benchmark with <code>-e ViterbiBenchmark</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ViterbiBenchmark {
+	@Param({ "cmu-slt" })
+	public String voiceName;
+
+	private List<ViterbiFixture> fixtures;
+
+	@Setup(Level.Trial)
+	public void prepareTargets(MaryState state) throws Exception {
+		Voice voice = Voice.getVoice(voiceName);
+		if (!(voice instanceof UnitSelectionVoice)) {
+			throw new IllegalStateException("Unit selection voice " + voiceName
+					+ " is not available; add it to the classpath or exclude this benchmark with -e ViterbiBenchmark");
+		}
+		UnitSelectionVoice usVoice = (UnitSelectionVoice) voice;
+		fixtures = new ArrayList<ViterbiFixture>();
+		for (Document doc : state.process(voiceName, "ACOUSTPARAMS")) {
+			fixtures.add(new ViterbiFixture(usVoice.getUnitSelector(), MaryState.getElements(doc, MaryXML.TOKEN,
+					MaryXML.BOUNDARY)));
+		}
+	}
+
+	@Benchmark
+	public void apply(Blackhole bh) throws Exception {
+		for (ViterbiFixture fixture : fixtures) {
+			Viterbi viterbi = fixture.newViterbi();
+			viterbi.apply();
+			bh.consume(viterbi.getSelectedUnits());
+		}
+	}
+}
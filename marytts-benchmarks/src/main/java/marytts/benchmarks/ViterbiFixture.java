@@ -0,0 +1,62 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.benchmarks;
+
+import java.util.List;
+
+import marytts.unitselection.select.Target;
+import marytts.unitselection.select.UnitSelector;
+import marytts.unitselection.select.viterbi.Viterbi;
+
+import org.w3c.dom.Element;
+
+/**
+ * Prepares the input of a unit selection search the way
+ * {@link UnitSelector#selectUnits(List, marytts.modules.synthesis.Voice)} does, so that the Viterbi search itself can be
+ * measured on its own.
+ */
+public class ViterbiFixture {
+	private final UnitSelector selector;
+	private final List<Target> targets;
+
+	/**
+	 * @param selector
+	 *            the unit selector of a unit selection voice
+	 * @param tokensAndBoundaries
+	 *            the tokens and boundaries of one sentence, as passed to the synthesizer
+	 */
+	public ViterbiFixture(UnitSelector selector, List<Element> tokensAndBoundaries) {
+		this.selector = selector;
+		targets = selector.createTargetsWithFeatures(tokensAndBoundaries);
+	}
+
+	public List<Target> getTargets() {
+		return targets;
+	}
+
+	/**
+	 * A fresh Viterbi search over the targets, configured like the selector would configure it.
+	 * 
+	 * @return a Viterbi instance on which apply() has not been called yet
+	 */
+	public Viterbi newViterbi() {
+		return selector.createViterbi(targets);
+	}
+}
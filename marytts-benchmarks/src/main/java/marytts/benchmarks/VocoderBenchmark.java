@@ -0,0 +1,83 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.sound.sampled.AudioInputStream;
+
+import marytts.htsengine.HTSParameterGeneration;
+import marytts.htsengine.HTSUttModel;
+import marytts.htsengine.HTSVocoder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * MLSA vocoding ({@link HTSVocoder#htsMLSAVocoder(HTSParameterGeneration, marytts.htsengine.HMMData)}) of the parameters
+ * generated for the benchmark sentences with the cmu-slt-hsmm voice. The audio stream is read to its end, so the measurement
+ * includes the complete waveform generation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class VocoderBenchmark {
+	private List<HTSParameterGeneration> parameters;
+	private byte[] buf = new byte[8192];
+
+	@Setup(Level.Trial)
+	public void generateParameters(HMMTargets targets) throws Exception {
+		parameters = new ArrayList<HTSParameterGeneration>();
+		for (HTSUttModel um : MLPGBenchmark.buildUttModels(targets.sentences, targets.htsData)) {
+			HTSParameterGeneration pdf2par = new HTSParameterGeneration();
+			pdf2par.htsMaximumLikelihoodParameterGeneration(um, targets.htsData);
+			parameters.add(pdf2par);
+		}
+	}
+
+	@Benchmark
+	public void htsMLSAVocoder(HMMTargets targets, Blackhole bh) throws Exception {
+		for (HTSParameterGeneration pdf2par : parameters) {
+			AudioInputStream ais = new HTSVocoder().htsMLSAVocoder(pdf2par, targets.htsData);
+			long total = 0;
+			int n;
+			while ((n = ais.read(buf)) != -1) {
+				total += n;
+			}
+			ais.close();
+			bh.consume(total);
+		}
+	}
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.tools.voiceimport;
+
+import java.io.File;
+
+import marytts.htsengine.CompiledCartTreeSet;
+import marytts.htsengine.HMMData;
+
+/**
+ * Converts the text trees and pdfs of an HSMM voice into the compiled binary form read by {@link CompiledCartTreeSet}. Point
+ * the voice property <code>voice.&lt;name&gt;.compiledModels</code> to the output file to use it.
+ * 
+ * @author agent
+ * 
+ */
+public class HTSModelConverter {
+
+	/**
+	 * @param args
+	 *            the MARY_BASE directory, the voice config file relative to it, the voice name, and the output file
+	 * @throws Exception
+	 *             if the voice cannot be loaded or the output file cannot be written
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length != 4) {
+			System.err.println("Usage: java " + HTSModelConverter.class.getName()
+					+ " <MARY_BASE> <voice config file> <voice name> <output file>");
+			System.err.println("  e.g. java " + HTSModelConverter.class.getName()
+					+ " /path/to/marytts/ conf/en_US-cmu-slt-hsmm.config cmu-slt-hsmm lib/voices/cmu-slt-hsmm/hts-models.mry");
+			System.exit(1);
+		}
+		String maryBase = args[0];
+		if (!maryBase.endsWith(File.separator)) {
+			maryBase = maryBase + File.separator;
+		}
+		String configFile = args[1];
+		String voiceName = args[2];
+		String outFile = args[3];
+
+		HMMData htsData = new HMMData();
+		htsData.initHMMData(voiceName, maryBase, configFile);
+		if (htsData.getTreeDurStream() == null) {
+			throw new IllegalArgumentException("Voice " + voiceName + " has no text trees to convert -- is it already compiled?");
+		}
+		CompiledCartTreeSet.write(htsData.getCartTreeSet(), htsData.getFeatureDefinition(), outFile);
+		System.out.println("Wrote compiled models of voice " + voiceName + " to " + outFile);
+	}
+}
@@ -66,6 +66,7 @@ public class MaryHeader {
 	public final static int SCOST = 445;
 	public final static int PRECOMPUTED_JOINCOSTS = 450;
 	public final static int TIMELINE = 500;
+	public final static int HTS_MODELS = 600;
 
 	/* Private fields */
 	private int magic = MAGIC;
@@ -116,7 +117,7 @@ public class MaryHeader {
 	 *             if the input type is unknown.
 	 */
 	public MaryHeader(int newType) {
-		if ((newType > TIMELINE) || (newType < UNKNOWN)) {
+		if ((newType > HTS_MODELS) || (newType < UNKNOWN)) {
 			throw new IllegalArgumentException("Unauthorized Mary file type [" + type + "].");
 		}
 		type = newType;
@@ -257,7 +258,7 @@ public class MaryHeader {
 	}
 
 	private boolean hasLegalType() {
-		return (type <= TIMELINE) && (type > UNKNOWN);
+		return (type <= HTS_MODELS) && (type > UNKNOWN);
 	}
 
 	private boolean hasLegalMagic() {
@@ -95,27 +95,30 @@ public class Preprocess extends InternalModule {
 	protected final String yearRule;
 	private DateFormat df;
 
-	// Regex matching patterns
-	private static final Pattern moneyPattern;
-	private static final Pattern timePattern;
-	private static final Pattern durationPattern;
-	private static final Pattern abbrevPattern;
-	private static final Pattern acronymPattern;
-	private static final Pattern realNumPattern;
-	private static final Pattern numberWordPattern;
-	private static final Pattern datePattern;
-	private static final Pattern yearPattern;
-	private static final Pattern contractPattern;
-	private static final Pattern symbolsPattern;
-	private static final Pattern URLPattern;
-	private static final Pattern rangePattern;
-	private static final Pattern consonantPattern;
-	private static final Pattern punctuationPattern;
-	private static final Pattern myPunctPattern;
-	private static final Pattern hashtagPattern;
-	private static final Pattern ordinalPattern;
-	private static final Pattern currencySymbPattern;
-	private static final Pattern numberSPattern;
+	// Regex matching patterns; package-private so that TokenClassifier can combine them
+	static final Pattern moneyPattern;
+	static final Pattern timePattern;
+	static final Pattern durationPattern;
+	static final Pattern abbrevPattern;
+	static final Pattern acronymPattern;
+	static final Pattern realNumPattern;
+	static final Pattern numberWordPattern;
+	static final Pattern datePattern;
+	static final Pattern yearPattern;
+	static final Pattern contractPattern;
+	static final Pattern symbolsPattern;
+	static final Pattern URLPattern;
+	static final Pattern rangePattern;
+	static final Pattern consonantPattern;
+	static final Pattern punctuationPattern;
+	static final Pattern myPunctPattern;
+	static final Pattern hashtagPattern;
+	static final Pattern ordinalPattern;
+	static final Pattern currencySymbPattern;
+	static final Pattern numberSPattern;
+	private static final Pattern commaNumberPattern;
+	private static final Pattern fourDigitsPattern;
+	private static final Pattern amPmPattern;
 
 	// Regex initialization
 	static {
@@ -140,6 +143,9 @@ public class Preprocess extends InternalModule {
 		numberSPattern = Pattern.compile("([0-9]+)([sS])");
 		myPunctPattern = Pattern.compile(",\\.:;?'\"");
 		hashtagPattern = Pattern.compile("(#)(\\w+)");
+		commaNumberPattern = Pattern.compile("[\\$|£|€]?\\d+,[\\d,]+");
+		fourDigitsPattern = Pattern.compile("\\d{4}");
+		amPmPattern = Pattern.compile("a\\.m\\.|AM|PM|am|pm|p\\.m\\.");
 		URLPattern = Pattern
 				.compile("(https?:\\/\\/)?((www\\.)?([-a-zA-Z0-9@:%._\\\\+~#=]{2,256}\\.[a-z]{2,6}\\b([-a-zA-Z0-9@:%_\\\\+.~#?&\\/=]*)))");
 	}
@@ -212,6 +218,7 @@ public class Preprocess extends InternalModule {
 		boolean splitContraction;
 		TreeWalker tw = ((DocumentTraversal) doc).createTreeWalker(doc, NodeFilter.SHOW_ELEMENT,
 				new NameNodeFilter(MaryXML.TOKEN), false);
+		TokenClassifier classifier = new TokenClassifier(abbrevMap);
 		Element t = null;
 
 		// loop through each node in dom tree
@@ -236,72 +243,84 @@ public class Preprocess extends InternalModule {
 
 			// save the original token text
 			String origText = MaryDomUtils.tokenText(t);
+			String text = origText;
 
 			// remove commas
-			if (MaryDomUtils.tokenText(t).matches("[\\$|£|€]?\\d+,[\\d,]+")) {
-				MaryDomUtils.setTokenText(t, MaryDomUtils.tokenText(t).replaceAll(",", ""));
+			if (commaNumberPattern.matcher(text).matches()) {
+				MaryDomUtils.setTokenText(t, text.replaceAll(",", ""));
+				text = MaryDomUtils.tokenText(t);
 				// presume that a 4 digit number which had commas is not a year
-				if (MaryDomUtils.tokenText(t).matches("\\d{4}")) {
+				if (fourDigitsPattern.matcher(text).matches()) {
 					isYear = false;
 				}
 			}
 			// isYear extra check
-			if (MaryDomUtils.tokenText(t).matches("\\d{4}") && !whichCurrency.equals("")) {
+			if (!whichCurrency.equals("") && fourDigitsPattern.matcher(text).matches()) {
 				isYear = false;
 			}
 
 			// check if currency
-			if (MaryDomUtils.tokenText(t).matches(currencySymbPattern.pattern())) {
-				whichCurrency = MaryDomUtils.tokenText(t);
+			if (currencySymbPattern.matcher(text).matches()) {
+				whichCurrency = text;
 			}
 
 			/*
 			 * ACTUAL PROCESSING
 			 */
 
-			// ordinal
-			if (MaryDomUtils.tokenText(t).matches("(?i)" + ordinalPattern.pattern())) {
-				String matched = MaryDomUtils.tokenText(t).split("(?i)st|nd|rd|th")[0];
+			switch (classifier.classify(text, isYear, isURL)) {
+			case ORDINAL:
+				String matched = text.split("(?i)st|nd|rd|th")[0];
 				MaryDomUtils.setTokenText(t, expandOrdinal(Double.parseDouble(matched)));
-				// single a or A character
-			} else if (MaryDomUtils.tokenText(t).matches("[aA]")) {
+				break;
+			// single a or A character
+			case SINGLE_A:
 				Element checkNextNode = MaryDomUtils.getNextSiblingElement((Element) t);
-				if (checkNextNode == null || MaryDomUtils.tokenText(checkNextNode).matches(myPunctPattern.pattern())
-						|| MaryDomUtils.tokenText(checkNextNode).length() == 1) {
+				if (checkNextNode == null) {
 					MaryDomUtils.setTokenText(t, "_a");
+				} else {
+					String nextText = MaryDomUtils.tokenText(checkNextNode);
+					if (myPunctPattern.matcher(nextText).matches() || nextText.length() == 1) {
+						MaryDomUtils.setTokenText(t, "_a");
+					}
 				}
-				// date
-			} else if (MaryDomUtils.tokenText(t).matches(datePattern.pattern())) {
-				MaryDomUtils.setTokenText(t, expandDate(MaryDomUtils.tokenText(t)));
-				// number followed by s
-			} else if (MaryDomUtils.tokenText(t).matches(numberSPattern.pattern())) {
-				MaryDomUtils.setTokenText(t, expandNumberS(MaryDomUtils.tokenText(t)));
-				// year with bc or ad
-			} else if (MaryDomUtils.tokenText(t).matches("(?i)" + yearPattern.pattern())) {
-				MaryDomUtils.setTokenText(t, expandYearBCAD(MaryDomUtils.tokenText(t)));
-				// year as just 4 digits &rarr; this should always be checked BEFORE real number
-			} else if (MaryDomUtils.tokenText(t).matches("\\d{4}") && isYear == true) {
-				MaryDomUtils.setTokenText(t, expandYear(Double.parseDouble(MaryDomUtils.tokenText(t))));
-				// wordAndNumber &rarr; must come AFTER year
-			} else if (MaryDomUtils.tokenText(t).matches(numberWordPattern.pattern())) {
-				MaryDomUtils.setTokenText(t, expandWordNumber(MaryDomUtils.tokenText(t)));
-				// real number & currency
-			} else if (MaryDomUtils.tokenText(t).matches(realNumPattern.pattern())) {
+				break;
+			case DATE:
+				MaryDomUtils.setTokenText(t, expandDate(text));
+				break;
+			// number followed by s
+			case NUMBER_S:
+				MaryDomUtils.setTokenText(t, expandNumberS(text));
+				break;
+			// year with bc or ad
+			case YEAR_BCAD:
+				MaryDomUtils.setTokenText(t, expandYearBCAD(text));
+				break;
+			// year as just 4 digits &rarr; this is always checked BEFORE real number
+			case YEAR:
+				MaryDomUtils.setTokenText(t, expandYear(Double.parseDouble(text)));
+				break;
+			// wordAndNumber &rarr; comes AFTER year
+			case NUMBER_WORD:
+				MaryDomUtils.setTokenText(t, expandWordNumber(text));
+				break;
+			// real number & currency
+			case REAL_NUMBER:
 				if (!whichCurrency.equals("")) {
-					MaryDomUtils.setTokenText(t, expandMoney(MaryDomUtils.tokenText(t), whichCurrency));
+					MaryDomUtils.setTokenText(t, expandMoney(text, whichCurrency));
 					whichCurrency = "";
 				} else {
-					MaryDomUtils.setTokenText(t, expandRealNumber(MaryDomUtils.tokenText(t)));
+					MaryDomUtils.setTokenText(t, expandRealNumber(text));
 				}
-				// contractions
-			} else if (MaryDomUtils.tokenText(t).matches(contractPattern.pattern())) {
+				break;
+			case CONTRACTION:
 				// first check lexicon
-				if (MaryRuntimeUtils.checkLexicon("en_US", MaryDomUtils.tokenText(t)).length == 0) {
-					Matcher contractionMatch = contractPattern.matcher(MaryDomUtils.tokenText(t));
+				if (MaryRuntimeUtils.checkLexicon("en_US", text).length == 0) {
+					Matcher contractionMatch = contractPattern.matcher(text);
 					contractionMatch.find();
 					// if no contraction we allow g2p rules to handle
 					if (!contractions.containsKey(contractionMatch.group(1))) {
-						MaryDomUtils.setTokenText(t, MaryDomUtils.tokenText(t).replaceAll("'", ""));
+						MaryDomUtils.setTokenText(t, text.replaceAll("'", ""));
 					}
 
 					// FIXME: we do not want to have to phonological word => for now we do not split !
@@ -312,57 +331,59 @@ public class Preprocess extends InternalModule {
 					// MaryDomUtils.setTokenText(t, splitContraction(MaryDomUtils.tokenText(t)));
 					// }
 				}
-				// acronym
-			} else if (MaryDomUtils.tokenText(t).matches(acronymPattern.pattern())) {
-				MaryDomUtils.setTokenText(t, expandAcronym(MaryDomUtils.tokenText(t)));
-				// abbreviation
-			} else if ((MaryDomUtils.tokenText(t).matches(abbrevPattern.pattern()) || this.abbrevMap.containsKey(MaryDomUtils
-					.tokenText(t).toLowerCase())) && !isURL) {
+				break;
+			case ACRONYM:
+				MaryDomUtils.setTokenText(t, expandAcronym(text));
+				break;
+			case ABBREVIATION:
 				Element testAbbNode = MaryDomUtils.getNextSiblingElement((Element) t);
 				boolean nextTokenIsCapital = false;
 				if (testAbbNode != null && Character.isUpperCase(MaryDomUtils.tokenText(testAbbNode).charAt(0))) {
 					nextTokenIsCapital = true;
 				}
-				MaryDomUtils.setTokenText(t, expandAbbreviation(MaryDomUtils.tokenText(t), nextTokenIsCapital));
-				// time
-			} else if (MaryDomUtils.tokenText(t).matches("(?i)" + timePattern.pattern())) {
+				MaryDomUtils.setTokenText(t, expandAbbreviation(text, nextTokenIsCapital));
+				break;
+			case TIME:
 				Element testTimeNode = MaryDomUtils.getNextSiblingElement((Element) t);
 				boolean nextTokenIsTime = false;
-				if (testTimeNode != null && MaryDomUtils.tokenText(testTimeNode).matches("a\\.m\\.|AM|PM|am|pm|p\\.m\\.")) {
+				if (testTimeNode != null && amPmPattern.matcher(MaryDomUtils.tokenText(testTimeNode)).matches()) {
 					nextTokenIsTime = true;
 				}
-				MaryDomUtils.setTokenText(t, expandTime(MaryDomUtils.tokenText(t), nextTokenIsTime));
-				// duration
-			} else if (MaryDomUtils.tokenText(t).matches(durationPattern.pattern())) {
-				MaryDomUtils.setTokenText(t, expandDuration(MaryDomUtils.tokenText(t)));
-				// hashtags
-			} else if (MaryDomUtils.tokenText(t).matches(hashtagPattern.pattern())) {
-				MaryDomUtils.setTokenText(t, expandHashtag(MaryDomUtils.tokenText(t)));
-				// URLs
-			} else if (MaryDomUtils.tokenText(t).matches(URLPattern.pattern())) {
+				MaryDomUtils.setTokenText(t, expandTime(text, nextTokenIsTime));
+				break;
+			case DURATION:
+				MaryDomUtils.setTokenText(t, expandDuration(text));
+				break;
+			case HASHTAG:
+				MaryDomUtils.setTokenText(t, expandHashtag(text));
+				break;
+			case URL:
 				// matching group 2 contains the chunk we want
-				Matcher urlMatcher = URLPattern.matcher(MaryDomUtils.tokenText(t));
+				Matcher urlMatcher = URLPattern.matcher(text);
 				urlMatcher.find();
-				webEmailTemp = MaryDomUtils.tokenText(t);
+				webEmailTemp = text;
 				isURL = true;
 				MaryDomUtils.setTokenText(t, expandURL(urlMatcher.group(2)));
-				// dot . for web and email addresses
-			} else if (MaryDomUtils.tokenText(t).equals(".") && isURL) {
+				break;
+			// dot . for web and email addresses
+			case URL_DOT:
 				MaryDomUtils.setTokenText(t, "dot");
 				webEmailTemp = webEmailTemp.replaceFirst("\\.", "dot");
 				if (!webEmailTemp.contains(".")) {
 					isURL = false;
 				}
-				// symbols
-			} else if (MaryDomUtils.tokenText(t).matches(symbolsPattern.pattern())) {
-				MaryDomUtils.setTokenText(t, symbols.get(MaryDomUtils.tokenText(t)));
-				// number ranges &rarr; before checking for dashes
-			} else if (MaryDomUtils.tokenText(t).matches(rangePattern.pattern())) {
-				MaryDomUtils.setTokenText(t, expandRange(MaryDomUtils.tokenText(t)));
-				// dashes and underscores
-			} else if (MaryDomUtils.tokenText(t).contains("-") || MaryDomUtils.tokenText(t).contains("_")) {
+				break;
+			case SYMBOL:
+				MaryDomUtils.setTokenText(t, symbols.get(text));
+				break;
+			// number ranges &rarr; before checking for dashes
+			case RANGE:
+				MaryDomUtils.setTokenText(t, expandRange(text));
+				break;
+			// dashes and underscores
+			case DASH:
 				dashSplit = true;
-				String[] tokens = MaryDomUtils.tokenText(t).split("[-_]");
+				String[] tokens = text.split("[-_]");
 				int i = 0;
 				for (String tok : tokens) {
 					if (tok.matches("\\d+")) {
@@ -375,21 +396,28 @@ public class Preprocess extends InternalModule {
 					i++;
 				}
 				MaryDomUtils.setTokenText(t, Arrays.toString(tokens).replaceAll("[,\\]\\[]", ""));
-				// words containing only consonants
-			} else if (MaryDomUtils.tokenText(t).matches("(?i)" + consonantPattern.pattern())) {
+				break;
+			// words containing only consonants
+			case CONSONANTS:
 				// first check lexicon
-				if (MaryRuntimeUtils.checkLexicon("en_US", MaryDomUtils.tokenText(t)).length == 0) {
-					MaryDomUtils.setTokenText(t, expandConsonants(MaryDomUtils.tokenText(t)));
+				if (MaryRuntimeUtils.checkLexicon("en_US", text).length == 0) {
+					MaryDomUtils.setTokenText(t, expandConsonants(text));
 				}
-				// a final attempt to split by punctuation
-			} else if (punctuationPattern.matcher(MaryDomUtils.tokenText(t)).find() && MaryDomUtils.tokenText(t).length() > 1) {
+				break;
+			// a final attempt to split by punctuation
+			case PUNCTUATION_SPLIT:
 				puncSplit = true;
-				String[] puncTokens = MaryDomUtils.tokenText(t).split("((?<=\\p{Punct})|(?=\\p{Punct}))");
+				String[] puncTokens = text.split("((?<=\\p{Punct})|(?=\\p{Punct}))");
 				MaryDomUtils.setTokenText(t, Arrays.toString(puncTokens).replaceAll("[,\\]\\[]", ""));
-				// FIXME: skip quotes for now as we don't have any clever management of the POS for the prosodic feature
-			} else if (MaryDomUtils.tokenText(t).equals("\"")) {
-			} else if (MaryDomUtils.tokenText(t).matches(punctuationPattern.pattern())) {
+				break;
+			// FIXME: skip quotes for now as we don't have any clever management of the POS for the prosodic feature
+			case QUOTE:
+				break;
+			case PUNCTUATION:
 				t.setAttribute("pos", ".");
+				break;
+			default:
+				break;
 			}
 			// if token isn't ignored but there is no handling rule don't add MTU
 			if (!origText.equals(MaryDomUtils.tokenText(t))) {
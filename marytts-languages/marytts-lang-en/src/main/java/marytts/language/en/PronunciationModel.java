@@ -93,10 +93,9 @@ public class PronunciationModel extends marytts.modules.PronunciationModel {
 	}
 
 	private void prependSchwa(Element currentSegment) {
-		Element syllable = (Element) currentSegment.getParentNode();
-		assert syllable != null;
-		Element schwa = MaryXML.createElement(syllable.getOwnerDocument(), MaryXML.PHONE);
+		assert currentSegment.getParentNode() != null;
+		Element schwa = MaryXML.createElement(currentSegment.getOwnerDocument(), MaryXML.PHONE);
 		schwa.setAttribute("p", "@");
-		syllable.insertBefore(schwa, currentSegment);
+		insertPhoneBefore(schwa, currentSegment);
 	}
 }
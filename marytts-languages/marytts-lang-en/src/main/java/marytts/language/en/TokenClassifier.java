@@ -0,0 +1,191 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.language.en;
+
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Decides which of the expansion rules of {@link Preprocess} applies to a token.
+ * <p>
+ * The rules are tried in a fixed order and the first one that applies wins. All regular expression rules are compiled once
+ * into a single alternation, so that in the common case a token is classified by one call to {@link Matcher#matches()}; the
+ * few rules that depend on context (a four-digit number that must not be read as a year, abbreviations inside a URL) are
+ * re-checked one by one only when the first match is ruled out.
+ * <p>
+ * The Matchers are reused between calls, so an instance must only be used by one thread at a time.
+ *
+ * @author agent
+ */
+public class TokenClassifier {
+
+	/**
+	 * The kinds of token known to {@link Preprocess}, in the order in which they are tried.
+	 */
+	public enum TokenType {
+		ORDINAL("(?i:" + Preprocess.ordinalPattern.pattern() + ")"),
+		SINGLE_A("[aA]"),
+		DATE(Preprocess.datePattern.pattern()),
+		NUMBER_S(Preprocess.numberSPattern.pattern()),
+		YEAR_BCAD("(?i:" + Preprocess.yearPattern.pattern() + ")"),
+		/** a four-digit number; only applies where a year is allowed */
+		YEAR("\\d{4}"),
+		NUMBER_WORD(Preprocess.numberWordPattern.pattern()),
+		REAL_NUMBER(Preprocess.realNumPattern.pattern()),
+		CONTRACTION(Preprocess.contractPattern.pattern()),
+		ACRONYM(Preprocess.acronymPattern.pattern()),
+		/** matches the abbreviation pattern or is a known abbreviation; does not apply inside a URL */
+		ABBREVIATION(Preprocess.abbrevPattern.pattern()),
+		TIME("(?i:" + Preprocess.timePattern.pattern() + ")"),
+		DURATION(Preprocess.durationPattern.pattern()),
+		HASHTAG(Preprocess.hashtagPattern.pattern()),
+		URL(Preprocess.URLPattern.pattern()),
+		/** a dot inside a URL */
+		URL_DOT(null),
+		SYMBOL(Preprocess.symbolsPattern.pattern()),
+		RANGE(Preprocess.rangePattern.pattern()),
+		/** contains dashes or underscores */
+		DASH(null),
+		CONSONANTS("(?i:" + Preprocess.consonantPattern.pattern() + ")"),
+		/** longer than one character and containing punctuation */
+		PUNCTUATION_SPLIT(null),
+		QUOTE(null),
+		PUNCTUATION(Preprocess.punctuationPattern.pattern()),
+		/** none of the above */
+		OTHER(null);
+
+		private final String regex;
+
+		private TokenType(String regex) {
+			this.regex = regex;
+		}
+	}
+
+	private static final TokenType[] TYPES = TokenType.values();
+	private static final Pattern combinedPattern;
+	// groupOfType[type.ordinal()] is the group in combinedPattern that encloses the type's regex, or -1
+	private static final int[] groupOfType = new int[TYPES.length];
+	private static final Pattern[] typePatterns = new Pattern[TYPES.length];
+
+	static {
+		StringBuilder combined = new StringBuilder();
+		int group = 1;
+		for (TokenType type : TYPES) {
+			if (type.regex == null) {
+				groupOfType[type.ordinal()] = -1;
+				continue;
+			}
+			typePatterns[type.ordinal()] = Pattern.compile(type.regex);
+			if (combined.length() > 0) {
+				combined.append('|');
+			}
+			combined.append('(').append(type.regex).append(')');
+			groupOfType[type.ordinal()] = group;
+			group += 1 + typePatterns[type.ordinal()].matcher("").groupCount();
+		}
+		combinedPattern = Pattern.compile(combined.toString());
+	}
+
+	private final Map<Object, Object> abbrevMap;
+	private final Matcher combinedMatcher = combinedPattern.matcher("");
+	private final Matcher[] typeMatchers = new Matcher[TYPES.length];
+	private final Matcher punctuationMatcher = Preprocess.punctuationPattern.matcher("");
+
+	/**
+	 * @param abbrevMap
+	 *            the known abbreviations, with lower-case keys; may be null
+	 */
+	public TokenClassifier(Map<Object, Object> abbrevMap) {
+		this.abbrevMap = abbrevMap;
+	}
+
+	/**
+	 * Find the first rule that applies to the given token text.
+	 *
+	 * @param text
+	 *            the token text
+	 * @param yearAllowed
+	 *            whether a four-digit number may be read as a year
+	 * @param inURL
+	 *            whether the token is part of a URL or e-mail address
+	 * @return the type of the token, {@link TokenType#OTHER} if no rule applies.
+	 */
+	public TokenType classify(String text, boolean yearAllowed, boolean inURL) {
+		TokenType first = null;
+		if (combinedMatcher.reset(text).matches()) {
+			for (TokenType type : TYPES) {
+				int group = groupOfType[type.ordinal()];
+				if (group >= 0 && combinedMatcher.start(group) >= 0) {
+					first = type;
+					break;
+				}
+			}
+		}
+		// As long as exact is true, first is known to be the first regular expression rule that matches
+		boolean exact = true;
+		for (TokenType type : TYPES) {
+			boolean applies;
+			switch (type) {
+			case URL_DOT:
+				applies = inURL && text.equals(".");
+				break;
+			case DASH:
+				applies = text.indexOf('-') >= 0 || text.indexOf('_') >= 0;
+				break;
+			case PUNCTUATION_SPLIT:
+				applies = text.length() > 1 && punctuationMatcher.reset(text).find();
+				break;
+			case QUOTE:
+				applies = text.equals("\"");
+				break;
+			case OTHER:
+				return type;
+			default:
+				boolean matches = exact ? type == first : matches(type, text);
+				if (type == TokenType.ABBREVIATION && !matches && abbrevMap != null) {
+					matches = abbrevMap.containsKey(text.toLowerCase());
+				}
+				if (!matches) {
+					continue;
+				}
+				applies = (type != TokenType.YEAR || yearAllowed) && (type != TokenType.ABBREVIATION || !inURL);
+				if (!applies) {
+					exact = false;
+				}
+			}
+			if (applies) {
+				return type;
+			}
+		}
+		return TokenType.OTHER;
+	}
+
+	private boolean matches(TokenType type, String text) {
+		Matcher m = typeMatchers[type.ordinal()];
+		if (m == null) {
+			m = typePatterns[type.ordinal()].matcher(text);
+			typeMatchers[type.ordinal()] = m;
+		} else {
+			m.reset(text);
+		}
+		return m.matches();
+	}
+}
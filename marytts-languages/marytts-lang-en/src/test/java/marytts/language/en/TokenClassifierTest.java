@@ -0,0 +1,90 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.language.en;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import marytts.language.en.TokenClassifier.TokenType;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class TokenClassifierTest {
+
+	private TokenClassifier classifier;
+
+	@BeforeClass
+	public void setUp() {
+		Map<Object, Object> abbrevMap = new HashMap<Object, Object>();
+		abbrevMap.put("mrs", "missus");
+		classifier = new TokenClassifier(abbrevMap);
+	}
+
+	@DataProvider(name = "tokenTypes")
+	private Object[][] tokenTypes() {
+		// @formatter:off
+		return new Object[][] { { "22nd", TokenType.ORDINAL },
+								{ "a", TokenType.SINGLE_A },
+								{ "06/29/1993", TokenType.DATE },
+								{ "1960s", TokenType.NUMBER_S },
+								{ "300BC", TokenType.YEAR_BCAD },
+								{ "1999", TokenType.YEAR },
+								{ "123abc", TokenType.NUMBER_WORD },
+								{ "-2.5", TokenType.REAL_NUMBER },
+								{ "don't", TokenType.CONTRACTION },
+								{ "U.S.", TokenType.ACRONYM },
+								{ "Mr.", TokenType.ABBREVIATION },
+								{ "mrs", TokenType.ABBREVIATION },
+								{ "12:15pm", TokenType.TIME },
+								{ "1:02:03", TokenType.DURATION },
+								{ "#hello", TokenType.HASHTAG },
+								{ "http://example.com/x", TokenType.URL },
+								{ "@", TokenType.SYMBOL },
+								{ "18-35", TokenType.RANGE },
+								{ "well-known", TokenType.DASH },
+								{ "BBC", TokenType.CONSONANTS },
+								{ "x,y", TokenType.PUNCTUATION_SPLIT },
+								{ "\"", TokenType.QUOTE },
+								{ ",", TokenType.PUNCTUATION },
+								{ "hello", TokenType.OTHER } };
+		// @formatter:on
+	}
+
+	@Test(dataProvider = "tokenTypes")
+	public void testClassify(String token, TokenType expected) {
+		Assert.assertEquals(classifier.classify(token, true, false), expected);
+	}
+
+	@Test
+	public void testYearNotAllowed() {
+		// falls through to the next rule that matches
+		Assert.assertEquals(classifier.classify("1999", false, false), TokenType.REAL_NUMBER);
+	}
+
+	@Test
+	public void testInURL() {
+		Assert.assertEquals(classifier.classify(".", true, true), TokenType.URL_DOT);
+		Assert.assertEquals(classifier.classify(".", true, false), TokenType.PUNCTUATION);
+		Assert.assertEquals(classifier.classify("Mr.", true, true), TokenType.PUNCTUATION_SPLIT);
+	}
+}
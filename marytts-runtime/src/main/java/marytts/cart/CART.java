@@ -46,6 +46,9 @@ import marytts.unitselection.select.Target;
  */
 public class CART extends DirectedGraph {
 
+	// flat node tables used for interpretation once the tree is complete, see compile()
+	private volatile CompiledCART compiled;
+
 	/**
 	 * Build a new empty cart
 	 * 
@@ -90,6 +93,28 @@ public class CART extends DirectedGraph {
 		super(rootNode, featDef, properties);
 	}
 
+	/**
+	 * Compile this tree into flat node tables, which interpretToNode() and interpret() use from now on instead of walking the
+	 * node objects. Call this once the tree is complete: later changes to its nodes are not seen, except for replacing the root
+	 * node, which discards the compiled form.
+	 */
+	public void compile() {
+		compiled = new CompiledCART(rootNode);
+	}
+
+	/**
+	 * @return the compiled form of this tree, or null if {@link #compile()} has not been called
+	 */
+	public CompiledCART getCompiled() {
+		return compiled;
+	}
+
+	@Override
+	public void setRootNode(Node rNode) {
+		super.setRootNode(rNode);
+		compiled = null;
+	}
+
 	/**
 	 * Passes the given item through this CART and returns the leaf Node, or the Node it stopped walking down.
 	 * 
@@ -115,6 +140,10 @@ public class CART extends DirectedGraph {
 	 * @return the Node
 	 */
 	public Node interpretToNode(FeatureVector featureVector, int minNumberOfData) {
+		CompiledCART c = compiled;
+		if (c != null) {
+			return c.interpretToNode(featureVector, minNumberOfData);
+		}
 		Node currentNode = rootNode;
 		Node prevNode = null;
 
@@ -142,6 +171,37 @@ public class CART extends DirectedGraph {
 
 	}
 
+	/**
+	 * Passes each of the given feature vectors through this CART.
+	 * 
+	 * @param featureVectors
+	 *            the feature vectors
+	 * @param minNumberOfData
+	 *            the minimum number of data requested. If this is 0, walk down the CART until the leaf level.
+	 * @param result
+	 *            receives the Node for each feature vector; must be at least as long as featureVectors
+	 */
+	public void interpretToNodes(FeatureVector[] featureVectors, int minNumberOfData, Node[] result) {
+		CompiledCART c = compiled;
+		if (c != null) {
+			c.interpretToNodes(featureVectors, minNumberOfData, result);
+			return;
+		}
+		for (int i = 0; i < featureVectors.length; i++) {
+			result[i] = interpretToNode(featureVectors[i], minNumberOfData);
+		}
+	}
+
+	@Override
+	public Object interpret(FeatureVector fv) {
+		CompiledCART c = compiled;
+		if (c != null) {
+			Node leaf = c.interpretToLeaf(fv);
+			return leaf == null ? null : leaf.getAllData();
+		}
+		return super.interpret(fv);
+	}
+
 	/**
 	 * Passes the given item through this CART and returns the interpretation.
 	 * 
@@ -0,0 +1,237 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.cart;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import marytts.cart.DecisionNode.BinaryByteDecisionNode;
+import marytts.cart.DecisionNode.BinaryFloatDecisionNode;
+import marytts.cart.DecisionNode.BinaryShortDecisionNode;
+import marytts.cart.DecisionNode.ByteDecisionNode;
+import marytts.cart.DecisionNode.ShortDecisionNode;
+import marytts.features.FeatureVector;
+
+/**
+ * A CART compiled into flat node tables, for interpretation without walking the node objects. Node i has a kind, a feature
+ * index, a criterion value, the number of data below it, and its children at children[firstChild[i]] to
+ * children[firstChild[i+1]-1], where -1 stands for a missing daughter. The root is node 0. The original nodes are kept so that
+ * the interpretation returns the same Node objects as {@link CART#interpretToNode(FeatureVector, int)}.
+ * <p>
+ * The tables are a snapshot of the tree at compile time; changes to the nodes made afterwards are not seen. Instances are
+ * immutable and can be used by several threads.
+ * 
+ * @author agent
+ * @see CART#compile()
+ */
+public class CompiledCART {
+	private static final int NONE = -1;
+
+	private static final byte LEAF = 0;
+	private static final byte BINARY_BYTE = 1;
+	private static final byte BINARY_SHORT = 2;
+	private static final byte BINARY_FLOAT = 3;
+	private static final byte BINARY_BYTE_AS_FLOAT = 4;
+	private static final byte BYTE = 5;
+	private static final byte SHORT = 6;
+
+	private final byte[] kind;
+	private final int[] feature;
+	private final int[] value;
+	private final float[] threshold;
+	private final int[] numData;
+	private final int[] firstChild;
+	private final int[] children;
+	private final Node[] nodes;
+
+	/**
+	 * Compile the tree below the given root node.
+	 * 
+	 * @param rootNode
+	 *            the root node, or null for an empty tree
+	 * @throws IllegalArgumentException
+	 *             if the tree contains nodes other than the decision nodes and leaves of {@link DecisionNode} and
+	 *             {@link LeafNode}
+	 */
+	public CompiledCART(Node rootNode) {
+		List<Node> order = new ArrayList<Node>();
+		Map<Node, Integer> index = new IdentityHashMap<Node, Integer>();
+		if (rootNode != null) {
+			// breadth first, so that the upper levels, visited by every lookup, are close together
+			order.add(rootNode);
+			index.put(rootNode, 0);
+			for (int i = 0; i < order.size(); i++) {
+				Node node = order.get(i);
+				if (node instanceof DecisionNode) {
+					for (Node daughter : ((DecisionNode) node).daughters) {
+						if (daughter != null && !index.containsKey(daughter)) {
+							index.put(daughter, order.size());
+							order.add(daughter);
+						}
+					}
+				}
+			}
+		}
+		int n = order.size();
+		kind = new byte[n];
+		feature = new int[n];
+		value = new int[n];
+		threshold = new float[n];
+		numData = new int[n];
+		firstChild = new int[n + 1];
+		nodes = order.toArray(new Node[n]);
+		int numChildren = 0;
+		for (Node node : nodes) {
+			if (node instanceof DecisionNode) {
+				numChildren += ((DecisionNode) node).daughters.length;
+			}
+		}
+		children = new int[numChildren];
+
+		int c = 0;
+		for (int i = 0; i < n; i++) {
+			Node node = nodes[i];
+			numData[i] = node.getNumberOfData();
+			firstChild[i] = c;
+			if (node instanceof LeafNode) {
+				kind[i] = LEAF;
+				continue;
+			}
+			if (!(node instanceof DecisionNode)) {
+				throw new IllegalArgumentException("Cannot compile CART node of type " + node.getClass().getName());
+			}
+			DecisionNode decision = (DecisionNode) node;
+			feature[i] = decision.getFeatureIndex();
+			if (decision instanceof BinaryByteDecisionNode) {
+				kind[i] = BINARY_BYTE;
+				value[i] = ((BinaryByteDecisionNode) decision).getCriterionValueAsByte();
+			} else if (decision instanceof BinaryShortDecisionNode) {
+				kind[i] = BINARY_SHORT;
+				value[i] = ((BinaryShortDecisionNode) decision).getCriterionValueAsShort();
+			} else if (decision instanceof BinaryFloatDecisionNode) {
+				boolean byteFeature = decision.getFeatureDefinition().isByteFeature(feature[i]);
+				kind[i] = byteFeature ? BINARY_BYTE_AS_FLOAT : BINARY_FLOAT;
+				threshold[i] = ((BinaryFloatDecisionNode) decision).getCriterionValueAsFloat();
+			} else if (decision instanceof ByteDecisionNode) {
+				kind[i] = BYTE;
+			} else if (decision instanceof ShortDecisionNode) {
+				kind[i] = SHORT;
+			} else {
+				throw new IllegalArgumentException("Cannot compile CART node of type " + node.getClass().getName());
+			}
+			for (Node daughter : decision.daughters) {
+				children[c++] = (daughter == null) ? NONE : index.get(daughter);
+			}
+		}
+		firstChild[n] = c;
+	}
+
+	/**
+	 * The number of nodes in the compiled tree.
+	 * 
+	 * @return the number of decision and leaf nodes
+	 */
+	public int getNumberOfNodes() {
+		return nodes.length;
+	}
+
+	/**
+	 * Passes the given feature vector through the tree, exactly like {@link CART#interpretToNode(FeatureVector, int)}.
+	 * 
+	 * @param featureVector
+	 *            the feature vector
+	 * @param minNumberOfData
+	 *            the minimum number of data requested. If this is 0, walk down the tree until the leaf level.
+	 * @return the Node, or null for an empty tree
+	 */
+	public Node interpretToNode(FeatureVector featureVector, int minNumberOfData) {
+		int current = nodes.length > 0 ? 0 : NONE;
+		int previous = NONE;
+		while (current != NONE && numData[current] > minNumberOfData && kind[current] != LEAF) {
+			previous = current;
+			current = next(current, featureVector);
+		}
+		// Now usually we will have gone down one level too far
+		if (current == NONE || numData[current] < minNumberOfData && previous != NONE) {
+			current = previous;
+		}
+		return current == NONE ? null : nodes[current];
+	}
+
+	/**
+	 * Passes each of the given feature vectors through the tree.
+	 * 
+	 * @param featureVectors
+	 *            the feature vectors
+	 * @param minNumberOfData
+	 *            the minimum number of data requested
+	 * @param result
+	 *            receives the node for each feature vector; must be at least as long as featureVectors
+	 * @see #interpretToNode(FeatureVector, int)
+	 */
+	public void interpretToNodes(FeatureVector[] featureVectors, int minNumberOfData, Node[] result) {
+		for (int i = 0; i < featureVectors.length; i++) {
+			result[i] = interpretToNode(featureVectors[i], minNumberOfData);
+		}
+	}
+
+	/**
+	 * Walk down the tree as far as possible, like {@link DirectedGraph#interpret(FeatureVector)}.
+	 * 
+	 * @param featureVector
+	 *            the feature vector
+	 * @return the leaf reached, or null if the path ends in a missing daughter
+	 */
+	public Node interpretToLeaf(FeatureVector featureVector) {
+		int current = nodes.length > 0 ? 0 : NONE;
+		while (current != NONE && kind[current] != LEAF) {
+			current = next(current, featureVector);
+		}
+		return current == NONE ? null : nodes[current];
+	}
+
+	private int next(int node, FeatureVector featureVector) {
+		int first = firstChild[node];
+		switch (kind[node]) {
+		case BINARY_BYTE:
+			return children[featureVector.getByteFeature(feature[node]) == value[node] ? first : first + 1];
+		case BINARY_SHORT:
+			return children[featureVector.getShortFeature(feature[node]) == value[node] ? first : first + 1];
+		case BINARY_FLOAT:
+			return children[featureVector.getContinuousFeature(feature[node]) < threshold[node] ? first : first + 1];
+		case BINARY_BYTE_AS_FLOAT:
+			return children[featureVector.getByteFeature(feature[node]) < threshold[node] ? first : first + 1];
+		case BYTE:
+			return child(node, featureVector.getByteFeature(feature[node]));
+		default:
+			return child(node, featureVector.getShortFeature(feature[node]));
+		}
+	}
+
+	private int child(int node, int daughterIndex) {
+		int c = firstChild[node] + daughterIndex;
+		if (daughterIndex < 0 || c >= firstChild[node + 1]) {
+			throw new ArrayIndexOutOfBoundsException(daughterIndex);
+		}
+		return children[c];
+	}
+}
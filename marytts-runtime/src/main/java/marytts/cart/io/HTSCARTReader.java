@@ -176,6 +176,10 @@ public class HTSCARTReader {
 			throw new IOException("LoadTreeSet: error no trees loaded");
 		}
 
+		// the trees are complete, interpret them from flat tables from now on
+		for (i = 0; i < numStates; i++)
+			treeSet[i].compile();
+
 		return treeSet;
 
 	}
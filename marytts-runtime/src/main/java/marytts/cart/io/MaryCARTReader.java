@@ -73,7 +73,7 @@ public class MaryCARTReader {
 	 *             if a problem occurs while loading
 	 * @throws MaryConfigurationException
 	 *             MaryConfigurationException
-	 * @return CART(rootNode, featureDefinition, props)
+	 * @return CART(rootNode, featureDefinition, props), compiled for interpretation (see {@link CART#compile()})
 	 */
 	public CART loadFromStream(InputStream inStream) throws IOException, MaryConfigurationException {
 		// open the CART-File and read the header
@@ -226,7 +226,9 @@ public class MaryCARTReader {
 		}
 
 		// set the rootNode as the rootNode of cart
-		return new CART(rootNode, featureDefinition, props);
+		CART cart = new CART(rootNode, featureDefinition, props);
+		cart.compile();
+		return cart;
 	}
 
 	/**
@@ -395,6 +397,8 @@ public class MaryCARTReader {
 		}
 
 		// set the rootNode as the rootNode of cart
-		return new CART(rootNode, featureDefinition, props);
+		CART cart = new CART(rootNode, featureDefinition, props);
+		cart.compile();
+		return cart;
 	}
 }
@@ -0,0 +1,436 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.datatypes;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import marytts.server.MaryProperties;
+import marytts.util.string.StringUtils;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Typed values of the acoustic parameters of the segments in one MaryXML document: the duration (<code>d</code>, in
+ * milliseconds) and end time (<code>end</code>, in seconds) of each <code>ph</code> element, and its F0 targets (
+ * <code>f0</code>, pairs of position in percent and F0 in Hz).
+ * <p>
+ * The acoustic modules write these values, and the acoustic modules and synthesizers read them; the store spares them from
+ * formatting numbers into attribute strings and parsing them back. This is only done if the property
+ * <code>maryxml.acoustparams.lazy</code> is true: then writers only set the typed values, which are held in primitive arrays
+ * indexed by the order in which segments were first written, in a store attached to the document as user data. The typed
+ * values win over the attributes until they are written into the attributes by {@link #serialize(Document)}, which happens
+ * before the document is written out or handed to a module which does not read the store; after that, the attributes are
+ * authoritative again. Code which sets one of the attributes directly while typed values may be pending must call
+ * {@link #serialize(Element)} first.
+ * <p>
+ * By default, writers set the attributes only, no store is attached to the document, and readers parse the attributes.
+ */
+public class AcousticParameters {
+	public static final String DURATION = "d";
+	public static final String END = "end";
+	public static final String F0 = "f0";
+
+	private static final String USER_DATA_KEY = "marytts.datatypes.AcousticParameters";
+	private static final int DURATION_BIT = 1;
+	private static final int END_BIT = 2;
+	private static final int F0_BIT = 4;
+	private static final int[] NO_TARGETS = new int[0];
+	private static final AcousticParameters EAGER = new AcousticParameters(null);
+
+	/**
+	 * Get the store of the given document, creating it if necessary.
+	 * 
+	 * @param doc
+	 *            doc
+	 * @return the store attached to the document if acoustic parameters are written lazily, or else a store which keeps no
+	 *         values.
+	 */
+	public static AcousticParameters forDocument(Document doc) {
+		AcousticParameters params = (AcousticParameters) doc.getUserData(USER_DATA_KEY);
+		if (params == null) {
+			if (!MaryProperties.getBoolean("maryxml.acoustparams.lazy", false)) {
+				return EAGER;
+			}
+			params = new AcousticParameters(doc);
+			doc.setUserData(USER_DATA_KEY, params, null);
+		}
+		return params;
+	}
+
+	private static AcousticParameters storeOf(Element e) {
+		Document doc = e.getOwnerDocument();
+		return doc == null ? null : (AcousticParameters) doc.getUserData(USER_DATA_KEY);
+	}
+
+	/**
+	 * The duration of the segment, in milliseconds.
+	 * 
+	 * @param e
+	 *            a ph element
+	 * @return the typed duration if known, or else the value of the <code>d</code> attribute, or NaN if there is none.
+	 */
+	public static double getDuration(Element e) {
+		AcousticParameters params = storeOf(e);
+		if (params != null) {
+			synchronized (params) {
+				int index = params.indexOf(e, DURATION_BIT);
+				if (index >= 0) {
+					return params.durations[index];
+				}
+			}
+		}
+		return parseDouble(e.getAttribute(DURATION));
+	}
+
+	/**
+	 * The end time of the segment, in seconds.
+	 * 
+	 * @param e
+	 *            a ph element
+	 * @return the typed end time if known, or else the value of the <code>end</code> attribute, or NaN if there is none.
+	 */
+	public static double getEnd(Element e) {
+		AcousticParameters params = storeOf(e);
+		if (params != null) {
+			synchronized (params) {
+				int index = params.indexOf(e, END_BIT);
+				if (index >= 0) {
+					return params.ends[index];
+				}
+			}
+		}
+		return parseDouble(e.getAttribute(END));
+	}
+
+	/**
+	 * The F0 targets of the segment.
+	 * 
+	 * @param e
+	 *            a ph element
+	 * @return pairs of position and F0 value as in {@link StringUtils#parseIntPairs(String)}; the typed targets if known, or
+	 *         else the ones parsed from the <code>f0</code> attribute. The array must not be modified.
+	 */
+	public static int[] getF0Targets(Element e) {
+		AcousticParameters params = storeOf(e);
+		if (params != null) {
+			synchronized (params) {
+				int index = params.indexOf(e, F0_BIT);
+				if (index >= 0) {
+					return params.f0Targets[index];
+				}
+			}
+		}
+		String f0 = e.getAttribute(F0);
+		return f0.isEmpty() ? NO_TARGETS : StringUtils.parseIntPairs(f0);
+	}
+
+	/**
+	 * Whether the store holds a typed value for the given element and attribute.
+	 * 
+	 * @param e
+	 *            e
+	 * @param attribute
+	 *            one of {@link #DURATION}, {@link #END} and {@link #F0}
+	 * @return true if the corresponding getter does not need to parse the attribute.
+	 */
+	public static boolean isKnown(Element e, String attribute) {
+		AcousticParameters params = storeOf(e);
+		if (params == null) {
+			return false;
+		}
+		synchronized (params) {
+			return params.indexOf(e, bitOf(attribute)) >= 0;
+		}
+	}
+
+	/**
+	 * The value of the given attribute as it will be once the document is serialized, for code which needs it as a string.
+	 * 
+	 * @param e
+	 *            e
+	 * @param attribute
+	 *            one of {@link #DURATION}, {@link #END} and {@link #F0}
+	 * @return the attribute value, or null if the element has neither the attribute nor a typed value for it.
+	 */
+	public static String getAttributeValue(Element e, String attribute) {
+		AcousticParameters params = storeOf(e);
+		if (params != null) {
+			synchronized (params) {
+				int bit = bitOf(attribute);
+				int index = params.indexOf(e, bit);
+				if (index >= 0) {
+					return params.format(index, bit);
+				}
+			}
+		}
+		return e.hasAttribute(attribute) ? e.getAttribute(attribute) : null;
+	}
+
+	/**
+	 * Write the typed values of the given document into its attributes, which are authoritative from then on.
+	 * 
+	 * @param doc
+	 *            doc
+	 */
+	public static void serialize(Document doc) {
+		AcousticParameters params = doc == null ? null : (AcousticParameters) doc.getUserData(USER_DATA_KEY);
+		if (params != null) {
+			params.serialize();
+		}
+	}
+
+	/**
+	 * Write the typed values of the given element into its attributes, e.g. before code which is not aware of the store
+	 * modifies them.
+	 * 
+	 * @param e
+	 *            e
+	 */
+	public static void serialize(Element e) {
+		AcousticParameters params = storeOf(e);
+		if (params != null) {
+			params.serializeElement(e);
+		}
+	}
+
+	private static int bitOf(String attribute) {
+		if (DURATION.equals(attribute)) {
+			return DURATION_BIT;
+		} else if (END.equals(attribute)) {
+			return END_BIT;
+		} else if (F0.equals(attribute)) {
+			return F0_BIT;
+		}
+		return 0;
+	}
+
+	private static double parseDouble(String value) {
+		if (value.isEmpty()) {
+			return Double.NaN;
+		}
+		try {
+			return Double.parseDouble(value);
+		} catch (NumberFormatException nfe) {
+			return Double.NaN;
+		}
+	}
+
+	private final Document doc;
+	private final Map<Element, Integer> indices = new IdentityHashMap<Element, Integer>();
+	private Element[] segments = new Element[0];
+	private double[] durations = new double[0];
+	private double[] ends = new double[0];
+	private int[][] f0Targets = new int[0][];
+	private byte[] known = new byte[0];
+
+	private AcousticParameters(Document doc) {
+		this.doc = doc;
+	}
+
+	/**
+	 * Whether writers should only set the typed values, leaving the attributes to {@link #serialize()}.
+	 * 
+	 * @return lazy
+	 */
+	public boolean isLazy() {
+		return doc != null;
+	}
+
+	/**
+	 * Set the typed duration of a segment. Unless this store {@link #isLazy()}, this does nothing, and the caller must set the
+	 * <code>d</code> attribute instead.
+	 * 
+	 * @param e
+	 *            e
+	 * @param millis
+	 *            duration in milliseconds
+	 */
+	public void setDuration(Element e, double millis) {
+		if (doc == null) {
+			return;
+		}
+		synchronized (this) {
+			int index = slotFor(e);
+			if (index >= 0) {
+				durations[index] = millis;
+				known[index] |= DURATION_BIT;
+			}
+		}
+	}
+
+	/**
+	 * Set the typed end time of a segment. Unless this store {@link #isLazy()}, this does nothing, and the caller must set the
+	 * <code>end</code> attribute instead.
+	 * 
+	 * @param e
+	 *            e
+	 * @param seconds
+	 *            end time in seconds
+	 */
+	public void setEnd(Element e, double seconds) {
+		if (doc == null) {
+			return;
+		}
+		synchronized (this) {
+			int index = slotFor(e);
+			if (index >= 0) {
+				ends[index] = seconds;
+				known[index] |= END_BIT;
+			}
+		}
+	}
+
+	/**
+	 * Set the typed F0 targets of a segment. Unless this store {@link #isLazy()}, this does nothing, and the caller must set the
+	 * <code>f0</code> attribute instead.
+	 * 
+	 * @param e
+	 *            e
+	 * @param targets
+	 *            pairs of position in percent and F0 in Hz; the array is kept, and must not be modified afterwards.
+	 */
+	public void setF0Targets(Element e, int[] targets) {
+		assert targets.length % 2 == 0;
+		if (doc == null) {
+			return;
+		}
+		synchronized (this) {
+			int index = slotFor(e);
+			if (index >= 0) {
+				f0Targets[index] = targets;
+				known[index] |= F0_BIT;
+			}
+		}
+	}
+
+	/**
+	 * Write all typed values into their attributes, and forget them.
+	 */
+	public synchronized void serialize() {
+		if (indices.isEmpty()) {
+			return;
+		}
+		for (int i = 0; i < indices.size(); i++) {
+			serializeSlot(i);
+		}
+		indices.clear();
+		segments = new Element[0];
+		durations = new double[0];
+		ends = new double[0];
+		f0Targets = new int[0][];
+		known = new byte[0];
+	}
+
+	private synchronized void serializeElement(Element e) {
+		Integer index = indices.get(e);
+		if (index != null) {
+			serializeSlot(index);
+		}
+	}
+
+	private void serializeSlot(int index) {
+		Element e = segments[index];
+		for (int bit = DURATION_BIT; bit <= F0_BIT; bit <<= 1) {
+			if ((known[index] & bit) != 0) {
+				e.setAttribute(attributeOf(bit), format(index, bit));
+			}
+		}
+		known[index] = 0;
+		f0Targets[index] = null;
+	}
+
+	/**
+	 * Format a duration as the value of the <code>d</code> attribute.
+	 * 
+	 * @param millis
+	 *            the duration, in milliseconds
+	 * @return the attribute value
+	 */
+	public static String formatDuration(double millis) {
+		if (millis == Math.rint(millis) && Math.abs(millis) < 1e15) {
+			return Long.toString((long) millis);
+		}
+		return Double.toString(millis);
+	}
+
+	private String format(int index, int bit) {
+		switch (bit) {
+		case DURATION_BIT:
+			return formatDuration(durations[index]);
+		case END_BIT:
+			double seconds = ends[index];
+			if ((float) seconds == seconds) {
+				return Float.toString((float) seconds);
+			}
+			return Double.toString(seconds);
+		default:
+			int[] targets = f0Targets[index];
+			StringBuilder buf = new StringBuilder();
+			for (int i = 0; i + 1 < targets.length; i += 2) {
+				buf.append('(').append(targets[i]).append(',').append(targets[i + 1]).append(')');
+			}
+			return buf.toString();
+		}
+	}
+
+	private static String attributeOf(int bit) {
+		switch (bit) {
+		case DURATION_BIT:
+			return DURATION;
+		case END_BIT:
+			return END;
+		default:
+			return F0;
+		}
+	}
+
+	private int indexOf(Element e, int bit) {
+		Integer index = indices.get(e);
+		if (index == null || (known[index] & bit) == 0) {
+			return -1;
+		}
+		return index;
+	}
+
+	private int slotFor(Element e) {
+		if (e.getOwnerDocument() != doc) {
+			return -1;
+		}
+		Integer index = indices.get(e);
+		if (index != null) {
+			return index;
+		}
+		int newIndex = indices.size();
+		if (newIndex == segments.length) {
+			int capacity = Math.max(16, 2 * newIndex);
+			segments = Arrays.copyOf(segments, capacity);
+			durations = Arrays.copyOf(durations, capacity);
+			ends = Arrays.copyOf(ends, capacity);
+			f0Targets = Arrays.copyOf(f0Targets, capacity);
+			known = Arrays.copyOf(known, capacity);
+		}
+		segments[newIndex] = e;
+		indices.put(e, newIndex);
+		return newIndex;
+	}
+}
@@ -282,6 +282,7 @@ public class MaryData {
 	public void writeTo(OutputStream os) throws TransformerConfigurationException, FileNotFoundException, TransformerException,
 			IOException, Exception {
 		if (type.isXMLType()) {
+			AcousticParameters.serialize(xmlDocument);
 			if (writer == null)
 				writer = new MaryNormalisedWriter();
 			if (logger.getEffectiveLevel().equals(Level.DEBUG)) {
@@ -380,6 +381,15 @@ public class MaryData {
 		return xmlDocument;
 	}
 
+	/**
+	 * The typed acoustic parameters of the document, which may not yet have been written into its attributes.
+	 * 
+	 * @return the acoustic parameters, or null if this data has no document
+	 */
+	public AcousticParameters getAcousticParameters() {
+		return xmlDocument == null ? null : AcousticParameters.forDocument(xmlDocument);
+	}
+
 	public void setDocument(Document xmlDocument) {
 		this.xmlDocument = xmlDocument;
 	}
@@ -462,6 +472,7 @@ public class MaryData {
 			throw new IllegalArgumentException("Cannot append mary data of type `" + md.getType().name()
 					+ "' to mary data of type `" + this.getType().name() + "'");
 		if (getType().isXMLType()) {
+			AcousticParameters.serialize(md.getDocument());
 			NodeList kids = md.getDocument().getDocumentElement().getChildNodes();
 			logger.debug("Appending " + kids.getLength() + " nodes to MaryXML structure");
 			Element docEl = this.getDocument().getDocumentElement();
@@ -38,6 +38,7 @@ import java.util.HashSet;
 import java.util.Set;
 import java.util.StringTokenizer;
 
+import marytts.datatypes.AcousticParameters;
 import marytts.datatypes.MaryXML;
 import marytts.unitselection.select.DiphoneTarget;
 import marytts.unitselection.select.HalfPhoneTarget;
@@ -95,13 +96,10 @@ public class MaryGenericFeatureProcessors {
 			Element segment = target.getMaryxmlElement();
 			if (segment == null)
 				return null;
-			Element sentence = (Element) MaryDomUtils.getAncestor(segment, MaryXML.SENTENCE);
-			if (sentence == null)
+			UtteranceIndex index = UtteranceIndex.getIndex(segment);
+			if (index == null)
 				return null;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.PHONE, MaryXML.BOUNDARY);
-			tw.setCurrentNode(segment);
-			Element previous = (Element) tw.previousNode();
-			return previous;
+			return index.getPrevious(UtteranceIndex.SEGMENTS, segment, 1);
 		}
 	}
 
@@ -116,14 +114,10 @@ public class MaryGenericFeatureProcessors {
 			Element segment = target.getMaryxmlElement();
 			if (segment == null)
 				return null;
-			Element sentence = (Element) MaryDomUtils.getAncestor(segment, MaryXML.SENTENCE);
-			if (sentence == null)
+			UtteranceIndex index = UtteranceIndex.getIndex(segment);
+			if (index == null)
 				return null;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.PHONE, MaryXML.BOUNDARY);
-			tw.setCurrentNode(segment);
-			Element previous = (Element) tw.previousNode();
-			Element pp = (Element) tw.previousNode();
-			return pp;
+			return index.getPrevious(UtteranceIndex.SEGMENTS, segment, 2);
 		}
 	}
 
@@ -138,13 +132,10 @@ public class MaryGenericFeatureProcessors {
 			Element segment = target.getMaryxmlElement();
 			if (segment == null)
 				return null;
-			Element sentence = (Element) MaryDomUtils.getAncestor(segment, MaryXML.SENTENCE);
-			if (sentence == null)
+			UtteranceIndex index = UtteranceIndex.getIndex(segment);
+			if (index == null)
 				return null;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.PHONE, MaryXML.BOUNDARY);
-			tw.setCurrentNode(segment);
-			Element next = (Element) tw.nextNode();
-			return next;
+			return index.getNext(UtteranceIndex.SEGMENTS, segment, 1);
 		}
 	}
 
@@ -159,14 +150,10 @@ public class MaryGenericFeatureProcessors {
 			Element segment = target.getMaryxmlElement();
 			if (segment == null)
 				return null;
-			Element sentence = (Element) MaryDomUtils.getAncestor(segment, MaryXML.SENTENCE);
-			if (sentence == null)
+			UtteranceIndex index = UtteranceIndex.getIndex(segment);
+			if (index == null)
 				return null;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.PHONE, MaryXML.BOUNDARY);
-			tw.setCurrentNode(segment);
-			Element next = (Element) tw.nextNode();
-			Element nn = (Element) tw.nextNode();
-			return nn;
+			return index.getNext(UtteranceIndex.SEGMENTS, segment, 2);
 		}
 	}
 
@@ -182,8 +169,10 @@ public class MaryGenericFeatureProcessors {
 			Element word = (Element) MaryDomUtils.getAncestor(segment, MaryXML.TOKEN);
 			if (word == null)
 				return null;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(word, MaryXML.PHONE);
-			Element first = (Element) tw.firstChild();
+			UtteranceIndex index = UtteranceIndex.getIndex(word);
+			if (index == null)
+				return null;
+			Element first = index.getFirstDescendant(UtteranceIndex.SEGMENTS, word);
 			if (first != null) {
 				assert first.getTagName().equals(MaryXML.PHONE) : "Unexpected tag name: expected " + MaryXML.PHONE + ", got "
 						+ first.getTagName();
@@ -204,8 +193,10 @@ public class MaryGenericFeatureProcessors {
 			Element word = (Element) MaryDomUtils.getAncestor(segment, MaryXML.TOKEN);
 			if (word == null)
 				return null;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(word, MaryXML.PHONE);
-			Element last = (Element) tw.lastChild();
+			UtteranceIndex index = UtteranceIndex.getIndex(word);
+			if (index == null)
+				return null;
+			Element last = index.getLastDescendant(UtteranceIndex.SEGMENTS, word);
 			if (last != null) {
 				assert last.getTagName().equals(MaryXML.PHONE) : "Unexpected tag name: expected " + MaryXML.PHONE + ", got "
 						+ last.getTagName();
@@ -226,8 +217,10 @@ public class MaryGenericFeatureProcessors {
 			Element word = (Element) MaryDomUtils.getAncestor(segment, MaryXML.TOKEN);
 			if (word == null)
 				return null;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(word, MaryXML.SYLLABLE);
-			Element first = (Element) tw.firstChild();
+			UtteranceIndex index = UtteranceIndex.getIndex(word);
+			if (index == null)
+				return null;
+			Element first = index.getFirstDescendant(UtteranceIndex.SYLLABLES, word);
 			if (first != null) {
 				assert first.getTagName().equals(MaryXML.SYLLABLE) : "Unexpected tag name: expected " + MaryXML.SYLLABLE
 						+ ", got " + first.getTagName();
@@ -248,8 +241,10 @@ public class MaryGenericFeatureProcessors {
 			Element word = (Element) MaryDomUtils.getAncestor(segment, MaryXML.TOKEN);
 			if (word == null)
 				return null;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(word, MaryXML.SYLLABLE);
-			Element last = (Element) tw.lastChild();
+			UtteranceIndex index = UtteranceIndex.getIndex(word);
+			if (index == null)
+				return null;
+			Element last = index.getLastDescendant(UtteranceIndex.SYLLABLES, word);
 			if (last != null) {
 				assert last.getTagName().equals(MaryXML.SYLLABLE) : "Unexpected tag name: expected " + MaryXML.SYLLABLE
 						+ ", got " + last.getTagName();
@@ -300,12 +295,10 @@ public class MaryGenericFeatureProcessors {
 			} else { // boundary
 				current = segment;
 			}
-			Element sentence = (Element) MaryDomUtils.getAncestor(segment, MaryXML.SENTENCE);
-			if (sentence == null)
+			UtteranceIndex index = UtteranceIndex.getIndex(segment);
+			if (index == null)
 				return null;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.SYLLABLE);
-			tw.setCurrentNode(current);
-			Element previous = (Element) tw.previousNode();
+			Element previous = index.getPrevious(UtteranceIndex.SYLLABLES, current, 1);
 			if (previous != null) {
 				assert previous.getTagName().equals(MaryXML.SYLLABLE) : "Unexpected tag name: expected " + MaryXML.SYLLABLE
 						+ ", got " + previous.getTagName();
@@ -334,13 +327,10 @@ public class MaryGenericFeatureProcessors {
 			} else { // boundary
 				current = segment;
 			}
-			Element sentence = (Element) MaryDomUtils.getAncestor(segment, MaryXML.SENTENCE);
-			if (sentence == null)
+			UtteranceIndex index = UtteranceIndex.getIndex(segment);
+			if (index == null)
 				return null;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.SYLLABLE);
-			tw.setCurrentNode(current);
-			Element previous = (Element) tw.previousNode();
-			Element pp = (Element) tw.previousNode();
+			Element pp = index.getPrevious(UtteranceIndex.SYLLABLES, current, 2);
 			if (pp != null) {
 				assert pp.getTagName().equals(MaryXML.SYLLABLE) : "Unexpected tag name: expected " + MaryXML.SYLLABLE + ", got "
 						+ pp.getTagName();
@@ -369,12 +359,10 @@ public class MaryGenericFeatureProcessors {
 			} else { // boundary
 				current = segment;
 			}
-			Element sentence = (Element) MaryDomUtils.getAncestor(segment, MaryXML.SENTENCE);
-			if (sentence == null)
+			UtteranceIndex index = UtteranceIndex.getIndex(segment);
+			if (index == null)
 				return null;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.SYLLABLE);
-			tw.setCurrentNode(current);
-			Element next = (Element) tw.nextNode();
+			Element next = index.getNext(UtteranceIndex.SYLLABLES, current, 1);
 			if (next != null) {
 				assert next.getTagName().equals(MaryXML.SYLLABLE) : "Unexpected tag name: expected " + MaryXML.SYLLABLE
 						+ ", got " + next.getTagName();
@@ -403,13 +391,10 @@ public class MaryGenericFeatureProcessors {
 			} else { // boundary
 				current = segment;
 			}
-			Element sentence = (Element) MaryDomUtils.getAncestor(segment, MaryXML.SENTENCE);
-			if (sentence == null)
+			UtteranceIndex index = UtteranceIndex.getIndex(segment);
+			if (index == null)
 				return null;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.SYLLABLE);
-			tw.setCurrentNode(current);
-			Element next = (Element) tw.nextNode();
-			Element nn = (Element) tw.nextNode();
+			Element nn = index.getNext(UtteranceIndex.SYLLABLES, current, 2);
 			if (nn != null) {
 				assert nn.getTagName().equals(MaryXML.SYLLABLE) : "Unexpected tag name: expected " + MaryXML.SYLLABLE + ", got "
 						+ nn.getTagName();
@@ -447,8 +432,10 @@ public class MaryGenericFeatureProcessors {
 			Element phrase = (Element) MaryDomUtils.getAncestor(segment, MaryXML.PHRASE);
 			if (phrase == null)
 				return null;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(phrase, MaryXML.SYLLABLE);
-			Element last = (Element) tw.lastChild();
+			UtteranceIndex index = UtteranceIndex.getIndex(phrase);
+			if (index == null)
+				return null;
+			Element last = index.getLastDescendant(UtteranceIndex.SYLLABLES, phrase);
 			if (last != null) {
 				assert last.getTagName().equals(MaryXML.SYLLABLE) : "Unexpected tag name: expected " + MaryXML.SYLLABLE
 						+ ", got " + last.getTagName();
@@ -471,15 +458,13 @@ public class MaryGenericFeatureProcessors {
 			} else { // boundary
 				current = segment;
 			}
-			Element sentence = (Element) MaryDomUtils.getAncestor(segment, MaryXML.SENTENCE);
-			if (sentence == null)
+			UtteranceIndex index = UtteranceIndex.getIndex(segment);
+			if (index == null)
 				return null;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.TOKEN);
-			tw.setCurrentNode(current);
 			// The next word is the next token with a "ph" attribute:
 			Element nextWord = null;
 			Element nextToken;
-			while ((nextToken = (Element) tw.nextNode()) != null) {
+			for (int steps = 1; (nextToken = index.getNext(UtteranceIndex.TOKENS, current, steps)) != null; steps++) {
 				if (nextToken.hasAttribute("ph")) {
 					nextWord = nextToken;
 					break;
@@ -507,15 +492,13 @@ public class MaryGenericFeatureProcessors {
 			} else { // boundary
 				current = segment;
 			}
-			Element sentence = (Element) MaryDomUtils.getAncestor(segment, MaryXML.SENTENCE);
-			if (sentence == null)
+			UtteranceIndex index = UtteranceIndex.getIndex(segment);
+			if (index == null)
 				return null;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.TOKEN);
-			tw.setCurrentNode(current);
-			// The next word is the next token with a "ph" attribute:
+			// The previous word is the previous token with a "ph" attribute:
 			Element prevWord = null;
 			Element prevToken;
-			while ((prevToken = (Element) tw.previousNode()) != null) {
+			for (int steps = 1; (prevToken = index.getPrevious(UtteranceIndex.TOKENS, current, steps)) != null; steps++) {
 				if (prevToken.hasAttribute("ph")) {
 					prevWord = prevToken;
 					break;
@@ -543,15 +526,13 @@ public class MaryGenericFeatureProcessors {
 			} else { // boundary
 				current = segment;
 			}
-			Element sentence = (Element) MaryDomUtils.getAncestor(segment, MaryXML.SENTENCE);
-			if (sentence == null)
+			UtteranceIndex index = UtteranceIndex.getIndex(segment);
+			if (index == null)
 				return null;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.TOKEN);
-			tw.setCurrentNode(current);
 			// The next word is the next token with a "ph" attribute:
 			Element nextWord = null;
 			Element nextToken;
-			while ((nextToken = (Element) tw.nextNode()) != null) {
+			for (int steps = 1; (nextToken = index.getNext(UtteranceIndex.TOKENS, current, steps)) != null; steps++) {
 				if (nextToken.hasAttribute("ph")) {
 					nextWord = nextToken;
 					break;
@@ -562,8 +543,7 @@ public class MaryGenericFeatureProcessors {
 			}
 			assert nextWord.getTagName().equals(MaryXML.TOKEN) : "Unexpected tag name: expected " + MaryXML.TOKEN + ", got "
 					+ nextWord.getTagName();
-			TreeWalker sw = MaryDomUtils.createTreeWalker(nextWord, MaryXML.PHONE);
-			Element first = (Element) sw.firstChild();
+			Element first = index.getFirstDescendant(UtteranceIndex.SEGMENTS, nextWord);
 			if (first != null) {
 				assert first.getTagName().equals(MaryXML.PHONE) : "Unexpected tag name: expected " + MaryXML.PHONE + ", got "
 						+ first.getTagName();
@@ -577,19 +557,17 @@ public class MaryGenericFeatureProcessors {
 			Element segment = target.getMaryxmlElement();
 			if (segment == null)
 				return null;
-			Element sentence = (Element) MaryDomUtils.getAncestor(segment, MaryXML.SENTENCE);
-			if (sentence == null)
+			UtteranceIndex index = UtteranceIndex.getIndex(segment);
+			if (index == null)
 				return null;
-			TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.TOKEN);
 			Element lastWord = null;
-			Element lastToken = (Element) tw.lastChild();
 			// The last word is the lastToken which has a "ph" attribute:
-			while (lastToken != null) {
+			for (int i = index.getNumItems(UtteranceIndex.TOKENS) - 1; i >= 0; i--) {
+				Element lastToken = index.getItem(UtteranceIndex.TOKENS, i);
 				if (lastToken.hasAttribute("ph")) {
 					lastWord = lastToken;
 					break;
 				}
-				lastToken = (Element) tw.previousNode();
 			}
 
 			if (lastWord != null) {
@@ -2760,21 +2738,24 @@ public class MaryGenericFeatureProcessors {
 				return 0;
 			}
 			float phoneDuration = 0;
-			String sDur;
-			if (seg.getTagName().equals(MaryXML.PHONE))
-				sDur = seg.getAttribute("d");
-			else {
+			if (seg.getTagName().equals(MaryXML.PHONE)) {
+				double millis = AcousticParameters.getDuration(seg);
+				if (!Double.isNaN(millis)) {
+					// convert from milliseconds into seconds:
+					phoneDuration = (float) millis * 0.001f;
+				}
+			} else {
 				assert seg.getTagName().equals(MaryXML.BOUNDARY) : "segment should be a phone or a boundary, but is a "
 						+ seg.getTagName();
-				sDur = seg.getAttribute("duration");
-			}
-			if (sDur.equals("")) {
-				return 0;
-			}
-			try {
-				// parse duration string, and convert from milliseconds into seconds:
-				phoneDuration = Float.parseFloat(sDur) * 0.001f;
-			} catch (NumberFormatException nfe) {
+				String sDur = seg.getAttribute("duration");
+				if (sDur.equals("")) {
+					return 0;
+				}
+				try {
+					// parse duration string, and convert from milliseconds into seconds:
+					phoneDuration = Float.parseFloat(sDur) * 0.001f;
+				} catch (NumberFormatException nfe) {
+				}
 			}
 			if (target instanceof HalfPhoneTarget)
 				return phoneDuration / 2;
@@ -2951,6 +2932,15 @@ public class MaryGenericFeatureProcessors {
 		}
 
 		private Float[] getLogF0Values(Element ph) {
+			if (AcousticParameters.isKnown(ph, AcousticParameters.F0)) {
+				int[] f0Targets = AcousticParameters.getF0Targets(ph);
+				Float[] values = new Float[f0Targets.length];
+				for (int i = 0; i < f0Targets.length; i += 2) {
+					values[i] = f0Targets[i] * 0.01f;
+					values[i + 1] = (float) Math.log(f0Targets[i + 1]);
+				}
+				return values;
+			}
 			String mbrTargets = ph.getAttribute("f0");
 			if (mbrTargets.equals("")) {
 				return new Float[0];
@@ -2983,15 +2973,8 @@ public class MaryGenericFeatureProcessors {
 		}
 
 		private float getDuration(Element ph) {
-			float phoneDuration = 0;
-			String sDur = ph.getAttribute("d");
-			if (!sDur.equals("")) {
-				try {
-					phoneDuration = Float.parseFloat(sDur);
-				} catch (NumberFormatException nfe) {
-				}
-			}
-			return phoneDuration;
+			double millis = AcousticParameters.getDuration(ph);
+			return Double.isNaN(millis) ? 0 : (float) millis;
 		}
 	}
 
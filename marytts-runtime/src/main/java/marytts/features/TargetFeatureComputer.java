@@ -23,9 +23,11 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.StringTokenizer;
 
+import marytts.server.MaryProperties;
 import marytts.unitselection.select.Target;
 
 /**
@@ -43,6 +45,13 @@ public class TargetFeatureComputer {
 
 	protected FeatureDefinition featureDefinition = null;
 
+	/**
+	 * Whether to remember discrete feature values in the {@link TargetFeatureStore} of the sentence.
+	 */
+	protected boolean useStore = MaryProperties.getBoolean("features.targetstore", true);
+
+	private String[] discreteFeatureKeys = null;
+
 	/**
 	 * Construct a TargetFeatureComputer that knows how to compute features for a Target using the given set of feature processor
 	 * names. These names must be known to the given Feature processor manager.
@@ -126,13 +135,31 @@ public class TargetFeatureComputer {
 
 	/**
 	 * Using the set of feature processors defined when creating the target feature computer, compute a feature vector for the
-	 * target
+	 * target. Discrete feature values which have already been computed for the target's element, by this or any other target
+	 * feature computer, are taken from the sentence's {@link TargetFeatureStore}.
 	 * 
 	 * @param target
 	 *            target
 	 * @return a feature vector for the target
 	 */
 	public FeatureVector computeFeatureVector(Target target) {
+		if (useStore) {
+			TargetFeatureStore store = TargetFeatureStore.getStore(target);
+			if (store != null) {
+				return store.computeFeatureVector(this, target);
+			}
+		}
+		return computeFeatureVectorDirectly(target);
+	}
+
+	/**
+	 * Compute all features of the target with the feature processors, without looking into the {@link TargetFeatureStore}.
+	 * 
+	 * @param target
+	 *            target
+	 * @return a feature vector for the target
+	 */
+	public FeatureVector computeFeatureVectorDirectly(Target target) {
 		byte[] byteFeatures = new byte[byteValuedDiscreteFeatureProcessors.length];
 		short[] shortFeatures = new short[shortValuedDiscreteFeatureProcessors.length];
 		float[] floatFeatures = new float[continuousFeatureProcessors.length];
@@ -186,6 +213,27 @@ public class TargetFeatureComputer {
 		return buf.toString();
 	}
 
+	/**
+	 * Identify the discrete features, byte-valued ones first, by their kind, name and values, so that features of different
+	 * computers can be recognised as the same.
+	 * 
+	 * @return one key per discrete feature
+	 */
+	String[] getDiscreteFeatureKeys() {
+		if (discreteFeatureKeys == null) {
+			String[] keys = new String[byteValuedDiscreteFeatureProcessors.length + shortValuedDiscreteFeatureProcessors.length];
+			int k = 0;
+			for (ByteValuedFeatureProcessor fp : byteValuedDiscreteFeatureProcessors) {
+				keys[k++] = "b " + fp.getName() + " " + Arrays.toString(fp.getValues());
+			}
+			for (ShortValuedFeatureProcessor fp : shortValuedDiscreteFeatureProcessors) {
+				keys[k++] = "s " + fp.getName() + " " + Arrays.toString(fp.getValues());
+			}
+			discreteFeatureKeys = keys;
+		}
+		return discreteFeatureKeys;
+	}
+
 	public ByteValuedFeatureProcessor[] getByteValuedFeatureProcessors() {
 		return byteValuedDiscreteFeatureProcessors;
 	}
@@ -0,0 +1,198 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package marytts.features;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import marytts.datatypes.MaryXML;
+import marytts.unitselection.select.HalfPhoneTarget;
+import marytts.unitselection.select.Target;
+import marytts.util.dom.MaryDomUtils;
+
+import org.w3c.dom.Element;
+
+/**
+ * The discrete target feature values computed so far for the segments of one sentence, shared by all
+ * {@link TargetFeatureComputer}s that are applied to the sentence.
+ * <p>
+ * Acoustic models, the target feature lister and the synthesizers each compute a feature vector for every segment, usually
+ * with largely the same features. Values are remembered per element and per feature, where a feature is identified by its
+ * name, its kind (byte- or short-valued) and its list of possible values; any feature computer whose features match is served
+ * from the store, and only the features it has not seen before are computed. Continuous features are always computed afresh,
+ * because they read the durations and F0 values that the acoustic modules write into the document.
+ * <p>
+ * Like the {@link UtteranceIndex}, the store is attached to the sentence element as user data, and it is dropped when the
+ * {@linkplain MaryDomUtils#getDocumentVersion(org.w3c.dom.Document) document version} has changed, i.e. after any module other
+ * than the acoustic modeller and the synthesis module, which only write acoustic attributes that no discrete feature depends
+ * on.
+ */
+public class TargetFeatureStore {
+	private static final String USER_DATA_KEY = "marytts.features.TargetFeatureStore";
+	private static final int MISSING = -1;
+	// full phone, left half, right half
+	private static final int NUM_VARIANTS = 3;
+
+	/**
+	 * Get the store for the sentence containing the target's element, creating it if necessary.
+	 * 
+	 * @param target
+	 *            target
+	 * @return the store for the enclosing sentence, or null if the features of this target cannot be stored.
+	 */
+	public static TargetFeatureStore getStore(Target target) {
+		if (variantOf(target) < 0) {
+			return null;
+		}
+		Element sentence = (Element) MaryDomUtils.getAncestor(target.getMaryxmlElement(), MaryXML.SENTENCE);
+		if (sentence == null) {
+			return null;
+		}
+		int version = MaryDomUtils.getDocumentVersion(sentence.getOwnerDocument());
+		TargetFeatureStore store = (TargetFeatureStore) sentence.getUserData(USER_DATA_KEY);
+		if (store == null || store.version != version) {
+			store = new TargetFeatureStore(sentence, version);
+			sentence.setUserData(USER_DATA_KEY, store, null);
+		}
+		return store;
+	}
+
+	private static int variantOf(Target target) {
+		if (target.getMaryxmlElement() == null) {
+			return -1;
+		}
+		if (target.getClass() == Target.class) {
+			return 0;
+		}
+		if (target.getClass() == HalfPhoneTarget.class) {
+			return ((HalfPhoneTarget) target).isLeftHalf() ? 1 : 2;
+		}
+		// e.g. diphones, whose features are computed from two elements
+		return -1;
+	}
+
+	private final Element sentence;
+	private final Map<String, Integer> slots = new HashMap<String, Integer>();
+	private final Map<TargetFeatureComputer, int[]> computerSlots = new IdentityHashMap<TargetFeatureComputer, int[]>();
+	private final Map<Element, int[][]> values = new IdentityHashMap<Element, int[][]>();
+	private final int version;
+	private int numComputed = 0;
+
+	TargetFeatureStore(Element sentence, int version) {
+		this.sentence = sentence;
+		this.version = version;
+	}
+
+	/**
+	 * Compute the feature vector of the given target for the given feature computer, reusing the discrete feature values that
+	 * are already known for the target's element.
+	 * 
+	 * @param computer
+	 *            computer
+	 * @param target
+	 *            a target whose element is in this store's sentence
+	 * @return the same feature vector as {@link TargetFeatureComputer#computeFeatureVector(Target)} without a store
+	 */
+	public synchronized FeatureVector computeFeatureVector(TargetFeatureComputer computer, Target target) {
+		int variant = variantOf(target);
+		if (variant < 0) {
+			throw new IllegalArgumentException("Cannot store the features of a " + target.getClass().getSimpleName());
+		}
+		int[] featureSlots = getSlots(computer);
+		Element element = target.getMaryxmlElement();
+		int[][] elementValues = values.get(element);
+		if (elementValues == null) {
+			elementValues = new int[NUM_VARIANTS][];
+			values.put(element, elementValues);
+		}
+		int[] known = elementValues[variant];
+		if (known == null || known.length < slots.size()) {
+			int oldLength = known == null ? 0 : known.length;
+			known = known == null ? new int[slots.size()] : Arrays.copyOf(known, slots.size());
+			Arrays.fill(known, oldLength, known.length, MISSING);
+			elementValues[variant] = known;
+		}
+
+		ByteValuedFeatureProcessor[] byteProcessors = computer.getByteValuedFeatureProcessors();
+		ShortValuedFeatureProcessor[] shortProcessors = computer.getShortValuedFeatureProcessors();
+		ContinuousFeatureProcessor[] continuousProcessors = computer.getContinuousFeatureProcessors();
+		byte[] byteFeatures = new byte[byteProcessors.length];
+		short[] shortFeatures = new short[shortProcessors.length];
+		float[] floatFeatures = new float[continuousProcessors.length];
+		int s = 0;
+		for (int i = 0; i < byteProcessors.length; i++, s++) {
+			int slot = featureSlots[s];
+			if (known[slot] == MISSING) {
+				known[slot] = byteProcessors[i].process(target) & 0xff;
+				numComputed++;
+			}
+			byteFeatures[i] = (byte) known[slot];
+		}
+		for (int i = 0; i < shortProcessors.length; i++, s++) {
+			int slot = featureSlots[s];
+			if (known[slot] == MISSING) {
+				known[slot] = shortProcessors[i].process(target);
+				numComputed++;
+			}
+			shortFeatures[i] = (short) known[slot];
+		}
+		for (int i = 0; i < continuousProcessors.length; i++) {
+			floatFeatures[i] = continuousProcessors[i].process(target);
+		}
+		return new FeatureVector(byteFeatures, shortFeatures, floatFeatures, 0);
+	}
+
+	/**
+	 * For each discrete feature of the computer, byte-valued ones first, find the slot in which its values are stored.
+	 */
+	private int[] getSlots(TargetFeatureComputer computer) {
+		int[] featureSlots = computerSlots.get(computer);
+		if (featureSlots == null) {
+			String[] keys = computer.getDiscreteFeatureKeys();
+			featureSlots = new int[keys.length];
+			for (int i = 0; i < keys.length; i++) {
+				Integer slot = slots.get(keys[i]);
+				if (slot == null) {
+					slot = slots.size();
+					slots.put(keys[i], slot);
+				}
+				featureSlots[i] = slot;
+			}
+			computerSlots.put(computer, featureSlots);
+		}
+		return featureSlots;
+	}
+
+	public Element getSentence() {
+		return sentence;
+	}
+
+	/**
+	 * The number of discrete feature values that were actually computed, rather than taken from the store.
+	 * 
+	 * @return numComputed
+	 */
+	public synchronized int getNumComputed() {
+		return numComputed;
+	}
+}
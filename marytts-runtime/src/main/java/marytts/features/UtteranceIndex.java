@@ -0,0 +1,265 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package marytts.features;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import marytts.datatypes.MaryXML;
+import marytts.util.dom.MaryDomUtils;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * A flat, precomputed view of the elements in one sentence, used by the navigators in {@link MaryGenericFeatureProcessors} to
+ * find neighbouring segments, syllables, words and phrases in constant time instead of walking the sentence with a fresh
+ * TreeWalker for every feature.
+ * <p>
+ * All elements below the sentence are numbered in document order; for each kind of item, the index remembers where in that
+ * order the items of this kind lie. The result of {@link #getPrevious(int, Element, int)} and {@link #getNext(int, Element, int)}
+ * is the same as calling <code>previousNode()</code> or <code>nextNode()</code> the given number of times on a TreeWalker
+ * rooted at the sentence.
+ * <p>
+ * The index is built on first use and attached to the sentence element as user data. It is built again when the
+ * {@linkplain MaryDomUtils#getDocumentVersion(org.w3c.dom.Document) document version} has changed, i.e. after a module that
+ * may have changed the structure of the document, or when it is asked about an element that was added since.
+ */
+public class UtteranceIndex {
+	/** Phones and boundaries */
+	public static final int SEGMENTS = 0;
+	public static final int SYLLABLES = 1;
+	/** All tokens, whether or not they have a "ph" attribute */
+	public static final int TOKENS = 2;
+	public static final int PHRASES = 3;
+
+	private static final String USER_DATA_KEY = "marytts.features.UtteranceIndex";
+
+	/**
+	 * Get the index for the sentence containing the given element, building it if necessary.
+	 * 
+	 * @param element
+	 *            an element inside a sentence
+	 * @return the index for the enclosing sentence, or null if element is not inside a sentence.
+	 */
+	public static UtteranceIndex getIndex(Element element) {
+		Element sentence = (Element) MaryDomUtils.getAncestor(element, MaryXML.SENTENCE);
+		if (sentence == null) {
+			return null;
+		}
+		int version = MaryDomUtils.getDocumentVersion(sentence.getOwnerDocument());
+		UtteranceIndex index = (UtteranceIndex) sentence.getUserData(USER_DATA_KEY);
+		if (index != null && index.version == version && index.contains(element)) {
+			return index;
+		}
+		index = new UtteranceIndex(sentence, version);
+		sentence.setUserData(USER_DATA_KEY, index, null);
+		return index;
+	}
+
+	private final Element sentence;
+	private final Map<Element, Integer> ordinals;
+	private final int[] subtreeEnd;
+	private final Element[][] items;
+	// firstAtOrAfter[kind][o] is the position in items[kind] of the first item whose ordinal is >= o
+	private final int[][] firstAtOrAfter;
+	private final int version;
+
+	UtteranceIndex(Element sentence, int version) {
+		this.sentence = sentence;
+		this.version = version;
+		List<Element> elements = new ArrayList<Element>();
+		collect(sentence, elements);
+		int numElements = elements.size();
+		ordinals = new IdentityHashMap<Element, Integer>(numElements * 2);
+		subtreeEnd = new int[numElements];
+		List<List<Element>> itemLists = new ArrayList<List<Element>>(4);
+		for (int k = 0; k < 4; k++) {
+			itemLists.add(new ArrayList<Element>());
+		}
+		firstAtOrAfter = new int[4][numElements + 1];
+		for (int o = 0; o < numElements; o++) {
+			Element e = elements.get(o);
+			ordinals.put(e, o);
+			for (int k = 0; k < 4; k++) {
+				firstAtOrAfter[k][o] = itemLists.get(k).size();
+			}
+			int kind = kindOf(e);
+			if (kind >= 0) {
+				itemLists.get(kind).add(e);
+			}
+		}
+		items = new Element[4][];
+		for (int k = 0; k < 4; k++) {
+			items[k] = itemLists.get(k).toArray(new Element[0]);
+			firstAtOrAfter[k][numElements] = items[k].length;
+		}
+		for (int o = numElements - 1; o >= 0; o--) {
+			Element e = elements.get(o);
+			int end = o;
+			Node last = e.getLastChild();
+			while (last != null && last.getNodeType() != Node.ELEMENT_NODE) {
+				last = last.getPreviousSibling();
+			}
+			if (last != null) {
+				end = subtreeEnd[ordinals.get(last)];
+			}
+			subtreeEnd[o] = end;
+		}
+	}
+
+	private static void collect(Element e, List<Element> elements) {
+		elements.add(e);
+		for (Node n = e.getFirstChild(); n != null; n = n.getNextSibling()) {
+			if (n.getNodeType() == Node.ELEMENT_NODE) {
+				collect((Element) n, elements);
+			}
+		}
+	}
+
+	private static int kindOf(Element e) {
+		String name = e.getTagName();
+		if (name.equals(MaryXML.PHONE) || name.equals(MaryXML.BOUNDARY)) {
+			return SEGMENTS;
+		} else if (name.equals(MaryXML.SYLLABLE)) {
+			return SYLLABLES;
+		} else if (name.equals(MaryXML.TOKEN)) {
+			return TOKENS;
+		} else if (name.equals(MaryXML.PHRASE)) {
+			return PHRASES;
+		}
+		return -1;
+	}
+
+	public Element getSentence() {
+		return sentence;
+	}
+
+	/**
+	 * Whether the given element is part of the sentence as it was when this index was built.
+	 * 
+	 * @param e
+	 *            e
+	 * @return true if the index knows about e
+	 */
+	public boolean contains(Element e) {
+		return ordinals.containsKey(e);
+	}
+
+	/**
+	 * The number of items of the given kind in the sentence.
+	 * 
+	 * @param kind
+	 *            one of {@link #SEGMENTS}, {@link #SYLLABLES}, {@link #TOKENS}, {@link #PHRASES}
+	 * @return the number of items
+	 */
+	public int getNumItems(int kind) {
+		return items[kind].length;
+	}
+
+	/**
+	 * Get an item by its position in the sentence.
+	 *
+	 * @param kind
+	 *            one of {@link #SEGMENTS}, {@link #SYLLABLES}, {@link #TOKENS}, {@link #PHRASES}
+	 * @param i
+	 *            position, between 0 and {@link #getNumItems(int)} - 1
+	 * @return the i-th item of the given kind
+	 */
+	public Element getItem(int kind, int i) {
+		return items[kind][i];
+	}
+
+	/**
+	 * Get the item of the given kind that comes <code>steps</code> positions before current in document order.
+	 * 
+	 * @param kind
+	 *            one of {@link #SEGMENTS}, {@link #SYLLABLES}, {@link #TOKENS}, {@link #PHRASES}
+	 * @param current
+	 *            an element of the sentence, not necessarily of the given kind
+	 * @param steps
+	 *            1 for the immediately preceding item, 2 for the one before, etc.
+	 * @return the item, or null if there is no such item in the sentence.
+	 */
+	public Element getPrevious(int kind, Element current, int steps) {
+		int pos = firstAtOrAfter[kind][ordinal(current)] - steps;
+		return pos >= 0 ? items[kind][pos] : null;
+	}
+
+	/**
+	 * Get the item of the given kind that comes <code>steps</code> positions after current in document order. Items below
+	 * current count as following it.
+	 * 
+	 * @param kind
+	 *            one of {@link #SEGMENTS}, {@link #SYLLABLES}, {@link #TOKENS}, {@link #PHRASES}
+	 * @param current
+	 *            an element of the sentence, not necessarily of the given kind
+	 * @param steps
+	 *            1 for the immediately following item, 2 for the one after, etc.
+	 * @return the item, or null if there is no such item in the sentence.
+	 */
+	public Element getNext(int kind, Element current, int steps) {
+		int pos = firstAtOrAfter[kind][ordinal(current) + 1] + steps - 1;
+		return pos < items[kind].length ? items[kind][pos] : null;
+	}
+
+	/**
+	 * Get the first item of the given kind below ancestor.
+	 * 
+	 * @param kind
+	 *            one of {@link #SEGMENTS}, {@link #SYLLABLES}, {@link #TOKENS}, {@link #PHRASES}
+	 * @param ancestor
+	 *            the sentence or an element in it
+	 * @return the first item, or null if there are no items of this kind below ancestor.
+	 */
+	public Element getFirstDescendant(int kind, Element ancestor) {
+		int o = ordinal(ancestor);
+		int from = firstAtOrAfter[kind][o + 1];
+		int to = firstAtOrAfter[kind][subtreeEnd[o] + 1];
+		return from < to ? items[kind][from] : null;
+	}
+
+	/**
+	 * Get the last item of the given kind below ancestor.
+	 * 
+	 * @param kind
+	 *            one of {@link #SEGMENTS}, {@link #SYLLABLES}, {@link #TOKENS}, {@link #PHRASES}
+	 * @param ancestor
+	 *            the sentence or an element in it
+	 * @return the last item, or null if there are no items of this kind below ancestor.
+	 */
+	public Element getLastDescendant(int kind, Element ancestor) {
+		int o = ordinal(ancestor);
+		int from = firstAtOrAfter[kind][o + 1];
+		int to = firstAtOrAfter[kind][subtreeEnd[o] + 1];
+		return from < to ? items[kind][to - 1] : null;
+	}
+
+	private int ordinal(Element e) {
+		Integer o = ordinals.get(e);
+		if (o == null) {
+			throw new IllegalArgumentException("Element <" + e.getTagName() + "> is not part of the indexed sentence");
+		}
+		return o;
+	}
+}
@@ -91,6 +91,13 @@ public class CartTreeSet {
 	private CART[] strTree; // CART trees for strengths
 	private CART[] magTree; // CART trees for Fourier magnitudes
 
+	/* Compiled trees and pdfs, used instead of the CART trees above if the voice provides them */
+	private CompiledCartTreeSet.Stream durModels;
+	private CompiledCartTreeSet.Stream lf0Models;
+	private CompiledCartTreeSet.Stream mgcModels;
+	private CompiledCartTreeSet.Stream strModels;
+	private CompiledCartTreeSet.Stream magModels;
+
 	private int numStates; /* # of HMM states for individual HMM */
 	private int lf0Stream; /* # of stream for log f0 modeling */
 	private int mcepVsize; /* vector size for mcep modeling */
@@ -130,6 +137,76 @@ public class CartTreeSet {
 		}
 	}
 
+	/**
+	 * @param type
+	 *            type
+	 * @return true if trees and pdfs for the given type have been loaded
+	 */
+	public boolean hasTrees(HMMData.FeatureType type) {
+		switch (type) {
+		case DUR:
+			return durTree != null || durModels != null;
+		case LF0:
+			return lf0Tree != null || lf0Models != null;
+		case MGC:
+			return mgcTree != null || mgcModels != null;
+		case STR:
+			return strTree != null || strModels != null;
+		default:
+			return magTree != null || magModels != null;
+		}
+	}
+
+	/**
+	 * The CART trees for the given type, as loaded from the text HTS files.
+	 * 
+	 * @param type
+	 *            type
+	 * @return the trees, one per state (a single one for duration), or null
+	 */
+	CART[] getTrees(HMMData.FeatureType type) {
+		switch (type) {
+		case DUR:
+			return durTree;
+		case LF0:
+			return lf0Tree;
+		case MGC:
+			return mgcTree;
+		case STR:
+			return strTree;
+		default:
+			return magTree;
+		}
+	}
+
+	/**
+	 * Uses compiled trees and pdfs instead of loading CART trees from the text HTS files.
+	 * 
+	 * @param models
+	 *            models
+	 * @param featureDef
+	 *            the feature definition of the voice
+	 * @throws MaryConfigurationException
+	 *             if the models were compiled against a different feature definition
+	 */
+	public void loadTreeSet(CompiledCartTreeSet models, FeatureDefinition featureDef) throws MaryConfigurationException {
+		if (!models.getFeatureDefinition().featureEquals(featureDef)) {
+			throw new MaryConfigurationException("Compiled HMM models do not match the voice's feature definition: "
+					+ models.getFeatureDefinition().featureEqualsAnalyse(featureDef));
+		}
+		durTree = lf0Tree = mgcTree = strTree = magTree = null;
+		durModels = models.getStream(HMMData.FeatureType.DUR);
+		lf0Models = models.getStream(HMMData.FeatureType.LF0);
+		mgcModels = models.getStream(HMMData.FeatureType.MGC);
+		strModels = models.getStream(HMMData.FeatureType.STR);
+		magModels = models.getStream(HMMData.FeatureType.MAG);
+		numStates = models.getNumStates();
+		lf0Stream = lf0Models != null ? lf0Models.getVectorSize() : 0;
+		mcepVsize = mgcModels != null ? mgcModels.getVectorSize() : 0;
+		strVsize = strModels != null ? strModels.getVectorSize() : 0;
+		magVsize = magModels != null ? magModels.getVectorSize() : 0;
+	}
+
 	/**
 	 * Loads all the CART trees
 	 * 
@@ -148,6 +225,7 @@ public class CartTreeSet {
 			MaryConfigurationException {
 		// Check if there are tricky phones, and create a PhoneTranslator object
 		PhoneTranslator phTranslator = trickyPhones;
+		durModels = lf0Models = mgcModels = strModels = magModels = null;
 
 		HTSCARTReader htsReader = new HTSCARTReader();
 		/*
@@ -209,15 +287,44 @@ public class CartTreeSet {
 
 	public double searchDurInCartTree(HTSModel m, FeatureVector fv, HMMData htsData, boolean firstPh, boolean lastPh,
 			double diffdur) {
-		double data, dd;
-		double rho = htsData.getRho();
-		double durscale = htsData.getDurationScale();
 		double meanVector[], varVector[];
 		// the duration tree has only one state
-		PdfLeafNode node = (PdfLeafNode) durTree[0].interpretToNode(fv, 0);
+		if (durModels != null) {
+			int leaf = durModels.findLeaf(0, fv);
+			meanVector = durModels.getMean(leaf);
+			varVector = durModels.getVariance(leaf);
+		} else {
+			PdfLeafNode node = (PdfLeafNode) durTree[0].interpretToNode(fv, 0);
+			meanVector = node.getMean();
+			varVector = node.getVariance();
+		}
+		m.setDurPdf(meanVector, varVector);
+		return setDurFromPdf(m, meanVector, varVector, htsData, diffdur);
+	}
 
-		meanVector = node.getMean();
-		varVector = node.getVariance();
+	/***
+	 * Set the state durations in m from a duration pdf that has been found in the tree before, e.g. for another model with the
+	 * same context.
+	 * 
+	 * @param m
+	 *            HTSModel whose state durations are set
+	 * @param found
+	 *            HTSModel for which {@link #searchDurInCartTree(HTSModel, FeatureVector, HMMData, double)} was called
+	 * @param htsData
+	 *            HMMData with configuration settings
+	 * @param diffdur
+	 *            diffdur
+	 * @return duration
+	 */
+	public double reuseDurPdf(HTSModel m, HTSModel found, HMMData htsData, double diffdur) {
+		m.setDurPdf(found.getDurMean(), found.getDurVariance());
+		return setDurFromPdf(m, found.getDurMean(), found.getDurVariance(), htsData, diffdur);
+	}
+
+	private double setDurFromPdf(HTSModel m, double[] meanVector, double[] varVector, HMMData htsData, double diffdur) {
+		double data, dd;
+		double rho = htsData.getRho();
+		double durscale = htsData.getDurationScale();
 
 		dd = diffdur;
 		// in duration the length of the vector is the number of states.
@@ -257,6 +364,15 @@ public class CartTreeSet {
 	 *            uvthresh
 	 */
 	public void searchLf0InCartTree(HTSModel m, FeatureVector fv, FeatureDefinition featureDef, double uvthresh) {
+		if (lf0Models != null) {
+			for (int s = 0; s < numStates; s++) {
+				int leaf = lf0Models.findLeaf(s, fv);
+				m.setLf0Mean(s, lf0Models.getMean(leaf));
+				m.setLf0Variance(s, lf0Models.getVariance(leaf));
+				m.setVoiced(s, lf0Models.getVoicedWeight(leaf) > uvthresh);
+			}
+			return;
+		}
 		for (int s = 0; s < numStates; s++) {
 			PdfLeafNode node = (PdfLeafNode) lf0Tree[s].interpretToNode(fv, 1);
 			m.setLf0Mean(s, node.getMean());
@@ -270,6 +386,23 @@ public class CartTreeSet {
 		// m.printLf0Mean();
 	}
 
+	/***
+	 * Copy the log f0 pdfs and voicing decisions, per state, from a model for which
+	 * {@link #searchLf0InCartTree(HTSModel, FeatureVector, FeatureDefinition, double)} was called with the same context.
+	 * 
+	 * @param m
+	 *            HTSModel where mean and variances per state are copied
+	 * @param found
+	 *            HTSModel whose log f0 pdfs have been found in the trees
+	 */
+	public void reuseLf0Pdfs(HTSModel m, HTSModel found) {
+		for (int s = 0; s < numStates; s++) {
+			m.setLf0Mean(s, found.getLf0Mean(s));
+			m.setLf0Variance(s, found.getLf0Variance(s));
+			m.setVoiced(s, found.getVoiced(s));
+		}
+	}
+
 	/***
 	 * Searches fv in mgcTree CART[] set of trees, per state, and fill the information in the HTSModel m.
 	 * 
@@ -281,6 +414,14 @@ public class CartTreeSet {
 	 *            Feature definition
 	 */
 	public void searchMgcInCartTree(HTSModel m, FeatureVector fv, FeatureDefinition featureDef) {
+		if (mgcModels != null) {
+			for (int s = 0; s < numStates; s++) {
+				int leaf = mgcModels.findLeaf(s, fv);
+				m.setMcepMean(s, mgcModels.getMean(leaf));
+				m.setMcepVariance(s, mgcModels.getVariance(leaf));
+			}
+			return;
+		}
 		for (int s = 0; s < numStates; s++) {
 			PdfLeafNode node = (PdfLeafNode) mgcTree[s].interpretToNode(fv, 1);
 			m.setMcepMean(s, node.getMean());
@@ -299,6 +440,14 @@ public class CartTreeSet {
 	 *            Feature definition
 	 */
 	public void searchStrInCartTree(HTSModel m, FeatureVector fv, FeatureDefinition featureDef) {
+		if (strModels != null) {
+			for (int s = 0; s < numStates; s++) {
+				int leaf = strModels.findLeaf(s, fv);
+				m.setStrMean(s, strModels.getMean(leaf));
+				m.setStrVariance(s, strModels.getVariance(leaf));
+			}
+			return;
+		}
 		for (int s = 0; s < numStates; s++) {
 			PdfLeafNode node = (PdfLeafNode) strTree[s].interpretToNode(fv, 1);
 			m.setStrMean(s, node.getMean());
@@ -317,6 +466,14 @@ public class CartTreeSet {
 	 *            Feature definition
 	 */
 	public void searchMagInCartTree(HTSModel m, FeatureVector fv, FeatureDefinition featureDef) {
+		if (magModels != null) {
+			for (int s = 0; s < numStates; s++) {
+				int leaf = magModels.findLeaf(s, fv);
+				m.setMagMean(s, magModels.getMean(leaf));
+				m.setMagVariance(s, magModels.getVariance(leaf));
+			}
+			return;
+		}
 		for (int s = 0; s < numStates; s++) {
 			PdfLeafNode node = (PdfLeafNode) magTree[s].interpretToNode(fv, 1);
 			m.setMagMean(s, node.getMean());
@@ -361,11 +518,11 @@ public class CartTreeSet {
 			searchMgcInCartTree(m, fv, feaDef);
 
 			/* Find pdf for strengths, this function sets the pdf for each state. */
-			if (htsData.getTreeStrStream() != null)
+			if (hasTrees(HMMData.FeatureType.STR))
 				searchStrInCartTree(m, fv, feaDef);
 
 			/* Find pdf for Fourier magnitudes, this function sets the pdf for each state. */
-			if (htsData.getTreeMagStream() != null)
+			if (hasTrees(HMMData.FeatureType.MAG))
 				searchMagInCartTree(m, fv, feaDef);
 
 		} catch (Exception e) {
@@ -0,0 +1,406 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.htsengine;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import marytts.cart.CART;
+import marytts.cart.DecisionNode.BinaryByteDecisionNode;
+import marytts.cart.LeafNode.PdfLeafNode;
+import marytts.cart.Node;
+import marytts.exceptions.MaryConfigurationException;
+import marytts.features.FeatureDefinition;
+import marytts.features.FeatureVector;
+import marytts.htsengine.HMMData.FeatureType;
+import marytts.util.MaryUtils;
+import marytts.util.data.MaryHeader;
+import marytts.util.io.PropertiesAccessor;
+
+import org.apache.log4j.Logger;
+
+/**
+ * The trees and pdfs of an HSMM voice in a compiled binary form. Each stream (dur, lf0, mgc, str, mag) is stored as flat arrays:
+ * the decision nodes of all its trees as (feature index, byte value, yes, no) quadruples, and the mean/variance vectors of all
+ * leaves as one contiguous float block. Files are memory-mapped read-only, so several voices in one JVM, and several JVMs on one
+ * machine, share the same pages of the OS page cache; files opened by several voices in the same JVM are loaded only once.
+ * <p>
+ * File layout (big endian): a {@link MaryHeader} of type {@link MaryHeader#HTS_MODELS}, the {@link #FORMAT_VERSION}, the binary
+ * feature definition the trees were compiled against, padding to a multiple of four bytes, the number of HMM states, and then
+ * for each {@link FeatureType} in declaration order:
+ * 
+ * <pre>
+ * int numTrees (0 if the stream is absent)
+ * int vectorSize, int pdfLength, int numNodes, int numLeaves
+ * int[numTrees] roots
+ * int[4 * numNodes] nodes
+ * float[leafSize * numLeaves] leaves
+ * </pre>
+ * 
+ * The vector size is the one reported by {@link CartTreeSet} for the stream; the pdf length is the length of the mean and
+ * variance vectors in the leaves (one value per state for dur, one per stream for lf0). A node reference is a node index if it
+ * is non-negative, or the bitwise complement of a leaf index otherwise. A leaf holds the mean vector, the variance vector and,
+ * for lf0 only, the voiced weight, so leafSize is 2 * pdfLength, plus one for lf0.
+ * 
+ * @see CartTreeSet#loadTreeSet(CompiledCartTreeSet, FeatureDefinition)
+ */
+public class CompiledCartTreeSet {
+
+	/** Version of the layout following the MARY header, to be increased with every incompatible change. */
+	public static final int FORMAT_VERSION = 1;
+
+	private static final Logger logger = MaryUtils.getLogger("CompiledCartTreeSet");
+
+	private static final Map<String, CompiledCartTreeSet> loaded = new HashMap<String, CompiledCartTreeSet>();
+
+	private FeatureDefinition featureDefinition;
+	private int numStates;
+	private Stream[] streams = new Stream[FeatureType.values().length];
+
+	/**
+	 * Get the compiled models named by the given property. A file is memory-mapped; a value starting with "jar:" is read from the
+	 * classpath into memory, because a resource inside a jar cannot be mapped. Models already loaded from the same location are
+	 * shared.
+	 * 
+	 * @param p
+	 *            the voice properties
+	 * @param propertyName
+	 *            the name of the property holding the location of the compiled models
+	 * @return the compiled models, or null if the property is not set
+	 * @throws IOException
+	 *             if the models cannot be read
+	 * @throws MaryConfigurationException
+	 *             if the location does not hold compiled models of the current format version
+	 */
+	public static CompiledCartTreeSet load(PropertiesAccessor p, String propertyName) throws IOException,
+			MaryConfigurationException {
+		String location = p.getProperty(propertyName);
+		if (location == null) {
+			return null;
+		}
+		if (!location.startsWith("jar:")) {
+			location = new File(location).getCanonicalPath();
+		}
+		synchronized (loaded) {
+			CompiledCartTreeSet models = loaded.get(location);
+			if (models == null) {
+				ByteBuffer bb;
+				if (location.startsWith("jar:")) {
+					logger.debug("Reading compiled models from classpath resource " + location);
+					bb = ByteBuffer.wrap(readFully(p.getStream(propertyName)));
+				} else {
+					logger.debug("Mapping compiled models from " + location);
+					FileInputStream fis = new FileInputStream(location);
+					try {
+						FileChannel fc = fis.getChannel();
+						bb = fc.map(FileChannel.MapMode.READ_ONLY, 0, fc.size());
+					} finally {
+						fis.close();
+					}
+				}
+				models = new CompiledCartTreeSet(bb, location);
+				loaded.put(location, models);
+			}
+			return models;
+		}
+	}
+
+	private static byte[] readFully(InputStream in) throws IOException {
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buf = new byte[65536];
+			int n;
+			while ((n = in.read(buf)) != -1) {
+				out.write(buf, 0, n);
+			}
+			return out.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Read compiled models from the given buffer, without copying the node and leaf data.
+	 * 
+	 * @param bb
+	 *            a buffer positioned at the MARY header
+	 * @param location
+	 *            where the buffer comes from, for error messages
+	 * @throws IOException
+	 *             if the feature definition cannot be read
+	 * @throws MaryConfigurationException
+	 *             if the buffer does not hold compiled models of the current format version
+	 */
+	CompiledCartTreeSet(ByteBuffer bb, String location) throws IOException, MaryConfigurationException {
+		MaryHeader hdr = new MaryHeader(bb);
+		if (hdr.getType() != MaryHeader.HTS_MODELS) {
+			throw new MaryConfigurationException("File [" + location + "] does not contain compiled HMM models");
+		}
+		int version = bb.getInt();
+		if (version != FORMAT_VERSION) {
+			throw new MaryConfigurationException("Compiled HMM models in [" + location + "] have format version " + version
+					+ ", expected " + FORMAT_VERSION + " -- please convert the voice again");
+		}
+		featureDefinition = new FeatureDefinition(bb);
+		bb.position((bb.position() + 3) & ~3);
+		numStates = bb.getInt();
+		for (FeatureType type : FeatureType.values()) {
+			int numTrees = bb.getInt();
+			if (numTrees > 0) {
+				streams[type.ordinal()] = new Stream(bb, numTrees, type == FeatureType.LF0);
+			}
+		}
+	}
+
+	/**
+	 * The feature definition the trees were compiled against; feature indices and values in the nodes refer to it.
+	 * 
+	 * @return the feature definition
+	 */
+	public FeatureDefinition getFeatureDefinition() {
+		return featureDefinition;
+	}
+
+	public int getNumStates() {
+		return numStates;
+	}
+
+	/**
+	 * @param type
+	 *            type
+	 * @return the trees and pdfs for the given type, or null if the voice has none
+	 */
+	public Stream getStream(FeatureType type) {
+		return streams[type.ordinal()];
+	}
+
+	/**
+	 * Write the trees and pdfs of the given tree set, as loaded from the text HTS files, in compiled form.
+	 * 
+	 * @param cart
+	 *            a tree set loaded with {@link CartTreeSet#loadTreeSet(HMMData, FeatureDefinition, PhoneTranslator)}
+	 * @param featureDef
+	 *            the feature definition the trees were loaded with
+	 * @param fileName
+	 *            the file to write
+	 * @throws IOException
+	 *             if the file cannot be written or a tree contains unexpected nodes
+	 */
+	public static void write(CartTreeSet cart, FeatureDefinition featureDef, String fileName) throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName)));
+		try {
+			new MaryHeader(MaryHeader.HTS_MODELS).writeTo(out);
+			out.writeInt(FORMAT_VERSION);
+			featureDef.writeBinaryTo(out);
+			while (out.size() % 4 != 0) {
+				out.writeByte(0);
+			}
+			out.writeInt(cart.getNumStates());
+			for (FeatureType type : FeatureType.values()) {
+				CART[] trees = cart.getTrees(type);
+				if (trees == null) {
+					out.writeInt(0);
+				} else {
+					int vectorSize;
+					if (type == FeatureType.DUR) {
+						vectorSize = cart.getNumStates();
+					} else if (type == FeatureType.LF0) {
+						vectorSize = cart.getLf0Stream();
+					} else {
+						vectorSize = cart.getVsize(type);
+					}
+					writeStream(trees, type, vectorSize, out);
+				}
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	private static void writeStream(CART[] trees, FeatureType type, int vectorSize, DataOutputStream out)
+			throws IOException {
+		List<int[]> nodes = new ArrayList<int[]>();
+		List<PdfLeafNode> leaves = new ArrayList<PdfLeafNode>();
+		int[] roots = new int[trees.length];
+		for (int i = 0; i < trees.length; i++) {
+			roots[i] = flatten(trees[i].getRootNode(), nodes, leaves);
+		}
+		int pdfLength = leaves.get(0).getMean().length;
+		boolean lf0 = (type == FeatureType.LF0);
+
+		out.writeInt(trees.length);
+		out.writeInt(vectorSize);
+		out.writeInt(pdfLength);
+		out.writeInt(nodes.size());
+		out.writeInt(leaves.size());
+		for (int root : roots) {
+			out.writeInt(root);
+		}
+		for (int[] node : nodes) {
+			for (int v : node) {
+				out.writeInt(v);
+			}
+		}
+		for (PdfLeafNode leaf : leaves) {
+			double[] mean = leaf.getMean();
+			double[] variance = leaf.getVariance();
+			if (mean.length != pdfLength) {
+				throw new IOException("Leaf " + leaf.getUniqueLeafId() + " of " + type + " tree has pdf length " + mean.length
+						+ ", expected " + pdfLength);
+			}
+			for (double v : mean) {
+				out.writeFloat((float) v);
+			}
+			for (double v : variance) {
+				out.writeFloat((float) v);
+			}
+			if (lf0) {
+				out.writeFloat((float) leaf.getVoicedWeight());
+			}
+		}
+	}
+
+	/**
+	 * Append the subtree below node to the flat lists, in pre-order.
+	 * 
+	 * @return the reference to node: its index in nodes, or the complement of its index in leaves
+	 */
+	private static int flatten(Node node, List<int[]> nodes, List<PdfLeafNode> leaves) throws IOException {
+		if (node instanceof PdfLeafNode) {
+			leaves.add((PdfLeafNode) node);
+			return ~(leaves.size() - 1);
+		}
+		if (!(node instanceof BinaryByteDecisionNode)) {
+			throw new IOException("Cannot compile HTS tree node " + node);
+		}
+		BinaryByteDecisionNode decision = (BinaryByteDecisionNode) node;
+		int[] entry = new int[4];
+		int index = nodes.size();
+		nodes.add(entry);
+		entry[0] = decision.getFeatureIndex();
+		entry[1] = decision.getCriterionValueAsByte();
+		entry[2] = flatten(decision.getDaughter(0), nodes, leaves);
+		entry[3] = flatten(decision.getDaughter(1), nodes, leaves);
+		return index;
+	}
+
+	/**
+	 * The trees of one stream, one per state (a single one for duration), with their leaf pdfs. All accessors are read-only on
+	 * shared buffers and may be used concurrently.
+	 */
+	public static class Stream {
+		private int vectorSize;
+		private int pdfLength;
+		private int leafSize;
+		private IntBuffer roots;
+		private IntBuffer nodes;
+		private FloatBuffer leaves;
+
+		private Stream(ByteBuffer bb, int numTrees, boolean lf0) {
+			vectorSize = bb.getInt();
+			pdfLength = bb.getInt();
+			leafSize = 2 * pdfLength + (lf0 ? 1 : 0);
+			int numNodes = bb.getInt();
+			int numLeaves = bb.getInt();
+			roots = take(bb, 4 * numTrees).asIntBuffer();
+			nodes = take(bb, 16 * numNodes).asIntBuffer();
+			leaves = take(bb, 4 * leafSize * numLeaves).asFloatBuffer();
+		}
+
+		private static ByteBuffer take(ByteBuffer bb, int numBytes) {
+			ByteBuffer slice = bb.slice();
+			slice.limit(numBytes);
+			bb.position(bb.position() + numBytes);
+			return slice;
+		}
+
+		/**
+		 * @return the vector size of the stream, as reported by {@link CartTreeSet}
+		 */
+		public int getVectorSize() {
+			return vectorSize;
+		}
+
+		public int getNumTrees() {
+			return roots.capacity();
+		}
+
+		/**
+		 * Walk the given tree down to its leaf for the given feature vector.
+		 * 
+		 * @param tree
+		 *            the tree index, i.e. the state
+		 * @param fv
+		 *            the context feature vector
+		 * @return the leaf index
+		 */
+		public int findLeaf(int tree, FeatureVector fv) {
+			int node = roots.get(tree);
+			while (node >= 0) {
+				int i = 4 * node;
+				if (fv.getByteFeature(nodes.get(i)) == nodes.get(i + 1)) {
+					node = nodes.get(i + 2);
+				} else {
+					node = nodes.get(i + 3);
+				}
+			}
+			return ~node;
+		}
+
+		public double[] getMean(int leaf) {
+			return get(leaf * leafSize);
+		}
+
+		public double[] getVariance(int leaf) {
+			return get(leaf * leafSize + pdfLength);
+		}
+
+		/**
+		 * @param leaf
+		 *            leaf
+		 * @return the voiced weight of an lf0 leaf
+		 */
+		public double getVoicedWeight(int leaf) {
+			return leaves.get(leaf * leafSize + 2 * pdfLength);
+		}
+
+		private double[] get(int offset) {
+			double[] v = new double[pdfLength];
+			for (int i = 0; i < pdfLength; i++) {
+				v[i] = leaves.get(offset + i);
+			}
+			return v;
+		}
+	}
+}
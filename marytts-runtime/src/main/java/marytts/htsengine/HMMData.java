@@ -135,6 +135,7 @@ public class HMMData {
 	private boolean useLogGain = false; /* log gain flag (for LSP) */
 
 	private double uv = 0.5; /* variable for U/V threshold */
+	private String voiceName = null; /* name of the voice whose configuration was loaded */
 	private boolean algnst = false; /* use state level alignment for duration */
 	private boolean algnph = false; /* use phone level alignment for duration */
 	private boolean useMixExc = true; /* use Mixed Excitation */
@@ -248,6 +249,10 @@ public class HMMData {
 		return uv;
 	}
 
+	public String getVoiceName() {
+		return voiceName;
+	}
+
 	public boolean getAlgnst() {
 		return algnst;
 	}
@@ -545,6 +550,7 @@ public class HMMData {
 
 	public void initHMMData(PropertiesAccessor p, String voiceName) throws IOException, MaryConfigurationException {
 		logger.debug("Reached new initHMMData");
+		this.voiceName = voiceName;
 		String prefix = "voice." + voiceName;
 		rate = p.getInteger(prefix + ".samplingRate", rate);
 		fperiod = p.getInteger(prefix + ".framePeriod", fperiod);
@@ -553,17 +559,11 @@ public class HMMData {
 		useLogGain = p.getBoolean(prefix + ".logGain", useLogGain);
 		beta = p.getDouble(prefix + ".beta", beta);
 
-		treeDurStream = p.getStream(prefix + ".Ftd"); /* Tree DUR */
-		treeLf0Stream = p.getStream(prefix + ".Ftf"); /* Tree LF0 */
-		treeMgcStream = p.getStream(prefix + ".Ftm"); /* Tree MCP */
-		treeStrStream = p.getStream(prefix + ".Fts"); /* Tree STR */
-		treeMagStream = p.getStream(prefix + ".Fta"); /* Tree MAG */
-
-		pdfDurStream = p.getStream(prefix + ".Fmd"); /* Model DUR */
-		pdfLf0Stream = p.getStream(prefix + ".Fmf"); /* Model LF0 */
-		pdfMgcStream = p.getStream(prefix + ".Fmm"); /* Model MCP */
-		pdfStrStream = p.getStream(prefix + ".Fms"); /* Model STR */
-		pdfMagStream = p.getStream(prefix + ".Fma"); /* Model MAG */
+		/* Compiled trees and pdfs, if any, replace the text tree and pdf files */
+		CompiledCartTreeSet compiledModels = CompiledCartTreeSet.load(p, prefix + ".compiledModels");
+		if (compiledModels == null) {
+			openTreeAndPdfStreams(p, prefix);
+		}
 
 		useAcousticModels = p.getBoolean(prefix + ".useAcousticModels"); /*
 																		 * use AcousticModeller, so prosody modification is
@@ -623,8 +623,13 @@ public class HMMData {
 		}
 
 		/* Load TreeSet in CARTs. */
-		logger.debug("Loading Tree Set in CARTs:");
-		loadCartTreeSet();
+		if (compiledModels != null) {
+			logger.debug("Using compiled Tree Set:");
+			cart.loadTreeSet(compiledModels, feaDef);
+		} else {
+			logger.debug("Loading Tree Set in CARTs:");
+			loadCartTreeSet();
+		}
 
 		/* Load GV ModelSet gv */
 		logger.debug("Loading GV Model Set:");
@@ -633,6 +638,20 @@ public class HMMData {
 		logger.debug("InitHMMData complete");
 	}
 
+	private void openTreeAndPdfStreams(PropertiesAccessor p, String prefix) throws IOException, MaryConfigurationException {
+		treeDurStream = p.getStream(prefix + ".Ftd"); /* Tree DUR */
+		treeLf0Stream = p.getStream(prefix + ".Ftf"); /* Tree LF0 */
+		treeMgcStream = p.getStream(prefix + ".Ftm"); /* Tree MCP */
+		treeStrStream = p.getStream(prefix + ".Fts"); /* Tree STR */
+		treeMagStream = p.getStream(prefix + ".Fta"); /* Tree MAG */
+
+		pdfDurStream = p.getStream(prefix + ".Fmd"); /* Model DUR */
+		pdfLf0Stream = p.getStream(prefix + ".Fmf"); /* Model LF0 */
+		pdfMgcStream = p.getStream(prefix + ".Fmm"); /* Model MCP */
+		pdfStrStream = p.getStream(prefix + ".Fms"); /* Model STR */
+		pdfMagStream = p.getStream(prefix + ".Fma"); /* Model MAG */
+	}
+
 	/**
 	 * Reads from configuration file all the data files in this class this method is used when running HTSengine stand alone.
 	 * 
@@ -672,13 +691,17 @@ public class HMMData {
 	 *             MaryConfigurationException
 	 */
 	public void initHMMDataForHMMModel(String voiceName) throws IOException, MaryConfigurationException {
+		this.voiceName = voiceName;
 		PropertiesAccessor p = MaryConfig.getVoiceConfig(voiceName).getPropertiesAccessor(true);
 		String prefix = "voice." + voiceName;
-		treeDurStream = p.getStream(prefix + ".Ftd");
-		pdfDurStream = p.getStream(prefix + ".Fmd");
+		CompiledCartTreeSet compiledModels = CompiledCartTreeSet.load(p, prefix + ".compiledModels");
+		if (compiledModels == null) {
+			treeDurStream = p.getStream(prefix + ".Ftd");
+			pdfDurStream = p.getStream(prefix + ".Fmd");
 
-		treeLf0Stream = p.getStream(prefix + ".Ftf");
-		pdfLf0Stream = p.getStream(prefix + ".Fmf");
+			treeLf0Stream = p.getStream(prefix + ".Ftf");
+			pdfLf0Stream = p.getStream(prefix + ".Fmf");
+		}
 		useGV = p.getBoolean(prefix + ".useGV");
 		if (useGV) {
 			useContextDependentGV = p.getBoolean(prefix + ".useContextDependentGV", useContextDependentGV);
@@ -707,8 +730,13 @@ public class HMMData {
 		trickyPhones = new PhoneTranslator(trickyPhonesStream);
 
 		/* Load TreeSet ts and ModelSet ms for current voice */
-		logger.info("Loading Tree Set in CARTs:");
-		cart.loadTreeSet(this, feaDef, trickyPhones);
+		if (compiledModels != null) {
+			logger.info("Using compiled Tree Set:");
+			cart.loadTreeSet(compiledModels, feaDef);
+		} else {
+			logger.info("Loading Tree Set in CARTs:");
+			cart.loadTreeSet(this, feaDef, trickyPhones);
+		}
 
 		logger.info("Loading GV Model Set:");
 		gv.loadGVModelSet(this, feaDef);
@@ -763,22 +791,17 @@ public class HMMData {
 	} /* method readMixedExcitationFiltersFile() */
 
 	/**
-	 * return the set of FeatureTypes that are available in this HMMData object
+	 * return the set of FeatureTypes that are available in this HMMData object, i.e. for which trees have been loaded, from the
+	 * HTS files or from compiled models
 	 * 
 	 * @return featureTypes
 	 */
 	public Set<FeatureType> getFeatureSet() {
 		Set<FeatureType> featureTypes = EnumSet.noneOf(FeatureType.class);
-		if (getPdfDurStream() != null)
-			featureTypes.add(FeatureType.DUR);
-		if (getPdfLf0Stream() != null)
-			featureTypes.add(FeatureType.LF0);
-		if (getPdfStrStream() != null)
-			featureTypes.add(FeatureType.STR);
-		if (getPdfMagStream() != null)
-			featureTypes.add(FeatureType.MAG);
-		if (getPdfMgcStream() != null)
-			featureTypes.add(FeatureType.MGC);
+		for (FeatureType type : FeatureType.values()) {
+			if (cart.hasTrees(type))
+				featureTypes.add(type);
+		}
 		return featureTypes;
 	}
 
@@ -68,6 +68,7 @@ import java.util.Locale;
 import javax.sound.sampled.AudioFormat;
 
 import marytts.config.MaryConfig;
+import marytts.exceptions.MaryConfigurationException;
 import marytts.modules.synthesis.Voice;
 import marytts.modules.synthesis.WaveformSynthesizer;
 import marytts.server.MaryProperties;
@@ -79,6 +80,7 @@ public class HMMVoice extends Voice {
 
 	private HMMData htsData = new HMMData();
 	private Logger logger = MaryUtils.getLogger("HMMVoice");
+	private volatile boolean loaded = false;
 
 	/**
 	 * constructor
@@ -93,30 +95,56 @@ public class HMMVoice extends Voice {
 	public HMMVoice(String voiceName, WaveformSynthesizer synthesizer) throws Exception {
 		super(voiceName, synthesizer);
 
-		htsData.initHMMData(voiceName);
+		if (!isLazyLoading()) {
+			warmUp();
+		}
+	}
 
+	/**
+	 * Load the HMMs and trees of this voice, unless this has been done already.
+	 */
+	@Override
+	public void warmUp() throws MaryConfigurationException {
+		if (loaded) {
+			return;
+		}
+		synchronized (this) {
+			if (!loaded) {
+				try {
+					htsData.initHMMData(getName());
+				} catch (Exception e) {
+					throw new MaryConfigurationException("Cannot load HMM voice '" + getName() + "'", e);
+				}
+				loaded = true;
+			}
+		}
 	}
 
 	public HMMData getHMMData() {
+		try {
+			warmUp();
+		} catch (MaryConfigurationException e) {
+			throw new IllegalStateException("Cannot load HMM voice '" + getName() + "'", e);
+		}
 		return this.htsData;
 	}
 
 	/* set parameters for generation: f0Std, f0Mean and length, default values 1.0, 0.0 and 0.0 */
 	/* take the values from audio effects component through a MaryData object */
 	public void setF0Std(double dval) {
-		htsData.setF0Std(dval);
+		getHMMData().setF0Std(dval);
 	}
 
 	public void setF0Mean(double dval) {
-		htsData.setF0Mean(dval);
+		getHMMData().setF0Mean(dval);
 	}
 
 	public void setLength(double dval) {
-		htsData.setLength(dval);
+		getHMMData().setLength(dval);
 	}
 
 	public void setDurationScale(double dval) {
-		htsData.setDurationScale(dval);
+		getHMMData().setDurationScale(dval);
 	}
 
 } /* class HMMVoice */
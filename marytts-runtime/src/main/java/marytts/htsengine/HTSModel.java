@@ -64,7 +64,9 @@
 package marytts.htsengine;
 
 import java.util.Arrays;
+import marytts.datatypes.AcousticParameters;
 import marytts.htsengine.HMMData.FeatureType;
+import marytts.util.string.StringUtils;
 
 /**
  * HMM model for a particular phone (or line in context feature file) This model is the unit when building a utterance model
@@ -83,6 +85,8 @@ public class HTSModel {
 	private int dur[]; /* duration for each state of this HMM */
 	private int totalDur; /* total duration of this HMM in frames */
 	private int totalDurMillisec; /* total duration of this model in milliseconds */
+	private double durMean[]; /* mean vector of the duration pdf found for this HMM, one element per state */
+	private double durVariance[]; /* variance (diag) elements of the duration pdf found for this HMM */
 	private double lf0Mean[][]; /* mean vector of log f0 pdfs for each state of this HMM */
 	private double lf0Variance[][]; /* variance (diag) elements of log f0 for each state of this HMM */
 	private double mcepMean[][]; /* mean vector of mel-cepstrum pdfs for each state of this HMM */
@@ -95,10 +99,10 @@ public class HTSModel {
 
 	private boolean voiced[]; /* voiced/unvoiced decision for each state of this HMM */
 
-	private String maryXmlDur; /* duration in maryXML input acoustparams, format d="val" in millisec. */
-	private String maryXmlF0; /*
-							 * F0 values in maryXML input acoustparams, format f0="(1,val1)...(100,val2)" (%pos in total duration,
-							 * f0 Hz)
+	private double maryXmlDur; /* duration in maryXML input acoustparams, d="val" in millisec., or NaN if there is none */
+	private int[] maryXmlF0; /*
+							 * F0 targets in maryXML input acoustparams, format f0="(1,val1)...(100,val2)", as pairs of %pos in
+							 * total duration and f0 Hz
 							 */
 
 	private boolean gvSwitch; /* GV switch, applies to all the states of this model */
@@ -147,6 +151,19 @@ public class HTSModel {
 		return totalDurMillisec;
 	}
 
+	public void setDurPdf(double mean[], double variance[]) {
+		durMean = mean;
+		durVariance = variance;
+	}
+
+	public double[] getDurMean() {
+		return durMean;
+	}
+
+	public double[] getDurVariance() {
+		return durVariance;
+	}
+
 	public void setLf0Mean(int i, int j, double val) {
 		lf0Mean[i][j] = val;
 	}
@@ -172,6 +189,14 @@ public class HTSModel {
 		lf0Variance[i] = val;
 	}
 
+	public double[] getLf0Mean(int i) {
+		return lf0Mean[i];
+	}
+
+	public double[] getLf0Variance(int i) {
+		return lf0Variance[i];
+	}
+
 	public void setMcepMean(int i, int j, double val) {
 		mcepMean[i][j] = val;
 	}
@@ -358,19 +383,71 @@ public class HTSModel {
 		return numVoiced;
 	}
 
+	/**
+	 * @param str
+	 *            duration in the format of the maryXML d attribute, or null
+	 */
 	public void setMaryXmlDur(String str) {
-		maryXmlDur = str;
+		maryXmlDur = str == null ? Double.NaN : Double.parseDouble(str);
 	}
 
+	/**
+	 * @return the duration in the format of the maryXML d attribute, or null if there is none
+	 */
 	public String getMaryXmlDur() {
+		return Double.isNaN(maryXmlDur) ? null : AcousticParameters.formatDuration(maryXmlDur);
+	}
+
+	/**
+	 * @param millis
+	 *            duration in milliseconds, or NaN if there is none
+	 */
+	public void setMaryXmlDuration(double millis) {
+		maryXmlDur = millis;
+	}
+
+	/**
+	 * @return the duration in milliseconds, or NaN if there is none
+	 */
+	public double getMaryXmlDuration() {
 		return maryXmlDur;
 	}
 
+	/**
+	 * @param str
+	 *            F0 targets in the format of the maryXML f0 attribute
+	 */
 	public void setMaryXmlF0(String str) {
-		maryXmlF0 = str;
+		maryXmlF0 = str == null ? null : StringUtils.parseIntPairs(str);
 	}
 
+	/**
+	 * @return the F0 targets in the format of the maryXML f0 attribute
+	 */
 	public String getMaryXmlF0() {
+		if (maryXmlF0 == null) {
+			return null;
+		}
+		StringBuilder buf = new StringBuilder();
+		for (int i = 0; i + 1 < maryXmlF0.length; i += 2) {
+			buf.append('(').append(maryXmlF0[i]).append(',').append(maryXmlF0[i + 1]).append(')');
+		}
+		return buf.toString();
+	}
+
+	/**
+	 * @param targets
+	 *            pairs of position in percent of the total duration and F0 in Hz, or null; the array is kept.
+	 */
+	public void setMaryXmlF0Targets(int[] targets) {
+		maryXmlF0 = targets;
+	}
+
+	/**
+	 * @return pairs of position in percent of the total duration and F0 in Hz, or null if there are none. The array must not be
+	 *         modified.
+	 */
+	public int[] getMaryXmlF0Targets() {
 		return maryXmlF0;
 	}
 
@@ -401,7 +478,7 @@ public class HTSModel {
 		magMean = new double[nstate][];
 		magVariance = new double[nstate][];
 
-		maryXmlDur = null;
+		maryXmlDur = Double.NaN;
 		maryXmlF0 = null;
 
 		gvSwitch = true;
@@ -63,8 +63,13 @@
 
 package marytts.htsengine;
 
-import marytts.util.MaryUtils;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import marytts.util.MaryUtils;
 
 import org.apache.log4j.Logger;
 
@@ -103,12 +108,6 @@ public class HTSPStream {
 	private double mseq[][];
 	/** sequence of inversed variance vector */
 	private double ivseq[][];
-	/** for forward substitution */
-	private double g[];
-	/** W' U^-1 W */
-	private double wuw[][];
-	/** W' U^-1 mu */
-	private double wum[];
 
 	/* ____________________Dynamic window ____________________ */
 	// private final HTSDWin dw; /* Windows used to calculate dynamic features, delta and delta-delta */
@@ -127,8 +126,6 @@ public class HTSPStream {
 
 	/* ____________________ GV related variables ____________________ */
 	/* GV: Global mean and covariance (diagonal covariance only) */
-	/** mean and variance for current utt eqs: (16), (17) */
-	private double mean, var;
 	/** max iterations in the speech parameter generation considering GV */
 	private final int maxGVIter;
 	/** convergence factor for GV iteration */
@@ -147,9 +144,6 @@ public class HTSPStream {
 	private final static double w2 = 1.0;
 	/** ~log(0) */
 	private final static double lzero = (-1.0e+10);
-	private double norm = 0.0;
-	private double GVobj = 0.0;
-	private double HMMobj = 0.0;
 	private double gvmean[];
 	private double gvcovInv[];
 	/** GV flag sequence, to consider or not the frame in gv */
@@ -176,9 +170,6 @@ public class HTSPStream {
 		/* ___________________________Matrices initialisation___________________ */
 		mseq = new double[nT][vSize];
 		ivseq = new double[nT][vSize];
-		g = new double[nT];
-		wuw = new double[nT][WIDTH];
-		wum = new double[nT];
 
 		/* GV Switch sequence initialisation */
 		gvSwitch = new boolean[nT];
@@ -252,9 +243,9 @@ public class HTSPStream {
 		}
 	}
 
-	private void printWUW(int t) {
+	private void printWUW(Workspace ws, int t) {
 		for (int i = 0; i < WIDTH; i++)
-			System.out.print("WUW[" + t + "][" + i + "]=" + wuw[t][i] + "  ");
+			System.out.print("WUW[" + t + "][" + i + "]=" + ws.wuw[t * WIDTH + i] + "  ");
 		System.out.println("");
 	}
 
@@ -266,37 +257,158 @@ public class HTSPStream {
 	 * mlpg: generate sequence of speech parameter vector maximizing its output probability for given pdf sequence
 	 */
 	public void mlpg(HMMData htsData, boolean useGV) {
+		logGVMethod(htsData);
+		Workspace ws = getWorkspace(nT);
+		for (int m = 0; m < order; m++) {
+			mlpgDimension(m, htsData, useGV, ws);
+		}
+	} /* method mlpg */
+
+	/**
+	 * Parallel version of {@link #mlpg(HMMData, boolean)}: the static feature dimensions are independent of each other, so each
+	 * of them is submitted as a separate task to the given executor. The method does not wait for the tasks, so that the caller
+	 * can submit the dimensions of several streams before waiting for all of them; the parameters of this stream are only valid
+	 * once all returned futures are done.
+	 * 
+	 * @param htsData
+	 *            htsData
+	 * @param useGV
+	 *            whether to apply global variance optimization
+	 * @param executor
+	 *            the executor to run the dimensions on. Tasks do not submit further tasks, so a bounded pool is safe.
+	 * @return one future per dimension
+	 */
+	public List<Future<?>> submitMlpg(final HMMData htsData, final boolean useGV, ExecutorService executor) {
+		logGVMethod(htsData);
+		List<Future<?>> futures = new ArrayList<Future<?>>(order);
+		for (int m = 0; m < order; m++) {
+			final int dim = m;
+			futures.add(executor.submit(new Runnable() {
+				public void run() {
+					mlpgDimension(dim, htsData, useGV, getWorkspace(nT));
+				}
+			}));
+		}
+		return futures;
+	}
 
+	/**
+	 * Incremental version of {@link #mlpg(HMMData, boolean)}: generate only the frames from start (inclusive) to end (exclusive),
+	 * solving them as if they were a complete utterance. The frames from start to fadeEnd overlap with the previous window and
+	 * already hold its values; they are cross-faded linearly towards the new values to hide the discontinuity at the window
+	 * border. Global variance is approximated per window by scaling it to the GV of the voice, i.e. the initial step of the GV
+	 * optimisation without the iterations.
+	 * 
+	 * @param htsData
+	 *            htsData
+	 * @param useGV
+	 *            whether to approximate global variance
+	 * @param start
+	 *            first frame of the window
+	 * @param end
+	 *            frame after the last frame of the window
+	 * @param fadeEnd
+	 *            frame after the last frame shared with the previous window, or start if there is none
+	 */
+	public void mlpgWindow(HMMData htsData, boolean useGV, int start, int end, int fadeEnd) {
+		int n = end - start;
+		int fade = fadeEnd - start;
+		Workspace ws = getWorkspace(n);
+		double[] c = ws.c;
+		for (int m = 0; m < order; m++) {
+			calcWUWandWUM(m, start, n, ws);
+			ldlFactorization(ws.wuw, n);
+			forwardSubstitution(ws, n);
+			backwardSubstitution(ws, n);
+			if (useGV && gvmean != null)
+				scaleToGV(m, start, n, ws);
+			for (int t = 0; t < n; t++) {
+				if (t < fade) {
+					double w = (t + 1.0) / (fade + 1.0);
+					par[start + t][m] = (1.0 - w) * par[start + t][m] + w * c[t];
+				} else {
+					par[start + t][m] = c[t];
+				}
+			}
+		}
+	}
+
+	private void logGVMethod(HMMData htsData) {
 		if (htsData.getUseContextDependentGV())
 			logger.info("Context-dependent global variance optimization: gvLength = " + gvLength);
 		else
 			logger.info("Global variance optimization");
+	}
 
-		for (int m = 0; m < order; m++) {
-			calcWUWandWUM(m);
-			double[][] mywuw = new double[nT][];
-			for (int x = 0; x < wuw.length; x++) {
-				mywuw[x] = Arrays.copyOf(wuw[x], wuw[x].length);
-			}
-			double[] mywum = Arrays.copyOf(wum, wum.length);
-			ldlFactorization(mywuw); /* LDL factorization */
-			forwardSubstitution(mywum, mywuw); /* forward substitution in Cholesky decomposition */
-			backwardSubstitution(m, mywuw); /* backward substitution in Cholesky decomposition */
-
-			/* Global variance optimisation for MCP and LF0 */
-			if (useGV && gvLength > 0) {
-				if (htsData.getGvMethodGradient())
-					gvParmGenGradient(m, false); // this is the previous method we have in MARY, using the Gradient as in the
+	/** solve for static feature dimension m, using ws as scratch space */
+	private void mlpgDimension(int m, HMMData htsData, boolean useGV, Workspace ws) {
+		calcWUWandWUM(m, ws);
+		ldlFactorization(ws.wuw, nT); /* LDL factorization */
+		forwardSubstitution(ws, nT); /* forward substitution in Cholesky decomposition */
+		backwardSubstitution(ws, nT); /* backward substitution in Cholesky decomposition */
+		for (int t = 0; t < nT; t++)
+			par[t][m] = ws.c[t];
+
+		/* Global variance optimisation for MCP and LF0 */
+		if (useGV && gvLength > 0) {
+			if (htsData.getGvMethodGradient())
+				gvParmGenGradient(m, false, ws); // this is the previous method we have in MARY, using the Gradient as in the
 													// Paper of Toda et. al. IEICE 2007
 													// if using this method the variances have to be inverse (see note in GVModel
 													// set: case NEWTON in gv optimization)
 													// this method seems to give a better result
-				else
-					gvParmGenDerivative(m, false); // this is the method in the hts_engine 1.04 the variances are not inverse
+			else
+				gvParmGenDerivative(m, false, ws); // this is the method in the hts_engine 1.04 the variances are not inverse
+
+		}
+	}
+
+	/*----------------- Scratch space  -----------------------------*/
 
+	/**
+	 * The matrices and GV statistics needed while solving one dimension. They used to be fields of the stream, which made the
+	 * dimensions depend on each other; now each thread keeps one workspace and reuses it for all dimensions and utterances.
+	 */
+	private static final class Workspace {
+		/** for forward substitution */
+		double g[] = new double[0];
+		/** W' U^-1 W, WIDTH values per frame */
+		double wuw[] = new double[0];
+		/** W' U^-1 mu */
+		double wum[] = new double[0];
+		/** solution for the current dimension */
+		double c[] = new double[0];
+		/** previous gradient and original parameters for GV optimization */
+		double diag[] = new double[0];
+		double parOri[] = new double[0];
+		/** mean and variance for current utt eqs: (16), (17) */
+		double mean, var;
+		double norm, GVobj, HMMobj;
+
+		void ensureCapacity(int length) {
+			if (g.length < length) {
+				g = new double[length];
+				wuw = new double[length * WIDTH];
+				wum = new double[length];
+				c = new double[length];
+				diag = new double[length];
+				parOri = new double[length];
 			}
 		}
-	} /* method mlpg */
+	}
+
+	private static final ThreadLocal<Workspace> workspaces = new ThreadLocal<Workspace>() {
+		@Override
+		protected Workspace initialValue() {
+			return new Workspace();
+		}
+	};
+
+	private static Workspace getWorkspace(int length) {
+		Workspace ws = workspaces.get();
+		ws.ensureCapacity(length);
+		return ws;
+	}
 
 	/*----------------- HTS parameter generation fuctions  -----------------------------*/
 
@@ -310,29 +422,44 @@ public class HTSPStream {
 	/* L'C = y , solve for C using backward substitution */
 	/* So having A and B we can find the parameters C. */
 	/* U^{-1} = inverse covariance : inseq[][] */
-	private void calcWUWandWUM(int m) {
+	private void calcWUWandWUM(int m, Workspace ws) {
+		calcWUWandWUM(m, 0, nT, ws);
+	}
+
+	/**
+	 * Calc_WUW_and_WUM for the n frames starting at t0, as if they were the whole utterance; the results are indexed from 0. Like
+	 * at the utterance boundaries (see {@link #fixDynFeatOnBoundaries()}), dynamic features are ignored on the first and last
+	 * frame if the window cuts into the utterance there.
+	 */
+	private void calcWUWandWUM(int m, int t0, int n, Workspace ws) {
+		double[] wum = ws.wum;
+		double[] wuw = ws.wuw;
+		int cutLeft = t0 > 0 ? 0 : -1;
+		int cutRight = t0 + n < nT ? n - 1 : -1;
 		/* initialise */
-		Arrays.fill(wum, 0, nT, 0.0);
+		Arrays.fill(wum, 0, n, 0.0);
+		Arrays.fill(wuw, 0, n * WIDTH, 0.0);
 		/* for all frames: */
-		for (int t = 0; t < nT; t++) {
-			/* initialise */
-			Arrays.fill(wuw[t], 0.0);
+		for (int t = 0; t < n; t++) {
+			int row = t * WIDTH;
 			/* calc WUW & WUM, U is already inverse */
 			for (int i = 0; i < NUM; i++) {
 				int dwWidth_iright = rightWidths[i];
 				int iorder = i * order + m;
 				for (int j = leftWidths[i]; j <= dwWidth_iright; j++) {
-					if ((t + j >= 0) && (t + j < nT)) {
+					if ((t + j >= 0) && (t + j < n)) {
+						if (i > 0 && (t + j == cutLeft || t + j == cutRight))
+							continue;
 						double dwCoef_ij = xcoefs[1 + i * NUM - j];
 						if (dwCoef_ij != 0.0) {
-							double WU = dwCoef_ij * ivseq[t + j][iorder];
+							double WU = dwCoef_ij * ivseq[t0 + t + j][iorder];
 
-							wum[t] += WU * mseq[t + j][iorder];
-							for (int k = 0; (k < WIDTH) && (t + k < nT); k++) {
+							wum[t] += WU * mseq[t0 + t + j][iorder];
+							for (int k = 0; (k < WIDTH) && (t + k < n); k++) {
 								if (k - j <= dwWidth_iright) {
 									double dwCoef_ikj = xcoefs[1 + i * NUM + k - j];
 									if (dwCoef_ikj != 0.0) {
-										wuw[t][k] += WU * dwCoef_ikj;
+										wuw[row + k] += WU * dwCoef_ikj;
 									}
 								}
 							} /* for k */
@@ -341,93 +468,86 @@ public class HTSPStream {
 				} /* for j */
 			} /* for i */
 		} /* for t */
-		/*
-		 * if(debug){ for(int t=0; t<nT; t++) { System.out.format("t=%d wum=%f  wuw:", t, wum[t]); for(int k=0; k<wuw[t].length;
-		 * k++) System.out.format("%f ", wuw[t][k]); System.out.format("\n"); } System.out.format("\n"); }
-		 */
 	}
 
-	/** ldlFactorization: Factorize W'*U^{-1}*W to L*D*L' (L: lower triangular, D: diagonal) */
-	private static void ldlFactorization(double[][] mywuw) {
-		for (int t = 0; t < mywuw.length; t++) {
-
-			/*
-			 * if(debug){ System.out.println("WUW calculation:"); printWUW(t); }
-			 */
+	/** ldlFactorization: Factorize W'*U^{-1}*W to L*D*L' (L: lower triangular, D: diagonal), in place */
+	private static void ldlFactorization(double[] wuw, int nT) {
+		for (int t = 0; t < nT; t++) {
+			int row = t * WIDTH;
 
 			/*
 			 * I need i=1 for the delay in t, but the indexes i in WUW[t][i] go from 0 to 2 so wherever i is used as index i=i-1
 			 * (this is just to keep somehow the original c implementation).
 			 */
-			for (int i = 1; (i < WIDTH) && (t - i >= 0); i++)
-				mywuw[t][0] -= mywuw[t - i][i] * mywuw[t - i][i] * mywuw[t - i][0];
+			for (int i = 1; (i < WIDTH) && (t - i >= 0); i++) {
+				int prev = (t - i) * WIDTH;
+				wuw[row] -= wuw[prev + i] * wuw[prev + i] * wuw[prev];
+			}
 
 			for (int i = 2; i <= WIDTH; i++) {
-				for (int j = 1; (i + j <= WIDTH) && (t - j >= 0); j++)
-					mywuw[t][i - 1] -= mywuw[t - j][j] * mywuw[t - j][i + j - 1] * mywuw[t - j][0];
-				mywuw[t][i - 1] /= mywuw[t][0];
+				for (int j = 1; (i + j <= WIDTH) && (t - j >= 0); j++) {
+					int prev = (t - j) * WIDTH;
+					wuw[row + i - 1] -= wuw[prev + j] * wuw[prev + i + j - 1] * wuw[prev];
+				}
+				wuw[row + i - 1] /= wuw[row];
 
 			}
-			/*
-			 * if(debug) { System.out.println("LDL factorization:"); printWUW(t); System.out.println(); }
-			 */
 		}
 
 	}
 
 	/** forward_Substitution */
-	private void forwardSubstitution(double[] mywum, double[][] mywuw) {
-		System.arraycopy(mywum, 0, g, 0, mywum.length);
-		for (int t = 0; t < nT; t++) {
+	private static void forwardSubstitution(Workspace ws, int n) {
+		double[] g = ws.g;
+		double[] wuw = ws.wuw;
+		System.arraycopy(ws.wum, 0, g, 0, n);
+		for (int t = 0; t < n; t++) {
 			for (int i = 1; (i < WIDTH) && (t - i >= 0); i++)
-				g[t] -= mywuw[t - i][i] * g[t - i]; /* i as index should be i-1 */
-			// System.out.println("  g[" + t + "]=" + g[t]);
+				g[t] -= wuw[(t - i) * WIDTH + i] * g[t - i]; /* i as index should be i-1 */
 		}
-		/*
-		 * for(t=0; t<nT; t++) System.out.format("%f ", g[t]); System.out.println();
-		 */
 	}
 
-	/** backward_Substitution */
-	private void backwardSubstitution(int m, double[][] mywuw) {
-		for (int t = (nT - 1); t >= 0; t--) {
-			par[t][m] = g[t] / mywuw[t][0];
-			for (int i = 1; (i < WIDTH) && (t + i < nT); i++) {
-				par[t][m] -= mywuw[t][i] * par[t + i][m]; /* i as index should be i-1 */
+	/** backward_Substitution, into ws.c */
+	private static void backwardSubstitution(Workspace ws, int n) {
+		double[] g = ws.g;
+		double[] wuw = ws.wuw;
+		double[] c = ws.c;
+		for (int t = (n - 1); t >= 0; t--) {
+			int row = t * WIDTH;
+			c[t] = g[t] / wuw[row];
+			for (int i = 1; (i < WIDTH) && (t + i < n); i++) {
+				c[t] -= wuw[row + i] * c[t + i]; /* i as index should be i-1 */
 			}
-			// System.out.println("  par[" + t + "]["+ m + "]=" + par[t][m]);
 		}
 
 	}
 
 	/*----------------- GV functions  -----------------------------*/
-	private void gvParmGenDerivative(int m, boolean debug) {
+	private void gvParmGenDerivative(int m, boolean debug, Workspace ws) {
 		int t, iter;
 		double step = stepInit;
 		double prev = -lzero;
 		double obj = 0.0;
-		double diag[] = new double[nT];
-		double par_ori[] = new double[nT];
-		mean = 0.0;
-		var = 0.0;
-		int numDown = 0;
+		double[] g = ws.g;
+		ws.mean = 0.0;
+		ws.var = 0.0;
 
 		/* make a copy in case there is problems during optimisation */
 		for (t = 0; t < nT; t++) {
 			g[t] = 0.0;
-			par_ori[t] = par[t][m];
+			ws.parOri[t] = par[t][m];
 		}
 
 		/* first convert c (c=par) according to GV pdf and use it as the initial value */
-		convGV(m);
+		convGV(m, ws);
 
 		/* recalculate R=WUW and r=WUM */
-		calcWUWandWUM(m);
+		calcWUWandWUM(m, ws);
 
 		/* iteratively optimize c */
 		for (iter = 1; iter <= maxGVIter; iter++) {
 			/* calculate GV objective and its derivative with respect to c */
-			obj = calcDerivative(m);
+			obj = calcDerivative(m, ws);
 
 			/* objective function improved -> increase step size */
 			if (obj > prev)
@@ -448,14 +568,15 @@ public class HTSPStream {
 
 	}
 
-	private void gvParmGenGradient(int m, boolean debug) {
+	private void gvParmGenGradient(int m, boolean debug, Workspace ws) {
 		int t, iter;
 		double step = stepInit;
 		double obj = 0.0, prev = 0.0;
-		double diag[] = new double[nT];
-		double par_ori[] = new double[nT];
-		mean = 0.0;
-		var = 0.0;
+		double[] g = ws.g;
+		double[] diag = ws.diag;
+		double[] par_ori = ws.parOri;
+		ws.mean = 0.0;
+		ws.var = 0.0;
 		int numDown = 0;
 		int totalNumIter = 0;
 		int firstIter = 0;
@@ -463,19 +584,20 @@ public class HTSPStream {
 		/* make a copy in case there is problems during optimisation */
 		for (t = 0; t < nT; t++) {
 			g[t] = 0.0;
+			diag[t] = 0.0;
 			par_ori[t] = par[t][m];
 		}
 
 		/* first convert c (c=par) according to GV pdf and use it as the initial value */
-		convGV(m);
+		convGV(m, ws);
 
 		/* recalculate R=WUW and r=WUM */
-		calcWUWandWUM(m);
+		calcWUWandWUM(m, ws);
 
 		/* iteratively optimize c */
 		for (iter = 1; iter <= maxGVIter; iter++) {
 			/* calculate GV objective and its derivative with respect to c */
-			obj = calcGradient(m);
+			obj = calcGradient(m, ws);
 			/* accelerate/decelerate step size */
 			if (iter > 1) {
 				/* objective function improved -> increase step size */
@@ -505,21 +627,21 @@ public class HTSPStream {
 				}
 			} else {
 				if (debug)
-					logger.info("  First iteration:  GVobj=" + obj + " (HMMobj=" + HMMobj + "  GVobj=" + GVobj + ")");
+					logger.info("  First iteration:  GVobj=" + obj + " (HMMobj=" + ws.HMMobj + "  GVobj=" + ws.GVobj + ")");
 			}
 			/* convergence check (Euclid norm, objective function) */
-			if (norm < minEucNorm || (iter > 1 && Math.abs(obj - prev) < GVepsilon)) {
+			if (ws.norm < minEucNorm || (iter > 1 && Math.abs(obj - prev) < GVepsilon)) {
 				if (debug)
-					logger.info("  Number of iterations: [   " + iter + "   ] GVobj=" + obj + " (HMMobj=" + HMMobj + "  GVobj="
-							+ GVobj + ")");
+					logger.info("  Number of iterations: [   " + iter + "   ] GVobj=" + obj + " (HMMobj=" + ws.HMMobj + "  GVobj="
+							+ ws.GVobj + ")");
 				totalNumIter++; // gv.incTotalNumIter(iter);
 				if (m == 0)
 					firstIter = iter;// gv.setFirstIter(iter);
 				if (debug) {
 					if (iter > 1)
-						logger.info("  Converged (norm=" + norm + ", change=" + Math.abs(obj - prev) + ")");
+						logger.info("  Converged (norm=" + ws.norm + ", change=" + Math.abs(obj - prev) + ")");
 					else
-						logger.info("  Converged (norm=" + norm + ")");
+						logger.info("  Converged (norm=" + ws.norm + ")");
 				}
 				break;
 			}
@@ -543,32 +665,45 @@ public class HTSPStream {
 		logger.info("Gradient GV optimization for feature: (" + m + ")  number of iterations=" + totalNumIter);
 	}
 
-	private double calcGradient(int m) {
-		int t, i, k;
+	/** calculate g = R*c = WUW*c */
+	private void multiplyWUW(int m, Workspace ws) {
+		double[] g = ws.g;
+		double[] wuw = ws.wuw;
+		for (int t = 0; t < nT; t++) {
+			g[t] = wuw[t * WIDTH] * par[t][m];
+			for (int i = 2; i <= WIDTH; i++) { /* WIDTH goes from 0 to 2 WIDTH=3 */
+				if (t + i - 1 < nT)
+					g[t] += wuw[t * WIDTH + i - 1] * par[t + i - 1][m]; /* i as index should be i-1 */
+				if (t - i + 1 >= 0)
+					g[t] += wuw[(t - i + 1) * WIDTH + i - 1] * par[t - i + 1][m]; /* i as index should be i-1 */
+			}
+		}
+	}
+
+	private double calcGradient(int m, Workspace ws) {
+		int t;
 		double vd;
 		double h, aux;
 		double w = 1.0 / (NUM * nT);
+		double[] g = ws.g;
+		double[] wuw = ws.wuw;
+		double[] wum = ws.wum;
 
 		/* recalculate GV of the current c = par */
-		calcGV(m);
+		calcGV(m, ws);
+		double mean = ws.mean;
+		double var = ws.var;
 
 		/* GV objective function and its derivative with respect to c */
 		/* -1/2 * v(c)' U^-1 v(c) + v(c)' U^-1 mu + K --> second part of eq (20) in Toda and Tokuda IEICE-2007 paper. */
-		GVobj = -0.5 * w2 * (var - gvmean[m]) * gvcovInv[m] * (var - gvmean[m]);
+		ws.GVobj = -0.5 * w2 * (var - gvmean[m]) * gvcovInv[m] * (var - gvmean[m]);
 		vd = gvcovInv[m] * (var - gvmean[m]);
 
-		/* calculate g = R*c = WUW*c */
-		for (t = 0; t < nT; t++) {
-			g[t] = wuw[t][0] * par[t][m];
-			for (i = 2; i <= WIDTH; i++) { /* WIDTH goes from 0 to 2 WIDTH=3 */
-				if (t + i - 1 < nT)
-					g[t] += wuw[t][i - 1] * par[t + i - 1][m]; /* i as index should be i-1 */
-				if (t - i + 1 >= 0)
-					g[t] += wuw[t - i + 1][i - 1] * par[t - i + 1][m]; /* i as index should be i-1 */
-			}
-		}
+		multiplyWUW(m, ws);
 
-		for (t = 0, HMMobj = 0.0, norm = 0.0; t < nT; t++) {
+		double HMMobj = 0.0;
+		double norm = 0.0;
+		for (t = 0; t < nT; t++) {
 
 			HMMobj += -0.5 * w1 * w * par[t][m] * (g[t] - 2.0 * wum[t]);
 
@@ -577,7 +712,7 @@ public class HTSPStream {
 			/* case NEWTON */
 			/* only diagonal elements of Hessian matrix are used */
 			h = ((nT - 1) * vd + 2.0 * gvcovInv[m] * (par[t][m] - mean) * (par[t][m] - mean));
-			h = -w1 * w * wuw[t][1 - 1] - w2 * 2.0 / (nT * nT) * h;
+			h = -w1 * w * wuw[t * WIDTH] - w2 * 2.0 / (nT * nT) * h;
 
 			h = -1.0 / h;
 
@@ -592,45 +727,42 @@ public class HTSPStream {
 			norm += g[t] * g[t];
 
 		}
-
-		norm = Math.sqrt(norm);
+		ws.HMMobj = HMMobj;
+		ws.norm = Math.sqrt(norm);
 		// logger.info("HMMobj=" + HMMobj + "  GVobj=" + GVobj + "  norm=" + norm);
 
-		return (HMMobj + GVobj);
+		return (ws.HMMobj + ws.GVobj);
 
 	}
 
-	private double calcDerivative(int m) {
-		int t, i, k;
+	private double calcDerivative(int m, Workspace ws) {
+		int t;
 		double vd;
-		double h, aux;
+		double h;
 		double w = 1.0 / (NUM * nT);
+		double[] g = ws.g;
+		double[] wuw = ws.wuw;
+		double[] wum = ws.wum;
 
 		/* recalculate GV of the current c = par */
-		calcGV(m);
+		calcGV(m, ws);
+		double mean = ws.mean;
+		double var = ws.var;
 
 		/* GV objective function and its derivative with respect to c */
 		/* -1/2 * v(c)' U^-1 v(c) + v(c)' U^-1 mu + K --> second part of eq (20) in Toda and Tokuda IEICE-2007 paper. */
-		GVobj = -0.5 * w2 * var * gvcovInv[m] * (var - 2.0 * gvmean[m]);
+		ws.GVobj = -0.5 * w2 * var * gvcovInv[m] * (var - 2.0 * gvmean[m]);
 		vd = -2.0 * gvcovInv[m] * (var - gvmean[m]) / nT;
 		// System.out.format("GVobj=%f  vd=%f \n", GVobj, vd);
 
-		/* calculate g = R*c = WUW*c */
-		for (t = 0; t < nT; t++) {
-			g[t] = wuw[t][0] * par[t][m];
-			for (i = 2; i <= WIDTH; i++) { /* WIDTH goes from 0 to 2 WIDTH=3 */
-				if (t + i - 1 < nT)
-					g[t] += wuw[t][i - 1] * par[t + i - 1][m]; /* i as index should be i-1 */
-				if (t - i + 1 >= 0)
-					g[t] += wuw[t - i + 1][i - 1] * par[t - i + 1][m]; /* i as index should be i-1 */
-			}
-		}
+		multiplyWUW(m, ws);
 
-		for (t = 0, HMMobj = 0.0; t < nT; t++) {
+		double HMMobj = 0.0;
+		for (t = 0; t < nT; t++) {
 
 			HMMobj += w1 * w * par[t][m] * (wum[t] - 0.5 * g[t]);
 
-			h = -w1 * w * wuw[t][1 - 1] - w2 * 2.0 / (nT * nT)
+			h = -w1 * w * wuw[t * WIDTH] - w2 * 2.0 / (nT * nT)
 					* ((nT - 1) * gvcovInv[m] * (var - gvmean[m]) + 2.0 * gvcovInv[m] * (par[t][m] - mean) * (par[t][m] - mean));
 
 			// System.out.format("HMMobj=%f  h=%f \n", HMMobj, h);
@@ -642,50 +774,76 @@ public class HTSPStream {
 				g[t] = 1.0 / h * (w1 * w * (-g[t] + wum[t]));
 
 		}
+		ws.HMMobj = HMMobj;
 
-		return (-(HMMobj + GVobj));
+		return (-(ws.HMMobj + ws.GVobj));
 
 	}
 
-	private void convGV(int m) {
-		int t, k;
-		double ratio, mixmean;
+	private void convGV(int m, Workspace ws) {
+		int t;
+		double ratio;
 		/* calculate GV of c */
-		calcGV(m);
+		calcGV(m, ws);
 
-		ratio = Math.sqrt(gvmean[m] / var);
+		ratio = Math.sqrt(gvmean[m] / ws.var);
 		// System.out.format("    mean=%f vari=%f ratio=%f \n", mean, var, ratio);
 
 		/* c'[t][d] = ratio * (c[t][d]-mean[d]) + mean[d] eq. (34) in Toda and Tokuda IEICE-2007 paper. */
 		for (t = 0; t < nT; t++) {
 			if (gvSwitch[t])
-				par[t][m] = ratio * (par[t][m] - mean) + mean;
+				par[t][m] = ratio * (par[t][m] - ws.mean) + ws.mean;
 		}
 
 	}
 
-	private void calcGV(int m) {
-		int t, i;
-		mean = 0.0;
-		var = 0.0;
+	/** convGV for the window solution in ws.c, which starts at frame t0 */
+	private void scaleToGV(int m, int t0, int n, Workspace ws) {
+		double[] c = ws.c;
+		int count = 0;
+		double mean = 0.0;
+		for (int t = 0; t < n; t++)
+			if (gvSwitch[t0 + t]) {
+				mean += c[t];
+				count++;
+			}
+		if (count < 2)
+			return;
+		mean = mean / count;
+		double var = 0.0;
+		for (int t = 0; t < n; t++)
+			if (gvSwitch[t0 + t])
+				var += (c[t] - mean) * (c[t] - mean);
+		var = var / count;
+		if (var <= 0.0)
+			return;
+
+		double ratio = Math.sqrt(gvmean[m] / var);
+		for (int t = 0; t < n; t++)
+			if (gvSwitch[t0 + t])
+				c[t] = ratio * (c[t] - mean) + mean;
+	}
+
+	private void calcGV(int m, Workspace ws) {
+		int t;
+		double mean = 0.0;
+		double var = 0.0;
 
 		/* mean */
 		for (t = 0; t < nT; t++)
 			if (gvSwitch[t]) {
 				mean += par[t][m];
-				// System.out.format("(%d)%f ", t, par[t][m]);
 			}
 		mean = mean / gvLength;
-		// System.out.format("  --- gvlength=%d  mean=%f\n", gvLength, mean);
 
 		/* variance */
 		for (t = 0; t < nT; t++)
 			if (gvSwitch[t]) {
 				var += (par[t][m] - mean) * (par[t][m] - mean);
-				// System.out.format("(%d)%f ", t, var);
 			}
-		// System.out.format("\n");
 		var = var / gvLength;
+		ws.mean = mean;
+		ws.var = var;
 
 	}
 
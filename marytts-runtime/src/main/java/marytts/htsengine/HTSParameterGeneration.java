@@ -69,17 +69,24 @@ import java.io.EOFException;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.Vector;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import marytts.htsengine.HMMData.FeatureType;
+import marytts.server.MaryProperties;
 import marytts.signalproc.analysis.Mfccs;
 import marytts.signalproc.analysis.PitchReaderWriter;
 import marytts.util.MaryUtils;
@@ -111,6 +118,16 @@ public class HTSParameterGeneration {
 
 	private Logger logger = MaryUtils.getLogger("ParameterGeneration");
 
+	private static ExecutorService mlpgExecutor;
+
+	/* state of incremental generation, see htsMaximumLikelihoodParameterGeneration(HTSUttModel, HMMData, boolean) */
+	private boolean incremental = false;
+	private int windowSize;
+	private int windowOverlap;
+	private int nextWindowStart;
+	private int generatedFrames;
+	private boolean mcepUseGV, strUseGV, magUseGV;
+
 	public HTSPStream getMcepPst() {
 		return mcepPst;
 	}
@@ -181,6 +198,27 @@ public class HTSParameterGeneration {
 	 *             Exception
 	 */
 	public void htsMaximumLikelihoodParameterGeneration(HTSUttModel um, final HMMData htsData) throws Exception {
+		htsMaximumLikelihoodParameterGeneration(um, htsData, false);
+	}
+
+	/**
+	 * HTS maximum likelihood parameter generation, optionally incremental. In incremental mode, only LF0 is generated here, for
+	 * the whole utterance (it has a single dimension and the realised F0 is needed right away); MGC, STR and MAG are generated
+	 * later in overlapping windows of frames through {@link #generateNextFrames(HMMData)}, so that the vocoder can start before
+	 * the whole utterance has been generated. The window size and overlap, in frames, are read from the properties
+	 * htsengine.lowlatency.window and htsengine.lowlatency.overlap.
+	 *
+	 * @param um
+	 *            : utterance model sequence after processing Mary context features
+	 * @param htsData
+	 *            : HMM pdfs model set.
+	 * @param incremental
+	 *            : whether to leave MGC, STR and MAG to {@link #generateNextFrames(HMMData)}
+	 * @throws Exception
+	 *             Exception
+	 */
+	public void htsMaximumLikelihoodParameterGeneration(HTSUttModel um, final HMMData htsData, boolean incremental)
+			throws Exception {
 		CartTreeSet ms = htsData.getCartTreeSet();
 
 		/* Initialisation of PStream objects */
@@ -189,16 +227,16 @@ public class HTSParameterGeneration {
 		/* mceppst, strpst, magpst, lf0pst */
 		/* Here i should pass the window files to initialise the dynamic windows dw */
 		/* for the moment the dw are all the same and hard-coded */
-		if (htsData.getPdfMgcStream() != null)
+		if (ms.hasTrees(HMMData.FeatureType.MGC))
 			mcepPst = new HTSPStream(ms.getMcepVsize(), um.getTotalFrame(), HMMData.FeatureType.MGC, htsData.getMaxMgcGvIter());
 		/* for lf0 count just the number of lf0frames that are voiced or non-zero */
-		if (htsData.getPdfLf0Stream() != null)
+		if (ms.hasTrees(HMMData.FeatureType.LF0))
 			lf0Pst = new HTSPStream(ms.getLf0Stream(), um.getLf0Frame(), HMMData.FeatureType.LF0, htsData.getMaxLf0GvIter());
 
 		/* The following are optional in case of generating mixed excitation */
-		if (htsData.getPdfStrStream() != null)
+		if (ms.hasTrees(HMMData.FeatureType.STR))
 			strPst = new HTSPStream(ms.getStrVsize(), um.getTotalFrame(), HMMData.FeatureType.STR, htsData.getMaxStrGvIter());
-		if (htsData.getPdfMagStream() != null)
+		if (ms.hasTrees(HMMData.FeatureType.MAG))
 			magPst = new HTSPStream(ms.getMagVsize(), um.getTotalFrame(), HMMData.FeatureType.MAG, htsData.getMaxMagGvIter());
 
 		int lf0Frame = 0; // counts voiced frames
@@ -303,13 +341,33 @@ public class HTSParameterGeneration {
 			magPst.fixDynFeatOnBoundaries();
 
 		// Step 3: optimize individual parameter streams
+		/* MGC and LF0 follow the global GV setting, STR and MAG only use GV if they have a GV stream */
+		boolean useGV = htsData.getUseGV();
+		boolean strUseGV = useGV && (htsData.getPdfStrGVStream() != null);
+		boolean magUseGV = useGV && (htsData.getPdfMagGVStream() != null);
+		if (mcepPst != null && useGV && (htsData.getPdfMgcGVStream() != null))
+			mcepPst.setGvMeanVar(gvms.getGVmeanMgc(), gvms.getGVcovInvMgc());
+		if (lf0Pst != null && useGV && (htsData.getPdfLf0GVStream() != null))
+			lf0Pst.setGvMeanVar(gvms.getGVmeanLf0(), gvms.getGVcovInvLf0());
+		if (strPst != null && strUseGV)
+			strPst.setGvMeanVar(gvms.getGVmeanStr(), gvms.getGVcovInvStr());
+		if (magPst != null && magUseGV)
+			magPst.setGvMeanVar(gvms.getGVmeanMag(), gvms.getGVcovInvMag());
+
+		if (incremental) {
+			startIncrementalGeneration(um, htsData, msNumStates, useGV, strUseGV, magUseGV);
+			return;
+		}
+
+		if (MaryProperties.getBoolean("htsengine.parallelmlpg", false)) {
+			generateInParallel(um, htsData, msNumStates, useGV, strUseGV, magUseGV);
+			return;
+		}
 
 		/* parameter generation for mcep */
 		if (mcepPst != null) {
 			logger.info("Parameter generation for MGC: ");
-			if (htsData.getUseGV() && (htsData.getPdfMgcGVStream() != null))
-				mcepPst.setGvMeanVar(gvms.getGVmeanMgc(), gvms.getGVcovInvMgc());
-			mcepPst.mlpg(htsData, htsData.getUseGV());
+			mcepPst.mlpg(htsData, useGV);
 		}
 
 		// parameter generation for lf0 */
@@ -317,37 +375,177 @@ public class HTSParameterGeneration {
 			loadMaryXmlF0(um, htsData);
 		else if (lf0Pst != null) {
 			logger.info("Parameter generation for LF0: ");
-			if (htsData.getUseGV() && (htsData.getPdfLf0GVStream() != null))
-				lf0Pst.setGvMeanVar(gvms.getGVmeanLf0(), gvms.getGVcovInvLf0());
-			lf0Pst.mlpg(htsData, htsData.getUseGV());
+			lf0Pst.mlpg(htsData, useGV);
 			// here we need set realisedF0
 			setRealisedF0(lf0Pst, um, msNumStates);
 		}
 
 		/* parameter generation for str */
-		boolean useGV = false;
 		if (strPst != null) {
 			logger.debug("Parameter generation for STR ");
-			if (htsData.getUseGV() && (htsData.getPdfStrGVStream() != null)) {
-				useGV = true;
-				strPst.setGvMeanVar(gvms.getGVmeanStr(), gvms.getGVcovInvStr());
-			}
-			strPst.mlpg(htsData, useGV);
+			strPst.mlpg(htsData, strUseGV);
 		}
 
 		/* parameter generation for mag */
-		useGV = false;
 		if (magPst != null) {
 			logger.info("Parameter generation for MAG ");
-			if (htsData.getUseGV() && (htsData.getPdfMagGVStream() != null)) {
-				useGV = true;
-				magPst.setGvMeanVar(gvms.getGVmeanMag(), gvms.getGVcovInvMag());
-			}
-			magPst.mlpg(htsData, useGV);
+			magPst.mlpg(htsData, magUseGV);
 		}
 
 	} /* method htsMaximumLikelihoodParameterGeneration */
 
+	/**
+	 * Step 3 of {@link #htsMaximumLikelihoodParameterGeneration(HTSUttModel, HMMData)} in parallel: the dimensions of all
+	 * streams are independent of each other, so they are all submitted to the shared parameter generation executor at once and
+	 * then awaited together.
+	 */
+	private void generateInParallel(HTSUttModel um, HMMData htsData, int msNumStates, boolean useGV, boolean strUseGV,
+			boolean magUseGV) throws Exception {
+		ExecutorService executor = getMlpgExecutor();
+		List<Future<?>> futures = new ArrayList<Future<?>>();
+		boolean generateLf0 = lf0Pst != null && !htsData.getUseAcousticModels();
+		try {
+			if (mcepPst != null) {
+				logger.info("Parameter generation for MGC: ");
+				futures.addAll(mcepPst.submitMlpg(htsData, useGV, executor));
+			}
+			if (generateLf0) {
+				logger.info("Parameter generation for LF0: ");
+				futures.addAll(lf0Pst.submitMlpg(htsData, useGV, executor));
+			}
+			if (strPst != null) {
+				logger.debug("Parameter generation for STR ");
+				futures.addAll(strPst.submitMlpg(htsData, strUseGV, executor));
+			}
+			if (magPst != null) {
+				logger.info("Parameter generation for MAG ");
+				futures.addAll(magPst.submitMlpg(htsData, magUseGV, executor));
+			}
+			if (htsData.getUseAcousticModels()) {
+				loadMaryXmlF0(um, htsData);
+			}
+			for (Future<?> f : futures) {
+				try {
+					f.get();
+				} catch (ExecutionException ee) {
+					Throwable cause = ee.getCause();
+					if (cause instanceof Exception) {
+						throw (Exception) cause;
+					} else if (cause instanceof Error) {
+						throw (Error) cause;
+					}
+					throw ee;
+				}
+			}
+		} finally {
+			// if anything went wrong, don't leave the remaining dimensions running:
+			for (Future<?> f : futures) {
+				f.cancel(true);
+			}
+		}
+		if (generateLf0) {
+			// here we need set realisedF0
+			setRealisedF0(lf0Pst, um, msNumStates);
+		}
+	}
+
+	/**
+	 * Generate LF0 for the whole utterance and prepare the windows for the other streams.
+	 */
+	private void startIncrementalGeneration(HTSUttModel um, HMMData htsData, int msNumStates, boolean useGV, boolean strUseGV,
+			boolean magUseGV) throws Exception {
+		if (htsData.getUseAcousticModels())
+			loadMaryXmlF0(um, htsData);
+		else if (lf0Pst != null) {
+			logger.info("Parameter generation for LF0: ");
+			lf0Pst.mlpg(htsData, useGV);
+			setRealisedF0(lf0Pst, um, msNumStates);
+		}
+
+		windowOverlap = Math.max(0, MaryProperties.getInteger("htsengine.lowlatency.overlap", 20));
+		// a frame must not be shared by more than two windows:
+		windowSize = Math.max(2 * windowOverlap + 1, MaryProperties.getInteger("htsengine.lowlatency.window", 100));
+		this.mcepUseGV = useGV;
+		this.strUseGV = strUseGV;
+		this.magUseGV = magUseGV;
+		this.incremental = true;
+		nextWindowStart = 0;
+		generatedFrames = 0;
+		logger.debug("Incremental parameter generation in windows of " + windowSize + " frames overlapping by " + windowOverlap);
+	}
+
+	/**
+	 * Whether parameters are generated incrementally, i.e. frames of MGC, STR and MAG are only valid once
+	 * {@link #generateNextFrames(HMMData)} has reported them as generated.
+	 * 
+	 * @return true if htsMaximumLikelihoodParameterGeneration was called in incremental mode
+	 */
+	public boolean isIncremental() {
+		return incremental;
+	}
+
+	/**
+	 * In incremental mode, generate the next window of MGC, STR and MAG frames. The last frames of the window are left to be
+	 * cross-faded with the following window, so they do not count as generated yet.
+	 * 
+	 * @param htsData
+	 *            htsData
+	 * @return the number of frames, from the start of the utterance, whose parameters are final
+	 */
+	public int generateNextFrames(HMMData htsData) {
+		if (!incremental || generatedFrames == totalFrames())
+			return generatedFrames;
+		int totalFrames = totalFrames();
+		int start = nextWindowStart;
+		int fadeEnd = start == 0 ? 0 : Math.min(totalFrames, start + windowOverlap);
+		int end = start + windowSize;
+		int hop = windowSize - windowOverlap;
+		// rather than leaving a short window at the end, stretch this one
+		if (end + hop / 2 >= totalFrames)
+			end = totalFrames;
+
+		if (mcepPst != null)
+			mcepPst.mlpgWindow(htsData, mcepUseGV, start, end, fadeEnd);
+		if (strPst != null)
+			strPst.mlpgWindow(htsData, strUseGV, start, end, fadeEnd);
+		if (magPst != null)
+			magPst.mlpgWindow(htsData, magUseGV, start, end, fadeEnd);
+
+		if (end == totalFrames) {
+			generatedFrames = totalFrames;
+		} else {
+			nextWindowStart = start + hop;
+			generatedFrames = nextWindowStart;
+		}
+		return generatedFrames;
+	}
+
+	private int totalFrames() {
+		return voiced.length;
+	}
+
+	/**
+	 * Get the executor shared by all utterances for parallel parameter generation. It is created on first use, with a fixed
+	 * number of daemon threads.
+	 * 
+	 * @return the parameter generation executor
+	 */
+	private static synchronized ExecutorService getMlpgExecutor() {
+		if (mlpgExecutor == null) {
+			int threads = Math.max(1,
+					MaryProperties.getInteger("htsengine.parallelmlpg.threads", Runtime.getRuntime().availableProcessors()));
+			final AtomicInteger threadCount = new AtomicInteger();
+			mlpgExecutor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "MLPG " + threadCount.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+		return mlpgExecutor;
+	}
+
 	/* Save generated parameters in a binary file */
 	public void saveParamMaryFormat(String fileName, HTSPStream par, HMMData.FeatureType type) {
 		int t, m, i;
@@ -469,7 +667,7 @@ public class HTSParameterGeneration {
 			// System.out.format("\nmodel=%s totalDur=%d numVoicedFrames=%d F0=%s\n", m.getPhoneName(), m.getTotalDur(),
 			// m.getNumVoiced(), m.getMaryXmlF0());
 			// get contour for this model if voiced frames and maryXml has f0 values
-			dval = getContourSegment(m.getMaryXmlF0(), m.getNumVoiced());
+			dval = getContourSegment(m.getMaryXmlF0Targets(), m.getNumVoiced());
 			// accumulate the values
 			for (n = 0; n < dval.length; n++)
 				f0Vector.add(dval[n]);
@@ -486,7 +684,7 @@ public class HTSParameterGeneration {
 
 	}
 
-	private double[] getContourSegment(String maryXmlF0, int numVoiced) throws Exception {
+	private double[] getContourSegment(int[] maryXmlF0, int numVoiced) throws Exception {
 		int i, t = 0, k = 0, f = 0; // f is number of f0 in xml string
 
 		// just fill the values in approx. position
@@ -498,14 +696,10 @@ public class HTSParameterGeneration {
 		double valF0, lastValF0;
 
 		if (maryXmlF0 != null) {
-			Pattern p = Pattern.compile("(\\d+,\\d+)");
-			Matcher xml = p.matcher(maryXmlF0);
 			SortedMap<Integer, Double> f0Map = new TreeMap<Integer, Double>();
-			int numF0s = 0;
-			while (xml.find()) {
-				String[] f0Values = (xml.group().trim()).split(",");
-				f0Map.put(new Integer(f0Values[0]), new Double(f0Values[1]));
-				numF0s++;
+			int numF0s = maryXmlF0.length / 2;
+			for (i = 0; i < numF0s; i++) {
+				f0Map.put(maryXmlF0[2 * i], (double) maryXmlF0[2 * i + 1]);
 			}
 			Set<Map.Entry<Integer, Double>> s = f0Map.entrySet();
 			Iterator<Map.Entry<Integer, Double>> if0 = s.iterator();
@@ -583,20 +777,23 @@ public class HTSParameterGeneration {
 		for (int i = 0; i < um.getNumUttModel(); i++) {
 			HTSModel m = um.getUttModel(i);
 			int numVoicedInModel = m.getNumVoiced();
-			String formattedF0 = "";
+			int[] f0Targets = new int[2 * numVoicedInModel];
 			int k = 1;
 			for (int state = 0; state < numStates; state++) {
 				for (int frame = 0; frame < m.getDur(state); frame++) {
 					if (voiced[t++]) {
 						float f0 = (float) Math.exp(lf0Pst.getPar(vt++, 0));
-						formattedF0 += "(" + Integer.toString((int) ((k * 100.0) / numVoicedInModel)) + ","
-								+ Integer.toString((int) f0) + ")";
+						if (2 * k > f0Targets.length) {
+							f0Targets = Arrays.copyOf(f0Targets, 2 * k);
+						}
+						f0Targets[2 * k - 2] = (int) ((k * 100.0) / numVoicedInModel);
+						f0Targets[2 * k - 1] = (int) f0;
 						k++;
 					}
 				} // for unvoiced frame
 			} // for state
-			if (!formattedF0.contentEquals("")) {
-				m.setMaryXmlF0(formattedF0);
+			if (k > 1) {
+				m.setMaryXmlF0Targets(Arrays.copyOf(f0Targets, 2 * (k - 1)));
 				// m.setUnit_f0ArrayStr(formattedF0);
 				// System.out.println("ph=" + m.getPhoneName() + " " + formattedF0);
 			}
@@ -246,6 +246,16 @@ public class HTSVocoder {
 
 	public double[] htsMLSAVocoder(HTSPStream lf0Pst, HTSPStream mcepPst, HTSPStream strPst, HTSPStream magPst, boolean[] voiced,
 			HMMData htsData, HTSVocoderDataProducer audioProducer) throws Exception {
+		return htsMLSAVocoder(lf0Pst, mcepPst, strPst, magPst, voiced, htsData, audioProducer, null);
+	}
+
+	/**
+	 * As above; if pdf2par is not null, it is generating its parameters incrementally, and each mcep frame is only vocoded once
+	 * pdf2par has generated it. Together with the audioProducer, this lets audio start after the first window of frames.
+	 */
+	private double[] htsMLSAVocoder(HTSPStream lf0Pst, HTSPStream mcepPst, HTSPStream strPst, HTSPStream magPst,
+			boolean[] voiced, HMMData htsData, HTSVocoderDataProducer audioProducer, HTSParameterGeneration pdf2par)
+			throws Exception {
 
 		double inc, x, MaxSample;
 		double xp = 0.0, xn = 0.0, fxp, fxn, mix; /* samples for pulse and for noise and the filtered ones */
@@ -273,7 +283,7 @@ public class HTSVocoder {
 		mixedExcitation = htsData.getUseMixExc();
 		fourierMagnitudes = htsData.getUseFourierMag();
 
-		if (mixedExcitation && htsData.getPdfStrStream() != null) {
+		if (mixedExcitation && htsData.getCartTreeSet().hasTrees(HMMData.FeatureType.STR)) {
 			numM = htsData.getNumFilters();
 			orderM = htsData.getOrderFilters();
 
@@ -297,7 +307,7 @@ public class HTSVocoder {
 		} else
 			logger.debug("HMM speech generation without mixed-excitation.");
 
-		if (fourierMagnitudes && htsData.getPdfMagStream() != null)
+		if (fourierMagnitudes && htsData.getCartTreeSet().hasTrees(HMMData.FeatureType.MAG))
 			logger.debug("Pulse generated with Fourier Magnitudes.");
 		// else
 		// logger.info("Pulse generated as a unit pulse.");
@@ -311,16 +321,19 @@ public class HTSVocoder {
 		f0Shift = htsData.getF0Mean();
 		f0MeanOri = 0.0;
 
-		for (mcepframe = 0, lf0frame = 0; mcepframe < mcepPst.getT(); mcepframe++) {
-			if (voiced[mcepframe]) {
-				f0MeanOri = f0MeanOri + Math.exp(lf0Pst.getPar(lf0frame, 0));
-				// System.out.println("voiced t=" + mcepframe + "  " + lf0Pst.getPar(lf0frame, 0) + "  ");
-				lf0frame++;
+		/* the mean is only needed to scale the f0 range, so don't go through the whole utterance without need */
+		if (f0Std != 1.0) {
+			for (mcepframe = 0, lf0frame = 0; mcepframe < mcepPst.getT(); mcepframe++) {
+				if (voiced[mcepframe]) {
+					f0MeanOri = f0MeanOri + Math.exp(lf0Pst.getPar(lf0frame, 0));
+					// System.out.println("voiced t=" + mcepframe + "  " + lf0Pst.getPar(lf0frame, 0) + "  ");
+					lf0frame++;
+				}
+				// else
+				// System.out.println("unvoiced t=" + mcepframe + "  0.0  ");
 			}
-			// else
-			// System.out.println("unvoiced t=" + mcepframe + "  0.0  ");
+			f0MeanOri = f0MeanOri / lf0frame;
 		}
-		f0MeanOri = f0MeanOri / lf0frame;
 
 		/* _______________________Synthesize speech waveforms_____________________ */
 		/* generate Nperiod samples per mcepframe */
@@ -331,8 +344,13 @@ public class HTSVocoder {
 
 		magSample = 1;
 		magPulseSize = 0;
+		int generatedFrames = pdf2par != null ? 0 : mcepPst.getT();
 		for (mcepframe = 0, lf0frame = 0; mcepframe < mcepPst.getT(); mcepframe++) { /* for each mcep frame */
 
+			/* with incremental parameter generation, generate the next window when we get to it */
+			while (mcepframe >= generatedFrames)
+				generatedFrames = pdf2par.generateNextFrames(htsData);
+
 			/** feature vector for a particular frame */
 			double mc[] = new double[m]; /* feature vector for a particular frame */
 			/* get current feature vector mgc */
@@ -429,6 +447,7 @@ public class HTSVocoder {
 
 			/* Generate fperiod samples per feature vector, normally 80 samples per frame */
 			// p1=0.0;
+			int frameStart = s_double;
 			for (int j = fprd - 1, i = (IPERIOD + 1) / 2; j >= 0; j--) {
 				if (p1 == 0.0) {
 
@@ -508,9 +527,6 @@ public class HTSVocoder {
 
 				// System.out.format("%f ", x);
 				audio_double[s_double] = x;
-				if (audioProducer != null) {
-					audioProducer.putOneDataPoint(x);
-				}
 
 				s_double++;
 
@@ -524,6 +540,11 @@ public class HTSVocoder {
 
 			} /* for each sample in a period fprd */
 
+			/* hand the whole frame to the consumer at once */
+			if (audioProducer != null) {
+				audioProducer.putData(audio_double, frameStart, s_double - frameStart);
+			}
+
 			/*********
 			 * For debuging if(voiced[mcepframe]) { double magf[] = SignalProcUtils.getFrameHalfMagnitudeSpectrum(source, 512, 1);
 			 * MaryUtils.plot(magf, "magf"); } System.out.format("str=%.2f\n", str);
@@ -1865,6 +1886,7 @@ public class HTSVocoder {
 		private HTSPStream magPst;
 		private boolean[] voiced;
 		private HMMData htsData;
+		private HTSParameterGeneration incrementalPdf2par;
 
 		public HTSVocoderDataProducer(int audioSize, HTSParameterGeneration pdf2par, HMMData htsData) {
 			super(audioSize, new AmplitudeNormalizer(INITIAL_MAX_AMPLITUDE));
@@ -1874,12 +1896,14 @@ public class HTSVocoder {
 			magPst = pdf2par.getMagPst();
 			voiced = pdf2par.getVoicedArray();
 			this.htsData = htsData;
+			if (pdf2par.isIncremental())
+				incrementalPdf2par = pdf2par;
 
 		}
 
 		public void run() {
 			try {
-				htsMLSAVocoder(lf0Pst, mcepPst, strPst, magPst, voiced, htsData, this);
+				htsMLSAVocoder(lf0Pst, mcepPst, strPst, magPst, voiced, htsData, this, incrementalPdf2par);
 				putEndOfStream();
 			} catch (Exception e) {
 				logger.error("Cannot vocode", e);
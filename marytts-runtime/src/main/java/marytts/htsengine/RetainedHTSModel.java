@@ -0,0 +1,98 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package marytts.htsengine;
+
+import java.util.Arrays;
+
+import marytts.features.FeatureVector;
+
+import org.w3c.dom.Element;
+
+/**
+ * An {@link HTSModel} whose pdfs were searched in the trees of an HMM voice during acoustic prediction, kept with the segment
+ * element as user data so that the synthesizer can use the same pdfs instead of searching the trees again.
+ * <p>
+ * A retained model is only handed out for the same voice, the same voicing threshold, and a feature vector with the same discrete
+ * features as the one it was searched with; if the context of the segment has changed since, the trees must be searched again.
+ * Prosody changes made after the prediction, such as new durations or F0 targets, do not matter here, because the synthesizer
+ * applies them on top of the pdfs.
+ */
+public class RetainedHTSModel {
+	private static final String USER_DATA_KEY = "marytts.htsengine.RetainedHTSModel";
+
+	/**
+	 * Keep the model searched for the given element.
+	 * 
+	 * @param element
+	 *            the segment element the model was searched for
+	 * @param htsData
+	 *            the data of the HMM voice whose trees were searched
+	 * @param fv
+	 *            the feature vector the trees were searched with
+	 * @param model
+	 *            the model, with the log f0 pdfs and, if a duration was predicted, the duration pdf
+	 */
+	public static void retain(Element element, HMMData htsData, FeatureVector fv, HTSModel model) {
+		if (htsData.getVoiceName() == null) {
+			return;
+		}
+		element.setUserData(USER_DATA_KEY, new RetainedHTSModel(htsData.getVoiceName(), fv, htsData.getUV(), model), null);
+	}
+
+	/**
+	 * Get the model retained for the given element, if it can be used instead of searching the trees with the given feature
+	 * vector.
+	 * 
+	 * @param element
+	 *            the segment element, or null
+	 * @param htsData
+	 *            the data of the HMM voice whose trees would be searched
+	 * @param fv
+	 *            the feature vector the trees would be searched with
+	 * @return the retained model, or null if there is none or if it was searched under different conditions.
+	 */
+	public static HTSModel get(Element element, HMMData htsData, FeatureVector fv) {
+		if (element == null) {
+			return null;
+		}
+		RetainedHTSModel retained = (RetainedHTSModel) element.getUserData(USER_DATA_KEY);
+		if (retained == null || !retained.voiceName.equals(htsData.getVoiceName()) || retained.uvThreshold != htsData.getUV()
+				|| !Arrays.equals(retained.byteFeatures, fv.getByteValuedDiscreteFeatures())
+				|| !Arrays.equals(retained.shortFeatures, fv.getShortValuedDiscreteFeatures())) {
+			return null;
+		}
+		return retained.model;
+	}
+
+	private final String voiceName;
+	private final byte[] byteFeatures;
+	private final short[] shortFeatures;
+	private final double uvThreshold;
+	private final HTSModel model;
+
+	private RetainedHTSModel(String voiceName, FeatureVector fv, double uvThreshold, HTSModel model) {
+		this.voiceName = voiceName;
+		this.byteFeatures = fv.getByteValuedDiscreteFeatures();
+		this.shortFeatures = fv.getShortValuedDiscreteFeatures();
+		this.uvThreshold = uvThreshold;
+		this.model = model;
+	}
+}
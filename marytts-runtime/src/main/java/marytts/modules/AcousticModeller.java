@@ -26,6 +26,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
+import marytts.datatypes.AcousticParameters;
 import marytts.datatypes.MaryData;
 import marytts.datatypes.MaryDataType;
 import marytts.datatypes.MaryXML;
@@ -192,7 +193,7 @@ public class AcousticModeller extends InternalModule {
 		// hack duration attributes:
 		// IMPORTANT: this hack has to be done right after predict durations,
 		// because the dur value is used by the HMMs, in case of prediction of f0.
-		hackSegmentDurations(durationElements);
+		hackSegmentDurations(durationElements, d.getAcousticParameters());
 
 		// TODO this should be reduced further to the point where any HMM-specific stuff is handled opaquely within HMMModel
 		// finally we can then pass elementLists into Model.apply and the Model will know which Element Lists to process
@@ -269,21 +270,30 @@ public class AcousticModeller extends InternalModule {
 	 *
 	 * @param elements
 	 *            a List of segment Elements
+	 * @param params
+	 *            the acoustic parameters of the document, which receive the typed durations and end times
 	 */
-	private void hackSegmentDurations(List<Element> elements) {
+	private void hackSegmentDurations(List<Element> elements, AcousticParameters params) {
 		assert elements != null;
 		float cumulEndInSeconds = 0;
 		for (Element segment : elements) {
 			float durationInSeconds = Float.parseFloat(segment.getAttribute("d"));
 			cumulEndInSeconds += durationInSeconds;
+			// duration rounded to milliseconds:
+			int durationInMilliseconds = Math.round(durationInSeconds * 1000);
 
-			// cumulative end time in seconds:
-			String endStr = Float.toString(cumulEndInSeconds);
-			segment.setAttribute("end", endStr);
+			if (params.isLazy()) {
+				// the duration in seconds must not survive until the typed values are serialized:
+				segment.removeAttribute("d");
+			} else {
+				// cumulative end time in seconds:
+				String endStr = Float.toString(cumulEndInSeconds);
+				segment.setAttribute("end", endStr);
 
-			// duration rounded to milliseconds:
-			String durationInMilliseconds = String.format("%.0f", (durationInSeconds * 1000));
-			segment.setAttribute("d", durationInMilliseconds);
+				segment.setAttribute("d", String.format("%.0f", (durationInSeconds * 1000)));
+			}
+			params.setEnd(segment, cumulEndInSeconds);
+			params.setDuration(segment, durationInMilliseconds);
 		}
 	}
 
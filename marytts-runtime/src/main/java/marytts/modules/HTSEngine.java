@@ -78,6 +78,7 @@ import javax.sound.sampled.AudioFileFormat;
 import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
 
+import marytts.datatypes.AcousticParameters;
 import marytts.datatypes.MaryData;
 import marytts.datatypes.MaryDataType;
 import marytts.datatypes.MaryXML;
@@ -91,8 +92,10 @@ import marytts.htsengine.HTSModel;
 import marytts.htsengine.HTSParameterGeneration;
 import marytts.htsengine.HTSUttModel;
 import marytts.htsengine.HTSVocoder;
+import marytts.htsengine.RetainedHTSModel;
 import marytts.htsengine.HTSEngineTest.PhonemeDuration;
 import marytts.modules.synthesis.Voice;
+import marytts.server.MaryProperties;
 import marytts.unitselection.select.Target;
 import marytts.util.MaryUtils;
 import marytts.util.data.audio.AppendableSequenceAudioInputStream;
@@ -215,7 +218,9 @@ public class HTSEngine extends InternalModule {
 		HTSParameterGeneration pdf2par = new HTSParameterGeneration();
 
 		/* Generate sequence of speech parameter vectors, generate parameters out of sequence of pdf's */
-		pdf2par.htsMaximumLikelihoodParameterGeneration(um, hmmv.getHMMData());
+		/* in low latency mode, most of this is left to the vocoder thread, which generates the frames window by window */
+		pdf2par.htsMaximumLikelihoodParameterGeneration(um, hmmv.getHMMData(),
+				MaryProperties.getBoolean("htsengine.lowlatency", false));
 
 		/* set parameters for generation: f0Std, f0Mean and length, default values 1.0, 0.0 and 0.0 */
 		/* These values are fixed in HMMVoice */
@@ -257,6 +262,8 @@ public class HTSEngine extends InternalModule {
 		HTSModel m;
 
 		int numModel = 0;
+		AcousticParameters params = tokensAndBoundaries.isEmpty() ? null : AcousticParameters.forDocument(tokensAndBoundaries
+				.get(0).getOwnerDocument());
 
 		for (Element e : tokensAndBoundaries) {
 			// System.out.println("TAG: " + e.getTagName());
@@ -273,6 +280,14 @@ public class HTSEngine extends InternalModule {
 					// System.out.println("realised p=" + p + " phoneName=" + m.getPhoneName());
 					// int currentDur = m.getTotalDurMillisec();
 					totalDur += m.getTotalDurMillisec() * 0.001f;
+					// if acoustic parameters are written lazily, so are the realised ones:
+					if (params.isLazy() && !Double.isNaN(m.getMaryXmlDuration()) && m.getMaryXmlF0Targets() != null) {
+						params.setDuration(phone, m.getMaryXmlDuration());
+						params.setF0Targets(phone, m.getMaryXmlF0Targets());
+						continue;
+					}
+					// pending typed values must not overwrite the realised ones:
+					AcousticParameters.serialize(phone);
 					// phone.setAttribute("d", String.valueOf(currentDur));
 					phone.setAttribute("d", m.getMaryXmlDur());
 					// phone.setAttribute("end", String.valueOf(totalDur));
@@ -422,6 +437,7 @@ public class HTSEngine extends InternalModule {
 		FeatureDefinition feaDef = htsData.getFeatureDefinition();
 
 		int featureIndex = feaDef.getFeatureIndex("phone");
+		boolean reuseModels = MaryProperties.getBoolean("htsengine.reusemodels", true);
 		if (htsData.getUseAcousticModels()) {
 			phoneAlignmentForDurations = true;
 			loggerHts.info("Using prosody from acoustparams.");
@@ -435,6 +451,8 @@ public class HTSEngine extends InternalModule {
 		for (Target target : targetFeaturesList) {
 
 			FeatureVector fv = target.getFeatureVector(); // feaDef.toFeatureVector(0, nextLine);
+			// the model searched in the same trees for the same context during acoustic prediction, if any
+			HTSModel retained = reuseModels ? RetainedHTSModel.get(target.getMaryxmlElement(), htsData, fv) : null;
 			HTSModel m = new HTSModel(cart.getNumStates());
 			um.addUttModel(m);
 			m.setPhoneName(fv.getFeatureAsString(featureIndex, feaDef));
@@ -455,17 +473,18 @@ public class HTSEngine extends InternalModule {
 				// get the durations of the Gaussians, because we need to know how long each estate should be
 				// knowing the duration of each state we can modified it so the 5 states reflect the external duration
 				// Here the duration for phones and sil (_) are calcualted
-				diffdurNew = cart.searchDurInCartTree(m, fv, htsData, firstPh, false, diffdurOld);
+				diffdurNew = searchDurInCartTree(cart, m, retained, fv, htsData, firstPh, diffdurOld);
 
 				if (e.getTagName().contentEquals("ph")) {
 					// No duration => predict one !
-					if ((e.getAttribute("d") == null) || (e.getAttribute("d").equals(""))) {
-						diffdurNew = cart.searchDurInCartTree(m, fv, htsData, firstPh, false, diffdurOld);
+					double d = AcousticParameters.getDuration(e);
+					if (Double.isNaN(d)) {
+						diffdurNew = searchDurInCartTree(cart, m, retained, fv, htsData, firstPh, diffdurOld);
 					}
 					// Use phone duration
 					else {
-						m.setMaryXmlDur(e.getAttribute("d"));
-						durVal = Float.parseFloat(m.getMaryXmlDur());
+						m.setMaryXmlDuration(d);
+						durVal = (float) d;
 						// get proportion of this duration for each state; m.getTotalDur() contains total duration of the 5 states
 						// in
 						// frames
@@ -523,19 +542,19 @@ public class HTSEngine extends InternalModule {
 						durVal = (m.getTotalDur() * fperiodmillisec);
 					}
 					// System.out.println(" setMaryXml(durVal)=" + durVal);
-					m.setMaryXmlDur(Float.toString(durVal));
+					m.setMaryXmlDuration(durVal);
 				}
 
 				// set F0 values
-				if (e.hasAttribute("f0")) {
-					m.setMaryXmlF0(e.getAttribute("f0"));
+				if (e.hasAttribute(AcousticParameters.F0) || AcousticParameters.isKnown(e, AcousticParameters.F0)) {
+					m.setMaryXmlF0Targets(AcousticParameters.getF0Targets(e));
 					// System.out.println(" f0=" + e.getAttribute("f0"));
 				}
 
 			}
 			// Estimate state duration from state duration model (Gaussian)
 			else {
-				diffdurNew = cart.searchDurInCartTree(m, fv, htsData, firstPh, false, diffdurOld);
+				diffdurNew = searchDurInCartTree(cart, m, retained, fv, htsData, firstPh, diffdurOld);
 			}
 
 			um.setTotalFrame(um.getTotalFrame() + m.getTotalDur());
@@ -557,17 +576,20 @@ public class HTSEngine extends InternalModule {
 			// if ( ! htsData.getUseUnitDurationContinuousFeature() )
 			// Here according to the HMM models it is decided whether the states of this model are voiced or unvoiced
 			// even if f0 is taken from maryXml here we need to set the voived/unvoiced values per model and state
-			cart.searchLf0InCartTree(m, fv, feaDef, htsData.getUV());
+			if (retained != null)
+				cart.reuseLf0Pdfs(m, retained);
+			else
+				cart.searchLf0InCartTree(m, fv, feaDef, htsData.getUV());
 
 			/* Find pdf for Mgc, this function sets the pdf for each state. */
 			cart.searchMgcInCartTree(m, fv, feaDef);
 
 			/* Find pdf for strengths, this function sets the pdf for each state. */
-			if (htsData.getTreeStrStream() != null)
+			if (cart.hasTrees(HMMData.FeatureType.STR))
 				cart.searchStrInCartTree(m, fv, feaDef);
 
 			/* Find pdf for Fourier magnitudes, this function sets the pdf for each state. */
-			if (htsData.getTreeMagStream() != null)
+			if (cart.hasTrees(HMMData.FeatureType.MAG))
 				cart.searchMagInCartTree(m, fv, feaDef);
 
 			/* increment number of models in utterance model */
@@ -602,6 +624,16 @@ public class HTSEngine extends InternalModule {
 		return um;
 	} /* method processTargetList */
 
+	/**
+	 * Set the state durations of m, from the duration pdf of the retained model if there is one.
+	 */
+	private static double searchDurInCartTree(CartTreeSet cart, HTSModel m, HTSModel retained, FeatureVector fv,
+			HMMData htsData, boolean firstPh, double diffdur) {
+		if (retained != null && retained.getDurMean() != null)
+			return cart.reuseDurPdf(m, retained, htsData, diffdur);
+		return cart.searchDurInCartTree(m, fv, htsData, firstPh, false, diffdur);
+	}
+
 	/**
 	 * Stand alone testing using a TARGETFEATURES file as input.
 	 *
@@ -20,13 +20,18 @@
 package marytts.modules;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import marytts.datatypes.MaryDataType;
 import marytts.exceptions.MaryConfigurationException;
@@ -52,7 +57,10 @@ public class ModuleRegistry {
 	private static boolean registrationComplete;
 	private static Logger logger;
 
-	private static List<MaryModule> preferredModules;
+	// the system-wide preferred modules, by input type; never modified after registration is complete
+	private static volatile Map<MaryDataType, List<MaryModule>> preferredModules;
+
+	private static final ConcurrentMap<PlanKey, ProcessingPlan> processingPlans = new ConcurrentHashMap<PlanKey, ProcessingPlan>();
 
 	private ModuleRegistry() {
 	}
@@ -131,6 +139,7 @@ public class ModuleRegistry {
 		l.add(module);
 
 		allModules.add(module);
+		processingPlans.clear();
 
 		MaryDataType.registerDataType(type);
 		MaryDataType.registerDataType(module.outputType());
@@ -164,21 +173,35 @@ public class ModuleRegistry {
 
 		// Define system preferred modules
 		List<String> preferredModulesClasses = MaryProperties.getList("modules.preferred.classes.list");
-		if ((preferredModulesClasses == null) || (preferredModulesClasses.isEmpty()))
-			return;
-
-		preferredModules = new ArrayList<MaryModule>();
-		for (String moduleInfo : preferredModulesClasses) {
-			try {
-				MaryModule mm = null;
-				if (!moduleInfo.contains("(")) { // no constructor info
-					mm = ModuleRegistry.getModule(Class.forName(moduleInfo));
+		if ((preferredModulesClasses != null) && (!preferredModulesClasses.isEmpty())) {
+			Map<MaryDataType, List<MaryModule>> byInputType = new HashMap<MaryDataType, List<MaryModule>>();
+			for (String moduleInfo : preferredModulesClasses) {
+				try {
+					MaryModule mm = null;
+					if (!moduleInfo.contains("(")) { // no constructor info
+						mm = ModuleRegistry.getModule(Class.forName(moduleInfo));
+					}
+					if (mm == null) {
+						logger.warn("Preferred module " + moduleInfo + " is not available -- skipping.");
+						continue;
+					}
+					List<MaryModule> l = byInputType.get(mm.inputType());
+					if (l == null) {
+						l = new ArrayList<MaryModule>(1);
+						byInputType.put(mm.inputType(), l);
+					}
+					l.add(mm);
+				} catch (ClassNotFoundException e) {
+					logger.warn("Cannot initialise preferred module " + moduleInfo + " -- skipping.", e);
 				}
-				preferredModules.add(mm);
-			} catch (ClassNotFoundException e) {
-				logger.warn("Cannot initialise preferred module " + moduleInfo + " -- skipping.", e);
 			}
+			for (Map.Entry<MaryDataType, List<MaryModule>> e : byInputType.entrySet()) {
+				e.setValue(Collections.unmodifiableList(e.getValue()));
+			}
+			preferredModules = byInputType;
 		}
+		// Plans computed while sorting the data types did not know about the preferred modules:
+		processingPlans.clear();
 	}
 
 	// ////////////////////////////////////////////////////////////////
@@ -190,21 +213,12 @@ public class ModuleRegistry {
 	 *
 	 * @param wanted_input_type
 	 *            the specified input type
-	 * @return the list of system wide preferred modules, null if none
+	 * @return the unmodifiable list of system wide preferred modules, null if none
 	 */
-	public static synchronized List<MaryModule> getPreferredModulesForInputType(MaryDataType wanted_input_type) {
-		if (preferredModules != null) {
-			List<MaryModule> v = new ArrayList<MaryModule>();
-			for (Iterator<MaryModule> it = preferredModules.iterator(); it.hasNext();) {
-				MaryModule m = (MaryModule) it.next();
-				if (m.inputType().equals(wanted_input_type)) {
-					v.add(m);
-				}
-			}
-			if (v.size() > 0)
-				return v;
-			else
-				return null;
+	public static List<MaryModule> getPreferredModulesForInputType(MaryDataType wanted_input_type) {
+		Map<MaryDataType, List<MaryModule>> preferred = preferredModules;
+		if (preferred != null) {
+			return preferred.get(wanted_input_type);
 		}
 		return null;
 	}
@@ -222,6 +236,26 @@ public class ModuleRegistry {
 		return Collections.unmodifiableList(allModules);
 	}
 
+	/**
+	 * Start the given module unless it is already running. Modules start the modules they depend on, and modules may be started
+	 * concurrently, so modules must always be started through this method to make sure each of them is started exactly once.
+	 *
+	 * @param module
+	 *            the module to start
+	 * @return true if the module was started by this call, false if it was already running
+	 * @throws Exception
+	 *             if the module cannot be started
+	 */
+	public static boolean startModule(MaryModule module) throws Exception {
+		synchronized (module) {
+			if (module.getState() != MaryModule.MODULE_OFFLINE) {
+				return false;
+			}
+			module.startup();
+			return true;
+		}
+	}
+
 	/**
 	 * Find an active module by its class.
 	 *
@@ -287,17 +321,81 @@ public class ModuleRegistry {
 	 */
 	public static LinkedList<MaryModule> modulesRequiredForProcessing(MaryDataType sourceType, MaryDataType targetType,
 			Locale locale, Voice voice) {
+		ProcessingPlan plan = getProcessingPlan(sourceType, targetType, locale, voice);
+		return plan.isPossible() ? new LinkedList<MaryModule>(plan.getModules()) : null;
+	}
+
+	/**
+	 * Get the plan for transforming the given source data type into the requested target data type. Plans are computed once
+	 * per combination of source type, target type, locale and voice, and then shared; computing them again is only necessary
+	 * when modules are registered.
+	 *
+	 * @param sourceType
+	 *            sourceType
+	 * @param targetType
+	 *            target type
+	 * @param locale
+	 *            locale
+	 * @param voice
+	 *            voice, or null
+	 * @return the processing plan, never null; use {@link ProcessingPlan#isPossible()} to find out whether a path through the
+	 *         modules exists.
+	 * @throws IllegalStateException
+	 *             if called while registration is not yet complete.
+	 * @throws NullPointerException
+	 *             if source data type or target data type is null.
+	 */
+	public static ProcessingPlan getProcessingPlan(MaryDataType sourceType, MaryDataType targetType, Locale locale, Voice voice) {
 		if (!registrationComplete)
 			throw new IllegalStateException("Cannot inquire about modules while registration is ongoing");
 		if (sourceType == null)
 			throw new NullPointerException("Received null source type");
 		if (targetType == null)
 			throw new NullPointerException("Received null target type");
-		// if (locale == null)
-		// throw new NullPointerException("Received null locale");
-		LinkedList<MaryDataType> seenTypes = new LinkedList<MaryDataType>();
-		seenTypes.add(sourceType);
-		return modulesRequiredForProcessing(sourceType, targetType, locale, voice, seenTypes);
+		PlanKey key = new PlanKey(sourceType, targetType, locale, voice);
+		ProcessingPlan plan = processingPlans.get(key);
+		if (plan == null) {
+			// if (locale == null)
+			// throw new NullPointerException("Received null locale");
+			LinkedList<MaryDataType> seenTypes = new LinkedList<MaryDataType>();
+			seenTypes.add(sourceType);
+			LinkedList<MaryModule> path = modulesRequiredForProcessing(sourceType, targetType, locale, voice, seenTypes);
+			plan = new ProcessingPlan(sourceType, targetType, locale, voice, path);
+			ProcessingPlan existing = processingPlans.putIfAbsent(key, plan);
+			if (existing != null) {
+				plan = existing;
+			}
+		}
+		return plan;
+	}
+
+	/**
+	 * Compute the processing plans from every input type to every output type for each available voice, so that requests do
+	 * not have to search the module graph. This should be called once the voices have been loaded; plans for other combinations
+	 * are still computed on first use.
+	 */
+	public static void precomputeProcessingPlans() {
+		long startTime = System.currentTimeMillis();
+		List<MaryDataType> inputTypes = MaryDataType.getInputTypes();
+		List<MaryDataType> outputTypes = MaryDataType.getOutputTypes();
+		for (Voice voice : Voice.getAvailableVoices()) {
+			for (MaryDataType in : inputTypes) {
+				for (MaryDataType out : outputTypes) {
+					getProcessingPlan(in, out, voice.getLocale(), voice);
+				}
+			}
+		}
+		logger.debug("Computed " + processingPlans.size() + " processing plans in " + (System.currentTimeMillis() - startTime)
+				+ " ms");
+	}
+
+	/**
+	 * Provide the processing plans computed so far, e.g. for inspecting which modules will be used for a request.
+	 *
+	 * @return an unmodifiable snapshot of the known plans
+	 */
+	public static Collection<ProcessingPlan> getProcessingPlans() {
+		return Collections.unmodifiableList(new ArrayList<ProcessingPlan>(processingPlans.values()));
 	}
 
 	/**
@@ -416,4 +514,39 @@ public class ModuleRegistry {
 		return returnList;
 	}
 
+
+	private static final class PlanKey {
+		private final MaryDataType sourceType;
+		private final MaryDataType targetType;
+		private final Locale locale;
+		private final Voice voice;
+		private final int hash;
+
+		PlanKey(MaryDataType sourceType, MaryDataType targetType, Locale locale, Voice voice) {
+			this.sourceType = sourceType;
+			this.targetType = targetType;
+			this.locale = locale;
+			this.voice = voice;
+			int h = sourceType.hashCode();
+			h = 31 * h + targetType.hashCode();
+			h = 31 * h + (locale != null ? locale.hashCode() : 0);
+			h = 31 * h + (voice != null ? voice.hashCode() : 0);
+			this.hash = h;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof PlanKey)) {
+				return false;
+			}
+			PlanKey other = (PlanKey) o;
+			return sourceType.equals(other.sourceType) && targetType.equals(other.targetType)
+					&& (locale == null ? other.locale == null : locale.equals(other.locale)) && voice == other.voice;
+		}
+	}
 }
@@ -0,0 +1,109 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.modules;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import marytts.datatypes.MaryDataType;
+import marytts.modules.synthesis.Voice;
+
+/**
+ * The chain of modules that {@link ModuleRegistry} has chosen to transform a given input type into a given output type, for a
+ * given locale and voice. Plans are immutable; the registry computes each one once and shares it between all requests.
+ *
+ * @see ModuleRegistry#getProcessingPlan(MaryDataType, MaryDataType, Locale, Voice)
+ */
+public class ProcessingPlan {
+	private final MaryDataType sourceType;
+	private final MaryDataType targetType;
+	private final Locale locale;
+	private final Voice voice;
+	private final List<MaryModule> modules;
+
+	ProcessingPlan(MaryDataType sourceType, MaryDataType targetType, Locale locale, Voice voice, List<MaryModule> modules) {
+		this.sourceType = sourceType;
+		this.targetType = targetType;
+		this.locale = locale;
+		this.voice = voice;
+		this.modules = modules != null ? Collections.unmodifiableList(new ArrayList<MaryModule>(modules)) : null;
+	}
+
+	public MaryDataType getSourceType() {
+		return sourceType;
+	}
+
+	public MaryDataType getTargetType() {
+		return targetType;
+	}
+
+	/**
+	 * @return the locale the plan was computed for, or null
+	 */
+	public Locale getLocale() {
+		return locale;
+	}
+
+	/**
+	 * @return the voice the plan was computed for, or null
+	 */
+	public Voice getVoice() {
+		return voice;
+	}
+
+	/**
+	 * Whether the registered modules can be combined to produce the target type from the source type.
+	 *
+	 * @return true if there is a path through the modules
+	 */
+	public boolean isPossible() {
+		return modules != null;
+	}
+
+	/**
+	 * The modules to call, in order.
+	 *
+	 * @return an unmodifiable list of modules, which is empty if source and target type are the same, or null if there is no
+	 *         path through the modules.
+	 */
+	public List<MaryModule> getModules() {
+		return modules;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder buf = new StringBuilder();
+		buf.append(sourceType.name()).append(" -> ").append(targetType.name());
+		buf.append(" (locale ").append(locale).append(", voice ").append(voice != null ? voice.getName() : null).append("): ");
+		if (modules == null) {
+			buf.append("no path");
+		} else {
+			for (int i = 0; i < modules.size(); i++) {
+				if (i > 0) {
+					buf.append(", ");
+				}
+				buf.append(modules.get(i).name());
+			}
+		}
+		return buf.toString();
+	}
+}
@@ -234,7 +234,7 @@ public class PronunciationModel extends InternalModule {
 					logger.debug("  Predicted phone in sequence of " + predicted.length + " phones.");
 					// deletions:
 					if (predicted == null || predicted.length == 0) {
-						syllable.removeChild(s);
+						removePhone(s);
 						continue; // skip what follows
 					}
 					assert predicted != null && predicted.length > 0;
@@ -242,7 +242,7 @@ public class PronunciationModel extends InternalModule {
 					for (int lc = 0; lc < predicted.length - 1; lc++) {
 						Element newPh = MaryXML.createElement(doc, MaryXML.PHONE);
 						newPh.setAttribute("p", predicted[lc]);
-						syllable.insertBefore(newPh, s);
+						insertPhoneBefore(newPh, s);
 					}
 					// for the last (or only) predicted segment, just update the phone label
 					if (!phoneString.equals(predicted[predicted.length - 1])) {
@@ -267,6 +267,32 @@ public class PronunciationModel extends InternalModule {
 		return result;
 	}
 
+	/**
+	 * Remove a phone from its syllable, and announce a new document version so that the features of the following phones are
+	 * not computed from an {@link marytts.features.UtteranceIndex} that still contains the removed phone.
+	 * 
+	 * @param ph
+	 *            a &lt;ph&gt; element
+	 */
+	protected static void removePhone(Element ph) {
+		ph.getParentNode().removeChild(ph);
+		MaryDomUtils.newDocumentVersion(ph.getOwnerDocument());
+	}
+
+	/**
+	 * Insert a new phone before an existing one, and announce a new document version so that the features of the following
+	 * phones take the new phone into account.
+	 * 
+	 * @param newPh
+	 *            the new &lt;ph&gt; element
+	 * @param ph
+	 *            the &lt;ph&gt; element before which to insert it
+	 */
+	protected static void insertPhoneBefore(Element newPh, Element ph) {
+		ph.getParentNode().insertBefore(newPh, ph);
+		MaryDomUtils.newDocumentVersion(ph.getOwnerDocument());
+	}
+
 	private void createSubStructure(Element token, AllophoneSet allophoneSet) {
 		String phone = token.getAttribute("ph");
 		if (phone.equals(""))
@@ -29,10 +29,12 @@ import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.UnsupportedAudioFileException;
 
+import marytts.datatypes.AcousticParameters;
 import marytts.datatypes.MaryData;
 import marytts.datatypes.MaryDataType;
 import marytts.datatypes.MaryXML;
 import marytts.exceptions.SynthesisException;
+import marytts.htsengine.HMMVoice;
 import marytts.modules.synthesis.Voice;
 import marytts.modules.synthesis.WaveformSynthesizer;
 import marytts.server.MaryProperties;
@@ -149,6 +151,7 @@ public class Synthesis extends InternalModule {
 				if (v != null) {
 					Voice newvoice = Voice.getVoice(v);
 					if (newvoice != null && newvoice.hasVocalizationSupport()) {
+						AcousticParameters.serialize(doc);
 						AudioInputStream ais = newvoice.getVocalizationSynthesizer().synthesize(newvoice, d.getAudioFileFormat(),
 								element);
 						result.appendAudio(ais);
@@ -248,6 +251,11 @@ public class Synthesis extends InternalModule {
 		ef.setHMMEffectParameters(voice, currentEffect);
 		//
 
+		// only the HMM synthesizer reads the typed acoustic parameters; the others need them in the document:
+		if (!(voice instanceof HMMVoice)) {
+			AcousticParameters.serialize(tokensAndBoundaries.get(0).getOwnerDocument());
+		}
+
 		AudioInputStream ais = null;
 		ais = voice.synthesize(tokensAndBoundaries, outputParams);
 		if (ais == null)
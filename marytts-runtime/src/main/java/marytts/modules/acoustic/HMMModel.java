@@ -22,11 +22,13 @@ package marytts.modules.acoustic;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.WeakHashMap;
 
+import marytts.datatypes.AcousticParameters;
 import marytts.exceptions.MaryConfigurationException;
 import marytts.features.FeatureDefinition;
 import marytts.features.FeatureProcessorManager;
@@ -36,6 +38,8 @@ import marytts.htsengine.HMMData;
 import marytts.htsengine.HTSModel;
 import marytts.htsengine.HTSParameterGeneration;
 import marytts.htsengine.HTSUttModel;
+import marytts.htsengine.RetainedHTSModel;
+import marytts.server.MaryProperties;
 import marytts.unitselection.select.Target;
 import marytts.util.MaryUtils;
 
@@ -81,6 +85,11 @@ public class HMMModel extends Model {
 	 */
 	private Map<List<Element>, HTSUttModel> uttModels = new WeakHashMap<List<Element>, HTSUttModel>();
 
+	/**
+	 * Whether to keep the models searched in the trees with the elements, so that the HMM synthesizer can reuse them.
+	 */
+	private boolean retainModels = MaryProperties.getBoolean("htsengine.reusemodels", true);
+
 	/**
 	 * Model constructor
 	 *
@@ -248,11 +257,10 @@ public class HMMModel extends Model {
 				double duration;
 
 				// if the attribute already exists for this element keep it
-				if (element.hasAttribute(durAttributeName)) {
+				double existingDuration = AcousticParameters.getDuration(element);
+				if (!Double.isNaN(existingDuration)) {
 					// Element is in milliseconds already, so convert to second in order to get reformatted in ms après
-					formattedTargetValue = element.getAttribute(durAttributeName);
-					duration = Float.parseFloat(formattedTargetValue) / 1000;
-					formattedTargetValue = String.format(targetAttributeFormat, duration);
+					duration = (float) existingDuration / 1000;
 					um.setTotalFrame(um.getTotalFrame() + (int) Math.round(duration / fperiodsec));
 				} else {
 
@@ -268,6 +276,9 @@ public class HMMModel extends Model {
 				 * whether the states are voiced or unvoiced, (it can be possible that some states are voiced and some unvoiced).
 				 */
 				cart.searchLf0InCartTree(m, fv, feaDef, htsData.getUV());
+				if (retainModels) {
+					RetainedHTSModel.retain(predictorElements.get(i), htsData, fv, m);
+				}
 				for (int mstate = 0; mstate < cart.getNumStates(); mstate++) {
 					for (int frame = 0; frame < m.getDur(mstate); frame++) {
 						if (m.getVoiced(mstate))
@@ -323,12 +334,14 @@ public class HMMModel extends Model {
 			assert applyToElements.size() == um.getNumModel();
 			float f0;
 			String formattedTargetValue;
+			AcousticParameters params = applyToElements.isEmpty() ? null : AcousticParameters.forDocument(applyToElements
+					.get(0).getOwnerDocument());
 			int t = 0;
 			for (int i = 0; i < applyToElements.size(); i++) { // this will be the same as the utterance model set
 				m = um.getUttModel(i);
 				int k = 1;
 				int numVoicedInModel = m.getNumVoiced();
-				formattedTargetValue = "";
+				int[] f0Targets = new int[2 * numVoicedInModel];
 				// System.out.format("phone = %s dur_in_frames=%d num_voiced_frames=%d : ", m.getPhoneName(), m.getTotalDur(),
 				// numVoicedInModel);
 				for (int mstate = 0; mstate < cart.getNumStates(); mstate++) {
@@ -336,8 +349,11 @@ public class HMMModel extends Model {
 						if (voiced[t++]) { // numVoiced and t are not the same because voiced values can be true or false,
 							// numVoiced count just the voiced
 							f0 = (float) Math.exp(pdf2par.getlf0Pst().getPar(numVoiced++, 0));
-							formattedTargetValue += "(" + Integer.toString((int) ((k * 100.0) / numVoicedInModel)) + ","
-									+ Integer.toString((int) f0) + ")";
+							if (2 * k > f0Targets.length) {
+								f0Targets = Arrays.copyOf(f0Targets, 2 * k);
+							}
+							f0Targets[2 * k - 2] = (int) ((k * 100.0) / numVoicedInModel);
+							f0Targets[2 * k - 1] = (int) f0;
 							k++;
 						}
 					}
@@ -353,9 +369,19 @@ public class HMMModel extends Model {
 				// String formattedTargetValue = String.format(targetAttributeFormat, targetValue);
 				// set the new attribute value:
 				// if the whole segment is unvoiced then f0 should not be fixed?
-				if (formattedTargetValue.length() > 0)
-					element.setAttribute(f0AttributeName, formattedTargetValue);
-				// System.out.println(formattedTargetValue);
+				if (k > 1) {
+					f0Targets = Arrays.copyOf(f0Targets, 2 * (k - 1));
+					if (!params.isLazy()) {
+						formattedTargetValue = "";
+						for (int j = 0; j < f0Targets.length; j += 2) {
+							formattedTargetValue += "(" + Integer.toString(f0Targets[j]) + "," + Integer.toString(f0Targets[j + 1])
+									+ ")";
+						}
+						element.setAttribute(f0AttributeName, formattedTargetValue);
+						// System.out.println(formattedTargetValue);
+					}
+					params.setF0Targets(element, f0Targets);
+				}
 			}
 			// once finished re-set to null um
 			// um = null;
@@ -408,7 +434,7 @@ public class HMMModel extends Model {
 				/* update number of states */
 				um.setNumState(um.getNumState() + cart.getNumStates());
 				// get the duration from the element
-				duration = Integer.parseInt(e.getAttribute("d")) * 0.001f; // in sec.
+				duration = (int) AcousticParameters.getDuration(e) * 0.001f; // in sec.
 				// distribute the duration (in frames) among the five states, here it is done the same amount for each state
 				durInFrames = (int) (duration / fperiodsec);
 				durStateInFrames = (int) (durInFrames / cart.getNumStates());
@@ -426,6 +452,9 @@ public class HMMModel extends Model {
 				 * whether the states are voiced or unvoiced, (it can be possible that some states are voiced and some unvoiced).
 				 */
 				cart.searchLf0InCartTree(m, fv, feaDef, htsData.getUV());
+				if (retainModels) {
+					RetainedHTSModel.retain(e, htsData, fv, m);
+				}
 				for (mstate = 0; mstate < cart.getNumStates(); mstate++) {
 					for (frame = 0; frame < m.getDur(mstate); frame++)
 						if (m.getVoiced(mstate))
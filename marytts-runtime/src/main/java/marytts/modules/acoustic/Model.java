@@ -23,8 +23,12 @@ package marytts.modules.acoustic;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+import marytts.datatypes.AcousticParameters;
 import marytts.datatypes.MaryXML;
 import marytts.exceptions.MaryConfigurationException;
 import marytts.features.FeatureProcessorManager;
@@ -45,6 +49,11 @@ import org.w3c.dom.Node;
  */
 public abstract class Model {
 
+	/**
+	 * Formats of single F0 targets, such as "(50,%.0f)", whose values are also passed on as typed F0 targets.
+	 */
+	private static final Pattern F0_TARGET_FORMAT = Pattern.compile("\\((\\d+),%\\.0f\\)");
+
 	/**
 	 * The stream from which we will read our acoustic model.
 	 */
@@ -196,6 +205,15 @@ public abstract class Model {
 		assert predictFromElements.size() == applyToElements.size();
 
 		List<Target> predictFromTargets = getTargets(predictFromElements);
+		int f0Position = getF0TargetPosition();
+		// if acoustic parameters are written lazily, single F0 targets go into the typed F0 targets only:
+		AcousticParameters params = null;
+		if (f0Position >= 0 && !applyToElements.isEmpty()) {
+			params = AcousticParameters.forDocument(applyToElements.get(0).getOwnerDocument());
+			if (!params.isLazy()) {
+				params = null;
+			}
+		}
 
 		for (int i = 0; i < applyToElements.size(); i++) {
 			Target target = predictFromTargets.get(i);
@@ -218,6 +236,18 @@ public abstract class Model {
 				targetAttributeName = targetAttributeName.replaceFirst("@", "");
 			}
 
+			if (params != null && targetValue >= 0 && !Float.isInfinite(targetValue)) {
+				// append the target to the typed F0 targets:
+				int[] previousTargets = AcousticParameters.getF0Targets(element);
+				int[] targets = Arrays.copyOf(previousTargets, previousTargets.length + 2);
+				targets[previousTargets.length] = f0Position;
+				targets[previousTargets.length + 1] = Math.round(targetValue);
+				params.setF0Targets(element, targets);
+				continue;
+			}
+			// the attribute may still have to be written from its typed value before we append to it:
+			AcousticParameters.serialize(element);
+
 			String formattedTargetValue = null;
 			try {
 				formattedTargetValue = String.format(targetAttributeFormat, targetValue);
@@ -240,6 +270,22 @@ public abstract class Model {
 		}
 	}
 
+	/**
+	 * If this Model predicts a single F0 target, formatted as e.g. "(50,%.0f)", get the position of that target.
+	 * 
+	 * @return the position in percent of the segment duration, or -1 if this Model does not predict F0 targets
+	 */
+	private int getF0TargetPosition() {
+		if (!AcousticParameters.F0.equals(targetAttributeName.replaceFirst("^@", ""))) {
+			return -1;
+		}
+		Matcher matcher = F0_TARGET_FORMAT.matcher(targetAttributeFormat);
+		if (!matcher.matches()) {
+			return -1;
+		}
+		return Integer.parseInt(matcher.group(1));
+	}
+
 	/**
 	 * For a list of <code>PHONE</code> elements, return a list of Targets, where each Target is constructed from the
 	 * corresponding Element.
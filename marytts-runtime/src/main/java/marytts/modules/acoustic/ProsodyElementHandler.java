@@ -29,13 +29,13 @@ import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import marytts.datatypes.AcousticParameters;
 import marytts.datatypes.MaryXML;
 import marytts.util.MaryUtils;
 import marytts.util.dom.DomUtils;
 import marytts.util.dom.MaryDomUtils;
 import marytts.util.math.MathUtils;
 import marytts.util.math.Polynomial;
-import marytts.util.string.StringUtils;
 
 import org.apache.log4j.Logger;
 import org.w3c.dom.Document;
@@ -351,15 +351,19 @@ public class ProsodyElementHandler {
 	private void modifySpeechRate(NodeList nl, double percentage, boolean increaseSpeechRate) {
 
 		assert nl != null;
+		if (nl.getLength() == 0) {
+			return;
+		}
+		AcousticParameters params = AcousticParameters.forDocument(nl.item(0).getOwnerDocument());
 
 		for (int i = 0; i < nl.getLength(); i++) {
 			Element e = (Element) nl.item(i);
 			assert "ph".equals(e.getNodeName()) : "NodeList should contain 'ph' elements only";
-			if (!e.hasAttribute("d")) {
+			double durAttribute = AcousticParameters.getDuration(e);
+			if (Double.isNaN(durAttribute)) {
 				continue;
 			}
 
-			double durAttribute = new Double(e.getAttribute("d")).doubleValue();
 			double newDurAttribute;
 
 			if (increaseSpeechRate) {
@@ -368,7 +372,10 @@ public class ProsodyElementHandler {
 				newDurAttribute = durAttribute + (percentage * durAttribute / 100);
 			}
 
-			e.setAttribute("d", newDurAttribute + "");
+			if (!params.isLazy()) {
+				e.setAttribute("d", newDurAttribute + "");
+			}
+			params.setDuration(e, newDurAttribute);
 			// System.out.println(durAttribute+" = " +newDurAttribute);
 		}
 
@@ -384,15 +391,19 @@ public class ProsodyElementHandler {
 					duration += new Double(nd.getAttribute("duration")).doubleValue();
 				}
 			} else {
-				if (nd.hasAttribute("d")) {
-					duration += new Double(nd.getAttribute("d")).doubleValue();
+				double d = AcousticParameters.getDuration(nd);
+				if (!Double.isNaN(d)) {
+					duration += d;
 				}
 			}
 			double endTime = 0.001 * duration;
 			if (!nd.getNodeName().equals(MaryXML.BOUNDARY)) {
 				// setting "end" attr for boundaries does not have the intended effect, since elsewhere, only the "duration" attr
 				// is used for boundaries
-				nd.setAttribute("end", String.valueOf(endTime));
+				if (!params.isLazy()) {
+					nd.setAttribute("end", String.valueOf(endTime));
+				}
+				params.setEnd(nd, endTime);
 			}
 			// System.out.println(nd.getNodeName()+" = " +nd.getAttribute("end"));
 		}
@@ -435,7 +446,7 @@ public class ProsodyElementHandler {
 			if (!"ph".equals(e.getNodeName())) {
 				throw new IllegalArgumentException("Input NodeList should contain 'ph' elements only");
 			}
-			if (!e.hasAttribute("d") || !e.hasAttribute("end")) {
+			if (Double.isNaN(AcousticParameters.getDuration(e)) || Double.isNaN(AcousticParameters.getEnd(e))) {
 				throw new IllegalArgumentException("All 'ph' elements should contain 'd' and 'end' attributes");
 			}
 		}
@@ -446,26 +457,24 @@ public class ProsodyElementHandler {
 		double[] contour = new double[arraysize];
 		Arrays.fill(contour, 0.0);
 
-		double fEnd = (new Double(firstElement.getAttribute("end"))).doubleValue();
-		double fDuration = 0.001 * (new Double(firstElement.getAttribute("d"))).doubleValue();
-		double lEnd = (new Double(lastElement.getAttribute("end"))).doubleValue();
+		double fEnd = AcousticParameters.getEnd(firstElement);
+		double fDuration = 0.001 * AcousticParameters.getDuration(firstElement);
+		double lEnd = AcousticParameters.getEnd(lastElement);
 		double fStart = fEnd - fDuration; // 'prosody' tag starting point
 		double duration = lEnd - fStart; // duaration of 'prosody' modification request
 
 		for (int i = 0; i < nl.getLength(); i++) {
 			Element e = (Element) nl.item(i);
-			String f0Attribute = e.getAttribute("f0");
+			int[] f0Targets = AcousticParameters.getF0Targets(e);
 
-			if (f0Attribute == null || "".equals(f0Attribute)) {
+			if (f0Targets.length == 0) {
 				continue;
 			}
 
-			double phoneEndTime = (new Double(e.getAttribute("end"))).doubleValue();
-			double phoneDuration = 0.001 * (new Double(e.getAttribute("d"))).doubleValue();
+			double phoneEndTime = AcousticParameters.getEnd(e);
+			double phoneDuration = 0.001 * AcousticParameters.getDuration(e);
 			// double localStartTime = endTime - phoneDuration;
 
-			int[] f0Targets = StringUtils.parseIntPairs(e.getAttribute("f0"));
-
 			for (int j = 0, len = f0Targets.length / 2; j < len; j++) {
 				int percent = f0Targets[2 * j];
 				int f0Value = f0Targets[2 * j + 1];
@@ -497,47 +506,48 @@ public class ProsodyElementHandler {
 		Element firstElement = (Element) nl.item(0);
 		Element lastElement = (Element) nl.item(nl.getLength() - 1);
 
-		double fEnd = (new Double(firstElement.getAttribute("end"))).doubleValue();
-		double fDuration = 0.001 * (new Double(firstElement.getAttribute("d"))).doubleValue();
-		double lEnd = (new Double(lastElement.getAttribute("end"))).doubleValue();
+		double fEnd = AcousticParameters.getEnd(firstElement);
+		double fDuration = 0.001 * AcousticParameters.getDuration(firstElement);
+		double lEnd = AcousticParameters.getEnd(lastElement);
 		double fStart = fEnd - fDuration; // 'prosody' tag starting point
 		double duration = lEnd - fStart; // duaration of 'prosody' modification request
 
-		Map<Integer, Integer> f0Map;
+		AcousticParameters params = AcousticParameters.forDocument(firstElement.getOwnerDocument());
 
 		for (int i = 0; i < nl.getLength(); i++) {
 
 			Element e = (Element) nl.item(i);
-			String f0Attribute = e.getAttribute("f0");
+			int[] f0Targets = AcousticParameters.getF0Targets(e);
 
-			if (f0Attribute == null || "".equals(f0Attribute)) {
+			if (f0Targets.length == 0) {
 				continue;
 			}
 
-			double phoneEndTime = (new Double(e.getAttribute("end"))).doubleValue();
-			double phoneDuration = 0.001 * (new Double(e.getAttribute("d"))).doubleValue();
+			double phoneEndTime = AcousticParameters.getEnd(e);
+			double phoneDuration = 0.001 * AcousticParameters.getDuration(e);
 
-			Pattern p = Pattern.compile("(\\d+,\\d+)");
-
-			// Split input with the pattern
-			Matcher m = p.matcher(e.getAttribute("f0"));
+			int[] newF0Targets = new int[f0Targets.length];
 			String setF0String = "";
-			while (m.find()) {
-				String[] f0Values = (m.group().trim()).split(",");
-				Integer percent = new Integer(f0Values[0]);
-				Integer f0Value = new Integer(f0Values[1]);
-				double partPhone = phoneDuration * (percent.doubleValue() / 100.0);
+			for (int j = 0; j < f0Targets.length; j += 2) {
+				int percent = f0Targets[j];
+				double partPhone = phoneDuration * (percent / 100.0);
 
 				int placeIndex = (int) Math.floor(((((phoneEndTime - phoneDuration) - fStart) + partPhone) * F0CONTOUR_LENGTH)
 						/ (double) duration);
 				if (placeIndex >= F0CONTOUR_LENGTH) {
 					placeIndex = F0CONTOUR_LENGTH - 1;
 				}
-				setF0String = setF0String + "(" + percent + "," + (int) contour[placeIndex] + ")";
-
+				newF0Targets[j] = percent;
+				newF0Targets[j + 1] = (int) contour[placeIndex];
+				if (!params.isLazy()) {
+					setF0String = setF0String + "(" + percent + "," + (int) contour[placeIndex] + ")";
+				}
 			}
 
-			e.setAttribute("f0", setF0String);
+			if (!params.isLazy()) {
+				e.setAttribute("f0", setF0String);
+			}
+			params.setF0Targets(e, newF0Targets);
 		}
 	}
 
@@ -69,6 +69,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
 
 import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioInputStream;
@@ -81,12 +82,12 @@ import marytts.features.FeatureRegistry;
 import marytts.features.TargetFeatureComputer;
 import marytts.htsengine.HMMVoice;
 import marytts.modules.HTSEngine;
-import marytts.modules.MaryModule;
 import marytts.modules.ModuleRegistry;
 import marytts.modules.TargetFeatureLister;
 import marytts.modules.synthesis.Voice.Gender;
 import marytts.server.MaryProperties;
 import marytts.unitselection.select.Target;
+import marytts.util.MaryRuntimeUtils;
 import marytts.util.MaryUtils;
 import marytts.util.dom.MaryDomUtils;
 
@@ -127,8 +128,8 @@ public class HMMSynthesizer implements WaveformSynthesizer {
 			logger.info("Starting my own TargetFeatureLister");
 			targetFeatureLister = new TargetFeatureLister();
 			targetFeatureLister.startup();
-		} else if (targetFeatureLister.getState() == MaryModule.MODULE_OFFLINE) {
-			targetFeatureLister.startup();
+		} else {
+			ModuleRegistry.startModule(targetFeatureLister);
 		}
 
 		try {
@@ -140,21 +141,33 @@ public class HMMSynthesizer implements WaveformSynthesizer {
 			logger.info("Starting my own HTSEngine");
 			htsEngine = new HTSEngine();
 			htsEngine.startup();
-		} else if (htsEngine.getState() == MaryModule.MODULE_OFFLINE) {
-			htsEngine.startup();
+		} else {
+			ModuleRegistry.startModule(htsEngine);
 		}
 
 		// Register HMM voices:
 		List<String> voiceNames = MaryProperties.getList("hmm.voices.list");
-		for (String voiceName : voiceNames) {
-			logger.debug("Voice '" + voiceName + "'");
-
-			/**
-			 * When creating a HMMVoice object it should create and initialise a TreeSet ts, a ModelSet ms and load the context
-			 * feature list used in this voice.
-			 */
-
-			HMMVoice v = new HMMVoice(voiceName, this);
+		List<Callable<HMMVoice>> loaders = new ArrayList<Callable<HMMVoice>>();
+		for (final String voiceName : voiceNames) {
+			loaders.add(new Callable<HMMVoice>() {
+				public HMMVoice call() throws Exception {
+					logger.debug("Voice '" + voiceName + "'");
+					long time = System.currentTimeMillis();
+
+					/**
+					 * When creating a HMMVoice object it should create and initialise a TreeSet ts, a ModelSet ms and load the
+					 * context feature list used in this voice.
+					 */
+
+					HMMVoice v = new HMMVoice(voiceName, HMMSynthesizer.this);
+					long newtime = System.currentTimeMillis() - time;
+					logger.info("Loading of voice " + voiceName + " took " + newtime + " milliseconds");
+					return v;
+				}
+			});
+		}
+		// load in parallel, but register in the configured order:
+		for (HMMVoice v : MaryRuntimeUtils.runInParallel(loaders, MaryRuntimeUtils.getStartupThreads(), "HMM voice loader")) {
 			Voice.registerVoice(v);
 		}
 		logger.info("started.");
@@ -392,6 +392,26 @@ public class Voice {
 		}
 	}
 
+	/**
+	 * Load the data needed for synthesising with this voice, unless this has been done already. Voices load their data when they
+	 * are created, except if lazy loading is configured (voices.lazyloading = true) and they support it; they then load it on
+	 * first use, or when this is called.
+	 * 
+	 * @throws MaryConfigurationException
+	 *             if the data cannot be loaded
+	 */
+	public void warmUp() throws MaryConfigurationException {
+	}
+
+	/**
+	 * Whether voices should postpone loading their data until it is needed, see {@link #warmUp()}.
+	 * 
+	 * @return the value of the property voices.lazyloading
+	 */
+	protected static boolean isLazyLoading() {
+		return MaryProperties.getBoolean("voices.lazyloading", false);
+	}
+
 	/**
 	 * Get the allophone set associated with this voice.
 	 * 
@@ -619,7 +639,7 @@ public class Voice {
 	 * @param voice
 	 *            voicwe
 	 */
-	public static void registerVoice(Voice voice) {
+	public static synchronized void registerVoice(Voice voice) {
 		if (voice == null)
 			throw new NullPointerException("Cannot register null voice.");
 		if (!allVoices.contains(voice)) {
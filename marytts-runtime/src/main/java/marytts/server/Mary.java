@@ -31,7 +31,6 @@ import java.lang.reflect.Method;
 import java.net.ServerSocket;
 import java.net.URL;
 import java.net.URLClassLoader;
-import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -40,6 +39,7 @@ import java.util.Locale;
 import java.util.Properties;
 import java.util.StringTokenizer;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
 
 import javax.sound.sampled.AudioFileFormat;
 import javax.sound.sampled.AudioFormat;
@@ -57,10 +57,10 @@ import marytts.modules.MaryModule;
 import marytts.modules.ModuleRegistry;
 import marytts.modules.Synthesis;
 import marytts.modules.synthesis.Voice;
-import marytts.util.MaryCache;
 import marytts.util.MaryRuntimeUtils;
 import marytts.util.MaryUtils;
 import marytts.util.Pair;
+import marytts.util.cache.SynthesisCacheManager;
 import marytts.util.data.audio.MaryAudioUtils;
 import marytts.util.io.FileUtils;
 
@@ -135,40 +135,82 @@ public class Mary {
 		}
 		ModuleRegistry.setRegistrationComplete();
 
-		List<Pair<MaryModule, Long>> startupTimes = new ArrayList<Pair<MaryModule, Long>>();
-
 		// Separate loop for startup allows modules to cross-reference to each
 		// other via Mary.getModule(Class) even if some have not yet been
 		// started.
-		for (MaryModule m : ModuleRegistry.getAllModules()) {
+		List<Callable<Pair<MaryModule, Long>>> startupTasks = new ArrayList<Callable<Pair<MaryModule, Long>>>();
+		for (final MaryModule m : ModuleRegistry.getAllModules()) {
 			// Only start the modules here if in server mode:
 			if (((!MaryProperties.getProperty("server").equals("commandline")) || m instanceof Synthesis)
 					&& m.getState() == MaryModule.MODULE_OFFLINE) {
-				long before = System.currentTimeMillis();
-				try {
-					m.startup();
-				} catch (Throwable t) {
-					throw new Exception("Problem starting module " + m.name(), t);
-				}
-				long after = System.currentTimeMillis();
-				startupTimes.add(new Pair<MaryModule, Long>(m, after - before));
+				startupTasks.add(new Callable<Pair<MaryModule, Long>>() {
+					public Pair<MaryModule, Long> call() throws Exception {
+						long before = System.currentTimeMillis();
+						try {
+							// the module may have been started already by a module depending on it:
+							ModuleRegistry.startModule(m);
+						} catch (Throwable t) {
+							throw new Exception("Problem starting module " + m.name(), t);
+						}
+						long after = System.currentTimeMillis();
+						return new Pair<MaryModule, Long>(m, after - before);
+					}
+				});
 			}
-			if (MaryProperties.getAutoBoolean("modules.poweronselftest", false)) {
+		}
+		int threads = MaryRuntimeUtils.getStartupThreads();
+		long startTime = System.currentTimeMillis();
+		List<Pair<MaryModule, Long>> startupTimes = MaryRuntimeUtils.runInParallel(startupTasks, threads, "Startup");
+		long totalTime = System.currentTimeMillis() - startTime;
+
+		if (MaryProperties.getAutoBoolean("modules.poweronselftest", false)) {
+			for (MaryModule m : ModuleRegistry.getAllModules()) {
 				m.powerOnSelfTest();
 			}
 		}
 
+		// Now that the voices are known, prepare the processing plans so that requests can use them right away:
+		ModuleRegistry.precomputeProcessingPlans();
+
 		if (startupTimes.size() > 0) {
 			Collections.sort(startupTimes, new Comparator<Pair<MaryModule, Long>>() {
 				public int compare(Pair<MaryModule, Long> o1, Pair<MaryModule, Long> o2) {
 					return -o1.getSecond().compareTo(o2.getSecond());
 				}
 			});
-			logger.debug("Startup times:");
+			logger.info("Started " + startupTimes.size() + " modules in " + totalTime + " ms using " + threads
+					+ (threads == 1 ? " thread" : " threads") + "; startup times:");
 			for (Pair<MaryModule, Long> p : startupTimes) {
-				logger.debug(p.getFirst().name() + ": " + p.getSecond() + " ms");
+				logger.info(p.getFirst().name() + ": " + p.getSecond() + " ms");
 			}
 		}
+
+		if (MaryProperties.getBoolean("voices.lazyloading", false) && MaryProperties.getBoolean("voices.warmup", false)) {
+			warmUpVoices();
+		}
+	}
+
+	/**
+	 * With lazy voice loading, load the data of all voices in the background, so that the server can take requests right away
+	 * while the voices are loading. A request for a voice that is still loading waits for it.
+	 */
+	private static void warmUpVoices() {
+		Thread warmUp = new Thread("Voice warm-up") {
+			public void run() {
+				for (Voice v : Voice.getAvailableVoices()) {
+					long before = System.currentTimeMillis();
+					try {
+						v.warmUp();
+					} catch (Exception e) {
+						logger.error("Cannot load voice " + v.getName(), e);
+						continue;
+					}
+					logger.info("Warmed up voice " + v.getName() + " in " + (System.currentTimeMillis() - before) + " ms");
+				}
+			}
+		};
+		warmUp.setDaemon(true);
+		warmUp.start();
 	}
 
 	private static void setupFeatureProcessors() throws Exception {
@@ -290,6 +332,10 @@ public class Mary {
 
 		setupFeatureProcessors();
 
+		if (MaryProperties.getBoolean("cache")) {
+			SynthesisCacheManager.startup();
+		}
+
 		// Instantiate module classes and startup modules:
 		startModules();
 
@@ -374,11 +420,10 @@ public class Mary {
 				m.shutdown();
 		}
 
-		if (MaryCache.haveCache()) {
-			MaryCache cache = MaryCache.getCache();
+		if (SynthesisCacheManager.haveCache()) {
 			try {
-				cache.shutdown();
-			} catch (SQLException e) {
+				SynthesisCacheManager.shutdown();
+			} catch (IOException e) {
 				logger.warn("Cannot shutdown cache: ", e);
 			}
 		}
@@ -36,7 +36,10 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.StringTokenizer;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.sound.sampled.AudioFileFormat;
 import javax.sound.sampled.AudioFormat;
@@ -61,8 +64,8 @@ import marytts.util.data.audio.MaryAudioUtils;
 import org.apache.log4j.Logger;
 
 /**
- * Listen for clients on socket port <code>MaryProperties.socketPort()</code>. For each new client, create a new RequestHandler
- * thread.
+ * Listen for clients on socket port <code>MaryProperties.socketPort()</code>. For each new client, schedule a new RequestHandler
+ * on the {@link SynthesisScheduler}.
  * <p>
  * Clients are expected to follow the following <b>protocol</b>:
  * <p>
@@ -148,10 +151,13 @@ public class MaryServer implements Runnable {
 	private Logger logger;
 	private int runningNumber = 1;
 	private Map<Integer, Object[]> clientMap = Collections.synchronizedMap(new HashMap<Integer, Object[]>());
-	private Executor clients = Executors.newCachedThreadPool();
+	private Executor clients;
 
 	public MaryServer() {
 		logger = MaryUtils.getLogger("server");
+		// Client handlers only parse the protocol; the synthesis itself is run by the SynthesisScheduler.
+		int maxClients = MaryProperties.getInteger("server.socket.maxclients", 100);
+		clients = new ThreadPoolExecutor(0, maxClients, 60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>());
 	}
 
 	public void run() {
@@ -164,13 +170,28 @@ public class MaryServer implements Runnable {
 				Socket client = server.accept();
 				logger.info("Connection from " + client.getInetAddress().getHostName() + " ("
 						+ client.getInetAddress().getHostAddress() + ").");
-				clients.execute(new ClientHandler(client));
+				try {
+					clients.execute(new ClientHandler(client));
+				} catch (RejectedExecutionException e) {
+					logger.info("Too many clients, rejecting connection.");
+					rejectClient(client);
+				}
 			}
 		} catch (Exception e) {
 			throw new RuntimeException(e);
 		}
 	}
 
+	private void rejectClient(Socket client) {
+		try {
+			PrintWriter out = new PrintWriter(new OutputStreamWriter(client.getOutputStream(), "UTF-8"), true);
+			out.println("Server busy, please try again later.");
+			client.close();
+		} catch (IOException e) {
+			logger.info("Cannot reject client properly", e);
+		}
+	}
+
 	private synchronized int getID() {
 		return runningNumber++;
 	}
@@ -508,7 +529,14 @@ public class MaryServer implements Runnable {
 			}
 			// -- send off to new request
 			RequestHandler rh = new RequestHandler(request, infoSocket, client, reader);
-			rh.start();
+			Voice voice = request.getDefaultVoice();
+			try {
+				SynthesisScheduler.getInstance().submit(voice != null ? voice.getName() : null, rh);
+			} catch (RejectedExecutionException e) {
+				infoSocket.close();
+				throw new Exception("Server busy, please try again in " + SynthesisScheduler.getInstance().getRetryAfterSeconds()
+						+ " seconds.");
+			}
 			return true;
 		}
 
@@ -25,7 +25,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.Reader;
-import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -34,6 +34,13 @@ import java.util.Map;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.sound.sampled.AudioFileFormat;
 import javax.sound.sampled.AudioInputStream;
@@ -42,15 +49,21 @@ import javax.sound.sampled.UnsupportedAudioFileException;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
 
+import marytts.datatypes.AcousticParameters;
 import marytts.datatypes.MaryData;
 import marytts.datatypes.MaryDataType;
 import marytts.datatypes.MaryXML;
+import marytts.modules.AcousticModeller;
 import marytts.modules.MaryModule;
 import marytts.modules.ModuleRegistry;
+import marytts.modules.ProcessingPlan;
+import marytts.modules.Synthesis;
 import marytts.modules.synthesis.Voice;
-import marytts.util.MaryCache;
 import marytts.util.MaryRuntimeUtils;
 import marytts.util.MaryUtils;
+import marytts.util.cache.CacheKey;
+import marytts.util.cache.SynthesisCache;
+import marytts.util.cache.SynthesisCacheManager;
 import marytts.util.data.audio.AppendableSequenceAudioInputStream;
 import marytts.util.dom.DomUtils;
 import marytts.util.dom.MaryDomUtils;
@@ -89,17 +102,24 @@ public class Request {
 	protected String defaultEffects;
 
 	protected int id;
+	// identifies this request in the documents it processes, see getRequestToken()
+	private final Object token = new Object();
 	protected Logger logger;
 	protected MaryData inputData;
 	protected MaryData outputData;
 	protected boolean streamAudio = false;;
-	protected boolean abortRequested = false;
+	protected volatile boolean abortRequested = false;
 
 	// Keep track of timing info for each module
 	// (map MaryModule onto Long)
 	protected Set<MaryModule> usedModules;
 	protected Map<MaryModule, Long> timingInfo;
 
+	private static final String TOKEN_KEY = "marytts.server.Request.token";
+
+	// Shared by all requests, created on first use (see getParagraphExecutor())
+	private static ExecutorService paragraphExecutor;
+
 	public Request(MaryDataType inputType, MaryDataType outputType, Locale defaultLocale, Voice defaultVoice,
 			String defaultEffects, String defaultStyle, int id, AudioFileFormat audioFileFormat) {
 		this(inputType, outputType, defaultLocale, defaultVoice, defaultEffects, defaultStyle, id, audioFileFormat, false, null);
@@ -181,6 +201,18 @@ public class Request {
 		return id;
 	}
 
+	/**
+	 * Get a token identifying the request that processes the given document, so that modules can share data between the chunks of
+	 * a request. Unlike the request, the token keeps nothing alive.
+	 * 
+	 * @param doc
+	 *            a document
+	 * @return the token, or null if the document is not processed by a request
+	 */
+	public static Object getRequestToken(Document doc) {
+		return doc.getUserData(TOKEN_KEY);
+	}
+
 	public AudioFileFormat getAudioFileFormat() {
 		return audioFileFormat;
 	}
@@ -324,34 +356,38 @@ public class Request {
 			outputData.setAudioFileFormat(audioFileFormat);
 		}
 		int len = inputDataList.getLength();
-		for (int i = 0; i < len && !abortRequested; i++) {
-			Element currentInputParagraph = (Element) inputDataList.item(i);
-			assert currentInputParagraph.getTagName().equals(MaryXML.PARAGRAPH);
-			NodeList outputNodeList = null;
-			// Only process paragraph if there is any text below it:
-			if (MaryDomUtils.getPlainTextBelow(currentInputParagraph).trim().equals("")) {
-				outputNodeList = currentInputParagraph.getChildNodes();
-			} else { // process "real" data:
-				MaryData oneInputData = extractParagraphAsMaryData(rawmaryxml, currentInputParagraph);
-				// assert oneInputData.getDefaultVoice() != null;
-				MaryData oneOutputData = processOrLookupOneChunk(oneInputData, outputType, outputTypeParams);
-				// assert oneOutputData.getDefaultVoice() != null;
+		if (len > 1 && MaryProperties.getBoolean("request.parallelparagraphs", false)) {
+			processParagraphsInParallel(rawmaryxml, inputDataList);
+		} else {
+			for (int i = 0; i < len && !abortRequested; i++) {
+				Element currentInputParagraph = (Element) inputDataList.item(i);
+				assert currentInputParagraph.getTagName().equals(MaryXML.PARAGRAPH);
+				NodeList outputNodeList = null;
+				// Only process paragraph if there is any text below it:
+				if (MaryDomUtils.getPlainTextBelow(currentInputParagraph).trim().equals("")) {
+					outputNodeList = currentInputParagraph.getChildNodes();
+				} else { // process "real" data:
+					MaryData oneInputData = extractParagraphAsMaryData(rawmaryxml, currentInputParagraph);
+					// assert oneInputData.getDefaultVoice() != null;
+					MaryData oneOutputData = processOrLookupOneChunk(oneInputData, outputType, outputTypeParams);
+					// assert oneOutputData.getDefaultVoice() != null;
+					if (outputType.isMaryXML()) {
+						NodeList outParagraphList = oneOutputData.getDocument().getDocumentElement()
+								.getElementsByTagName(MaryXML.PARAGRAPH);
+						// This does not hold for Tibetan:
+						// assert outParagraphList.getLength() == 1;
+						outputNodeList = outParagraphList;
+					} else { // output is not MaryXML, e.g. text or audio
+						assert outputData != null;
+						outputData.append(oneOutputData);
+					}
+				}
 				if (outputType.isMaryXML()) {
-					NodeList outParagraphList = oneOutputData.getDocument().getDocumentElement()
-							.getElementsByTagName(MaryXML.PARAGRAPH);
-					// This does not hold for Tibetan:
-					// assert outParagraphList.getLength() == 1;
-					outputNodeList = outParagraphList;
-				} else { // output is not MaryXML, e.g. text or audio
-					assert outputData != null;
-					outputData.append(oneOutputData);
+					assert outputNodeList != null;
+					// And now replace the paragraph in-place:
+					MaryDomUtils.replaceElement(currentInputParagraph, outputNodeList);
 				}
 			}
-			if (outputType.isMaryXML()) {
-				assert outputNodeList != null;
-				// And now replace the paragraph in-place:
-				MaryDomUtils.replaceElement(currentInputParagraph, outputNodeList);
-			}
 		}
 		long stopTime = System.currentTimeMillis();
 		logger.info("Request processed in " + (stopTime - startTime) + " ms.");
@@ -362,6 +398,121 @@ public class Request {
 			appendableAudioStream.doneAppending();
 	}
 
+	/**
+	 * Process the paragraphs of the given RAWMARYXML document concurrently on the shared paragraph executor. At most as many
+	 * paragraphs as there are paragraph threads are in flight for this request at any time. Results are merged into the output
+	 * strictly in document order: audio is appended to the output audio stream as soon as the respective paragraph and all
+	 * paragraphs before it are done, so that a streaming client can start playing the first paragraph while later ones are
+	 * still being processed.
+	 * 
+	 * @param rawmaryxml
+	 *            the RAWMARYXML document containing the paragraphs
+	 * @param inputDataList
+	 *            the paragraph elements in rawmaryxml, as returned by {@link #splitIntoChunks(MaryData)}
+	 * @throws Exception
+	 *             if processing any of the paragraphs fails
+	 */
+	private void processParagraphsInParallel(MaryData rawmaryxml, NodeList inputDataList) throws Exception {
+		// Take a snapshot of the paragraphs, because the node list is live and we modify the document while iterating:
+		List<Element> paragraphs = new ArrayList<Element>(inputDataList.getLength());
+		for (int i = 0, len = inputDataList.getLength(); i < len; i++) {
+			paragraphs.add((Element) inputDataList.item(i));
+		}
+		ExecutorService executor = getParagraphExecutor();
+		int window = getParagraphThreads();
+		logger.info("Processing " + paragraphs.size() + " paragraphs using up to " + window + " parallel threads");
+		// one entry per paragraph; null for paragraphs without any text below them:
+		List<Future<MaryData>> futures = new ArrayList<Future<MaryData>>(paragraphs.size());
+		int nextToSubmit = 0;
+		try {
+			for (int i = 0; i < paragraphs.size() && !abortRequested; i++) {
+				// Keep the pipeline filled. Extraction from the shared document happens here, in the request thread,
+				// because the DOM is not safe for concurrent access.
+				while (nextToSubmit < paragraphs.size() && nextToSubmit < i + window) {
+					Element paragraph = paragraphs.get(nextToSubmit);
+					assert paragraph.getTagName().equals(MaryXML.PARAGRAPH);
+					if (MaryDomUtils.getPlainTextBelow(paragraph).trim().equals("")) {
+						futures.add(null);
+					} else {
+						final MaryData oneInputData = extractParagraphAsMaryData(rawmaryxml, paragraph);
+						futures.add(executor.submit(new Callable<MaryData>() {
+							public MaryData call() throws Exception {
+								return processOrLookupOneChunk(oneInputData, outputType, outputTypeParams);
+							}
+						}));
+					}
+					nextToSubmit++;
+				}
+				Element currentInputParagraph = paragraphs.get(i);
+				Future<MaryData> future = futures.get(i);
+				NodeList outputNodeList = null;
+				if (future == null) {
+					outputNodeList = currentInputParagraph.getChildNodes();
+				} else {
+					MaryData oneOutputData;
+					try {
+						oneOutputData = future.get();
+					} catch (ExecutionException ee) {
+						Throwable cause = ee.getCause();
+						if (cause instanceof Exception) {
+							throw (Exception) cause;
+						}
+						throw ee;
+					}
+					if (outputType.isMaryXML()) {
+						outputNodeList = oneOutputData.getDocument().getDocumentElement().getElementsByTagName(MaryXML.PARAGRAPH);
+					} else { // output is not MaryXML, e.g. text or audio
+						assert outputData != null;
+						outputData.append(oneOutputData);
+					}
+				}
+				if (outputType.isMaryXML()) {
+					assert outputNodeList != null;
+					MaryDomUtils.replaceElement(currentInputParagraph, outputNodeList);
+				}
+			}
+		} finally {
+			// on abort or error, don't waste any more effort on the remaining paragraphs:
+			for (Future<MaryData> f : futures) {
+				if (f != null && !f.isDone()) {
+					f.cancel(true);
+				}
+			}
+		}
+	}
+
+	/**
+	 * The number of paragraphs processed concurrently within one request, as given by the property
+	 * <code>request.parallelparagraphs.threads</code>; defaults to the number of available processors.
+	 * 
+	 * @return a number greater than zero
+	 */
+	private static int getParagraphThreads() {
+		int threads = MaryProperties.getInteger("request.parallelparagraphs.threads", Runtime.getRuntime()
+				.availableProcessors());
+		return Math.max(1, threads);
+	}
+
+	/**
+	 * Get the executor shared by all requests for processing paragraphs in parallel. It is created on first use, with a fixed
+	 * number of daemon threads.
+	 * 
+	 * @return the paragraph executor
+	 */
+	private static synchronized ExecutorService getParagraphExecutor() {
+		if (paragraphExecutor == null) {
+			final AtomicInteger threadCount = new AtomicInteger();
+			paragraphExecutor = Executors.newFixedThreadPool(getParagraphThreads(), new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "Paragraph " + threadCount.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+		return paragraphExecutor;
+	}
+
 	/**
 	 * Convert the given data into the requested output type, either by looking it up in the cache or by actually processing it.
 	 * 
@@ -394,37 +545,29 @@ public class Request {
 		Locale locale = determineLocale(oneInputData);
 		assert locale != null;
 
-		MaryCache cache = null;
+		SynthesisCache cache = null;
 		if (MaryProperties.getBoolean("cache")) {
-			cache = MaryCache.getCache();
+			cache = SynthesisCacheManager.getCache();
 		}
 
 		if (cache == null) {
 			return processOneChunk(oneInputData, oneOutputType, outputParams, locale);
 		}
 
-		String inputtype = null;
-		String outputtype = null;
-		String localeString = null;
-		String voice = null;
-		String inputtext = null;
-
-		// try to look up the requested result in the cache:
-		inputtype = oneInputData.getType().name();
-		outputtype = oneOutputType.name();
-		ByteArrayOutputStream sw = new ByteArrayOutputStream();
-		oneInputData.writeTo(sw);
-		inputtext = new String(sw.toByteArray(), "UTF-8");
-		voice = defaultVoice != null ? defaultVoice.getName() : null;
-		localeString = locale.toString();
+		// try to look up the requested result in the cache.
+		// The key only holds a digest of the input, so we don't need to serialize it to a string:
+		CacheKey.DigestingOutputStream digester = new CacheKey.DigestingOutputStream();
+		oneInputData.writeTo(digester);
+		String voice = defaultVoice != null ? defaultVoice.getName() : null;
+		CacheKey key = new CacheKey(oneInputData.getType().name(), oneOutputType.name(), locale.toString(), voice, outputParams,
+				defaultStyle, defaultEffects, digester.digest());
 
 		if (oneOutputType.isTextType()) {
 			try {
-				String outputtext = cache.lookupText(inputtype, outputtype, localeString, voice, outputParams, defaultStyle,
-						defaultEffects, inputtext);
+				String outputtext = cache.lookupText(key);
 				if (outputtext != null) {
 					MaryData outData = new MaryData(oneOutputType, locale);
-					ByteArrayInputStream sr = new ByteArrayInputStream(outputtext.getBytes());
+					ByteArrayInputStream sr = new ByteArrayInputStream(outputtext.getBytes("UTF-8"));
 					outData.readFrom(sr);
 					sr.close();
 					outData.setDefaultVoice(defaultVoice);
@@ -435,10 +578,9 @@ public class Request {
 			} catch (Exception e) {
 				logger.warn("Problem looking up text in cache", e);
 			}
-		} else if (outputtype.equals("AUDIO")) {
+		} else if (oneOutputType.equals(MaryDataType.AUDIO)) {
 			try {
-				byte[] wavFileData = cache.lookupAudio(inputtype, localeString, voice, outputParams, defaultStyle,
-						defaultEffects, inputtext);
+				byte[] wavFileData = cache.lookupAudio(key);
 				if (wavFileData != null) {
 					AudioInputStream ais = AudioSystem.getAudioInputStream(new ByteArrayInputStream(wavFileData));
 					MaryData outData = new MaryData(oneOutputType, locale);
@@ -461,11 +603,9 @@ public class Request {
 			MaryData audioData = processOneChunk(oneInputData, MaryDataType.AUDIO, outputParams, locale);
 			MaryData realisedAcoustparams = processOneChunk(audioData, MaryDataType.REALISED_ACOUSTPARAMS, outputParams, locale);
 			MaryData realisedDurations = processOneChunk(audioData, MaryDataType.REALISED_DURATIONS, outputParams, locale);
-			insertAudioIntoCache(cache, inputtype, localeString, voice, outputParams, inputtext, audioData);
-			insertTextIntoCache(cache, inputtype, MaryDataType.REALISED_ACOUSTPARAMS.name(), localeString, voice, outputParams,
-					inputtext, realisedAcoustparams);
-			insertTextIntoCache(cache, inputtype, MaryDataType.REALISED_DURATIONS.name(), localeString, voice, outputParams,
-					inputtext, realisedDurations);
+			insertAudioIntoCache(cache, key.withOutputType(MaryDataType.AUDIO.name()), audioData);
+			insertTextIntoCache(cache, key.withOutputType(MaryDataType.REALISED_ACOUSTPARAMS.name()), realisedAcoustparams);
+			insertTextIntoCache(cache, key.withOutputType(MaryDataType.REALISED_DURATIONS.name()), realisedDurations);
 			if (oneOutputType.equals(MaryDataType.AUDIO))
 				return audioData;
 			else if (oneOutputType.equals(MaryDataType.REALISED_ACOUSTPARAMS))
@@ -475,35 +615,33 @@ public class Request {
 			MaryData oneOutputData = processOneChunk(oneInputData, oneOutputType, outputParams, locale);
 			// Remember the processing result in the cache
 			if (oneOutputType.isTextType()) {
-				insertTextIntoCache(cache, inputtype, outputtype, localeString, voice, outputParams, inputtext, oneOutputData);
+				insertTextIntoCache(cache, key, oneOutputData);
 			} else {
-				logger.debug("Don't know how to cache data of type '" + outputtype + "'");
+				logger.debug("Don't know how to cache data of type '" + oneOutputType.name() + "'");
 			}
 			return oneOutputData;
 		}
 	}
 
-	private void insertAudioIntoCache(MaryCache cache, String inputtype, String localeString, String voice, String outputParams,
-			String inputtext, MaryData currentData) throws IOException, SQLException, UnsupportedAudioFileException {
+	private void insertAudioIntoCache(SynthesisCache cache, CacheKey key, MaryData currentData) throws IOException,
+			UnsupportedAudioFileException {
 		AppendableSequenceAudioInputStream as = (AppendableSequenceAudioInputStream) currentData.getAudio();
 		assert as != appendableAudioStream;
 		as.doneAppending();
 		ByteArrayOutputStream baos = new ByteArrayOutputStream(2 * (int) as.getFrameLength() + 100);
 		AudioSystem.write(as, AudioFileFormat.Type.WAVE, baos);
 		byte[] wavFileData = baos.toByteArray();
-		cache.insertAudio(inputtype, localeString, voice, outputParams, defaultStyle, defaultEffects, inputtext, wavFileData);
+		cache.insertAudio(key, wavFileData);
 		AudioInputStream ais = AudioSystem.getAudioInputStream(new ByteArrayInputStream(wavFileData));
 		currentData.setAudio(ais);
 	}
 
-	private void insertTextIntoCache(MaryCache cache, String inputtype, String outputtype, String localeString, String voice,
-			String outputParams, String inputtext, MaryData currentData) {
+	private void insertTextIntoCache(SynthesisCache cache, CacheKey key, MaryData currentData) {
 		try {
 			ByteArrayOutputStream sw = new ByteArrayOutputStream();
 			currentData.writeTo(sw);
 			String outputtext = new String(sw.toByteArray(), "UTF-8");
-			cache.insertText(inputtype, outputtype, localeString, voice, outputParams, defaultStyle, defaultEffects, inputtext,
-					outputtext);
+			cache.insertText(key, outputtext);
 		} catch (Exception e) {
 			logger.warn("Problem inserting text into cache", e);
 		}
@@ -512,8 +650,9 @@ public class Request {
 	private MaryData processOneChunk(MaryData oneInputData, MaryDataType oneOutputType, String outputParams, Locale locale)
 			throws Exception, TransformerConfigurationException, FileNotFoundException, TransformerException, IOException {
 		logger.debug("Determining which modules to use");
-		List<MaryModule> neededModules = ModuleRegistry.modulesRequiredForProcessing(oneInputData.getType(), oneOutputType,
-				locale, oneInputData.getDefaultVoice());
+		ProcessingPlan plan = ModuleRegistry.getProcessingPlan(oneInputData.getType(), oneOutputType, locale,
+				oneInputData.getDefaultVoice());
+		List<MaryModule> neededModules = plan.getModules();
 		// Now neededModules contains references to the needed modules,
 		// in the order in which they are to process the data.
 		if (neededModules == null) {
@@ -523,7 +662,9 @@ public class Request {
 					+ oneInputData.getType().name() + "), no processing path through modules.";
 			throw new UnsupportedOperationException(message);
 		}
-		usedModules.addAll(neededModules);
+		synchronized (usedModules) {
+			usedModules.addAll(neededModules);
+		}
 		logger.info("Handling request using the following modules:");
 		for (MaryModule m : neededModules) {
 			logger.info("- " + m.name() + " (" + m.getClass().getName() + ")");
@@ -536,7 +677,7 @@ public class Request {
 				// This should happen only in command line mode:
 				assert MaryProperties.needProperty("server").compareTo("commandline") == 0;
 				logger.info("Starting module " + m.name());
-				m.startup();
+				ModuleRegistry.startModule(m);
 				assert m.getState() == MaryModule.MODULE_RUNNING;
 			}
 			long moduleStartTime = System.currentTimeMillis();
@@ -553,6 +694,14 @@ public class Request {
 			if (m.outputType() == oneOutputType || m.outputType() == MaryDataType.AUDIO) {
 				currentData.setOutputParams(outputParams);
 			}
+			// Only the acoustic modeller and the synthesis module read the typed acoustic parameters;
+			// any other module needs them written into the document:
+			if (currentData.getType().isXMLType() && !(m instanceof AcousticModeller) && !(m instanceof Synthesis)) {
+				AcousticParameters.serialize(currentData.getDocument());
+			}
+			if (currentData.getType().isXMLType() && currentData.getDocument() != null) {
+				currentData.getDocument().setUserData(TOKEN_KEY, token, null);
+			}
 			if (logger.getEffectiveLevel().equals(Level.DEBUG)
 					&& (currentData.getType().isTextType() || currentData.getType().isXMLType())) {
 				logger.debug("Handing the following data to the next module:");
@@ -571,6 +720,12 @@ public class Request {
 			if (outData == null) {
 				throw new NullPointerException("Module " + m.name() + " returned null. This should not happen.");
 			}
+			// Any module other than the acoustic modeller and the synthesis module may have changed the structure
+			// of the document, so that data derived from it must be computed again:
+			if (outData.getType().isXMLType() && outData.getDocument() != null && !(m instanceof AcousticModeller)
+					&& !(m instanceof Synthesis)) {
+				MaryDomUtils.newDocumentVersion(outData.getDocument());
+			}
 			outData.setDefaultVoice(defaultVoice);
 			outData.setDefaultStyle(defaultStyle);
 			outData.setDefaultEffects(defaultEffects);
@@ -578,11 +733,13 @@ public class Request {
 			currentData = outData;
 			long moduleStopTime = System.currentTimeMillis();
 			long delta = moduleStopTime - moduleStartTime;
-			Long soFar = timingInfo.get(m);
-			if (soFar != null)
-				timingInfo.put(m, new Long(soFar.longValue() + delta));
-			else
-				timingInfo.put(m, new Long(delta));
+			synchronized (timingInfo) {
+				Long soFar = timingInfo.get(m);
+				if (soFar != null)
+					timingInfo.put(m, new Long(soFar.longValue() + delta));
+				else
+					timingInfo.put(m, new Long(delta));
+			}
 			if (MaryRuntimeUtils.veryLowMemoryCondition()) {
 				logger.info("Very low memory condition detected (only " + MaryUtils.availableMemory()
 						+ " bytes left). Triggering garbage collection.");
@@ -822,11 +979,14 @@ public class Request {
 	}
 
 	/**
-	 * Direct access to the output data.
+	 * Direct access to the output data. Any typed acoustic parameters are written into the output document first.
 	 * 
 	 * @return outputdata
 	 */
 	public MaryData getOutputData() {
+		if (outputData != null && outputData.getDocument() != null) {
+			AcousticParameters.serialize(outputData.getDocument());
+		}
 		return outputData;
 	}
 
@@ -30,6 +30,8 @@ import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.io.Reader;
 import java.net.Socket;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import javax.sound.sampled.AudioSystem;
 import javax.xml.transform.TransformerException;
@@ -147,14 +149,14 @@ public class RequestHandler extends Thread {
 		}
 
 		boolean streamingOutput = false;
-		StreamingOutputWriter rw = null;
+		Future<?> writing = null;
 		// Process input data to output data
 		if (ok)
 			try {
 				if (request.getOutputType().equals(MaryDataType.get("AUDIO")) && request.getStreamAudio()) {
 					streamingOutput = true;
-					rw = new StreamingOutputWriter(request, dataSocket.getOutputStream());
-					rw.start();
+					StreamingOutputWriter rw = new StreamingOutputWriter(request, dataSocket.getOutputStream());
+					writing = SynthesisScheduler.getInstance().executeWriter(rw);
 				}
 
 				request.process();
@@ -190,9 +192,11 @@ public class RequestHandler extends Thread {
 				}
 			} else { // streaming output
 				try {
-					rw.join();
+					writing.get();
 				} catch (InterruptedException ie) {
 					logger.warn(ie);
+				} catch (ExecutionException ee) {
+					logger.warn("Streaming output failed", ee.getCause());
 				}
 			}
 		}
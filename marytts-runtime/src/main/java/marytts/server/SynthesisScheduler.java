@@ -0,0 +1,289 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.server;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import marytts.util.MaryUtils;
+
+import org.apache.log4j.Logger;
+
+/**
+ * The scheduler shared by the socket and the HTTP server for running synthesis requests. It provides
+ * <ul>
+ * <li>a fixed number of synthesis worker threads (<code>server.synthesis.threads</code>, default: the number of available
+ * processors);</li>
+ * <li>a bounded queue of waiting requests (<code>server.synthesis.queuesize</code>); when it is full, new requests are
+ * rejected, so that the servers can tell their clients to come back later
+ * (<code>server.synthesis.retryafter</code> seconds) instead of slowing down all requests;</li>
+ * <li>fairness between voices: waiting requests are served round-robin per voice, so that a burst of requests for one voice
+ * does not starve the others;</li>
+ * <li>a separate executor for the threads which write audio to clients while it is being produced. If
+ * <code>server.synthesis.virtualwriters</code> is true and the Java runtime supports virtual threads, these are virtual
+ * threads.</li>
+ * </ul>
+ */
+public class SynthesisScheduler {
+	private static SynthesisScheduler instance;
+
+	/**
+	 * Get the scheduler, creating it from the configuration on first use.
+	 * 
+	 * @return the scheduler singleton
+	 */
+	public static synchronized SynthesisScheduler getInstance() {
+		if (instance == null) {
+			int threads = MaryProperties.getInteger("server.synthesis.threads", Runtime.getRuntime().availableProcessors());
+			int queueSize = MaryProperties.getInteger("server.synthesis.queuesize", 4 * threads);
+			int retryAfter = MaryProperties.getInteger("server.synthesis.retryafter", 2);
+			boolean virtualWriters = MaryProperties.getBoolean("server.synthesis.virtualwriters", false);
+			instance = new SynthesisScheduler(threads, queueSize, retryAfter, virtualWriters);
+		}
+		return instance;
+	}
+
+	// ////////////////////////////// non-static code //////////////////////////////
+
+	private final Logger logger = MaryUtils.getLogger("scheduler");
+	private final int queueSize;
+	private final int retryAfterSeconds;
+	// voice name -> waiting tasks; iteration order is the round-robin order
+	private final LinkedHashMap<String, ArrayDeque<Runnable>> waiting = new LinkedHashMap<String, ArrayDeque<Runnable>>();
+	private int numWaiting = 0;
+	private int idleWorkers = 0;
+	private boolean isShutdown = false;
+	private final Thread[] workers;
+	private final ExecutorService writers;
+
+	/**
+	 * Create a scheduler and start its worker threads. Normally, use {@link #getInstance()} instead.
+	 * 
+	 * @param threads
+	 *            the number of synthesis worker threads
+	 * @param queueSize
+	 *            the maximum number of requests waiting for a worker
+	 * @param retryAfterSeconds
+	 *            the number of seconds after which rejected clients should try again
+	 * @param virtualWriters
+	 *            whether to use virtual threads for writing output, if available
+	 */
+	public SynthesisScheduler(int threads, int queueSize, int retryAfterSeconds, boolean virtualWriters) {
+		if (threads <= 0) {
+			throw new IllegalArgumentException("Need at least one synthesis thread, got " + threads);
+		}
+		if (queueSize < 0) {
+			throw new IllegalArgumentException("Queue size must not be negative, got " + queueSize);
+		}
+		this.queueSize = queueSize;
+		this.retryAfterSeconds = retryAfterSeconds;
+		workers = new Thread[threads];
+		for (int i = 0; i < threads; i++) {
+			workers[i] = new Thread(new Worker(), "Synthesis " + (i + 1));
+			workers[i].setDaemon(true);
+			workers[i].start();
+		}
+		writers = createWriterExecutor(virtualWriters);
+		logger.info("Synthesis scheduler started with " + threads + " threads and room for " + queueSize + " waiting requests");
+	}
+
+	private ExecutorService createWriterExecutor(boolean virtual) {
+		if (virtual) {
+			try {
+				Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+				ExecutorService executor = (ExecutorService) m.invoke(null);
+				logger.info("Using virtual threads for writing output");
+				return executor;
+			} catch (Exception e) {
+				logger.info("Virtual threads not available in this Java runtime -- using platform threads for writing output");
+			}
+		}
+		final AtomicInteger count = new AtomicInteger();
+		return Executors.newCachedThreadPool(new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "Writer " + count.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
+
+	/**
+	 * Schedule a synthesis task.
+	 * 
+	 * @param voiceName
+	 *            the name of the voice used by the task, for fairness between voices; can be null.
+	 * @param task
+	 *            the task to run
+	 * @param <T>
+	 *            the result type of the task
+	 * @return a future for the task's result
+	 * @throws RejectedExecutionException
+	 *             if the server is saturated, i.e. all workers are busy and the queue is full, or if the scheduler has been shut
+	 *             down.
+	 */
+	public <T> Future<T> submit(String voiceName, Callable<T> task) throws RejectedExecutionException {
+		FutureTask<T> future = new FutureTask<T>(task);
+		enqueue(voiceName, future);
+		return future;
+	}
+
+	/**
+	 * Schedule a synthesis task.
+	 * 
+	 * @param voiceName
+	 *            the name of the voice used by the task, for fairness between voices; can be null.
+	 * @param task
+	 *            the task to run
+	 * @return a future which completes when the task is done
+	 * @throws RejectedExecutionException
+	 *             if the server is saturated, or if the scheduler has been shut down.
+	 */
+	public Future<?> submit(String voiceName, Runnable task) throws RejectedExecutionException {
+		FutureTask<Object> future = new FutureTask<Object>(task, null);
+		enqueue(voiceName, future);
+		return future;
+	}
+
+	/**
+	 * Run a task writing output to a client. Writers are not limited in number, because they mostly wait for data and for the
+	 * network.
+	 * 
+	 * @param writer
+	 *            the writing task
+	 * @return a future which is done when the writer has finished
+	 */
+	public Future<?> executeWriter(Runnable writer) {
+		return writers.submit(writer);
+	}
+
+	/**
+	 * The number of seconds after which a rejected client should try again.
+	 * 
+	 * @return retryAfterSeconds
+	 */
+	public int getRetryAfterSeconds() {
+		return retryAfterSeconds;
+	}
+
+	/**
+	 * The number of tasks currently waiting for a worker.
+	 * 
+	 * @return numWaiting
+	 */
+	public synchronized int getNumWaiting() {
+		return numWaiting;
+	}
+
+	/**
+	 * Stop accepting new tasks and stop the workers once they are idle. Tasks that are waiting are not run.
+	 */
+	public synchronized void shutdown() {
+		isShutdown = true;
+		waiting.clear();
+		numWaiting = 0;
+		notifyAll();
+		writers.shutdown();
+	}
+
+	private synchronized void enqueue(String voiceName, Runnable task) throws RejectedExecutionException {
+		if (isShutdown) {
+			throw new RejectedExecutionException("Scheduler has been shut down");
+		}
+		// Waiting is only allowed up to the queue size, but an idle worker can always take a task directly:
+		if (numWaiting >= queueSize + idleWorkers) {
+			logger.info("Rejecting request: " + numWaiting + " requests waiting, all " + workers.length + " workers busy");
+			throw new RejectedExecutionException("Server is busy");
+		}
+		String key = voiceName != null ? voiceName : "";
+		ArrayDeque<Runnable> queue = waiting.get(key);
+		if (queue == null) {
+			queue = new ArrayDeque<Runnable>();
+			waiting.put(key, queue);
+		}
+		queue.addLast(task);
+		numWaiting++;
+		notify();
+	}
+
+	/**
+	 * Take the next task, round-robin over the voices with waiting tasks.
+	 * 
+	 * @return the next task, or null if the scheduler has been shut down.
+	 * @throws InterruptedException
+	 *             InterruptedException
+	 */
+	private synchronized Runnable take() throws InterruptedException {
+		idleWorkers++;
+		try {
+			while (numWaiting == 0 && !isShutdown) {
+				wait();
+			}
+		} finally {
+			idleWorkers--;
+		}
+		if (isShutdown) {
+			return null;
+		}
+		Iterator<Map.Entry<String, ArrayDeque<Runnable>>> it = waiting.entrySet().iterator();
+		Map.Entry<String, ArrayDeque<Runnable>> first = it.next();
+		it.remove();
+		ArrayDeque<Runnable> queue = first.getValue();
+		Runnable task = queue.pollFirst();
+		if (!queue.isEmpty()) {
+			// this voice goes to the end of the line
+			waiting.put(first.getKey(), queue);
+		}
+		numWaiting--;
+		return task;
+	}
+
+	private class Worker implements Runnable {
+		public void run() {
+			while (true) {
+				Runnable task;
+				try {
+					task = take();
+				} catch (InterruptedException e) {
+					return;
+				}
+				if (task == null) {
+					return;
+				}
+				try {
+					task.run();
+				} catch (Throwable t) {
+					logger.error("Synthesis task failed", t);
+				}
+			}
+		}
+	}
+}
@@ -188,6 +188,29 @@ public class MaryHttpServerUtils {
 		}
 	}
 
+	/**
+	 * Tell the client that the server is too busy to handle the request right now.
+	 * 
+	 * @param response
+	 *            the response to fill
+	 * @param retryAfterSeconds
+	 *            the number of seconds after which the client may try again
+	 */
+	public static void errorServiceUnavailable(HttpResponse response, int retryAfterSeconds) {
+		int status = HttpStatus.SC_SERVICE_UNAVAILABLE;
+		response.setStatusCode(status);
+		response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+		String message = "The server is busy, please try again in " + retryAfterSeconds + " seconds";
+		logger.debug("Returning HTTP status " + status + ": " + message);
+		try {
+			NStringEntity entity = new NStringEntity("<html><body><h1>Service unavailable</h1><p>" + message
+					+ ".</p></body></html>", "UTF-8");
+			entity.setContentType("text/html; charset=UTF-8");
+			response.setEntity(entity);
+		} catch (UnsupportedEncodingException e) {
+		}
+	}
+
 	public static void errorMissingQueryParameter(HttpResponse response, String param) {
 		int status = HttpStatus.SC_BAD_REQUEST;
 		response.setStatusCode(status);
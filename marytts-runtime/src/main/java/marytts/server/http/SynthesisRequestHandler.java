@@ -28,6 +28,10 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.sound.sampled.AudioFileFormat;
 import javax.sound.sampled.AudioFormat;
@@ -39,6 +43,7 @@ import marytts.modules.synthesis.Voice;
 import marytts.server.Request;
 import marytts.server.RequestHandler.StreamingOutputPiper;
 import marytts.server.RequestHandler.StreamingOutputWriter;
+import marytts.server.SynthesisScheduler;
 import marytts.util.MaryRuntimeUtils;
 import marytts.util.MaryUtils;
 import marytts.util.data.audio.MaryAudioUtils;
@@ -226,22 +231,30 @@ public class SynthesisRequestHandler extends BaseHttpRequestHandler {
 			ok = false;
 		}
 		if (ok) {
+			SynthesisScheduler scheduler = SynthesisScheduler.getInstance();
+			String schedulingKey = voice != null ? voice.getName() : null;
 			if (streamingAudio) {
-				// Start two separate threads:
-				// 1. one thread to process the request;
-				new Thread("RH " + maryRequest.getId()) {
-					public void run() {
-						Logger myLogger = MaryUtils.getLogger(this.getName());
-						try {
-							maryRequest.process();
-							myLogger.info("Streaming request processed successfully.");
-						} catch (Throwable t) {
-							myLogger.error("Processing failed.", t);
+				// Start two separate tasks:
+				// 1. one to process the request;
+				try {
+					scheduler.submit(schedulingKey, new Runnable() {
+						public void run() {
+							Logger myLogger = MaryUtils.getLogger("RH " + maryRequest.getId());
+							try {
+								maryRequest.process();
+								myLogger.info("Streaming request processed successfully.");
+							} catch (Throwable t) {
+								myLogger.error("Processing failed.", t);
+							}
 						}
-					}
-				}.start();
+					});
+				} catch (RejectedExecutionException e) {
+					logger.info("Server busy, rejecting request " + maryRequest.getId());
+					MaryHttpServerUtils.errorServiceUnavailable(response, scheduler.getRetryAfterSeconds());
+					return;
+				}
 
-				// 2. one thread to take the audio data as it becomes available
+				// 2. one to take the audio data as it becomes available
 				// and write it into the ProducingNHttpEntity.
 				// The second one does not depend on the first one practically,
 				// because the AppendableSequenceAudioInputStream returned by
@@ -250,7 +263,7 @@ public class SynthesisRequestHandler extends BaseHttpRequestHandler {
 				assert audio != null : "Streaming audio but no audio stream -- very strange indeed! :-(";
 				AudioFileFormat.Type audioType = maryRequest.getAudioFileFormat().getType();
 				AudioStreamNHttpEntity entity = new AudioStreamNHttpEntity(maryRequest);
-				new Thread(entity, "HTTPWriter " + maryRequest.getId()).start();
+				scheduler.executeWriter(entity);
 				// entity knows its contentType, no need to set explicitly here.
 				response.setEntity(entity);
 				response.setStatusCode(HttpStatus.SC_OK);
@@ -258,8 +271,21 @@ public class SynthesisRequestHandler extends BaseHttpRequestHandler {
 			} else { // not streaming audio
 				// Process input data to output data
 				try {
-					maryRequest.process(); // this may take some time
+					Future<?> processing = scheduler.submit(schedulingKey, new Callable<Void>() {
+						public Void call() throws Exception {
+							maryRequest.process();
+							return null;
+						}
+					});
+					processing.get(); // this may take some time
+				} catch (RejectedExecutionException e) {
+					logger.info("Server busy, rejecting request " + maryRequest.getId());
+					MaryHttpServerUtils.errorServiceUnavailable(response, scheduler.getRetryAfterSeconds());
+					return;
 				} catch (Throwable e) {
+					if (e instanceof ExecutionException && e.getCause() != null) {
+						e = e.getCause();
+					}
 					String message = "Processing failed.";
 					logger.error(message, e);
 					MaryHttpServerUtils.errorInternalServerError(response, message, e);
@@ -30,6 +30,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
 
 import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioInputStream;
@@ -50,6 +51,7 @@ import marytts.unitselection.select.HalfPhoneTarget;
 import marytts.unitselection.select.SelectedUnit;
 import marytts.unitselection.select.Target;
 import marytts.unitselection.select.UnitSelector;
+import marytts.util.MaryRuntimeUtils;
 import marytts.util.MaryUtils;
 import marytts.util.dom.MaryNormalisedWriter;
 import marytts.util.dom.NameNodeFilter;
@@ -89,13 +91,24 @@ public class UnitSelectionSynthesizer implements WaveformSynthesizer {
 		// Register UnitSelection voices:
 		logger.debug("Register UnitSelection voices:");
 		List<String> voiceNames = MaryProperties.getList("unitselection.voices.list");
-		for (String voiceName : voiceNames) {
-			long time = System.currentTimeMillis();
-			Voice unitSelVoice = new UnitSelectionVoice(voiceName, this);
+		// the voices are independent of each other, so they can be loaded in parallel:
+		List<Callable<Voice>> loaders = new ArrayList<Callable<Voice>>();
+		for (final String voiceName : voiceNames) {
+			loaders.add(new Callable<Voice>() {
+				public Voice call() throws Exception {
+					long time = System.currentTimeMillis();
+					Voice unitSelVoice = new UnitSelectionVoice(voiceName, UnitSelectionSynthesizer.this);
+					long newtime = System.currentTimeMillis() - time;
+					logger.info("Loading of voice " + voiceName + " took " + newtime + " milliseconds");
+					return unitSelVoice;
+				}
+			});
+		}
+		// but they are registered in the configured order, which decides between equally eligible default voices:
+		for (Voice unitSelVoice : MaryRuntimeUtils.runInParallel(loaders, MaryRuntimeUtils.getStartupThreads(),
+				"Unit selection voice loader")) {
 			logger.debug("Voice '" + unitSelVoice + "'");
 			Voice.registerVoice(unitSelVoice);
-			long newtime = System.currentTimeMillis() - time;
-			logger.info("Loading of voice " + voiceName + " took " + newtime + " milliseconds");
 		}
 		logger.info("started.");
 	}
@@ -76,6 +76,7 @@ public class UnitSelectionVoice extends Voice {
 	protected String name;
 	protected CART[] f0Carts;
 	protected String exampleText;
+	private volatile boolean loaded = false;
 
 	public UnitSelectionVoice(String name, WaveformSynthesizer synthesizer) throws MaryConfigurationException {
 		super(name, synthesizer);
@@ -94,6 +95,44 @@ public class UnitSelectionVoice extends Voice {
 			if (exampleTextStream != null) {
 				readExampleText(exampleTextStream);
 			}
+		} catch (MaryConfigurationException mce) {
+			throw mce;
+		} catch (Exception ex) {
+			throw new MaryConfigurationException("Cannot build unit selection voice '" + name + "'", ex);
+		}
+
+		if (!isLazyLoading()) {
+			warmUp();
+		}
+	}
+
+	/**
+	 * Load the database, unit selector and concatenator of this voice, unless this has been done already.
+	 */
+	@Override
+	public void warmUp() throws MaryConfigurationException {
+		if (loaded) {
+			return;
+		}
+		synchronized (this) {
+			if (!loaded) {
+				loadData();
+				loaded = true;
+			}
+		}
+	}
+
+	private void needData() {
+		try {
+			warmUp();
+		} catch (MaryConfigurationException e) {
+			throw new IllegalStateException("Cannot load unit selection voice '" + name + "'", e);
+		}
+	}
+
+	private void loadData() throws MaryConfigurationException {
+		try {
+			String header = "voice." + name;
 
 			FeatureProcessorManager featProcManager = FeatureRegistry.getFeatureProcessorManager(this);
 			if (featProcManager == null)
@@ -226,6 +265,7 @@ public class UnitSelectionVoice extends Voice {
 	 * @return the database
 	 */
 	public UnitDatabase getDatabase() {
+		needData();
 		return database;
 	}
 
@@ -235,6 +275,7 @@ public class UnitSelectionVoice extends Voice {
 	 * @return the unit selector
 	 */
 	public UnitSelector getUnitSelector() {
+		needData();
 		return unitSelector;
 	}
 
@@ -244,6 +285,7 @@ public class UnitSelectionVoice extends Voice {
 	 * @return the unit selector
 	 */
 	public UnitConcatenator getConcatenator() {
+		needData();
 		return concatenator;
 	}
 
@@ -252,7 +294,8 @@ public class UnitSelectionVoice extends Voice {
 	 * 
 	 * @return the modifying UnitConcatenator
 	 */
-	public UnitConcatenator getModificationConcatenator() {
+	public synchronized UnitConcatenator getModificationConcatenator() {
+		needData();
 		if (modificationConcatenator == null) {
 			// get sensible minimum and maximum values:
 			try {
@@ -313,10 +356,12 @@ public class UnitSelectionVoice extends Voice {
 	}
 
 	public CART[] getF0Trees() {
+		needData();
 		return f0Carts;
 	}
 
 	public FeatureDefinition getF0CartsFeatDef() {
+		needData();
 		if (f0Carts == null || f0Carts.length < 1)
 			return null;
 		return f0Carts[0].getFeatureDefinition();
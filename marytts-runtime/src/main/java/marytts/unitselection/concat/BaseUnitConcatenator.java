@@ -32,6 +32,8 @@
 package marytts.unitselection.concat;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
@@ -39,15 +41,18 @@ import java.util.List;
 import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioInputStream;
 
+import marytts.server.MaryProperties;
 import marytts.unitselection.analysis.ProsodyAnalyzer;
 import marytts.unitselection.data.TimelineReader;
 import marytts.unitselection.data.UnitDatabase;
 import marytts.unitselection.select.SelectedUnit;
 import marytts.util.MaryUtils;
+import marytts.util.data.BufferDatagram;
 import marytts.util.data.BufferedDoubleDataSource;
 import marytts.util.data.Datagram;
 import marytts.util.data.DatagramDoubleDataSource;
 import marytts.util.data.DoubleDataSource;
+import marytts.util.data.audio.ByteBufferAudioInputStream;
 import marytts.util.data.audio.DDSAudioInputStream;
 
 import org.apache.log4j.Logger;
@@ -63,6 +68,11 @@ public class BaseUnitConcatenator implements UnitConcatenator {
 	protected TimelineReader timeline;
 	protected AudioFormat audioformat;
 	protected double unitToTimelineSampleRateFactor;
+	/**
+	 * If true, unit audio is read as views of the timeline data and passed on as PCM data, without conversion to double, wherever
+	 * no signal processing is needed.
+	 */
+	protected boolean directPCM;
 
 	protected ProsodyAnalyzer prosodyAnalyzer;
 
@@ -86,6 +96,7 @@ public class BaseUnitConcatenator implements UnitConcatenator {
 				sampleRate, // nr. of frames per second
 				true); // big-endian;
 		this.unitToTimelineSampleRateFactor = sampleRate / (double) database.getUnitFileReader().getSampleRate();
+		this.directPCM = MaryProperties.getBoolean("unitselection.directpcm", false);
 	}
 
 	/**
@@ -115,17 +126,29 @@ public class BaseUnitConcatenator implements UnitConcatenator {
 		// 2. Determine target pitchmarks (= duration and f0) for each unit
 		determineTargetPitchmarks(units);
 
-		// 2a. Analyze SelectedUnits wrt predicted vs. realized prosody
-		try {
-			prosodyAnalyzer = new ProsodyAnalyzer(units, timeline.getSampleRate());
-		} catch (Exception e) {
-			throw new IOException("Could not analyze prosody!", e);
+		// 2a. Analyze SelectedUnits wrt predicted vs. realized prosody, if we are going to modify it
+		if (needsProsodyAnalysis()) {
+			try {
+				prosodyAnalyzer = new ProsodyAnalyzer(units, timeline.getSampleRate());
+			} catch (Exception e) {
+				throw new IOException("Could not analyze prosody!", e);
+			}
 		}
 
 		// 3. Generate audio to match the target pitchmarks as closely as possible
 		return generateAudioStream(units);
 	}
 
+	/**
+	 * Whether {@link #generateAudioStream(List)} uses the {@link #prosodyAnalyzer}. Concatenators which modify prosody must
+	 * override this to return true.
+	 * 
+	 * @return false
+	 */
+	protected boolean needsProsodyAnalysis() {
+		return false;
+	}
+
 	/**
 	 * Get the raw audio material for each unit from the timeline.
 	 * 
@@ -142,11 +165,45 @@ public class BaseUnitConcatenator implements UnitConcatenator {
 			int unitSize = unitToTimeline(unit.getUnit().duration); // convert to timeline samples
 			long unitStart = unitToTimeline(unit.getUnit().startTime); // convert to timeline samples
 			// System.out.println("Unit size "+unitSize+", pitchmarksInUnit "+pitchmarksInUnit);
-			Datagram[] datagrams = timeline.getDatagrams(unitStart, (long) unitSize);
+			Datagram[] datagrams = getDatagrams(unitStart, (long) unitSize);
 			unitData.setFrames(datagrams);
 		}
 	}
 
+	/**
+	 * Get the datagrams spanning a time range from the timeline; with direct PCM output, as views of the timeline data.
+	 * 
+	 * @param start
+	 *            the start time, in timeline samples
+	 * @param duration
+	 *            the duration, in timeline samples
+	 * @return the datagrams, at least one
+	 * @throws IOException
+	 *             if no data can be read at the given time
+	 */
+	protected Datagram[] getDatagrams(long start, long duration) throws IOException {
+		if (directPCM) {
+			return timeline.getDatagramViews(start, duration);
+		}
+		return timeline.getDatagrams(start, duration);
+	}
+
+	/**
+	 * Get a single datagram from the timeline; with direct PCM output, as a view of the timeline data.
+	 * 
+	 * @param time
+	 *            the time, in timeline samples
+	 * @return the datagram starting at or overlapping the given time
+	 * @throws IOException
+	 *             if no data can be read at the given time
+	 */
+	protected Datagram getDatagram(long time) throws IOException {
+		if (directPCM) {
+			return timeline.getDatagramView(time);
+		}
+		return timeline.getDatagram(time);
+	}
+
 	/**
 	 * Determine target pitchmarks (= duration and f0) for each unit.
 	 * 
@@ -188,6 +245,19 @@ public class BaseUnitConcatenator implements UnitConcatenator {
 	 *             IOException
 	 */
 	protected AudioInputStream generateAudioStream(List<SelectedUnit> units) throws IOException {
+		if (directPCM) {
+			List<ByteBuffer> buffers = new ArrayList<ByteBuffer>();
+			for (SelectedUnit unit : units) {
+				UnitData unitData = (UnitData) unit.getConcatenationData();
+				assert unitData != null : "Should not have null unitdata here";
+				Datagram[] frames = unitData.getFrames();
+				assert frames != null : "Cannot generate audio from null frames";
+				for (Datagram frame : frames) {
+					buffers.add(getPCMData(frame));
+				}
+			}
+			return new ByteBufferAudioInputStream(buffers, audioformat);
+		}
 		LinkedList<Datagram> datagrams = new LinkedList<Datagram>();
 		for (SelectedUnit unit : units) {
 			UnitData unitData = (UnitData) unit.getConcatenationData();
@@ -202,6 +272,21 @@ public class BaseUnitConcatenator implements UnitConcatenator {
 		return new DDSAudioInputStream(new BufferedDoubleDataSource(audioSource), audioformat);
 	}
 
+	/**
+	 * The samples of a datagram as 16 bit big-endian PCM data, the way waveform timelines store them and {@link #audioformat}
+	 * describes them. The data of datagrams read as views of the timeline is not copied.
+	 * 
+	 * @param frame
+	 *            a datagram from the waveform timeline, or created by {@link #createZeroDatagram(int)}
+	 * @return a byte buffer containing the datagram's samples
+	 */
+	protected static ByteBuffer getPCMData(Datagram frame) {
+		if (frame instanceof BufferDatagram) {
+			return ((BufferDatagram) frame).getDataBuffer();
+		}
+		return ByteBuffer.wrap(frame.getData());
+	}
+
 	/**
 	 * Create a datagram appropriate for this unit concatenator which contains only zero values as samples.
 	 * 
@@ -110,15 +110,9 @@ public class DatagramOverlapDoubleDataSource extends BufferedDoubleDataSource {
 				int read = readDatagram(next, buf, writePos);
 				if (q == 0 && p > 0 && rightContexts[p - 1] != null) {
 					// overlap-add situation
-					// window the data that we have just read with the left half of a HANN window:
-					new DynamicTwoHalvesWindow(Window.HANNING).applyInlineLeftHalf(buf, writePos, read);
-					// and overlap-add the previous right context, windowed with the right half of a HANN window:
 					double[] context = new double[(int) rightContexts[p - 1].getDuration()];
 					readDatagram(rightContexts[p - 1], context, 0);
-					new DynamicTwoHalvesWindow(Window.HANNING).applyInlineRightHalf(context, 0, context.length);
-					for (int i = 0, iMax = Math.min(read, context.length); i < iMax; i++) {
-						buf[writePos + i] += context[i];
-					}
+					overlapAdd(buf, writePos, read, context);
 				}
 				writePos += read;
 				readSum += read;
@@ -132,6 +126,29 @@ public class DatagramOverlapDoubleDataSource extends BufferedDoubleDataSource {
 		return readSum >= minLength;
 	}
 
+	/**
+	 * Overlap-add the right context of the previous unit to the first frame of a unit: the frame is windowed with the left half
+	 * of a HANN window, the context with the right half.
+	 * 
+	 * @param target
+	 *            holds the samples of the frame, and receives the overlap-added samples
+	 * @param pos
+	 *            the position of the frame in target
+	 * @param length
+	 *            the number of samples in the frame
+	 * @param context
+	 *            the samples of the right context; they are windowed in place
+	 */
+	static void overlapAdd(double[] target, int pos, int length, double[] context) {
+		// window the frame with the left half of a HANN window:
+		new DynamicTwoHalvesWindow(Window.HANNING).applyInlineLeftHalf(target, pos, length);
+		// and overlap-add the right context, windowed with the right half of a HANN window:
+		new DynamicTwoHalvesWindow(Window.HANNING).applyInlineRightHalf(context, 0, context.length);
+		for (int i = 0, iMax = Math.min(length, context.length); i < iMax; i++) {
+			target[pos + i] += context[i];
+		}
+	}
+
 	protected int readDatagram(Datagram d, double[] target, int pos) {
 		int dur = (int) d.getDuration();
 		byte[] frameAudio = d.getData();
@@ -78,6 +78,11 @@ public class FdpsolaUnitConcatenator extends OverlapUnitConcatenator {
 		this.maxPitchScaleFactor = maxPitchScaleFactor;
 	}
 
+	@Override
+	protected boolean needsProsodyAnalysis() {
+		return true;
+	}
+
 	/**
 	 * Get the Datagrams from a List of SelectedUnits as an array of arrays; the number of elements in the array is equal to the
 	 * number of Units, and each element contains that Unit's Datagrams as an array.
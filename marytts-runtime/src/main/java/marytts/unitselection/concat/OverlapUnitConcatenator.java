@@ -20,6 +20,8 @@
 package marytts.unitselection.concat;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.sound.sampled.AudioInputStream;
@@ -29,6 +31,7 @@ import marytts.unitselection.select.SelectedUnit;
 import marytts.util.data.BufferedDoubleDataSource;
 import marytts.util.data.Datagram;
 import marytts.util.data.DoubleDataSource;
+import marytts.util.data.audio.ByteBufferAudioInputStream;
 import marytts.util.data.audio.DDSAudioInputStream;
 
 public class OverlapUnitConcatenator extends BaseUnitConcatenator {
@@ -55,13 +58,13 @@ public class OverlapUnitConcatenator extends BaseUnitConcatenator {
 			// System.out.println(unitStart/((float)timeline.getSampleRate()));
 			// System.out.println("Unit index = " + unit.getUnit().getIndex());
 
-			Datagram[] datagrams = timeline.getDatagrams(unitStart, (long) unitSize);
+			Datagram[] datagrams = getDatagrams(unitStart, (long) unitSize);
 			unitData.setFrames(datagrams);
 			// one right context period for windowing:
 			Datagram rightContextFrame = null;
 			Unit nextInDB = database.getUnitFileReader().getNextUnit(unit.getUnit());
 			if (nextInDB != null && !nextInDB.isEdgeUnit()) {
-				rightContextFrame = timeline.getDatagram(unitStart + unitSize);
+				rightContextFrame = getDatagram(unitStart + unitSize);
 				unitData.setRightContextFrame(rightContextFrame);
 			}
 		}
@@ -192,10 +195,57 @@ public class OverlapUnitConcatenator extends BaseUnitConcatenator {
 			}
 		}
 
+		if (directPCM) {
+			// only the first frame of a unit following a right context needs signal processing
+			List<ByteBuffer> buffers = new ArrayList<ByteBuffer>();
+			for (int i = 0; i < len; i++) {
+				for (int j = 0; j < datagrams[i].length; j++) {
+					if (j == 0 && i > 0 && rightContexts[i - 1] != null) {
+						buffers.add(overlapAdd(datagrams[i][j], rightContexts[i - 1]));
+					} else {
+						buffers.add(getPCMData(datagrams[i][j]));
+					}
+				}
+			}
+			return new ByteBufferAudioInputStream(buffers, audioformat);
+		}
+
 		DoubleDataSource audioSource = new DatagramOverlapDoubleDataSource(datagrams, rightContexts);
 		return new DDSAudioInputStream(new BufferedDoubleDataSource(audioSource), audioformat);
 	}
 
+	/**
+	 * Overlap-add a unit's first frame and the right context of the previous unit, in the same way as
+	 * {@link DatagramOverlapDoubleDataSource}.
+	 * 
+	 * @param frame
+	 *            the first frame of a unit
+	 * @param rightContext
+	 *            the right context of the previous unit
+	 * @return the overlap-added samples, as 16 bit big-endian PCM data
+	 */
+	static ByteBuffer overlapAdd(Datagram frame, Datagram rightContext) {
+		double[] samples = getSamples(frame);
+		DatagramOverlapDoubleDataSource.overlapAdd(samples, 0, samples.length, getSamples(rightContext));
+		ByteBuffer pcm = ByteBuffer.allocate(2 * samples.length);
+		for (int i = 0; i < samples.length; i++) {
+			// scale as the samples were read, so that unprocessed frames and processed frames match
+			long sample = Math.round(samples[i] * 32768.0);
+			pcm.putShort((short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, sample)));
+		}
+		pcm.flip();
+		return pcm;
+	}
+
+	private static double[] getSamples(Datagram frame) {
+		ByteBuffer pcm = getPCMData(frame);
+		double[] samples = new double[(int) frame.getDuration()];
+		for (int i = 0; i < samples.length; i++) {
+			samples[i] = pcm.getShort() / 32768.0; // normalise to range [-1, 1]
+		}
+		return samples;
+	}
+
 	public static class OverlapUnitData extends BaseUnitConcatenator.UnitData {
 		protected Datagram rightContextFrame;
 
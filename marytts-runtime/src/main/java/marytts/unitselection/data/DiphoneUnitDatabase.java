@@ -21,16 +21,17 @@ package marytts.unitselection.data;
 
 import gnu.trove.TIntHashSet;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import marytts.features.FeatureVector;
+import marytts.unitselection.select.DiphoneFFRTargetCostFunction;
 import marytts.unitselection.select.DiphoneTarget;
+import marytts.unitselection.select.FFRTargetCostFunction;
 import marytts.unitselection.select.HalfPhoneTarget;
 import marytts.unitselection.select.Target;
+import marytts.unitselection.select.TargetCostFunction;
 import marytts.unitselection.select.viterbi.ViterbiCandidate;
 import marytts.util.MaryUtils;
-import marytts.util.dom.DomUtils;
 
 import org.w3c.dom.Element;
 
@@ -59,18 +60,11 @@ public class DiphoneUnitDatabase extends UnitDatabase {
 		HalfPhoneTarget left = diphoneTarget.left;
 		HalfPhoneTarget right = diphoneTarget.right;
 
-		// BEGIN blacklisting
-		// The point of this is to get the value of the "blacklist" attribute in the first child element of the MaryXML
-		// and store it in the blacklist String variable.
-		// This code seems rather inelegant; perhaps there is a better way to access the MaryXML from this method?
-		String blacklist = "";
-		String unitBasename = "This must never be null or the empty string!"; // otherwise candidate selection fails!
 		Element targetElement = left.getMaryxmlElement();
 		if (targetElement == null) {
 			targetElement = right.getMaryxmlElement();
 		}
-		blacklist = DomUtils.getAttributeFromClosestAncestorOfAnyKind(targetElement, "blacklist");
-		// END blacklisting
+		Blacklist blacklist = getBlacklist(targetElement);
 
 		// TODO shouldn't leftName and rightName just call appropriate methods of DiphoneTarget?
 		String leftName = left.getName().substring(0, left.getName().lastIndexOf("_"));
@@ -79,6 +73,8 @@ public class DiphoneUnitDatabase extends UnitDatabase {
 		byte bleftName = targetCostFunction.getFeatureDefinition().getFeatureValueAsByte(iPhoneme, leftName);
 		byte brightName = targetCostFunction.getFeatureDefinition().getFeatureValueAsByte(iPhoneme, rightName);
 		FeatureVector[] fvs = targetCostFunction.getFeatureVectors();
+		// in compact storage, read the phone features straight from the feature file:
+		FeatureFileReader featureFile = fvs == null ? getFeatureFileReader(targetCostFunction) : null;
 
 		// HashSet<DiphoneUnit> candidateUnitSet = new HashSet<DiphoneUnit>();
 		TIntHashSet candidateUnitSet = new TIntHashSet();
@@ -91,16 +87,13 @@ public class DiphoneUnitDatabase extends UnitDatabase {
 		// Now, clist is an array of halfphone unit indexes.
 		for (int i = 0; i < clist.length; i++) {
 			Unit unit = unitReader.units[clist[i]];
-			FeatureVector fv = fvs != null ? fvs[unit.index] : targetCostFunction.getFeatureVector(unit);
-			byte bunitName = fv.byteValuedDiscreteFeatures[iPhoneme];
+			byte bunitName = getPhoneFeature(unit.index, iPhoneme, fvs, featureFile);
 			// force correct phone symbol:
 			if (bunitName != bleftName)
 				continue;
 			int iRightNeighbour = clist[i] + 1;
 			if (iRightNeighbour < numUnits) {
-				Unit rightNeighbour = unitReader.units[iRightNeighbour];
-				FeatureVector rfv = fvs != null ? fvs[iRightNeighbour] : targetCostFunction.getFeatureVector(rightNeighbour);
-				byte brightUnitName = rfv.byteValuedDiscreteFeatures[iPhoneme];
+				byte brightUnitName = getPhoneFeature(iRightNeighbour, iPhoneme, fvs, featureFile);
 				if (brightUnitName == brightName) {
 					// Found a diphone -- add it to candidates
 					// DiphoneUnit diphoneUnit = new DiphoneUnit(unit, rightNeighbour);
@@ -117,43 +110,60 @@ public class DiphoneUnitDatabase extends UnitDatabase {
 		// Now, clist is an array of halfphone unit indexes.
 		for (int i = 0; i < clist.length; i++) {
 			Unit unit = unitReader.units[clist[i]];
-			FeatureVector fv = fvs != null ? fvs[unit.index] : targetCostFunction.getFeatureVector(unit);
-			byte bunitName = fv.byteValuedDiscreteFeatures[iPhoneme];
+			byte bunitName = getPhoneFeature(unit.index, iPhoneme, fvs, featureFile);
 			// force correct phone symbol:
 			if (bunitName != brightName)
 				continue;
 			int iLeftNeighbour = clist[i] - 1;
 			if (iLeftNeighbour >= 0) {
-				Unit leftNeighbour = unitReader.units[iLeftNeighbour];
-				FeatureVector lfv = fvs != null ? fvs[iLeftNeighbour] : targetCostFunction.getFeatureVector(leftNeighbour);
-				byte bleftUnitName = lfv.byteValuedDiscreteFeatures[iPhoneme];
+				byte bleftUnitName = getPhoneFeature(iLeftNeighbour, iPhoneme, fvs, featureFile);
 				if (bleftUnitName == bleftName) {
 					// Found a diphone -- add it to candidates
 					// DiphoneUnit diphoneUnit = new DiphoneUnit(leftNeighbour, unit);
 					// candidateUnitSet.add(diphoneUnit);
-					candidateUnitSet.add(leftNeighbour.index);
+					candidateUnitSet.add(iLeftNeighbour);
 				}
 			}
 		}
 
-		// now create ArrayList of ViterbiCandidates from the candidateUnitSet, blacklisting along the way:
-		ArrayList<ViterbiCandidate> candidates = new ArrayList<ViterbiCandidate>(candidateUnitSet.size());
+		// now create the ViterbiCandidates from the candidateUnitSet, blacklisting along the way:
+		Unit[] diphoneUnits = new Unit[candidateUnitSet.size()];
+		int numDiphoneUnits = 0;
 		for (int leftIndex : candidateUnitSet.toArray()) {
 			DiphoneUnit diphoneUnit = new DiphoneUnit(unitReader.units[leftIndex], unitReader.units[leftIndex + 1]);
-			ViterbiCandidate candidate = new ViterbiCandidate(diphoneTarget, diphoneUnit, targetCostFunction);
-			// Blacklisting:
-			if (blacklist.equals("")) { // no blacklist
-				candidates.add(candidate);
-			} else { // maybe exclude candidate
-				unitBasename = getFilename(diphoneUnit);
-				if (!blacklist.contains(unitBasename)) {
-					candidates.add(candidate);
-				}
+			if (blacklist == null || !blacklist.excludes(diphoneUnit)) {
+				diphoneUnits[numDiphoneUnits++] = diphoneUnit;
 			}
 		}
+		// the target costs are computed here, once per candidate
+		List<ViterbiCandidate> candidates = createCandidates(diphoneTarget, diphoneUnits, numDiphoneUnits);
 
 		logger.debug("Preselected " + candidateUnitSet.size() + " diphone candidates for target " + target);
 		return candidates;
 	}
 
+	/**
+	 * Get the phone feature of a unit from the feature vectors if they are kept as objects, or else from the feature file, so
+	 * that no feature vector is created.
+	 */
+	private byte getPhoneFeature(int unitIndex, int iPhoneme, FeatureVector[] fvs, FeatureFileReader featureFile) {
+		if (fvs != null) {
+			return fvs[unitIndex].byteValuedDiscreteFeatures[iPhoneme];
+		}
+		if (featureFile != null) {
+			return featureFile.getByteFeature(unitIndex, iPhoneme);
+		}
+		return targetCostFunction.getFeatureVector(unitReader.units[unitIndex]).byteValuedDiscreteFeatures[iPhoneme];
+	}
+
+	private static FeatureFileReader getFeatureFileReader(TargetCostFunction tcf) {
+		if (tcf instanceof FFRTargetCostFunction) {
+			return ((FFRTargetCostFunction) tcf).getFeatureFileReader();
+		}
+		if (tcf instanceof DiphoneFFRTargetCostFunction) {
+			return ((DiphoneFFRTargetCostFunction) tcf).getFeatureFileReader();
+		}
+		return null;
+	}
+
 }
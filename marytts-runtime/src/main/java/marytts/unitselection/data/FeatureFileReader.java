@@ -29,13 +29,44 @@ import java.nio.channels.FileChannel;
 import marytts.exceptions.MaryConfigurationException;
 import marytts.features.FeatureDefinition;
 import marytts.features.FeatureVector;
+import marytts.server.MaryProperties;
 import marytts.util.data.MaryHeader;
 
 public class FeatureFileReader {
+	/**
+	 * How the unit features are kept in memory.
+	 * <ul>
+	 * <li>objects: one {@link FeatureVector} per unit;</li>
+	 * <li>heap: all units in one contiguous block on the Java heap;</li>
+	 * <li>mapped: all units in the read-only memory-mapped file, outside the Java heap.</li>
+	 * </ul>
+	 * With heap and mapped storage, feature values should be read with {@link #getByteFeature(int, int)},
+	 * {@link #getShortFeature(int, int)} and {@link #getContinuousFeature(int, int)}; feature vectors are created on request.
+	 */
+	public static enum Storage {
+		objects, heap, mapped
+	};
+
 	protected MaryHeader hdr;
 	protected FeatureDefinition featureDefinition;
 	protected FeatureVector[] featureVectors;
 
+	protected Storage storage = getConfiguredStorage();
+	protected int numberOfUnits;
+	/** with heap or mapped storage, one record per unit: byte features, then short features, then float features */
+	protected ByteBuffer unitData;
+	protected int recordSize;
+	protected int floatsOffset;
+
+	/**
+	 * The storage configured by the property unitselection.featurestorage, objects by default.
+	 * 
+	 * @return the configured storage
+	 */
+	public static Storage getConfiguredStorage() {
+		return Storage.valueOf(MaryProperties.getProperty("unitselection.featurestorage", Storage.objects.name()).trim());
+	}
+
 	/**
 	 * Get a feature file reader representing the given feature file.
 	 * 
@@ -68,6 +99,23 @@ public class FeatureFileReader {
 		load(fileName);
 	}
 
+	/**
+	 * Read the given feature file, keeping the unit features in the given kind of storage.
+	 * 
+	 * @param fileName
+	 *            the filename of a valid feature file.
+	 * @param storage
+	 *            how to keep the unit features in memory
+	 * @throws IOException
+	 *             if there was a problem reading the file
+	 * @throws MaryConfigurationException
+	 *             if the file is not a valid feature file.
+	 */
+	public FeatureFileReader(String fileName, Storage storage) throws IOException, MaryConfigurationException {
+		this.storage = storage;
+		load(fileName);
+	}
+
 	public void load(String fileName) throws IOException, MaryConfigurationException {
 		loadFromByteBuffer(fileName);
 	}
@@ -83,11 +131,12 @@ public class FeatureFileReader {
 			throw new IOException("File [" + fileName + "] is not a valid Mary feature file.");
 		}
 		featureDefinition = new FeatureDefinition(dis);
-		int numberOfUnits = dis.readInt();
+		numberOfUnits = dis.readInt();
 		featureVectors = new FeatureVector[numberOfUnits];
 		for (int i = 0; i < numberOfUnits; i++) {
 			featureVectors[i] = featureDefinition.readFeatureVector(i, dis);
 		}
+		storage = Storage.objects;
 
 	}
 
@@ -104,12 +153,108 @@ public class FeatureFileReader {
 			throw new MaryConfigurationException("File [" + fileName + "] is not a valid Mary feature file.");
 		}
 		featureDefinition = new FeatureDefinition(bb);
-		int numberOfUnits = bb.getInt();
-		featureVectors = new FeatureVector[numberOfUnits];
-		for (int i = 0; i < numberOfUnits; i++) {
-			featureVectors[i] = featureDefinition.readFeatureVector(i, bb);
+		loadUnits(bb);
+
+	}
+
+	/**
+	 * Read the number of units and the unit features from bb into the configured storage. featureDefinition must be set.
+	 * 
+	 * @param bb
+	 *            a buffer positioned at the number of units
+	 * @throws IOException
+	 *             if the unit features cannot be read
+	 */
+	protected void loadUnits(ByteBuffer bb) throws IOException {
+		numberOfUnits = bb.getInt();
+		if (storage == Storage.objects) {
+			featureVectors = new FeatureVector[numberOfUnits];
+			for (int i = 0; i < numberOfUnits; i++) {
+				featureVectors[i] = featureDefinition.readFeatureVector(i, bb);
+			}
+			return;
+		}
+		floatsOffset = featureDefinition.getNumberOfByteFeatures() + 2 * featureDefinition.getNumberOfShortFeatures();
+		recordSize = floatsOffset + 4 * featureDefinition.getNumberOfContinuousFeatures();
+		long dataSize = (long) numberOfUnits * recordSize;
+		if (dataSize > bb.remaining()) {
+			throw new IOException("Feature file is truncated: expected " + dataSize + " bytes of unit features, found "
+					+ bb.remaining());
+		}
+		ByteBuffer units = bb.slice();
+		units.limit((int) dataSize);
+		if (storage == Storage.heap) {
+			unitData = ByteBuffer.allocate((int) dataSize);
+			unitData.put(units);
+			unitData.clear();
+		} else {
+			unitData = units;
+		}
+		featureVectors = null;
+	}
+
+	public Storage getStorage() {
+		return storage;
+	}
+
+	/**
+	 * Whether the unit features are kept as one {@link FeatureVector} object per unit, so that {@link #getFeatureVectors()} is
+	 * cheap.
+	 * 
+	 * @return true for objects storage
+	 */
+	public boolean hasFeatureVectorObjects() {
+		return featureVectors != null && unitData == null;
+	}
+
+	/**
+	 * Get the value of a byte-valued feature of a unit without creating a feature vector.
+	 * 
+	 * @param unitIndex
+	 *            the absolute index number of a unit in the database
+	 * @param featureIndex
+	 *            the index of a byte-valued feature
+	 * @return the feature value
+	 */
+	public final byte getByteFeature(int unitIndex, int featureIndex) {
+		if (unitData == null) {
+			return featureVectors[unitIndex].byteValuedDiscreteFeatures[featureIndex];
 		}
+		return unitData.get(unitIndex * recordSize + featureIndex);
+	}
 
+	/**
+	 * Get the value of a short-valued feature of a unit without creating a feature vector.
+	 * 
+	 * @param unitIndex
+	 *            the absolute index number of a unit in the database
+	 * @param featureIndex
+	 *            the index of a short-valued feature, counting from the first feature (not from the first short feature)
+	 * @return the feature value
+	 */
+	public final short getShortFeature(int unitIndex, int featureIndex) {
+		int nBytes = featureDefinition.getNumberOfByteFeatures();
+		if (unitData == null) {
+			return featureVectors[unitIndex].shortValuedDiscreteFeatures[featureIndex - nBytes];
+		}
+		return unitData.getShort(unitIndex * recordSize + nBytes + 2 * (featureIndex - nBytes));
+	}
+
+	/**
+	 * Get the value of a continuous feature of a unit without creating a feature vector.
+	 * 
+	 * @param unitIndex
+	 *            the absolute index number of a unit in the database
+	 * @param featureIndex
+	 *            the index of a continuous feature, counting from the first feature (not from the first continuous feature)
+	 * @return the feature value
+	 */
+	public final float getContinuousFeature(int unitIndex, int featureIndex) {
+		int nDiscrete = featureDefinition.getNumberOfByteFeatures() + featureDefinition.getNumberOfShortFeatures();
+		if (unitData == null) {
+			return featureVectors[unitIndex].continuousFeatures[featureIndex - nDiscrete];
+		}
+		return unitData.getFloat(unitIndex * recordSize + floatsOffset + 4 * (featureIndex - nDiscrete));
 	}
 
 	/**
@@ -117,10 +262,26 @@ public class FeatureFileReader {
 	 * 
 	 * @param unitIndex
 	 *            the absolute index number of a unit in the database
-	 * @return the corresponding feature vector
+	 * @return the corresponding feature vector; with heap or mapped storage, a new feature vector created on request.
 	 */
 	public FeatureVector getFeatureVector(int unitIndex) {
-		return featureVectors[unitIndex];
+		if (unitData == null) {
+			return featureVectors[unitIndex];
+		}
+		byte[] bytes = new byte[featureDefinition.getNumberOfByteFeatures()];
+		short[] shorts = new short[featureDefinition.getNumberOfShortFeatures()];
+		float[] floats = new float[featureDefinition.getNumberOfContinuousFeatures()];
+		int pos = unitIndex * recordSize;
+		for (int i = 0; i < bytes.length; i++, pos++) {
+			bytes[i] = unitData.get(pos);
+		}
+		for (int i = 0; i < shorts.length; i++, pos += 2) {
+			shorts[i] = unitData.getShort(pos);
+		}
+		for (int i = 0; i < floats.length; i++, pos += 4) {
+			floats[i] = unitData.getFloat(pos);
+		}
+		return new FeatureVector(bytes, shorts, floats, unitIndex);
 	}
 
 	/**
@@ -129,15 +290,23 @@ public class FeatureFileReader {
 	 * @return a new array containing the internal feature vectors
 	 */
 	public FeatureVector[] getCopyOfFeatureVectors() {
-		return (FeatureVector[]) featureVectors.clone();
+		return (FeatureVector[]) getFeatureVectors().clone();
 	}
 
 	/**
-	 * Return the internal array of feature vectors.
+	 * Return the internal array of feature vectors. With heap or mapped storage, the feature vectors are created on the first
+	 * call, which uses as much memory as objects storage would have.
 	 * 
 	 * @return the internal array of feature vectors.
 	 */
-	public FeatureVector[] getFeatureVectors() {
+	public synchronized FeatureVector[] getFeatureVectors() {
+		if (featureVectors == null) {
+			FeatureVector[] fvs = new FeatureVector[numberOfUnits];
+			for (int i = 0; i < numberOfUnits; i++) {
+				fvs[i] = getFeatureVector(i);
+			}
+			featureVectors = fvs;
+		}
 		return featureVectors;
 	}
 
@@ -172,6 +341,7 @@ public class FeatureFileReader {
 		FeatureVector[] newFV = new FeatureVector[this.getNumberOfUnits()];
 
 		for (int i = 0; i < this.getNumberOfUnits(); i++) {
+			FeatureVector fv = getFeatureVector(i);
 
 			// create features array
 			byte[] byteFeatures = new byte[noByteFeatures];
@@ -184,11 +354,11 @@ public class FeatureFileReader {
 
 			for (int j = 0; j < featureIndexes.length; j++) {
 				if (newFeatureDefinition.isByteFeature(j)) {
-					byteFeatures[countByteFeatures++] = featureVectors[i].getByteFeature(featureIndexes[j]);
+					byteFeatures[countByteFeatures++] = fv.getByteFeature(featureIndexes[j]);
 				} else if (newFeatureDefinition.isShortFeature(j)) {
-					shortFeatures[countShortFeatures++] = featureVectors[i].getShortFeature(featureIndexes[j]);
+					shortFeatures[countShortFeatures++] = fv.getShortFeature(featureIndexes[j]);
 				} else if (newFeatureDefinition.isContinuousFeature(j)) {
-					continiousFeatures[countFloatFeatures++] = featureVectors[i].getContinuousFeature(featureIndexes[j]);
+					continiousFeatures[countFloatFeatures++] = fv.getContinuousFeature(featureIndexes[j]);
 				}
 			}
 
@@ -206,7 +376,7 @@ public class FeatureFileReader {
 	 * @return the corresponding feature vector
 	 */
 	public FeatureVector getFeatureVector(Unit unit) {
-		return featureVectors[unit.index];
+		return getFeatureVector(unit.index);
 	}
 
 	public FeatureDefinition getFeatureDefinition() {
@@ -214,6 +384,6 @@ public class FeatureFileReader {
 	}
 
 	public int getNumberOfUnits() {
-		return (featureVectors.length);
+		return numberOfUnits;
 	}
 }
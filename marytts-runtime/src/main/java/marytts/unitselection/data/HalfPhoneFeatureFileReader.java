@@ -57,11 +57,12 @@ public class HalfPhoneFeatureFileReader extends FeatureFileReader {
 		rightWeights = new FeatureDefinition(dis);
 		assert leftWeights.featureEquals(rightWeights) : "Halfphone unit feature file contains incompatible feature definitions for left and right units -- this should not happen!";
 		featureDefinition = leftWeights; // one of them, for super class
-		int numberOfUnits = dis.readInt();
+		numberOfUnits = dis.readInt();
 		featureVectors = new FeatureVector[numberOfUnits];
 		for (int i = 0; i < numberOfUnits; i++) {
 			featureVectors[i] = featureDefinition.readFeatureVector(i, dis);
 		}
+		storage = Storage.objects;
 	}
 
 	@Override
@@ -81,11 +82,7 @@ public class HalfPhoneFeatureFileReader extends FeatureFileReader {
 		rightWeights = new FeatureDefinition(bb);
 		assert leftWeights.featureEquals(rightWeights) : "Halfphone unit feature file contains incompatible feature definitions for left and right units -- this should not happen!";
 		featureDefinition = leftWeights; // one of them, for super class
-		int numberOfUnits = bb.getInt();
-		featureVectors = new FeatureVector[numberOfUnits];
-		for (int i = 0; i < numberOfUnits; i++) {
-			featureVectors[i] = featureDefinition.readFeatureVector(i, bb);
-		}
+		loadUnits(bb);
 	}
 
 	public FeatureDefinition getLeftWeights() {
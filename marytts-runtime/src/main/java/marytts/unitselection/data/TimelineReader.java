@@ -31,22 +31,32 @@
  */
 package marytts.unitselection.data;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.DataInput;
 import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.io.UTFDataFormatException;
 import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Vector;
 
 import marytts.exceptions.MaryConfigurationException;
+import marytts.server.MaryProperties;
 import marytts.util.MaryUtils;
 import marytts.util.Pair;
+import marytts.util.data.BufferDatagram;
 import marytts.util.data.Datagram;
 import marytts.util.data.MaryHeader;
 import marytts.util.io.StreamUtils;
@@ -59,6 +69,25 @@ import marytts.util.io.StreamUtils;
  *
  */
 public class TimelineReader {
+	/**
+	 * How datagrams are located in the timeline:
+	 * <ul>
+	 * <li>sparse: through the index stored in the timeline file, which points to a datagram every index interval; the datagrams
+	 * in between are skipped one by one;</li>
+	 * <li>dense: through the start time and byte position of every datagram, collected when the timeline is loaded;</li>
+	 * <li>sidecar: like dense, but the positions are read from a sidecar file next to the timeline file, which is created on first
+	 * load.</li>
+	 * </ul>
+	 */
+	public static enum IndexMode {
+		sparse, dense, sidecar
+	};
+
+	/**
+	 * The file name extension of dense index sidecar files.
+	 */
+	public static final String DENSE_INDEX_EXTENSION = ".denseidx";
+
 	protected MaryHeader maryHdr = null; // The standard Mary header
 	protected ProcHeader procHdr = null; // The processing info header
 
@@ -72,12 +101,51 @@ public class TimelineReader {
 	 */
 	protected long totalDuration = -1;
 
-	protected int datagramsBytePos = 0;
-	protected int timeIdxBytePos = 0;
+	protected long datagramsBytePos = 0;
+	protected long timeIdxBytePos = 0;
+
+	/**
+	 * How datagrams are located; unless it is given to the constructor, the configured index mode is used when loading.
+	 */
+	protected IndexMode indexMode = null;
+	/**
+	 * With a dense index, the start time of each datagram, followed by the total duration of the timeline.
+	 */
+	private long[] datagramTimes = null;
+	/**
+	 * With a dense index, the byte position of each datagram in the file, followed by the end of the datagram zone.
+	 */
+	private long[] datagramBytePtrs = null;
 
 	// exactly one of the two following variables will be non-null after load():
-	private MappedByteBuffer mappedBB = null;
+	private MappedByteBuffer[] mappedSegments = null;
 	private FileChannel fileChannel = null;
+	/**
+	 * For each mapped segment, its byte position relative to the start of the datagram zone. Segments overlap, and each ends on
+	 * a datagram boundary, so that any datagram can be read from one segment.
+	 */
+	private long[] segmentStarts = null;
+	/**
+	 * The maximum number of bytes mapped in one segment.
+	 */
+	private int maxSegmentSize = Integer.MAX_VALUE;
+
+	/**
+	 * The index mode configured by the property unitselection.timelineindex, sparse by default.
+	 * 
+	 * @return the configured index mode
+	 * @throws MaryConfigurationException
+	 *             if the property does not name an index mode
+	 */
+	public static IndexMode getConfiguredIndexMode() throws MaryConfigurationException {
+		String name = MaryProperties.getProperty("unitselection.timelineindex", IndexMode.sparse.name()).trim();
+		try {
+			return IndexMode.valueOf(name);
+		} catch (IllegalArgumentException e) {
+			throw new MaryConfigurationException("Unknown timeline index mode '" + name
+					+ "' in unitselection.timelineindex, expected one of " + Arrays.toString(IndexMode.values()), e);
+		}
+	}
 
 	/****************/
 	/* CONSTRUCTORS */
@@ -125,6 +193,56 @@ public class TimelineReader {
 		}
 	}
 
+	/**
+	 * Construct a timeline from the given file name, locating datagrams with the given kind of index.
+	 * 
+	 * @param fileName
+	 *            The file to read the timeline from. Must be non-null and point to a valid timeline file.
+	 * @param tryMemoryMapping
+	 *            if true, will attempt to read audio data via a memory map, and fall back to piecewise reading. If false, will
+	 *            immediately go for piecewise reading using a RandomAccessFile.
+	 * @param indexMode
+	 *            how to locate datagrams in the timeline
+	 * @throws NullPointerException
+	 *             if null argument is given
+	 * @throws MaryConfigurationException
+	 *             if no timeline reader can be instantiated from fileName
+	 */
+	public TimelineReader(String fileName, boolean tryMemoryMapping, IndexMode indexMode) throws MaryConfigurationException {
+		this(fileName, tryMemoryMapping, indexMode, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Construct a timeline from the given file name, mapping it in segments of at most the given size.
+	 * 
+	 * @param fileName
+	 *            The file to read the timeline from. Must be non-null and point to a valid timeline file.
+	 * @param tryMemoryMapping
+	 *            whether to attempt to read audio data via a memory map
+	 * @param indexMode
+	 *            how to locate datagrams in the timeline
+	 * @param maxSegmentSize
+	 *            the maximum number of bytes mapped in one segment
+	 * @throws MaryConfigurationException
+	 *             if no timeline reader can be instantiated from fileName
+	 */
+	TimelineReader(String fileName, boolean tryMemoryMapping, IndexMode indexMode, int maxSegmentSize)
+			throws MaryConfigurationException {
+		if (fileName == null) {
+			throw new NullPointerException("Filename is null");
+		}
+		if (indexMode == null) {
+			throw new NullPointerException("Index mode is null");
+		}
+		this.indexMode = indexMode;
+		this.maxSegmentSize = maxSegmentSize;
+		try {
+			load(fileName, tryMemoryMapping);
+		} catch (Exception e) {
+			throw new MaryConfigurationException("Cannot load timeline file from " + fileName, e);
+		}
+	}
+
 	/**
 	 * Only subclasses can instantiate a TimelineReader object that doesn't call {@link #load(String)}. It is their responsibility
 	 * then to ensure the fundamental guarantee.
@@ -169,6 +287,9 @@ public class TimelineReader {
 	protected void load(String fileName, boolean tryMemoryMapping) throws IOException, BufferUnderflowException,
 			MaryConfigurationException, NullPointerException {
 		assert fileName != null : "filename is null";
+		if (indexMode == null) {
+			indexMode = getConfiguredIndexMode();
+		}
 
 		RandomAccessFile file = new RandomAccessFile(fileName, "r");
 		FileChannel fc = file.getChannel();
@@ -193,8 +314,8 @@ public class TimelineReader {
 		}
 
 		/* Load the positions of the various subsequent components */
-		datagramsBytePos = (int) headerBB.getLong();
-		timeIdxBytePos = (int) headerBB.getLong();
+		datagramsBytePos = headerBB.getLong();
+		timeIdxBytePos = headerBB.getLong();
 		if (timeIdxBytePos < datagramsBytePos) {
 			throw new MaryConfigurationException("File seems corrupt: index is expected after data, not before");
 		}
@@ -207,17 +328,25 @@ public class TimelineReader {
 		indexBB.position(0);
 		idx = new Index(indexBB);
 
+		if (indexMode == IndexMode.dense) {
+			buildDenseIndex(fc);
+		} else if (indexMode == IndexMode.sidecar) {
+			loadDenseIndexSidecar(fileName, fc);
+		}
+
 		if (tryMemoryMapping) {
-			// Try if we can use a mapped byte buffer:
+			// Try if we can use mapped byte buffers:
 			try {
-				mappedBB = fc.map(FileChannel.MapMode.READ_ONLY, datagramsBytePos, timeIdxBytePos - datagramsBytePos);
+				mapSegments(fc);
 				file.close(); // if map() succeeded, we don't need the file anymore.
 			} catch (IOException ome) {
+				mappedSegments = null;
+				segmentStarts = null;
 				MaryUtils.getLogger("Timeline").warn(
 						"Cannot use memory mapping for timeline file '" + fileName + "' -- falling back to piecewise reading");
 			}
 		}
-		if (!tryMemoryMapping || mappedBB == null) { // use piecewise reading
+		if (!tryMemoryMapping || mappedSegments == null) { // use piecewise reading
 			fileChannel = fc;
 			assert fileChannel != null;
 			// and leave file open
@@ -226,7 +355,258 @@ public class TimelineReader {
 		// postconditions:
 		assert idx != null;
 		assert procHdr != null;
-		assert fileChannel == null && mappedBB != null || fileChannel != null && mappedBB == null;
+		assert fileChannel == null && mappedSegments != null || fileChannel != null && mappedSegments == null;
+		assert indexMode == IndexMode.sparse || datagramTimes != null;
+	}
+
+	/**
+	 * Map the datagram zone into one or more read-only segments of at most maxSegmentSize bytes. Each segment starts at a
+	 * datagram, and its limit is set to the end of the last datagram it fully contains. A segment starts at most half a segment
+	 * size after the previous one, so a datagram which starts before the next segment can be read from the current one.
+	 * 
+	 * @param fc
+	 *            the channel of the timeline file
+	 * @throws IOException
+	 *             if the timeline cannot be mapped, or if its datagrams are too far apart to be split into segments
+	 */
+	private void mapSegments(FileChannel fc) throws IOException {
+		long zoneSize = timeIdxBytePos - datagramsBytePos;
+		ArrayList<MappedByteBuffer> segments = new ArrayList<MappedByteBuffer>();
+		ArrayList<Long> starts = new ArrayList<Long>();
+		long start = 0;
+		while (true) {
+			long length = Math.min(maxSegmentSize, zoneSize - start);
+			MappedByteBuffer segment = fc.map(FileChannel.MapMode.READ_ONLY, datagramsBytePos + start, length);
+			segments.add(segment);
+			starts.add(start);
+			if (start + length == zoneSize) {
+				break;
+			}
+			long end = getDatagramBoundaryBefore(start + length);
+			long next = getDatagramBoundaryBefore(start + length / 2);
+			if (end <= start || next <= start) {
+				throw new IOException("Cannot split timeline into segments of " + maxSegmentSize + " bytes at byte position "
+						+ start);
+			}
+			segment.limit((int) (end - start));
+			start = next;
+		}
+		mappedSegments = segments.toArray(new MappedByteBuffer[segments.size()]);
+		segmentStarts = new long[starts.size()];
+		for (int i = 0; i < segmentStarts.length; i++) {
+			segmentStarts[i] = starts.get(i);
+		}
+	}
+
+	/**
+	 * The position of the last known datagram boundary at or before the given position. Without a dense index, the known
+	 * boundaries are those in the sparse index.
+	 * 
+	 * @param bytePos
+	 *            a byte position relative to the start of the datagram zone
+	 * @return a byte position relative to the start of the datagram zone, at which a datagram starts or the datagram zone ends.
+	 */
+	private long getDatagramBoundaryBefore(long bytePos) {
+		if (datagramBytePtrs != null) {
+			int i = lastAtOrBefore(datagramBytePtrs, datagramsBytePos + bytePos);
+			while (i > 0 && !isSafeBoundary(i)) {
+				i--;
+			}
+			return datagramBytePtrs[i] - datagramsBytePos;
+		}
+		// the sparse index only points to datagrams which contain the index time, so all its entries are safe boundaries
+		int i = lastAtOrBefore(idx.bytePtrs, datagramsBytePos + bytePos);
+		if (i < 0) {
+			return 0;
+		}
+		return idx.bytePtrs[i] - datagramsBytePos;
+	}
+
+	/**
+	 * Whether a byte buffer may end before the given datagram. Readers continue after the end of a byte buffer by requesting the
+	 * time they have reached, so a buffer must not end before a datagram without duration: such a datagram cannot be found by
+	 * its time.
+	 * 
+	 * @param i
+	 *            a datagram number in the dense index, or the number of datagrams for the end of the datagram zone
+	 * @return true if the datagram has a positive duration or i is the end of the datagram zone
+	 */
+	private boolean isSafeBoundary(int i) {
+		return i == datagramTimes.length - 1 || datagramTimes[i] < datagramTimes[i + 1];
+	}
+
+	/**
+	 * Find the last element in a sorted array that is less than or equal to the given value.
+	 * 
+	 * @param sorted
+	 *            an array sorted in ascending order, possibly with repeated values
+	 * @param value
+	 *            the value to look for
+	 * @return the highest index i such that sorted[i] &le; value, or -1 if all elements are greater than value.
+	 */
+	private static int lastAtOrBefore(long[] sorted, long value) {
+		int low = 0;
+		int high = sorted.length - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (sorted[mid] <= value) {
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return high;
+	}
+
+	/**
+	 * Collect the start time and byte position of every datagram by reading through all datagram headers.
+	 * 
+	 * @param fc
+	 *            the channel of the timeline file
+	 * @throws IOException
+	 *             if the datagrams cannot be read
+	 * @throws MaryConfigurationException
+	 *             if the datagrams do not fit into the datagram zone or there are too many of them
+	 */
+	private void buildDenseIndex(FileChannel fc) throws IOException, MaryConfigurationException {
+		if (numDatagrams >= Integer.MAX_VALUE) {
+			throw new MaryConfigurationException("Too many datagrams for a dense index: " + numDatagrams);
+		}
+		int n = (int) numDatagrams;
+		long[] times = new long[n + 1];
+		long[] bytePtrs = new long[n + 1];
+		// not closed, because that would close the channel
+		DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(fc.position(datagramsBytePos)),
+				0x10000));
+		long time = 0;
+		long bytePos = datagramsBytePos;
+		for (int i = 0; i < n; i++) {
+			times[i] = time;
+			bytePtrs[i] = bytePos;
+			long duration = in.readLong();
+			int length = in.readInt();
+			if (duration < 0 || length < 0) {
+				throw new MaryConfigurationException("File seems corrupt: datagram " + i + " has negative duration or length");
+			}
+			for (int skipped = 0; skipped < length;) {
+				int s = in.skipBytes(length - skipped);
+				if (s <= 0) {
+					throw new MaryConfigurationException("File seems corrupt: datagram " + i + " is truncated");
+				}
+				skipped += s;
+			}
+			time += duration;
+			bytePos += Datagram.NUM_HEADER_BYTES + length;
+		}
+		if (bytePos > timeIdxBytePos) {
+			throw new MaryConfigurationException("File seems corrupt: datagrams extend into the index");
+		}
+		times[n] = time;
+		bytePtrs[n] = bytePos;
+		datagramTimes = times;
+		datagramBytePtrs = bytePtrs;
+		totalDuration = time;
+	}
+
+	/**
+	 * Read the dense index from the sidecar file next to the timeline file. If the sidecar does not exist or does not match the
+	 * timeline file, build the dense index and try to write a new sidecar.
+	 * 
+	 * @param fileName
+	 *            the timeline file name
+	 * @param fc
+	 *            the channel of the timeline file
+	 * @throws IOException
+	 *             if the dense index cannot be built
+	 * @throws MaryConfigurationException
+	 *             if the dense index cannot be built
+	 */
+	private void loadDenseIndexSidecar(String fileName, FileChannel fc) throws IOException, MaryConfigurationException {
+		File timelineFile = new File(fileName);
+		File sidecar = new File(fileName + DENSE_INDEX_EXTENSION);
+		if (sidecar.exists()) {
+			try {
+				readDenseIndex(sidecar, timelineFile);
+			} catch (IOException e) {
+				MaryUtils.getLogger("Timeline").warn("Cannot read dense index from " + sidecar, e);
+			}
+			if (datagramTimes != null) {
+				return;
+			}
+		}
+		buildDenseIndex(fc);
+		try {
+			writeDenseIndex(sidecar, timelineFile);
+		} catch (IOException e) {
+			MaryUtils.getLogger("Timeline").debug("Cannot write dense index to " + sidecar, e);
+		}
+	}
+
+	/**
+	 * Read the dense index from a sidecar file, unless the sidecar was written for a different version of the timeline file.
+	 * 
+	 * @param sidecar
+	 *            the sidecar file
+	 * @param timelineFile
+	 *            the timeline file
+	 * @throws IOException
+	 *             if the sidecar cannot be read
+	 */
+	private void readDenseIndex(File sidecar, File timelineFile) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(sidecar), 0x10000));
+		try {
+			if (sidecar.length() != 8 * (3 + 2 * (numDatagrams + 1)) || in.readLong() != timelineFile.length()
+					|| in.readLong() != timelineFile.lastModified() || in.readLong() != numDatagrams) {
+				MaryUtils.getLogger("Timeline").info("Dense index " + sidecar + " is outdated, rebuilding it");
+				return;
+			}
+			long[] times = new long[(int) numDatagrams + 1];
+			long[] bytePtrs = new long[times.length];
+			for (int i = 0; i < times.length; i++) {
+				times[i] = in.readLong();
+			}
+			for (int i = 0; i < bytePtrs.length; i++) {
+				bytePtrs[i] = in.readLong();
+			}
+			datagramTimes = times;
+			datagramBytePtrs = bytePtrs;
+			totalDuration = times[times.length - 1];
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Write the dense index to a sidecar file. The file is written under a temporary name first, so that concurrent readers never
+	 * see a partial sidecar.
+	 * 
+	 * @param sidecar
+	 *            the sidecar file
+	 * @param timelineFile
+	 *            the timeline file
+	 * @throws IOException
+	 *             if the sidecar cannot be written
+	 */
+	private void writeDenseIndex(File sidecar, File timelineFile) throws IOException {
+		File tmp = new File(sidecar.getPath() + ".tmp");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 0x10000));
+		try {
+			out.writeLong(timelineFile.length());
+			out.writeLong(timelineFile.lastModified());
+			out.writeLong(numDatagrams);
+			for (int i = 0; i < datagramTimes.length; i++) {
+				out.writeLong(datagramTimes[i]);
+			}
+			for (int i = 0; i < datagramBytePtrs.length; i++) {
+				out.writeLong(datagramBytePtrs[i]);
+			}
+		} finally {
+			out.close();
+		}
+		if (!tmp.renameTo(sidecar) && !(sidecar.delete() && tmp.renameTo(sidecar))) {
+			tmp.delete();
+			throw new IOException("Cannot rename " + tmp + " to " + sidecar);
+		}
 	}
 
 	/**
@@ -291,6 +671,10 @@ public class TimelineReader {
 	 *             if the duration could not be computed.
 	 */
 	protected void computeTotalDuration() throws MaryConfigurationException {
+		if (datagramTimes != null) {
+			totalDuration = datagramTimes[datagramTimes.length - 1];
+			return;
+		}
 		long time = 0;
 		long nRead = 0;
 		boolean haveReadAll = false;
@@ -414,6 +798,32 @@ public class TimelineReader {
 		}
 	}
 
+	/**
+	 * Read the upcoming datagram from the given byte buffer as a view of the buffer's data, without copying the data. With memory
+	 * mapping, the datagram data stays in the mapped file. This is only meaningful for timelines of plain datagrams, such as
+	 * waveform timelines; subclasses reading other kinds of datagrams do not override it.
+	 * 
+	 * @param bb
+	 *            the timeline byte buffer to read from
+	 * 
+	 * @return the current datagram, as a {@link BufferDatagram}, or null if EOF was encountered
+	 */
+	protected Datagram getNextDatagramView(ByteBuffer bb) {
+		assert bb != null;
+		if (bb.remaining() < Datagram.NUM_HEADER_BYTES) {
+			return null;
+		}
+		long duration = bb.getLong();
+		int length = bb.getInt();
+		if (duration < 0 || length < 0 || bb.remaining() < length) {
+			return null;
+		}
+		ByteBuffer data = bb.slice();
+		data.limit(length);
+		bb.position(bb.position() + length);
+		return new BufferDatagram(duration, data);
+	}
+
 	/**
 	 * Hop the datagrams in the given byte buffer until the one which begins at or contains the desired time (time is in samples;
 	 * the sample rate is assumed to be that of the timeline).
@@ -479,7 +889,7 @@ public class TimelineReader {
 	 *             , BufferUnderflowException if no byte buffer can be obtained for the requested time.
 	 */
 	protected Pair<ByteBuffer, Long> getByteBufferAtTime(long targetTimeInSamples) throws IOException, BufferUnderflowException {
-		if (mappedBB != null) {
+		if (mappedSegments != null) {
 			return getMappedByteBufferAtTime(targetTimeInSamples);
 		} else {
 			return loadByteBufferAtTime(targetTimeInSamples);
@@ -488,19 +898,64 @@ public class TimelineReader {
 
 	protected Pair<ByteBuffer, Long> getMappedByteBufferAtTime(long targetTimeInSamples) throws IllegalArgumentException,
 			IOException {
-		assert mappedBB != null;
-		/* Seek for the time index which comes just before the requested time */
-		IdxField idxFieldBefore = idx.getIdxFieldBefore(targetTimeInSamples);
-		long time = idxFieldBefore.timePtr;
-		int bytePos = (int) (idxFieldBefore.bytePtr - datagramsBytePos);
-		ByteBuffer bb = mappedBB.duplicate();
-		bb.position(bytePos);
-		time = hopToTime(bb, time, targetTimeInSamples);
+		assert mappedSegments != null;
+		long time;
+		long bytePos;
+		if (datagramTimes != null) {
+			int i = getDatagramIndexAtTime(targetTimeInSamples);
+			time = datagramTimes[i];
+			bytePos = datagramBytePtrs[i] - datagramsBytePos;
+		} else {
+			/* Seek for the time index which comes just before the requested time */
+			IdxField idxFieldBefore = idx.getIdxFieldBefore(targetTimeInSamples);
+			time = idxFieldBefore.timePtr;
+			bytePos = idxFieldBefore.bytePtr - datagramsBytePos;
+		}
+		int segment = lastAtOrBefore(segmentStarts, bytePos);
+		ByteBuffer bb = mappedSegments[segment].duplicate();
+		bb.position((int) (bytePos - segmentStarts[segment]));
+		if (datagramTimes == null) {
+			time = hopToTime(bb, time, targetTimeInSamples);
+		}
 		return new Pair<ByteBuffer, Long>(bb, time);
 	}
 
+	/**
+	 * Look up the datagram which begins at or contains the given time in the dense index.
+	 * 
+	 * @param targetTimeInSamples
+	 *            the time location to reach
+	 * @return the number of the datagram
+	 * @throws BufferUnderflowException
+	 *             if the time is beyond the end of the timeline
+	 */
+	private int getDatagramIndexAtTime(long targetTimeInSamples) throws BufferUnderflowException {
+		if (targetTimeInSamples < 0) {
+			throw new IllegalArgumentException("Negative time given");
+		}
+		// the last entry is the end of the timeline, so a valid time never finds it
+		int i = lastAtOrBefore(datagramTimes, targetTimeInSamples);
+		if (i >= datagramTimes.length - 1) {
+			throw new BufferUnderflowException();
+		}
+		return i;
+	}
+
 	protected Pair<ByteBuffer, Long> loadByteBufferAtTime(long targetTimeInSamples) throws IOException {
 		assert fileChannel != null;
+		if (datagramTimes != null) {
+			int i = getDatagramIndexAtTime(targetTimeInSamples);
+			long bytePos = datagramBytePtrs[i];
+			// load about 64 kB of whole datagrams, and at least the one we need
+			int next = i + 1;
+			while (!isSafeBoundary(next)) {
+				next++;
+			}
+			long end = Math.max(datagramBytePtrs[next], datagramsBytePos
+					+ getDatagramBoundaryBefore(bytePos - datagramsBytePos + 0x10000));
+			ByteBuffer bb = loadByteBuffer(bytePos, (int) (end - bytePos));
+			return new Pair<ByteBuffer, Long>(bb, datagramTimes[i]);
+		}
 		// we must load a chunk of data from the FileChannel
 		int bufSize = 0x10000; // 64 kB
 		/* Seek for the time index which comes just before the requested time */
@@ -609,6 +1064,42 @@ public class TimelineReader {
 		return dat;
 	}
 
+	/**
+	 * Get a single datagram from a particular time location, given in the timeline's sampling rate, as a view of the timeline
+	 * data.
+	 * 
+	 * @param targetTimeInSamples
+	 *            the requested position, in samples. Must be non-negative and less than the total duration of the timeline.
+	 * 
+	 * @return the datagram starting at or overlapping the given time, or null if end-of-file was encountered
+	 * @throws IOException
+	 *             , BufferUnderflowException if no datagram could be created from the data at the given time.
+	 * @see #getNextDatagramView(ByteBuffer)
+	 */
+	public Datagram getDatagramView(long targetTimeInSamples) throws IOException {
+		Pair<ByteBuffer, Long> p = getByteBufferAtTime(targetTimeInSamples);
+		ByteBuffer bb = p.getFirst();
+		return getNextDatagramView(bb);
+	}
+
+	/**
+	 * Get the datagrams spanning a particular time range, given in the timeline's sampling rate, as views of the timeline data.
+	 * Irrespective of the value of timeSpanInSamples, at least one datagram is always returned.
+	 * 
+	 * @param targetTimeInSamples
+	 *            the requested position, in samples. Must be non-negative and less than the total duration of the timeline.
+	 * @param timeSpanInSamples
+	 *            the requested time span, in samples.
+	 * @return an array of datagrams containing at least one datagram. If less than the requested amount of datagrams can be read,
+	 *         the number of datagrams that can be read is returned.
+	 * @throws IOException
+	 *             if no data can be read at the given target time
+	 * @see #getNextDatagramView(ByteBuffer)
+	 */
+	public Datagram[] getDatagramViews(long targetTimeInSamples, long timeSpanInSamples) throws IOException {
+		return getDatagrams(targetTimeInSamples, -1, timeSpanInSamples, sampleRate, null, true);
+	}
+
 	/**
 	 * Get the datagrams spanning a particular time range from a particular time location, and return the time offset between the
 	 * time request and the actual location of the first returned datagram. Irrespective of the values of nDatagrams and
@@ -626,6 +1117,8 @@ public class TimelineReader {
 	 *            an optional output field. If it is not null, then after the call it must have length of at least 1, and the
 	 *            first array field will contain the time difference, in samples, between the time request and the actual
 	 *            beginning of the first datagram.
+	 * @param views
+	 *            whether to return the datagrams as views of the timeline data, see {@link #getNextDatagramView(ByteBuffer)}
 	 * 
 	 * @return an array of datagrams containing at least one datagram. If less than the requested amount of datagrams can be read,
 	 *         the number of datagrams that can be read is returned.
@@ -635,7 +1128,7 @@ public class TimelineReader {
 	 *             if no data can be read at the given target time
 	 */
 	private Datagram[] getDatagrams(long targetTimeInSamples, int nDatagrams, long timeSpanInSamples, int reqSampleRate,
-			long[] returnOffset) throws IllegalArgumentException, IOException {
+			long[] returnOffset, boolean views) throws IllegalArgumentException, IOException {
 		/* Check the input arguments */
 		if (targetTimeInSamples < 0) {
 			throw new IllegalArgumentException("Can't get a datagram from a negative time position (given time position was ["
@@ -676,7 +1169,7 @@ public class TimelineReader {
 		int nRead = 0;
 		boolean haveReadAll = false;
 		while (!haveReadAll) {
-			Datagram dat = getNextDatagram(bb);
+			Datagram dat = views ? getNextDatagramView(bb) : getNextDatagram(bb);
 			if (dat == null) {
 				// we may have reached the end of the current byte buffer... try reading another:
 				try {
@@ -686,7 +1179,7 @@ public class TimelineReader {
 					break;
 				}
 				bb = p.getFirst();
-				dat = getNextDatagram(bb);
+				dat = views ? getNextDatagramView(bb) : getNextDatagram(bb);
 				if (dat == null) { // no, indeed we cannot read any more
 					break; // abort, we could not read all
 				}
@@ -734,7 +1227,7 @@ public class TimelineReader {
 	 */
 	public Datagram[] getDatagrams(long targetTimeInSamples, long timeSpanInSamples, int reqSampleRate, long[] returnOffset)
 			throws IOException {
-		return getDatagrams(targetTimeInSamples, -1, timeSpanInSamples, reqSampleRate, returnOffset);
+		return getDatagrams(targetTimeInSamples, -1, timeSpanInSamples, reqSampleRate, returnOffset, false);
 	}
 
 	/**
@@ -803,7 +1296,7 @@ public class TimelineReader {
 	 */
 	public Datagram[] getDatagrams(long targetTimeInSamples, int number, int reqSampleRate, long[] returnOffset)
 			throws IOException {
-		return getDatagrams(targetTimeInSamples, number, -1, reqSampleRate, returnOffset);
+		return getDatagrams(targetTimeInSamples, number, -1, reqSampleRate, returnOffset, false);
 	}
 
 	// ///////////////////// by unit ////////////////////////////
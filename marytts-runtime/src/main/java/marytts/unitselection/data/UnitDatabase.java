@@ -20,7 +20,11 @@
 package marytts.unitselection.data;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import marytts.cart.CART;
 import marytts.unitselection.select.JoinCostFunction;
@@ -30,10 +34,10 @@ import marytts.unitselection.select.TargetCostFunction;
 import marytts.unitselection.select.viterbi.ViterbiCandidate;
 import marytts.util.MaryUtils;
 import marytts.util.data.Datagram;
-import marytts.util.dom.DomUtils;
 
 import org.apache.log4j.Logger;
 import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 
 /**
  * The unit database of a voice
@@ -53,6 +57,13 @@ public class UnitDatabase {
 	protected int backtrace;
 	protected Logger logger = MaryUtils.getLogger("UnitDatabase");
 
+	private static final String BLACKLIST_ATTRIBUTE = "blacklist";
+	private static final String BLACKLIST_USER_DATA_KEY = "marytts.unitselection.data.UnitDatabase.blacklist";
+
+	// basenames[unitBasenameIds[u]] is the basename of unit u; both are null if there is no basename timeline
+	private String[] basenames;
+	private int[] unitBasenameIds;
+
 	public UnitDatabase() {
 	}
 
@@ -66,6 +77,7 @@ public class UnitDatabase {
 		this.audioTimeline = anAudioTimeline;
 		this.basenameTimeline = aBasenameTimeline;
 		this.backtrace = backtraceLeafSize;
+		buildBasenameIndex();
 	}
 
 	public void load(TargetCostFunction aTargetCostFunction, JoinCostFunction aJoinCostFunction,
@@ -80,6 +92,7 @@ public class UnitDatabase {
 		this.audioTimeline = anAudioTimeline;
 		this.basenameTimeline = aBasenameTimeline;
 		this.backtrace = backtraceLeafSize;
+		buildBasenameIndex();
 	}
 
 	public TargetCostFunction getTargetCostFunction() {
@@ -111,15 +124,7 @@ public class UnitDatabase {
 	 *         (different) Unit object
 	 */
 	public List<ViterbiCandidate> getCandidates(Target target) {
-		// BEGIN blacklisting
-		// The point of this is to get the value of the "blacklist" attribute in the first child element of the MaryXML
-		// and store it in the blacklist String variable.
-		// This code seems rather inelegant; perhaps there is a better way to access the MaryXML from this method?
-		String blacklist = "";
-		String unitBasename = "This must never be null or the empty string!"; // otherwise candidate selection fails!
-		Element targetElement = target.getMaryxmlElement();
-		blacklist = DomUtils.getAttributeFromClosestAncestorOfAnyKind(targetElement, "blacklist");
-		// END blacklisting
+		Blacklist blacklist = getBlacklist(target.getMaryxmlElement());
 
 		// logger.debug("Looking for candidates in cart "+target.getName());
 		// get the cart tree and extract the candidates
@@ -127,26 +132,162 @@ public class UnitDatabase {
 		logger.debug("For target " + target + ", selected " + clist.length + " units");
 
 		// Now, clist is an array of unit indexes.
-		List<ViterbiCandidate> candidates = new ArrayList<ViterbiCandidate>();
+		Unit[] units = new Unit[clist.length];
+		int numUnits = 0;
 		for (int i = 0; i < clist.length; i++) {
 			// The target is the same for all these candidates in the queue
 			// remember the actual unit:
 			Unit unit = unitReader.getUnit(clist[i]);
-			candidates.add(new ViterbiCandidate(target, unit, targetCostFunction));
+			if (blacklist != null && blacklist.excludes(unit)) {
+				continue;
+			}
+			units[numUnits++] = unit;
+		}
+		return createCandidates(target, units, numUnits);
+	}
+
+	/**
+	 * Create the Viterbi candidates for the given target and units, computing the target costs of all units at once.
+	 * 
+	 * @param target
+	 *            target
+	 * @param units
+	 *            the candidate units
+	 * @param numUnits
+	 *            the number of units to use from units
+	 * @return the list of candidates, in the order of units
+	 */
+	protected List<ViterbiCandidate> createCandidates(Target target, Unit[] units, int numUnits) {
+		double[] costs = new double[numUnits];
+		targetCostFunction.cost(target, units, numUnits, costs);
+		List<ViterbiCandidate> candidates = new ArrayList<ViterbiCandidate>(numUnits);
+		for (int i = 0; i < numUnits; i++) {
+			candidates.add(new ViterbiCandidate(target, units[i], costs[i]));
 		}
+		return candidates;
+	}
 
-		// Blacklisting without crazy performance drop:
-		// just remove candidates again if their basenames are blacklisted
-		java.util.Iterator<ViterbiCandidate> candIt = candidates.iterator();
-		while (candIt.hasNext()) {
-			ViterbiCandidate candidate = candIt.next();
-			unitBasename = getFilename(candidate.getUnit());
-			if (blacklist.contains(unitBasename)) {
-				candIt.remove();
+	/**
+	 * Get the blacklist that applies to the given target element, i.e. the value of the "blacklist" attribute of its closest
+	 * ancestor that has one. Units are excluded if their basename occurs anywhere in the attribute value. The set of excluded
+	 * basenames is computed once per attribute value and remembered on the element that carries the attribute, so that it is
+	 * shared by all targets of a request.
+	 * 
+	 * @param targetElement
+	 *            the MaryXML element of a target, or null
+	 * @return the blacklist, or null if no blacklist applies.
+	 */
+	protected Blacklist getBlacklist(Element targetElement) {
+		Element holder = null;
+		for (Node n = targetElement != null ? targetElement.getParentNode() : null; n != null; n = n.getParentNode()) {
+			if (n.getNodeType() == Node.ELEMENT_NODE && ((Element) n).hasAttribute(BLACKLIST_ATTRIBUTE)) {
+				holder = (Element) n;
+				break;
 			}
 		}
+		if (holder == null) {
+			return null;
+		}
+		String value = holder.getAttribute(BLACKLIST_ATTRIBUTE);
+		if (value.equals("")) {
+			return null;
+		}
+		Object cached = holder.getUserData(BLACKLIST_USER_DATA_KEY);
+		if (cached instanceof Blacklist) {
+			Blacklist blacklist = (Blacklist) cached;
+			if (blacklist.database == this && blacklist.value.equals(value)) {
+				return blacklist;
+			}
+		}
+		Blacklist blacklist = new Blacklist(this, value);
+		holder.setUserData(BLACKLIST_USER_DATA_KEY, blacklist, null);
+		return blacklist;
+	}
 
-		return candidates;
+	/**
+	 * Map every unit to the basename of the file it comes from, reading the basename timeline once, so that blacklisting does
+	 * not need a timeline lookup per candidate.
+	 */
+	private void buildBasenameIndex() {
+		basenames = null;
+		unitBasenameIds = null;
+		if (basenameTimeline == null || unitReader == null) {
+			return;
+		}
+		try {
+			int numDatagrams = (int) basenameTimeline.getNumDatagrams();
+			Datagram[] datagrams = basenameTimeline.getDatagrams(0, numDatagrams, basenameTimeline.getSampleRate(), null);
+			long[] startTimes = new long[datagrams.length];
+			int[] datagramIds = new int[datagrams.length];
+			List<String> names = new ArrayList<String>();
+			Map<String, Integer> ids = new HashMap<String, Integer>();
+			long time = 0;
+			for (int d = 0; d < datagrams.length; d++) {
+				startTimes[d] = time;
+				time += datagrams[d].getDuration();
+				String name = new String(datagrams[d].getData(), "UTF-8");
+				Integer id = ids.get(name);
+				if (id == null) {
+					id = names.size();
+					ids.put(name, id);
+					names.add(name);
+				}
+				datagramIds[d] = id;
+			}
+			int[] unitIds = new int[numUnits];
+			for (int u = 0; u < numUnits; u++) {
+				// as in getFilename(), the unit's start time is looked up directly in the basename timeline
+				int d = Arrays.binarySearch(startTimes, unitReader.getUnit(u).startTime);
+				if (d < 0) {
+					d = Math.max(-d - 2, 0);
+				}
+				unitIds[u] = datagramIds[d];
+			}
+			basenames = names.toArray(new String[names.size()]);
+			unitBasenameIds = unitIds;
+			logger.debug("Indexed " + numUnits + " units from " + basenames.length + " basenames");
+		} catch (Exception e) {
+			logger.warn("Cannot index the basename timeline, blacklisting will look up basenames unit by unit", e);
+		}
+	}
+
+	/**
+	 * The basenames excluded by the value of a "blacklist" attribute.
+	 */
+	protected static class Blacklist {
+		private final UnitDatabase database;
+		private final String value;
+		// ids of the blacklisted basenames; null if the database has no basename index
+		private final BitSet excludedIds;
+
+		Blacklist(UnitDatabase database, String value) {
+			this.database = database;
+			this.value = value;
+			if (database.basenames != null) {
+				excludedIds = new BitSet(database.basenames.length);
+				for (int id = 0; id < database.basenames.length; id++) {
+					if (value.contains(database.basenames[id])) {
+						excludedIds.set(id);
+					}
+				}
+			} else {
+				excludedIds = null;
+			}
+		}
+
+		/**
+		 * Whether the given unit comes from a blacklisted file.
+		 * 
+		 * @param unit
+		 *            a unit of the database this blacklist was created for
+		 * @return true if the unit must not be used
+		 */
+		public boolean excludes(Unit unit) {
+			if (excludedIds != null) {
+				return excludedIds.get(database.unitBasenameIds[unit.index]);
+			}
+			return value.contains(database.getFilename(unit));
+		}
 	}
 
 	/**
@@ -0,0 +1,50 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.unitselection.select;
+
+import marytts.unitselection.data.Unit;
+
+/**
+ * A base class for target cost functions, which computes the costs of many units one by one.
+ *
+ * @author agent
+ *
+ */
+public abstract class AbstractTargetCostFunction implements TargetCostFunction {
+
+	/**
+	 * Compute the goodness-of-fit of each of the given units for a given target, by calling {@link #cost(Target, Unit)} for each
+	 * of them. Subclasses that can compute the costs of many units faster should override this.
+	 *
+	 * @param target
+	 *            target
+	 * @param units
+	 *            units
+	 * @param numUnits
+	 *            the number of units to use from units
+	 * @param costs
+	 *            receives the cost of units[k] in costs[k]
+	 */
+	public void cost(Target target, Unit[] units, int numUnits, double[] costs) {
+		for (int k = 0; k < numUnits; k++) {
+			costs[k] = cost(target, units[k]);
+		}
+	}
+}
@@ -31,7 +31,7 @@ import marytts.unitselection.data.FeatureFileReader;
 import marytts.unitselection.data.HalfPhoneFeatureFileReader;
 import marytts.unitselection.data.Unit;
 
-public class DiphoneFFRTargetCostFunction implements TargetCostFunction {
+public class DiphoneFFRTargetCostFunction extends AbstractTargetCostFunction {
 	protected FFRTargetCostFunction tcfForHalfphones;
 
 	public DiphoneFFRTargetCostFunction() {
@@ -93,7 +93,7 @@ public class DiphoneFFRTargetCostFunction implements TargetCostFunction {
 	}
 
 	public FeatureVector getFeatureVector(Unit unit) {
-		return tcfForHalfphones.featureVectors[unit.index];
+		return tcfForHalfphones.getFeatureVector(unit);
 	}
 
 	/**
@@ -117,6 +117,31 @@ public class DiphoneFFRTargetCostFunction implements TargetCostFunction {
 		return tcfForHalfphones.cost(dt.left, du.left) + tcfForHalfphones.cost(dt.right, du.right);
 	}
 
+	public void cost(Target target, Unit[] units, int numUnits, double[] costs) {
+		if (target instanceof HalfPhoneTarget) {
+			tcfForHalfphones.cost(target, units, numUnits, costs);
+			return;
+		}
+		if (!(target instanceof DiphoneTarget))
+			throw new IllegalArgumentException("This target cost function can only be called for diphone and half-phone targets!");
+		DiphoneTarget dt = (DiphoneTarget) target;
+		Unit[] halves = new Unit[numUnits];
+		for (int k = 0; k < numUnits; k++) {
+			if (!(units[k] instanceof DiphoneUnit))
+				throw new IllegalArgumentException("Diphone targets need diphone units!");
+			halves[k] = ((DiphoneUnit) units[k]).left;
+		}
+		tcfForHalfphones.cost(dt.left, halves, numUnits, costs);
+		for (int k = 0; k < numUnits; k++) {
+			halves[k] = ((DiphoneUnit) units[k]).right;
+		}
+		double[] rightCosts = new double[numUnits];
+		tcfForHalfphones.cost(dt.right, halves, numUnits, rightCosts);
+		for (int k = 0; k < numUnits; k++) {
+			costs[k] += rightCosts[k];
+		}
+	}
+
 	/**
 	 * Compute the features for a given target, and store them in the target.
 	 * 
@@ -142,4 +167,16 @@ public class DiphoneFFRTargetCostFunction implements TargetCostFunction {
 		return null;
 	}
 
+	/**
+	 * The feature file from which the half-phone unit features are read.
+	 * 
+	 * @return the feature file, or null if not loaded
+	 */
+	public FeatureFileReader getFeatureFileReader() {
+		if (tcfForHalfphones != null) {
+			return tcfForHalfphones.getFeatureFileReader();
+		}
+		return null;
+	}
+
 }
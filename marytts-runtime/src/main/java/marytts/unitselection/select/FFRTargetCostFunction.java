@@ -35,11 +35,14 @@ import marytts.unitselection.data.FeatureFileReader;
 import marytts.unitselection.data.Unit;
 import marytts.unitselection.weightingfunctions.WeightFunc;
 import marytts.unitselection.weightingfunctions.WeightFunctionManager;
+import marytts.unitselection.weightingfunctions.WeightingFunction;
 import marytts.util.MaryUtils;
 
-public class FFRTargetCostFunction implements TargetCostFunction {
+public class FFRTargetCostFunction extends AbstractTargetCostFunction {
 	protected WeightFunc[] weightFunction;
 	protected TargetFeatureComputer targetFeatureComputer;
+	protected FeatureFileReader featureFile;
+	/** The unit feature vectors, or null if the feature file keeps its features in compact storage */
 	protected FeatureVector[] featureVectors;
 	protected FeatureDefinition featureDefinition;
 	protected boolean[] weightsNonZero;
@@ -48,6 +51,14 @@ public class FFRTargetCostFunction implements TargetCostFunction {
 	protected double[] cumulWeightedCosts = null;
 	protected int nCostComputations = 0;
 
+	// working memory of the batch cost computations, per thread
+	private static final ThreadLocal<Scratch> scratch = new ThreadLocal<Scratch>() {
+		@Override
+		protected Scratch initialValue() {
+			return new Scratch();
+		}
+	};
+
 	public FFRTargetCostFunction() {
 	}
 
@@ -64,17 +75,22 @@ public class FFRTargetCostFunction implements TargetCostFunction {
 		return cost(target, unit, featureDefinition, weightFunction);
 	}
 
+	public void cost(Target target, Unit[] units, int numUnits, double[] costs) {
+		cost(target, units, numUnits, featureDefinition, weightFunction, costs);
+	}
+
 	protected double cost(Target target, Unit unit, FeatureDefinition weights, WeightFunc[] weightFunctions) {
 		nCostComputations++; // for debug
 		FeatureVector targetFeatures = target.getFeatureVector();
 		assert targetFeatures != null : "Target " + target + " does not have pre-computed feature vector";
-		FeatureVector unitFeatures = featureVectors[unit.index];
+		FeatureFileReader unitFeatures = featureFile;
+		int u = unit.index;
 		int nBytes = targetFeatures.byteValuedDiscreteFeatures.length;
 		int nShorts = targetFeatures.shortValuedDiscreteFeatures.length;
 		int nFloats = targetFeatures.continuousFeatures.length;
-		assert nBytes == unitFeatures.byteValuedDiscreteFeatures.length;
-		assert nShorts == unitFeatures.shortValuedDiscreteFeatures.length;
-		assert nFloats == unitFeatures.continuousFeatures.length;
+		assert nBytes == featureDefinition.getNumberOfByteFeatures();
+		assert nShorts == featureDefinition.getNumberOfShortFeatures();
+		assert nFloats == featureDefinition.getNumberOfContinuousFeatures();
 
 		float[] weightVector = weights.getFeatureWeights();
 		// Now the actual computation
@@ -86,12 +102,12 @@ public class FFRTargetCostFunction implements TargetCostFunction {
 					float weight = weightVector[i];
 					if (featureDefinition.hasSimilarityMatrix(i)) {
 						byte targetFeatValueIndex = targetFeatures.byteValuedDiscreteFeatures[i];
-						byte unitFeatValueIndex = unitFeatures.byteValuedDiscreteFeatures[i];
+						byte unitFeatValueIndex = unitFeatures.getByteFeature(u, i);
 						float similarity = featureDefinition.getSimilarity(i, unitFeatValueIndex, targetFeatValueIndex);
 						cost += similarity * weight;
 						if (debugShowCostGraph)
 							cumulWeightedCosts[i] += similarity * weight;
-					} else if (targetFeatures.byteValuedDiscreteFeatures[i] != unitFeatures.byteValuedDiscreteFeatures[i]) {
+					} else if (targetFeatures.byteValuedDiscreteFeatures[i] != unitFeatures.getByteFeature(u, i)) {
 						cost += weight;
 						if (debugShowCostGraph)
 							cumulWeightedCosts[i] += weight;
@@ -105,8 +121,7 @@ public class FFRTargetCostFunction implements TargetCostFunction {
 				if (weightsNonZero[i]) {
 					float weight = weightVector[i];
 					// if (targetFeatures.getShortFeature(i) != unitFeatures.getShortFeature(i)) {
-					if (targetFeatures.shortValuedDiscreteFeatures[i - nBytes] != unitFeatures.shortValuedDiscreteFeatures[i
-							- nBytes]) {
+					if (targetFeatures.shortValuedDiscreteFeatures[i - nBytes] != unitFeatures.getShortFeature(u, i)) {
 						cost += weight;
 						if (debugShowCostGraph)
 							cumulWeightedCosts[i] += weight;
@@ -122,8 +137,7 @@ public class FFRTargetCostFunction implements TargetCostFunction {
 					float weight = weightVector[i];
 					// float a = targetFeatures.getContinuousFeature(i);
 					float a = targetFeatures.continuousFeatures[i - nDiscrete];
-					// float b = unitFeatures.getContinuousFeature(i);
-					float b = unitFeatures.continuousFeatures[i - nDiscrete];
+					float b = unitFeatures.getContinuousFeature(u, i);
 					// if (!Float.isNaN(a) && !Float.isNaN(b)) {
 					// Implementation of isNaN() is: (v != v).
 					if (!(a != a) && !(b != b)) {
@@ -139,6 +153,133 @@ public class FFRTargetCostFunction implements TargetCostFunction {
 		return cost;
 	}
 
+	/**
+	 * Compute the goodness-of-fit of each of the given units for a given target, with the same result as
+	 * {@link #cost(Target, Unit, FeatureDefinition, WeightFunc[])} for each of them. The features of the units are copied so that
+	 * each feature is contiguous for all units, and the costs are then accumulated feature by feature for all units at once, in
+	 * loops that the JIT compiler can vectorize.
+	 * 
+	 * @param target
+	 *            target
+	 * @param units
+	 *            units
+	 * @param numUnits
+	 *            the number of units to use from units
+	 * @param weights
+	 *            the feature weights
+	 * @param weightFunctions
+	 *            the weight functions of the continuous features
+	 * @param costs
+	 *            receives the cost of units[k] in costs[k]
+	 */
+	protected void cost(Target target, Unit[] units, int numUnits, FeatureDefinition weights, WeightFunc[] weightFunctions,
+			double[] costs) {
+		if (debugShowCostGraph) {
+			for (int k = 0; k < numUnits; k++) {
+				costs[k] = cost(target, units[k], weights, weightFunctions);
+			}
+			return;
+		}
+		nCostComputations += numUnits; // for debug
+		FeatureVector targetFeatures = target.getFeatureVector();
+		assert targetFeatures != null : "Target " + target + " does not have pre-computed feature vector";
+		int nBytes = targetFeatures.byteValuedDiscreteFeatures.length;
+		int nShorts = targetFeatures.shortValuedDiscreteFeatures.length;
+		int nFloats = targetFeatures.continuousFeatures.length;
+		int nDiscrete = nBytes + nShorts;
+		assert nBytes == featureDefinition.getNumberOfByteFeatures();
+		assert nShorts == featureDefinition.getNumberOfShortFeatures();
+		assert nFloats == featureDefinition.getNumberOfContinuousFeatures();
+
+		// The features with non-zero weights, feature by feature:
+		Scratch s = scratch.get();
+		byte[] bytes = s.bytes(nBytes * numUnits);
+		short[] shorts = s.shorts(nShorts * numUnits);
+		float[] floats = s.floats(nFloats * numUnits);
+		for (int k = 0; k < numUnits; k++) {
+			int u = units[k].index;
+			FeatureVector fv = featureVectors != null ? featureVectors[u] : null;
+			for (int i = 0; i < nBytes; i++) {
+				if (weightsNonZero[i]) {
+					bytes[i * numUnits + k] = fv != null ? fv.byteValuedDiscreteFeatures[i] : featureFile.getByteFeature(u, i);
+				}
+			}
+			for (int i = nBytes; i < nDiscrete; i++) {
+				if (weightsNonZero[i]) {
+					shorts[(i - nBytes) * numUnits + k] = fv != null ? fv.shortValuedDiscreteFeatures[i - nBytes] : featureFile
+							.getShortFeature(u, i);
+				}
+			}
+			for (int i = nDiscrete, n = nDiscrete + nFloats; i < n; i++) {
+				if (weightsNonZero[i]) {
+					floats[(i - nDiscrete) * numUnits + k] = fv != null ? fv.continuousFeatures[i - nDiscrete] : featureFile
+							.getContinuousFeature(u, i);
+				}
+			}
+		}
+
+		float[] weightVector = weights.getFeatureWeights();
+		// Now the actual computation
+		for (int k = 0; k < numUnits; k++) {
+			costs[k] = 0;
+		}
+		// byte-valued features:
+		for (int i = 0; i < nBytes; i++) {
+			if (weightsNonZero[i]) {
+				float weight = weightVector[i];
+				byte targetValue = targetFeatures.byteValuedDiscreteFeatures[i];
+				int offset = i * numUnits;
+				if (featureDefinition.hasSimilarityMatrix(i)) {
+					for (int k = 0; k < numUnits; k++) {
+						costs[k] += featureDefinition.getSimilarity(i, bytes[offset + k], targetValue) * weight;
+					}
+				} else {
+					for (int k = 0; k < numUnits; k++) {
+						costs[k] += bytes[offset + k] != targetValue ? weight : 0;
+					}
+				}
+			}
+		}
+		// short-valued features:
+		for (int i = nBytes; i < nDiscrete; i++) {
+			if (weightsNonZero[i]) {
+				float weight = weightVector[i];
+				short targetValue = targetFeatures.shortValuedDiscreteFeatures[i - nBytes];
+				int offset = (i - nBytes) * numUnits;
+				for (int k = 0; k < numUnits; k++) {
+					costs[k] += shorts[offset + k] != targetValue ? weight : 0;
+				}
+			}
+		}
+		// continuous features:
+		for (int i = nDiscrete, n = nDiscrete + nFloats; i < n; i++) {
+			if (weightsNonZero[i]) {
+				float weight = weightVector[i];
+				float a = targetFeatures.continuousFeatures[i - nDiscrete];
+				if (a != a) {
+					continue; // if it is NaN, simply compute no cost
+				}
+				WeightFunc f = weightFunctions[i - nDiscrete];
+				int offset = (i - nDiscrete) * numUnits;
+				if (f instanceof WeightingFunction.linear) {
+					// the linear weight function, computed in double precision like WeightFunc.cost(double, double)
+					double da = a;
+					for (int k = 0; k < numUnits; k++) {
+						float b = floats[offset + k];
+						costs[k] += b != b ? 0 : weight * (da > b ? (da - b) : (b - da));
+					}
+				} else {
+					for (int k = 0; k < numUnits; k++) {
+						float b = floats[offset + k];
+						if (!(b != b)) {
+							costs[k] += weight * f.cost(a, b);
+						}
+					}
+				}
+			}
+		}
+	}
+
 	/**
 	 * Compute the goodness-of-fit between given unit and given target for a given feature
 	 * 
@@ -164,13 +305,14 @@ public class FFRTargetCostFunction implements TargetCostFunction {
 
 		FeatureVector targetFeatures = target.getFeatureVector();
 		assert targetFeatures != null : "Target " + target + " does not have pre-computed feature vector";
-		FeatureVector unitFeatures = featureVectors[unit.index];
+		FeatureFileReader unitFeatures = featureFile;
+		int u = unit.index;
 		int nBytes = targetFeatures.byteValuedDiscreteFeatures.length;
 		int nShorts = targetFeatures.shortValuedDiscreteFeatures.length;
 		int nFloats = targetFeatures.continuousFeatures.length;
-		assert nBytes == unitFeatures.byteValuedDiscreteFeatures.length;
-		assert nShorts == unitFeatures.shortValuedDiscreteFeatures.length;
-		assert nFloats == unitFeatures.continuousFeatures.length;
+		assert nBytes == featureDefinition.getNumberOfByteFeatures();
+		assert nShorts == featureDefinition.getNumberOfShortFeatures();
+		assert nFloats == featureDefinition.getNumberOfContinuousFeatures();
 
 		int featureIndex = this.featureDefinition.getFeatureIndex(featureName);
 		float[] weightVector = weights.getFeatureWeights();
@@ -181,12 +323,12 @@ public class FFRTargetCostFunction implements TargetCostFunction {
 				float weight = weightVector[featureIndex];
 				if (featureDefinition.hasSimilarityMatrix(featureIndex)) {
 					byte targetFeatValueIndex = targetFeatures.byteValuedDiscreteFeatures[featureIndex];
-					byte unitFeatValueIndex = unitFeatures.byteValuedDiscreteFeatures[featureIndex];
+					byte unitFeatValueIndex = unitFeatures.getByteFeature(u, featureIndex);
 					float similarity = featureDefinition.getSimilarity(featureIndex, unitFeatValueIndex, targetFeatValueIndex);
 					cost = similarity * weight;
 					if (debugShowCostGraph)
 						cumulWeightedCosts[featureIndex] += similarity * weight;
-				} else if (targetFeatures.byteValuedDiscreteFeatures[featureIndex] != unitFeatures.byteValuedDiscreteFeatures[featureIndex]) {
+				} else if (targetFeatures.byteValuedDiscreteFeatures[featureIndex] != unitFeatures.getByteFeature(u, featureIndex)) {
 					cost = weight;
 					if (debugShowCostGraph)
 						cumulWeightedCosts[featureIndex] += weight;
@@ -196,8 +338,7 @@ public class FFRTargetCostFunction implements TargetCostFunction {
 			if (weightsNonZero[featureIndex]) {
 				float weight = weightVector[featureIndex];
 				// if (targetFeatures.getShortFeature(i) != unitFeatures.getShortFeature(i)) {
-				if (targetFeatures.shortValuedDiscreteFeatures[featureIndex - nBytes] != unitFeatures.shortValuedDiscreteFeatures[featureIndex
-						- nBytes]) {
+				if (targetFeatures.shortValuedDiscreteFeatures[featureIndex - nBytes] != unitFeatures.getShortFeature(u, featureIndex)) {
 					cost = weight;
 					if (debugShowCostGraph)
 						cumulWeightedCosts[featureIndex] += weight;
@@ -209,8 +350,7 @@ public class FFRTargetCostFunction implements TargetCostFunction {
 				float weight = weightVector[featureIndex];
 				// float a = targetFeatures.getContinuousFeature(i);
 				float a = targetFeatures.continuousFeatures[featureIndex - nDiscrete];
-				// float b = unitFeatures.getContinuousFeature(i);
-				float b = unitFeatures.continuousFeatures[featureIndex - nDiscrete];
+				float b = unitFeatures.getContinuousFeature(u, featureIndex);
 				// if (!Float.isNaN(a) && !Float.isNaN(b)) {
 				// Implementation of isNaN() is: (v != v).
 				if (!(a != a) && !(b != b)) {
@@ -251,7 +391,8 @@ public class FFRTargetCostFunction implements TargetCostFunction {
 	@Override
 	public void load(FeatureFileReader ffr, InputStream weightsStream, FeatureProcessorManager featProc) throws IOException {
 		this.featureDefinition = ffr.getFeatureDefinition();
-		this.featureVectors = ffr.getFeatureVectors();
+		this.featureFile = ffr;
+		this.featureVectors = ffr.hasFeatureVectorObjects() ? ffr.getFeatureVectors() : null;
 		if (weightsStream != null) {
 			MaryUtils.getLogger("TargetCostFeatures").debug("Overwriting target cost weights from file");
 			// overwrite weights from file
@@ -315,7 +456,10 @@ public class FFRTargetCostFunction implements TargetCostFunction {
 	 * @return the FeatureVector for target cost computation associated to this unit
 	 */
 	public FeatureVector getFeatureVector(Unit unit) {
-		return featureVectors[unit.index];
+		if (featureVectors != null) {
+			return featureVectors[unit.index];
+		}
+		return featureFile.getFeatureVector(unit.index);
 	}
 
 	/**
@@ -331,14 +475,16 @@ public class FFRTargetCostFunction implements TargetCostFunction {
 	 */
 	public String getFeature(Unit unit, String featureName) {
 		int featureIndex = featureDefinition.getFeatureIndex(featureName);
+		FeatureVector fv = featureVectors != null ? featureVectors[unit.index] : null;
 		if (featureDefinition.isByteFeature(featureIndex)) {
-			byte value = featureVectors[unit.index].getByteFeature(featureIndex);
+			byte value = fv != null ? fv.getByteFeature(featureIndex) : featureFile.getByteFeature(unit.index, featureIndex);
 			return featureDefinition.getFeatureValueAsString(featureIndex, value);
 		} else if (featureDefinition.isShortFeature(featureIndex)) {
-			short value = featureVectors[unit.index].getShortFeature(featureIndex);
+			short value = fv != null ? fv.getShortFeature(featureIndex) : featureFile.getShortFeature(unit.index, featureIndex);
 			return featureDefinition.getFeatureValueAsString(featureIndex, value);
 		} else { // continuous -- return float as string
-			float value = featureVectors[unit.index].getContinuousFeature(featureIndex);
+			float value = fv != null ? fv.getContinuousFeature(featureIndex) : featureFile.getContinuousFeature(unit.index,
+					featureIndex);
 			return String.valueOf(value);
 		}
 	}
@@ -387,4 +533,41 @@ public class FFRTargetCostFunction implements TargetCostFunction {
 		return featureVectors;
 	}
 
+	/**
+	 * The feature file from which the unit features are read, e.g. to look up single features without creating feature vectors.
+	 * 
+	 * @return featureFile
+	 */
+	public FeatureFileReader getFeatureFileReader() {
+		return featureFile;
+	}
+
+	// arrays reused by the batch cost computations of one thread, grown as needed
+	private static final class Scratch {
+		private byte[] bytes = new byte[0];
+		private short[] shorts = new short[0];
+		private float[] floats = new float[0];
+
+		byte[] bytes(int length) {
+			if (bytes.length < length) {
+				bytes = new byte[length];
+			}
+			return bytes;
+		}
+
+		short[] shorts(int length) {
+			if (shorts.length < length) {
+				shorts = new short[length];
+			}
+			return shorts;
+		}
+
+		float[] floats(int length) {
+			if (floats.length < length) {
+				floats = new float[length];
+			}
+			return floats;
+		}
+	}
+
 }
@@ -67,6 +67,17 @@ public class HalfPhoneFFRTargetCostFunction extends FFRTargetCostFunction {
 		return cost(target, unit, weights, weightFunctions);
 	}
 
+	@Override
+	public void cost(Target target, Unit[] units, int numUnits, double[] costs) {
+		if (!(target instanceof HalfPhoneTarget))
+			throw new IllegalArgumentException("This target cost function can only be called for half-phone targets!");
+		HalfPhoneTarget hpTarget = (HalfPhoneTarget) target;
+		boolean isLeftHalf = hpTarget.isLeftHalf();
+		FeatureDefinition weights = isLeftHalf ? leftWeights : rightWeights;
+		WeightFunc[] weightFunctions = isLeftHalf ? leftWeightFunction : rightWeightFunction;
+		cost(target, units, numUnits, weights, weightFunctions, costs);
+	}
+
 	/**
 	 * Initialise the data needed to do a target cost computation.
 	 * 
@@ -98,7 +109,8 @@ public class HalfPhoneFFRTargetCostFunction extends FFRTargetCostFunction {
 		this.leftWeights = ffr.getLeftWeights();
 		this.featureDefinition = this.leftWeights;
 		this.rightWeights = ffr.getRightWeights();
-		this.featureVectors = ffr.getFeatureVectors();
+		this.featureFile = ffr;
+		this.featureVectors = ffr.hasFeatureVectorObjects() ? ffr.getFeatureVectors() : null;
 
 		if (weightsFile != null) {
 			MaryUtils.getLogger("TargetCostFeatures").debug("Overwriting target cost weights from file " + weightsFile);
@@ -182,32 +194,7 @@ public class HalfPhoneFFRTargetCostFunction extends FFRTargetCostFunction {
 	 * @return the FeatureVector for target cost computation associated to this unit
 	 */
 	public FeatureVector getUnitFeatures(Unit unit) {
-		return featureVectors[unit.index];
-	}
-
-	/**
-	 * Get the string representation of the feature value associated with the given unit
-	 * 
-	 * @param unit
-	 *            the unit whose feature value is requested
-	 * @param featureName
-	 *            name of the feature requested
-	 * @return a string representation of the feature value
-	 * @throws IllegalArgumentException
-	 *             if featureName is not a known feature
-	 */
-	public String getFeature(Unit unit, String featureName) {
-		int featureIndex = featureDefinition.getFeatureIndex(featureName);
-		if (featureDefinition.isByteFeature(featureIndex)) {
-			byte value = featureVectors[unit.index].getByteFeature(featureIndex);
-			return featureDefinition.getFeatureValueAsString(featureIndex, value);
-		} else if (featureDefinition.isShortFeature(featureIndex)) {
-			short value = featureVectors[unit.index].getShortFeature(featureIndex);
-			return featureDefinition.getFeatureValueAsString(featureIndex, value);
-		} else { // continuous -- return float as string
-			float value = featureVectors[unit.index].getContinuousFeature(featureIndex);
-			return String.valueOf(value);
-		}
+		return getFeatureVector(unit);
 	}
 
 	public class TargetCostReporter extends Histogram {
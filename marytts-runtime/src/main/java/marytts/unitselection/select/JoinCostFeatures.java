@@ -43,6 +43,7 @@ import marytts.modules.phonemiser.Allophone;
 import marytts.server.MaryProperties;
 import marytts.signalproc.display.Histogram;
 import marytts.unitselection.data.DiphoneUnit;
+import marytts.unitselection.data.FeatureFileReader;
 import marytts.unitselection.data.Unit;
 import marytts.unitselection.weightingfunctions.WeightFunc;
 import marytts.unitselection.weightingfunctions.WeightFunctionManager;
@@ -72,8 +73,18 @@ public class JoinCostFeatures implements JoinCostFunction {
 	private WeightFunc[] weightFunction = null;
 	private boolean[] isLinear = null; // wether the i'th weight function is a linear function
 
-	private float[][] leftJCF = null;
-	private float[][] rightJCF = null;
+	private int numberOfUnits = 0;
+	// For each unit, the left and then the right join cost features, either on the heap or in a read-only view of the file:
+	private float[] jcf = null;
+	private FloatBuffer mappedJCF = null;
+
+	// working memory of the batch cost computations, per thread
+	private static final ThreadLocal<Scratch> scratch = new ThreadLocal<Scratch>() {
+		@Override
+		protected Scratch initialValue() {
+			return new Scratch();
+		}
+	};
 
 	/****************/
 	/* CONSTRUCTORS */
@@ -209,16 +220,17 @@ public class JoinCostFeatures implements JoinCostFunction {
 			}
 
 			/* Read the left and right Join Cost Features */
-			int numberOfUnits = bb.getInt();
+			numberOfUnits = bb.getInt();
 			FloatBuffer fb = bb.asFloatBuffer();
-			leftJCF = new float[numberOfUnits][];
-			rightJCF = new float[numberOfUnits][];
-			for (int i = 0; i < numberOfUnits; i++) {
-				// System.out.println("Reading join features for unit "+i+" out of "+numberOfUnits);
-				leftJCF[i] = new float[numberOfFeatures];
-				fb.get(leftJCF[i]);
-				rightJCF[i] = new float[numberOfFeatures];
-				fb.get(rightJCF[i]);
+			int numberOfValues = 2 * numberOfUnits * numberOfFeatures;
+			if (fb.remaining() < numberOfValues) {
+				throw new EOFException("Expected " + numberOfValues + " join cost feature values, found only " + fb.remaining());
+			}
+			if (FeatureFileReader.getConfiguredStorage() == FeatureFileReader.Storage.mapped) {
+				mappedJCF = fb;
+			} else {
+				jcf = new float[numberOfValues];
+				fb.get(jcf);
 			}
 		} catch (EOFException e) {
 			IOException ioe = new IOException("The currently read Join Cost File has prematurely reached EOF.");
@@ -301,19 +313,10 @@ public class JoinCostFeatures implements JoinCostFunction {
 			}
 
 			/* Read the left and right Join Cost Features */
-			int numberOfUnits = raf.readInt();
-			leftJCF = new float[numberOfUnits][];
-			rightJCF = new float[numberOfUnits][];
-			for (int i = 0; i < numberOfUnits; i++) {
-				// System.out.println("Reading join features for unit "+i+" out of "+numberOfUnits);
-				leftJCF[i] = new float[numberOfFeatures];
-				for (int j = 0; j < numberOfFeatures; j++) {
-					leftJCF[i][j] = raf.readFloat();
-				}
-				rightJCF[i] = new float[numberOfFeatures];
-				for (int j = 0; j < numberOfFeatures; j++) {
-					rightJCF[i][j] = raf.readFloat();
-				}
+			numberOfUnits = raf.readInt();
+			jcf = new float[2 * numberOfUnits * numberOfFeatures];
+			for (int i = 0; i < jcf.length; i++) {
+				jcf[i] = raf.readFloat();
 			}
 		} catch (EOFException e) {
 			IOException ioe = new IOException("The currently read Join Cost File has prematurely reached EOF.");
@@ -413,10 +416,10 @@ public class JoinCostFeatures implements JoinCostFunction {
 	/**
 	 * Get the number of units.
 	 * 
-	 * @return (leftJCF.length)
+	 * @return the number of units in the join cost feature file
 	 */
 	public int getNumberOfUnits() {
-		return (leftJCF.length);
+		return numberOfUnits;
 	}
 
 	/**
@@ -425,17 +428,17 @@ public class JoinCostFeatures implements JoinCostFunction {
 	 * @param u
 	 *            The index of the considered unit.
 	 * 
-	 * @return The array of left join cost features for the given unit.
+	 * @return A copy of the left join cost features for the given unit.
 	 */
 	public float[] getLeftJCF(int u) {
 		if (u < 0) {
 			throw new RuntimeException("The unit index [" + u + "] is out of range: a unit index can't be negative.");
 		}
-		if (u > getNumberOfUnits()) {
+		if (u >= getNumberOfUnits()) {
 			throw new RuntimeException("The unit index [" + u + "] is out of range: this file contains [" + getNumberOfUnits()
 					+ "] units.");
 		}
-		return (leftJCF[u]);
+		return copyJCF(2 * u * featureWeight.length);
 	}
 
 	/**
@@ -444,23 +447,110 @@ public class JoinCostFeatures implements JoinCostFunction {
 	 * @param u
 	 *            The index of the considered unit.
 	 * 
-	 * @return The array of right join cost features for the given unit.
+	 * @return A copy of the right join cost features for the given unit.
 	 */
 	public float[] getRightJCF(int u) {
 		if (u < 0) {
 			throw new RuntimeException("The unit index [" + u + "] is out of range: a unit index can't be negative.");
 		}
-		if (u > getNumberOfUnits()) {
+		if (u >= getNumberOfUnits()) {
 			throw new RuntimeException("The unit index [" + u + "] is out of range: this file contains [" + getNumberOfUnits()
 					+ "] units.");
 		}
-		return (rightJCF[u]);
+		return copyJCF((2 * u + 1) * featureWeight.length);
+	}
+
+	private float[] copyJCF(int offset) {
+		float[] v = new float[featureWeight.length];
+		for (int i = 0; i < v.length; i++) {
+			v[i] = jcfAt(offset + i);
+		}
+		return v;
+	}
+
+	private float jcfAt(int pos) {
+		return jcf != null ? jcf[pos] : mappedJCF.get(pos);
 	}
 
 	/*****************/
 	/* MISC METHODS */
 	/*****************/
 
+	/**
+	 * Deliver the join costs between a left unit and several right units described by their index. The costs are the same as
+	 * those of {@link #cost(int, int)}, but they are computed feature by feature for all right units at once, over a copy of the
+	 * right units' features made contiguous per feature, in loops that the JIT compiler can vectorize.
+	 * 
+	 * @param u1
+	 *            the left unit
+	 * @param u2
+	 *            the right units
+	 * @param numUnits
+	 *            the number of right units to use from u2
+	 * @param costs
+	 *            receives the cost of joining u1 with u2[k] in costs[k]
+	 */
+	public void cost(int u1, int[] u2, int numUnits, double[] costs) {
+		if (debugShowCostGraph) {
+			for (int k = 0; k < numUnits; k++) {
+				costs[k] = cost(u1, u2[k]);
+			}
+			return;
+		}
+		/* Check the given indexes */
+		if (u1 < 0) {
+			throw new RuntimeException("The left unit index [" + u1 + "] is out of range: a unit index can't be negative.");
+		}
+		if (u1 >= numberOfUnits) {
+			throw new RuntimeException("The left unit index [" + u1 + "] is out of range: this file contains ["
+					+ getNumberOfUnits() + "] units.");
+		}
+		int numberOfFeatures = featureWeight.length;
+		// the left join cost features of the right units, feature by feature:
+		float[] features = scratch.get().features(numberOfFeatures * numUnits);
+		for (int k = 0; k < numUnits; k++) {
+			int u = u2[k];
+			if (u < 0) {
+				throw new RuntimeException("The right unit index [" + u + "] is out of range: a unit index can't be negative.");
+			}
+			if (u >= numberOfUnits) {
+				throw new RuntimeException("The right unit index [" + u + "] is out of range: this file contains ["
+						+ getNumberOfUnits() + "] units.");
+			}
+			int left2 = 2 * u * numberOfFeatures;
+			for (int i = 0, pos = k; i < numberOfFeatures; i++, pos += numUnits) {
+				features[pos] = jcfAt(left2 + i);
+			}
+		}
+		/* Cumulate the join costs for each feature */
+		for (int k = 0; k < numUnits; k++) {
+			costs[k] = 0.0;
+		}
+		int right1 = (2 * u1 + 1) * numberOfFeatures;
+		for (int i = 0; i < numberOfFeatures; i++) {
+			float a = jcfAt(right1 + i);
+			if (a != a) {
+				continue; // if anything is NaN, count the cost as 0.
+			}
+			float weight = featureWeight[i];
+			int offset = i * numUnits;
+			if (isLinear[i]) {
+				for (int k = 0; k < numUnits; k++) {
+					float b = features[offset + k];
+					costs[k] += b != b ? 0 : weight * (a > b ? (a - b) : (b - a));
+				}
+			} else {
+				WeightFunc f = weightFunction[i];
+				for (int k = 0; k < numUnits; k++) {
+					float b = features[offset + k];
+					if (!(b != b)) {
+						costs[k] += weight * f.cost(a, b);
+					}
+				}
+			}
+		}
+	}
+
 	/**
 	 * Deliver the join cost between two units described by their index.
 	 * 
@@ -477,16 +567,14 @@ public class JoinCostFeatures implements JoinCostFunction {
 		if (u1 < 0) {
 			throw new RuntimeException("The left unit index [" + u1 + "] is out of range: a unit index can't be negative.");
 		}
-		// if ( u1 > getNumberOfUnits() ) {
-		if (u1 > leftJCF.length) {
+		if (u1 >= numberOfUnits) {
 			throw new RuntimeException("The left unit index [" + u1 + "] is out of range: this file contains ["
 					+ getNumberOfUnits() + "] units.");
 		}
 		if (u2 < 0) {
 			throw new RuntimeException("The right unit index [" + u2 + "] is out of range: a unit index can't be negative.");
 		}
-		// if ( u2 > getNumberOfUnits() ) {
-		if (u2 > leftJCF.length) {
+		if (u2 >= numberOfUnits) {
 			throw new RuntimeException("The right unit index [" + u2 + "] is out of range: this file contains ["
 					+ getNumberOfUnits() + "] units.");
 		}
@@ -495,11 +583,12 @@ public class JoinCostFeatures implements JoinCostFunction {
 		}
 		/* Cumulate the join costs for each feature */
 		double res = 0.0;
-		float[] v1 = rightJCF[u1];
-		float[] v2 = leftJCF[u2];
-		for (int i = 0; i < v1.length; i++) {
-			float a = v1[i];
-			float b = v2[i];
+		int numberOfFeatures = featureWeight.length;
+		int right1 = (2 * u1 + 1) * numberOfFeatures;
+		int left2 = 2 * u2 * numberOfFeatures;
+		for (int i = 0; i < numberOfFeatures; i++) {
+			float a = jcfAt(right1 + i);
+			float b = jcfAt(left2 + i);
 			// if (!Float.isNaN(v1[i]) && !Float.isNaN(v2[i])) {
 			if (!(a != a) && !(b != b)) {
 				double c;
@@ -561,6 +650,68 @@ public class JoinCostFeatures implements JoinCostFunction {
 		return cost;
 	}
 
+	/**
+	 * Compute the cost of joining the given left unit with each of the given right units, as
+	 * {@link #cost(Target, Unit, Target, Unit)} does for each of them.
+	 * 
+	 * @param t1
+	 *            The left target.
+	 * @param u1
+	 *            The left unit.
+	 * @param t2
+	 *            The right target.
+	 * @param u2
+	 *            The right units.
+	 * @param numUnits
+	 *            the number of right units to use from u2
+	 * @param costs
+	 *            receives the cost of joining u1 with u2[k] in costs[k]
+	 */
+	public void cost(Target t1, Unit u1, Target t2, Unit[] u2, int numUnits, double[] costs) {
+		if (debugShowCostGraph || numUnits == 1) {
+			for (int k = 0; k < numUnits; k++) {
+				costs[k] = cost(t1, u1, t2, u2[k]);
+			}
+			return;
+		}
+		// In the case of diphones, replace the left unit with the relevant part:
+		boolean leftDiphone = u1 instanceof DiphoneUnit;
+		Unit left = leftDiphone ? ((DiphoneUnit) u1).right : u1;
+		Scratch s = scratch.get();
+		int[] rightIndices = s.rightIndices(numUnits);
+		int[] computed = s.computed(numUnits);
+		int nComputed = 0;
+		for (int k = 0; k < numUnits; k++) {
+			Unit right = u2[k];
+			// Units of length 0 cannot be joined:
+			if (u1.duration == 0 || right.duration == 0) {
+				costs[k] = Double.POSITIVE_INFINITY;
+				continue;
+			}
+			boolean bothDiphones = leftDiphone && right instanceof DiphoneUnit;
+			if (right instanceof DiphoneUnit) {
+				right = ((DiphoneUnit) right).left;
+			}
+			if (left.index + 1 == right.index) {
+				costs[k] = 0;
+			} else if (bothDiphones && precompiledCosts != null) {
+				// Either not half phone synthesis, or at a diphone boundary
+				costs[k] = 1 + precompiledCosts.cost(left.index, right.index);
+			} else {
+				rightIndices[nComputed] = right.index;
+				computed[nComputed++] = k;
+			}
+		}
+		if (nComputed > 0) {
+			double[] signalCosts = s.signalCosts(nComputed);
+			cost(left.index, rightIndices, nComputed, signalCosts);
+			for (int c = 0; c < nComputed; c++) {
+				// basic penalty for joins of non-contiguous units, plus the signal-based cost:
+				costs[computed[c]] = 1 + signalCosts[c];
+			}
+		}
+	}
+
 	/**
 	 * A phonetic join cost, computed solely from the target.
 	 * 
@@ -655,4 +806,40 @@ public class JoinCostFeatures implements JoinCostFunction {
 		}
 	}
 
+	// arrays reused by the batch cost computations of one thread, grown as needed
+	private static final class Scratch {
+		private int[] rightIndices = new int[0];
+		private int[] computed = new int[0];
+		private double[] signalCosts = new double[0];
+		private float[] features = new float[0];
+
+		int[] rightIndices(int length) {
+			if (rightIndices.length < length) {
+				rightIndices = new int[length];
+			}
+			return rightIndices;
+		}
+
+		int[] computed(int length) {
+			if (computed.length < length) {
+				computed = new int[length];
+			}
+			return computed;
+		}
+
+		double[] signalCosts(int length) {
+			if (signalCosts.length < length) {
+				signalCosts = new double[length];
+			}
+			return signalCosts;
+		}
+
+		float[] features(int length) {
+			if (features.length < length) {
+				features = new float[length];
+			}
+			return features;
+		}
+	}
+
 }
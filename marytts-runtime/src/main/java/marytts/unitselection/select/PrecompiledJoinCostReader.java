@@ -31,33 +31,53 @@
  */
 package marytts.unitselection.select;
 
-import java.io.BufferedInputStream;
-import java.io.DataInputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.HashMap;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
 import java.util.Map;
 
 import marytts.exceptions.MaryConfigurationException;
 import marytts.server.MaryProperties;
+import marytts.unitselection.data.FeatureFileReader;
+import marytts.unitselection.data.FeatureFileReader.Storage;
 import marytts.unitselection.data.Unit;
 import marytts.util.data.MaryHeader;
 
 /**
  * Loads a precompiled join cost file and provides access to the join cost.
  * 
+ * The costs are kept per left unit index: with heap storage, as a row of right unit indices sorted for binary search and the
+ * corresponding costs; with mapped storage, as a row of the positions of the left unit's (right unit index, cost) pairs in the
+ * mapped file, sorted by right unit index for binary search.
  */
 public class PrecompiledJoinCostReader implements JoinCostFunction {
 
 	private MaryHeader hdr = null;
 
-	// keys = Integers representing left unit index;
-	// values = maps containing
-	// - keys = Integers representing right unit index;
-	// - values = Floats representing the jost of joining them.
+	private Storage storage = FeatureFileReader.getConfiguredStorage();
+
+	/**
+	 * @deprecated the costs are no longer kept in maps, and this field is always null; use {@link #cost(int, int)}.
+	 */
+	@Deprecated
 	protected Map left;
 
+	// indexed by left unit index: start of the unit's row in rightIndices and costs,
+	// or with mapped storage, in pairPositions
+	protected int[] rowStart;
+	// indexed by left unit index: number of right units with a precomputed cost
+	protected int[] rowLength;
+	// heap storage: right unit indices, sorted within each row, and the cost of joining to them
+	protected int[] rightIndices;
+	protected float[] costs;
+	// mapped storage: the join cost file, and the byte positions of its pairs, sorted by right index within each row
+	protected ByteBuffer mappedPairs;
+	protected int[] pairPositions;
+
 	/**
 	 * Empty constructor; need to call load() separately.
 	 * 
@@ -80,6 +100,23 @@ public class PrecompiledJoinCostReader implements JoinCostFunction {
 		load(fileName, null, null, 0);
 	}
 
+	/**
+	 * Create a precompiled join cost file reader from the given file, keeping the costs in the given kind of storage.
+	 * 
+	 * @param fileName
+	 *            the file to read
+	 * @param storage
+	 *            how to keep the costs in memory; {@link Storage#objects} is treated like {@link Storage#heap}.
+	 * @throws IOException
+	 *             if a problem occurs while reading
+	 * @throws MaryConfigurationException
+	 *             MaryConfigurationException
+	 */
+	public PrecompiledJoinCostReader(String fileName, Storage storage) throws IOException, MaryConfigurationException {
+		this.storage = storage;
+		load(fileName, null, null, 0);
+	}
+
 	/**
 	 * Initialise this join cost function by reading the appropriate settings from the MaryProperties using the given
 	 * configPrefix.
@@ -118,31 +155,77 @@ public class PrecompiledJoinCostReader implements JoinCostFunction {
 	public void load(String fileName, InputStream dummy, String dummy2, float dummy3) throws IOException,
 			MaryConfigurationException {
 		/* Open the file */
-		DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName)));
-		hdr = new MaryHeader(dis);
+		FileInputStream fis = new FileInputStream(fileName);
+		FileChannel fc = fis.getChannel();
+		ByteBuffer bb = fc.map(FileChannel.MapMode.READ_ONLY, 0, fc.size());
+		fis.close();
+		hdr = new MaryHeader(bb);
 		if (hdr.getType() != MaryHeader.PRECOMPUTED_JOINCOSTS) {
 			throw new MaryConfigurationException("File [" + fileName + "] is not a valid Mary precompiled join costs file.");
 		}
 		/* Read the number of units */
-		int numberOfLeftUnits = dis.readInt();
+		int numberOfLeftUnits = bb.getInt();
 		if (numberOfLeftUnits < 0) {
 			throw new MaryConfigurationException("File [" + fileName + "] has a negative number of units. Aborting.");
 		}
 
-		left = new HashMap();
-		/* Read the start times and durations */
-		for (int i = 0; i < numberOfLeftUnits; i++) {
-			int leftIndex = dis.readInt();
-			int numberOfRightUnits = dis.readInt();
-			Map right = new HashMap();
-			left.put(new Integer(leftIndex), right);
-			for (int j = 0; j < numberOfRightUnits; j++) {
-				int rightIndex = dis.readInt();
-				float cost = dis.readFloat();
-				right.put(new Integer(rightIndex), new Float(cost));
+		/* Locate the rows of (right index, cost) pairs */
+		int[] leftIndices = new int[numberOfLeftUnits];
+		int[] positions = new int[numberOfLeftUnits];
+		int[] lengths = new int[numberOfLeftUnits];
+		int maxLeftIndex = -1;
+		int maxLength = 0;
+		long numberOfPairs = 0;
+		try {
+			for (int i = 0; i < numberOfLeftUnits; i++) {
+				leftIndices[i] = bb.getInt();
+				lengths[i] = bb.getInt();
+				if (leftIndices[i] < 0 || lengths[i] < 0) {
+					throw new MaryConfigurationException("File [" + fileName + "] has a negative unit index or number of units.");
+				}
+				positions[i] = bb.position();
+				if (bb.remaining() < 8L * lengths[i]) {
+					throw new BufferUnderflowException();
+				}
+				bb.position(positions[i] + 8 * lengths[i]);
+				maxLeftIndex = Math.max(maxLeftIndex, leftIndices[i]);
+				maxLength = Math.max(maxLength, lengths[i]);
+				numberOfPairs += lengths[i];
 			}
+		} catch (BufferUnderflowException e) {
+			throw new IOException("The precompiled join cost file [" + fileName + "] has prematurely reached EOF.", e);
 		}
 
+		// if a left unit occurs more than once, its last row is used
+		rowStart = new int[maxLeftIndex + 1];
+		rowLength = new int[maxLeftIndex + 1];
+		boolean mapped = storage == Storage.mapped;
+		mappedPairs = mapped ? bb : null;
+		pairPositions = mapped ? new int[(int) numberOfPairs] : null;
+		rightIndices = mapped ? null : new int[(int) numberOfPairs];
+		costs = mapped ? null : new float[(int) numberOfPairs];
+		// rows are sorted by right index, carried in the upper half of each entry, with the cost bits
+		// or, with mapped storage, the position of the pair below
+		long[] row = new long[maxLength];
+		int next = 0;
+		for (int i = 0; i < numberOfLeftUnits; i++) {
+			int length = lengths[i];
+			for (int j = 0, pos = positions[i]; j < length; j++, pos += 8) {
+				row[j] = ((long) bb.getInt(pos) << 32) | ((mapped ? pos : bb.getInt(pos + 4)) & 0xFFFFFFFFL);
+			}
+			Arrays.sort(row, 0, length);
+			for (int j = 0; j < length; j++) {
+				if (mapped) {
+					pairPositions[next + j] = (int) row[j];
+				} else {
+					rightIndices[next + j] = (int) (row[j] >>> 32);
+					costs[next + j] = Float.intBitsToFloat((int) row[j]);
+				}
+			}
+			rowStart[leftIndices[i]] = next;
+			rowLength[leftIndices[i]] = length;
+			next += length;
+		}
 	}
 
 	/**
@@ -159,15 +242,46 @@ public class PrecompiledJoinCostReader implements JoinCostFunction {
 	 *            uright
 	 */
 	public double cost(Target t1, Unit uleft, Target t2, Unit uright) {
-		Integer leftIndex = new Integer(uleft.index);
-		Map rightUnitsMap = (Map) left.get(leftIndex);
-		if (rightUnitsMap == null)
+		return cost(uleft.index, uright.index);
+	}
+
+	/**
+	 * Return the (precomputed) cost of joining the two given units; if there is no precomputed cost, return
+	 * Double.POSITIVE_INFINITY.
+	 * 
+	 * @param leftIndex
+	 *            index of the left unit
+	 * @param rightIndex
+	 *            index of the right unit
+	 * @return the cost of joining the units
+	 */
+	public double cost(int leftIndex, int rightIndex) {
+		if (leftIndex < 0 || leftIndex >= rowLength.length) {
 			return Double.POSITIVE_INFINITY;
-		Integer rightIndex = new Integer(uright.index);
-		Float cost = (Float) rightUnitsMap.get(rightIndex);
-		if (cost == null)
+		}
+		int start = rowStart[leftIndex];
+		int length = rowLength[leftIndex];
+		if (mappedPairs != null) {
+			int low = start;
+			int high = start + length - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				int pos = pairPositions[mid];
+				int midIndex = mappedPairs.getInt(pos);
+				if (midIndex < rightIndex) {
+					low = mid + 1;
+				} else if (midIndex > rightIndex) {
+					high = mid - 1;
+				} else {
+					return mappedPairs.getFloat(pos + 4);
+				}
+			}
+			return Double.POSITIVE_INFINITY;
+		}
+		int i = Arrays.binarySearch(rightIndices, start, start + length, rightIndex);
+		if (i < 0)
 			return Double.POSITIVE_INFINITY;
-		return cost.doubleValue();
+		return costs[i];
 	}
 
 }
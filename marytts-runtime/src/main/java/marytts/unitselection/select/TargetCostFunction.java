@@ -83,6 +83,24 @@ public interface TargetCostFunction {
 	 */
 	public double cost(Target target, Unit unit);
 
+	/**
+	 * Compute the goodness-of-fit of each of the given units for a given target, as {@link #cost(Target, Unit)} does for each of
+	 * them.
+	 * <p>
+	 * This method was added in 6.0, so implementations written for earlier versions must add it; by extending
+	 * {@link AbstractTargetCostFunction}, they get one that calls {@link #cost(Target, Unit)} for each unit.
+	 * 
+	 * @param target
+	 *            target
+	 * @param units
+	 *            units
+	 * @param numUnits
+	 *            the number of units to use from units
+	 * @param costs
+	 *            receives the cost of units[k] in costs[k]
+	 */
+	public void cost(Target target, Unit[] units, int numUnits, double[] costs);
+
 	/**
 	 * Compute the features for a given target, and store them in the target.
 	 * 
@@ -84,6 +84,29 @@ public class UnitSelector {
 			throws SynthesisException {
 		long time = System.currentTimeMillis();
 
+		List<Target> targets = createTargetsWithFeatures(tokensAndBoundaries);
+		Viterbi viterbi = createViterbi(targets);
+
+		viterbi.apply();
+		List<SelectedUnit> selectedUnits = viterbi.getSelectedUnits();
+		// If you can not associate the candidate units in the best path
+		// with the items in the segment relation, there is no best path
+		if (selectedUnits == null) {
+			throw new IllegalStateException("Viterbi: can't find path");
+		}
+		long newtime = System.currentTimeMillis() - time;
+		logger.debug("Selection took " + newtime + " milliseconds");
+		return selectedUnits;
+	}
+
+	/**
+	 * Create the targets for the segments and boundaries of an utterance, and compute their target features.
+	 * 
+	 * @param tokensAndBoundaries
+	 *            the token and boundary MaryXML elements representing an utterance.
+	 * @return a list of Target objects whose feature vectors are set
+	 */
+	public List<Target> createTargetsWithFeatures(List<Element> tokensAndBoundaries) {
 		List<Element> segmentsAndBoundaries = new ArrayList<Element>();
 		for (Element tOrB : tokensAndBoundaries) {
 			if (tOrB.getTagName().equals(MaryXML.BOUNDARY)) {
@@ -103,25 +126,22 @@ public class UnitSelector {
 		for (Target target : targets) {
 			tcf.computeTargetFeatures(target);
 		}
+		return targets;
+	}
 
-		Viterbi viterbi;
+	/**
+	 * Create the Viterbi search for the given targets, configured with this selector's database and weights.
+	 * 
+	 * @param targets
+	 *            targets whose feature vectors are set, as returned by {@link #createTargetsWithFeatures(List)}
+	 * @return a Viterbi instance on which apply() has not been called yet
+	 */
+	public Viterbi createViterbi(List<Target> targets) {
 		// Select the best candidates using Viterbi and the join cost function.
 		if (sCostWeight < 0) {
-			viterbi = new Viterbi(targets, database, targetCostWeight, beamSize);
-		} else {
-			viterbi = new Viterbi(targets, database, targetCostWeight, sCostWeight, beamSize);
+			return new Viterbi(targets, database, targetCostWeight, beamSize);
 		}
-
-		viterbi.apply();
-		List<SelectedUnit> selectedUnits = viterbi.getSelectedUnits();
-		// If you can not associate the candidate units in the best path
-		// with the items in the segment relation, there is no best path
-		if (selectedUnits == null) {
-			throw new IllegalStateException("Viterbi: can't find path");
-		}
-		long newtime = System.currentTimeMillis() - time;
-		logger.debug("Selection took " + newtime + " milliseconds");
-		return selectedUnits;
+		return new Viterbi(targets, database, targetCostWeight, sCostWeight, beamSize);
 	}
 
 	/**
@@ -167,6 +167,15 @@ public class VocalizationFFRTargetCostFunction extends FFRTargetCostFunction {
 		return cost;
 	}
 
+	@Override
+	protected void cost(Target target, Unit[] units, int numUnits, FeatureDefinition weights, WeightFunc[] weightFunctions,
+			double[] costs) {
+		// vocalization units are few, and their features are kept as objects: no need for batching
+		for (int k = 0; k < numUnits; k++) {
+			costs[k] = cost(target, units[k], weights, weightFunctions);
+		}
+	}
+
 	/**
 	 * Compute the goodness-of-fit between given unit and given target for a given feature
 	 * 
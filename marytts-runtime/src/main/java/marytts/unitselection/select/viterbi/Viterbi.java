@@ -34,18 +34,22 @@ package marytts.unitselection.select.viterbi;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.text.DecimalFormat;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
 import marytts.exceptions.SynthesisException;
+import marytts.server.MaryProperties;
+import marytts.server.Request;
 import marytts.unitselection.data.DiphoneUnit;
 import marytts.unitselection.data.Unit;
 import marytts.unitselection.data.UnitDatabase;
 import marytts.unitselection.select.DiphoneTarget;
+import marytts.unitselection.select.JoinCostFeatures;
 import marytts.unitselection.select.JoinCostFunction;
+import marytts.unitselection.select.JoinModelCost;
 import marytts.unitselection.select.SelectedUnit;
 import marytts.unitselection.select.StatisticalCostFunction;
 import marytts.unitselection.select.Target;
@@ -54,6 +58,7 @@ import marytts.util.MaryUtils;
 
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
+import org.w3c.dom.Element;
 
 /**
  * Provides support for the Viterbi Algorithm.
@@ -86,6 +91,8 @@ public class Viterbi {
 
 	protected ViterbiPoint firstPoint = null;
 	protected ViterbiPoint lastPoint = null;
+	// the best path found by apply(), ending in lastPoint
+	protected ViterbiPath bestPath = null;
 	private UnitDatabase database;
 	protected TargetCostFunction targetCostFunction;
 	protected JoinCostFunction joinCostFunction;
@@ -96,10 +103,25 @@ public class Viterbi {
 	protected int nJoinCosts;
 	protected double cumulTargetCosts;
 	protected int nTargetCosts;
+	// join costs looked up in, and found in, the join cost memo:
+	protected int nJoinCostLookups;
+	protected int nJoinCostHits;
+
+	// the maximum number of join costs remembered per thread, and whether they are kept across requests
+	private static final int JOIN_COST_MEMO_SIZE = MaryProperties.getInteger("unitselection.joincostmemo.size", 65536);
+	private static final boolean JOIN_COST_MEMO_GLOBAL = MaryProperties.getBoolean("unitselection.joincostmemo.global", false);
 
 	// Keep track of average costs for each voice: map UnitDatabase->DebugStats
 	private static Map<UnitDatabase, DebugStats> debugStats = new HashMap<UnitDatabase, DebugStats>();
 
+	// search space, reused by all searches on the same thread
+	private static final ThreadLocal<Lattice> lattices = new ThreadLocal<Lattice>() {
+		@Override
+		protected Lattice initialValue() {
+			return new Lattice();
+		}
+	};
+
 	/**
 	 * Creates a Viterbi class to process the given utterance. A queue of ViterbiPoints corresponding to the Items in the Relation
 	 * segs is built up.
@@ -127,6 +149,8 @@ public class Viterbi {
 		this.nJoinCosts = 0;
 		this.cumulTargetCosts = 0;
 		this.nTargetCosts = 0;
+		this.nJoinCostLookups = 0;
+		this.nJoinCostHits = 0;
 		ViterbiPoint last = null;
 		// for each segment, build a ViterbiPoint
 		for (Target target : targets) {
@@ -136,8 +160,6 @@ public class Viterbi {
 				last.setNext(nextPoint);
 			} else { // firstPoint is the start of the queue
 				firstPoint = nextPoint;
-				// dummy start path:
-				firstPoint.getPaths().add(new ViterbiPath(null, null, 0));
 			}
 			last = nextPoint;
 		}
@@ -178,6 +200,8 @@ public class Viterbi {
 		this.nJoinCosts = 0;
 		this.cumulTargetCosts = 0;
 		this.nTargetCosts = 0;
+		this.nJoinCostLookups = 0;
+		this.nJoinCostHits = 0;
 		ViterbiPoint last = null;
 		// for each segment, build a ViterbiPoint
 		for (Target target : targets) {
@@ -187,8 +211,6 @@ public class Viterbi {
 				last.setNext(nextPoint);
 			} else { // firstPoint is the start of the queue
 				firstPoint = nextPoint;
-				// dummy start path:
-				firstPoint.getPaths().add(new ViterbiPath(null, null, 0));
 			}
 			last = nextPoint;
 		}
@@ -215,108 +237,116 @@ public class Viterbi {
 	 */
 	public void apply() throws SynthesisException {
 		logger.debug("Viterbi running with beam size " + beamSize);
-		// go through all but the last point
-		// (since last point has no item)
-		for (ViterbiPoint point = firstPoint; point.next != null; point = point.next) {
-			// The candidates for the current item:
-			// candidate selection is carried out by UnitSelector
-			Target target = point.target;
-			List<ViterbiCandidate> candidates = database.getCandidates(target);
-			if (candidates.size() == 0) {
-				if (target instanceof DiphoneTarget) {
-					logger.debug("No diphone '" + target.getName() + "' -- will build from halfphones");
-					DiphoneTarget dt = (DiphoneTarget) target;
-					// replace diphone viterbi point with two half-phone viterbi points
-					Target left = dt.left;
-					Target right = dt.right;
-					point.setTarget(left);
-					ViterbiPoint newP = new ViterbiPoint(right);
-					newP.next = point.next;
-					point.next = newP;
-					candidates = database.getCandidates(left);
-					if (candidates.size() == 0)
-						throw new SynthesisException("Cannot even find any halfphone unit for target " + left);
-				} else {
-					throw new SynthesisException("Cannot find any units for target " + target);
+		bestPath = null;
+		for (ViterbiPoint point = firstPoint; point != null; point = point.next) {
+			point.bestPath = null;
+		}
+		Lattice lattice = lattices.get();
+		lattice.joinCosts = getJoinCostMemo(lattice);
+		try {
+			// dummy start path:
+			int pathsStart = lattice.addPath(null, -1, 0);
+			int numPaths = 1;
+			// go through all but the last point
+			// (since last point has no item)
+			for (ViterbiPoint point = firstPoint; point.next != null; point = point.next) {
+				// The candidates for the current item:
+				// candidate selection is carried out by UnitSelector
+				Target target = point.target;
+				List<ViterbiCandidate> candidates = database.getCandidates(target);
+				if (candidates.size() == 0) {
+					if (target instanceof DiphoneTarget) {
+						logger.debug("No diphone '" + target.getName() + "' -- will build from halfphones");
+						DiphoneTarget dt = (DiphoneTarget) target;
+						// replace diphone viterbi point with two half-phone viterbi points
+						Target left = dt.left;
+						Target right = dt.right;
+						point.setTarget(left);
+						ViterbiPoint newP = new ViterbiPoint(right);
+						newP.next = point.next;
+						point.next = newP;
+						candidates = database.getCandidates(left);
+						if (candidates.size() == 0)
+							throw new SynthesisException("Cannot even find any halfphone unit for target " + left);
+					} else {
+						throw new SynthesisException("Cannot find any units for target " + target);
+					}
 				}
-			}
-			assert candidates.size() > 0;
-
-			// absolutely critical since candidates is no longer a SortedSet:
-			Collections.sort(candidates);
-
-			point.candidates = candidates;
-			assert beamSize != 0; // general beam search not implemented
-
-			// Now go through all existing paths and all candidates
-			// for the current item;
-			// tentatively extend each existing path to each of
-			// the candidates, but only retain the best one
-			List<ViterbiPath> paths = point.paths;
-			int nPaths = paths.size();
-			if (beamSize != -1 && beamSize < nPaths) {
-				// beam search, look only at the best n paths:
-				nPaths = beamSize;
-			}
-			// for searchStrategy == -1, no beam -- look at all candidates.
-			int i = 0;
-			int iMax = nPaths;
-			for (ViterbiPath pp : paths) {
-				assert pp != null;
-				// We are at the very beginning of the search,
-				// or have a usable path to extend
-				candidates = point.candidates;
-				assert candidates != null;
-				int j = 0;
-				int jMax = beamSize;
-				// Go through the candidates as returned by the iterator of the sorted set,
-				// i.e. sorted according to increasing target cost.
-				for (ViterbiCandidate c : candidates) {
-					// For the candidate c, create a path extending the
-					// previous path pp to that candidate, taking into
-					// account the target and join costs:
-					ViterbiPath np = getPath(pp, c);
-					// Compare this path to the existing best path
-					// (if any) leading to candidate c; only retain
-					// the one with the better score.
-					addPath(point.next, np);
-					if (++j == jMax)
-						break;
+				assert candidates.size() > 0;
+
+				point.candidates = candidates;
+				assert beamSize != 0; // general beam search not implemented
+
+				// for searchStrategy == -1, no beam -- look at all candidates.
+				int nCandidates = candidates.size();
+				if (beamSize != -1 && beamSize < nCandidates) {
+					nCandidates = beamSize;
 				}
-				if (++i == iMax)
-					break;
+				// only the candidates with the lowest target costs are tried,
+				// in order of increasing target cost:
+				int[] best = lattice.selectBest(candidates, nCandidates);
+				int nPaths = numPaths;
+				if (beamSize != -1 && beamSize < nPaths) {
+					// beam search, look only at the first n paths:
+					nPaths = beamSize;
+				}
+				// Now go through the existing paths and the candidates
+				// for the current item;
+				// tentatively extend each existing path to each of
+				// the candidates, but only retain the best one
+				lattice.clearExtensions(nCandidates);
+				for (int i = 0; i < nPaths; i++) {
+					int pp = pathsStart + i;
+					// the join costs of pp with all candidates at once:
+					double[] joinCosts = computeJoinCosts(lattice, pp, candidates, best, nCandidates);
+					for (int j = 0; j < nCandidates; j++) {
+						// For the candidate c, score the path extending the
+						// previous path pp to that candidate, taking into
+						// account the target and join costs, and compare it
+						// to the existing best path (if any) leading to
+						// candidate c; only retain the one with the better score.
+						lattice.extend(j, pp, getScore(lattice, pp, candidates.get(best[j]), joinCosts[j]));
+					}
+				}
+				pathsStart = lattice.numPaths;
+				numPaths = lattice.addExtensions(candidates, best);
 			}
+			bestPath = findBestPath(lattice, pathsStart, numPaths);
+		} finally {
+			lattice.clear();
 		}
 	}
 
 	/**
-	 * Add the new path to the state path if it is better than the current path. In this, state means the position of the
-	 * candidate associated with this path in the candidate queue for the corresponding segment item. In other words, this method
-	 * uses newPath as the one path leading to the candidate newPath.candidate, if it has a better score than the previously best
-	 * path leading to that candidate.
-	 *
-	 * @param point
-	 *            where the path is added
-	 * @param newPath
-	 *            the path to add if its score is best
+	 * Get the memo of join costs to use in this search. Only join costs computed from the units alone can be remembered; the memo
+	 * is kept per thread, and starts afresh for each request unless it is configured to be global.
+	 * 
+	 * @param lattice
+	 *            the search space of this thread
+	 * @return the memo, or null if join costs are not remembered
 	 */
-	void addPath(ViterbiPoint point, ViterbiPath newPath) {
-		// get the position of newPath's candidate
-		// in path array statePath of point
-		ViterbiCandidate candidate = newPath.candidate;
-		assert candidate != null;
-		ViterbiPath bestPathSoFar = candidate.bestPath;
-		List<ViterbiPath> paths = point.getPaths();
-		if (bestPathSoFar == null) {
-			// we don't have a path for the candidate yet, so this is best
-			paths.add(newPath);
-			candidate.setBestPath(newPath);
-		} else if (newPath.score < bestPathSoFar.score) {
-			// newPath is a better path for the candidate
-			paths.remove(bestPathSoFar);
-			paths.add(newPath);
-			candidate.setBestPath(newPath);
+	private JoinCostMemo getJoinCostMemo(Lattice lattice) {
+		if (JOIN_COST_MEMO_SIZE <= 0 || !(joinCostFunction instanceof JoinCostFeatures)) {
+			return null;
 		}
+		Object request = null;
+		if (!JOIN_COST_MEMO_GLOBAL) {
+			Element element = firstPoint.target.getMaryxmlElement();
+			if (element != null) {
+				request = Request.getRequestToken(element.getOwnerDocument());
+			}
+			// without a request, each search counts as a request of its own
+			if (request == null) {
+				request = new Object();
+			}
+		}
+		JoinCostMemo memo = lattice.joinCostMemo;
+		if (memo == null) {
+			memo = new JoinCostMemo(JOIN_COST_MEMO_SIZE);
+			lattice.joinCostMemo = memo;
+		}
+		memo.use(joinCostFunction, request);
+		return memo;
 	}
 
 	/**
@@ -329,7 +359,7 @@ public class Viterbi {
 		if (firstPoint == null || firstPoint.getNext() == null) {
 			return selectedUnits; // null case
 		}
-		ViterbiPath best = findBestPath();
+		ViterbiPath best = bestPath;
 		if (best == null) {
 			// System.out.println("No best path found");
 			return null;
@@ -424,6 +454,9 @@ public class Viterbi {
 			double avgJoinCost = cumulJoinCosts / nJoinCosts;
 			logger.debug("Avg. cost: best path " + df.format(avgCostBestPath) + ", avg. target " + df.format(avgTargetCost)
 					+ ", join " + df.format(avgJoinCost) + " (n=" + nTargetCosts + ")");
+			double joinCostHitRate = nJoinCostLookups > 0 ? nJoinCostHits / (double) nJoinCostLookups : 0;
+			logger.debug("Join cost memo: " + nJoinCostHits + " of " + nJoinCostLookups + " join costs remembered (hit rate "
+					+ df.format(joinCostHitRate) + ")");
 			DebugStats stats = debugStats.get(database);
 			if (stats == null) {
 				stats = new DebugStats();
@@ -436,10 +469,12 @@ public class Viterbi {
 			stats.avgCostBestPath += (avgCostBestPath - stats.avgCostBestPath) / stats.n;
 			stats.avgTargetCost += (avgTargetCost - stats.avgTargetCost) / stats.n;
 			stats.avgJoinCost += (avgJoinCost - stats.avgJoinCost) / stats.n;
+			stats.avgJoinCostHitRate += (joinCostHitRate - stats.avgJoinCostHitRate) / stats.n;
 			logger.debug("Total average of " + stats.n + " utterances for this voice:");
 			logger.debug("Avg. length: " + df.format(stats.avgLength) + ", avg. cost best path: "
 					+ df.format(stats.avgCostBestPath) + ", avg. target cost: " + df.format(stats.avgTargetCost)
-					+ ", avg. join cost: " + df.format(stats.avgJoinCost));
+					+ ", avg. join cost: " + df.format(stats.avgJoinCost) + ", avg. join cost memo hit rate: "
+					+ df.format(stats.avgJoinCostHitRate));
 
 		}
 
@@ -447,40 +482,108 @@ public class Viterbi {
 	}
 
 	/**
-	 * Construct a new path element linking a previous path to the given candidate. The (penalty) score associated with the new
-	 * path is calculated as the sum of the score of the old path plus the score of the candidate itself plus the join cost of
-	 * appending the candidate to the nearest candidate in the given path. This join cost takes into account optimal coupling if
-	 * the database has OPTIMAL_COUPLING set to 1. The join position is saved in the new path, as the features "unit_prev_move"
-	 * and "unit_this_move".
+	 * Compute the join costs of appending each of the best candidates to the last candidate of the given path. Join costs that
+	 * are neither free nor remembered are computed together, so that a {@link JoinCostFeatures} can compute them for all
+	 * candidates at once.
+	 * 
+	 * @param lattice
+	 *            the search space containing the previous path
+	 * @param path
+	 *            the index of the previous path in lattice
+	 * @param candidates
+	 *            the candidates of the current point
+	 * @param best
+	 *            the indices of the best candidates
+	 * @param nCandidates
+	 *            the number of best candidates
+	 * @return the join cost of each of the best candidates, in the order of best
+	 */
+	private double[] computeJoinCosts(Lattice lattice, int path, List<ViterbiCandidate> candidates, int[] best, int nCandidates) {
+		double[] joinCosts = lattice.joinCost;
+		ViterbiCandidate prevCandidate = lattice.pathCandidate[path];
+		if (prevCandidate == null) {
+			Arrays.fill(joinCosts, 0, nCandidates, 0);
+			return joinCosts;
+		}
+		Target prevTarget = prevCandidate.target;
+		Unit prevUnit = prevCandidate.unit;
+		JoinCostMemo memo = lattice.joinCosts;
+		int[] missing = lattice.missing;
+		Unit[] missingUnits = lattice.missingUnits;
+		int nMissing = 0;
+		for (int j = 0; j < nCandidates; j++) {
+			Unit candidateUnit = candidates.get(best[j]).unit;
+			if (isAdjacent(prevUnit, candidateUnit)) {
+				joinCosts[j] = 0;
+				continue;
+			}
+			if (memo != null) {
+				long key = JoinCostMemo.key(prevUnit, candidateUnit);
+				int slot = memo.find(key);
+				nJoinCostLookups++;
+				if (memo.contains(slot, key)) {
+					joinCosts[j] = memo.get(slot);
+					nJoinCostHits++;
+					continue;
+				}
+			}
+			missing[nMissing] = j;
+			missingUnits[nMissing++] = candidateUnit;
+		}
+		if (nMissing == 0) {
+			return joinCosts;
+		}
+		double[] missingCosts = lattice.missingCosts;
+		if (joinCostFunction instanceof JoinCostFeatures) {
+			// the cost only depends on the units
+			Target candidateTarget = candidates.get(best[missing[0]]).target;
+			((JoinCostFeatures) joinCostFunction).cost(prevTarget, prevUnit, candidateTarget, missingUnits, nMissing,
+					missingCosts);
+		} else {
+			for (int m = 0; m < nMissing; m++) {
+				Target candidateTarget = candidates.get(best[missing[m]]).target;
+				missingCosts[m] = joinCostFunction.cost(prevTarget, prevUnit, candidateTarget, missingUnits[m]);
+			}
+		}
+		for (int m = 0; m < nMissing; m++) {
+			joinCosts[missing[m]] = missingCosts[m];
+			if (memo != null) {
+				long key = JoinCostMemo.key(prevUnit, missingUnits[m]);
+				memo.put(memo.find(key), key, missingCosts[m]);
+			}
+		}
+		return joinCosts;
+	}
+
+	/**
+	 * Compute the (penalty) score of the path linking a previous path to the given candidate. It is calculated as the sum of the
+	 * score of the old path plus the score of the candidate itself plus the join cost of appending the candidate to the nearest
+	 * candidate in the given path.
 	 *
+	 * @param lattice
+	 *            the search space containing the previous path
 	 * @param path
-	 *            the previous path, or null if this candidate starts a new path
-	 * @param candiate
+	 *            the index of the previous path in lattice
+	 * @param candidate
 	 *            the candidate to add to the path
+	 * @param joinCost
+	 *            the join cost of appending the candidate to the previous path, as computed by computeJoinCosts()
 	 *
-	 * @return a new path, consisting of this candidate appended to the previous path, and with the cumulative (penalty) score
-	 *         calculated.
+	 * @return the cumulative (penalty) score of this candidate appended to the previous path.
 	 */
-	private ViterbiPath getPath(ViterbiPath path, ViterbiCandidate candidate) {
+	private double getScore(Lattice lattice, int path, ViterbiCandidate candidate, double joinCost) {
 		double cost;
 
-		Target candidateTarget = candidate.target;
 		Unit candidateUnit = candidate.unit;
 
-		double joinCost;
 		double sCost = 0;
 		double targetCost;
 		// Target costs:
 		targetCost = candidate.targetCost;
 
-		if (path == null || path.candidate == null) {
-			joinCost = 0;
-		} else {
-			// Join costs:
-			ViterbiCandidate prevCandidate = path.candidate;
-			Target prevTarget = prevCandidate.target;
+		ViterbiCandidate prevCandidate = lattice.pathCandidate[path];
+		if (prevCandidate != null) {
 			Unit prevUnit = prevCandidate.unit;
-			joinCost = joinCostFunction.cost(prevTarget, prevUnit, candidateTarget, candidateUnit);
 			if (sCostFunction != null)
 				sCost = sCostFunction.cost(prevUnit, candidateUnit);
 		}
@@ -498,45 +601,88 @@ public class Viterbi {
 		nTargetCosts++;
 		// logger.debug(candidateUnit+": target cost "+targetCost+", join cost "+joinCost);
 
-		if (path != null) {
-			cost += path.score;
-		}
+		cost += lattice.pathScore[path];
+
+		return cost;
+	}
 
-		return new ViterbiPath(candidate, path, cost);
+	/**
+	 * Whether the given units are adjacent in the database, i.e. whether the join cost functions that don't charge for joining
+	 * such units ({@link JoinCostFeatures} and {@link JoinModelCost}) would return 0 for them.
+	 * 
+	 * @param left
+	 *            the left unit
+	 * @param right
+	 *            the right unit
+	 * @return true if joining the units is known to cost nothing
+	 */
+	boolean isAdjacent(Unit left, Unit right) {
+		if (!(joinCostFunction instanceof JoinCostFeatures || joinCostFunction instanceof JoinModelCost)) {
+			return false;
+		}
+		// Units of length 0 cannot be joined:
+		if (left.duration == 0 || right.duration == 0) {
+			return false;
+		}
+		// In the case of diphones, the relevant part is joined:
+		if (left instanceof DiphoneUnit) {
+			left = ((DiphoneUnit) left).right;
+		}
+		if (right instanceof DiphoneUnit) {
+			right = ((DiphoneUnit) right).left;
+		}
+		return left.index + 1 == right.index;
 	}
 
 	/**
-	 * Find the best path. This requires apply() to have been run. For this best path, we set the pointers to the *next* path
-	 * elements correctly.
+	 * Find the best path among the paths ending in lastPoint, and build it from the lattice. For this best path, we set the
+	 * pointers to the *next* path elements correctly.
 	 *
+	 * @param lattice
+	 *            the search space
+	 * @param pathsStart
+	 *            the index of the first path ending in lastPoint
+	 * @param numPaths
+	 *            the number of paths ending in lastPoint
 	 * @return the best path, or null if no best path could be found.
 	 */
-	private ViterbiPath findBestPath() {
+	private ViterbiPath findBestPath(Lattice lattice, int pathsStart, int numPaths) {
 		assert beamSize != 0;
 		// All paths end in lastPoint, and take into account
 		// previous path segment's scores. Therefore, it is
 		// sufficient to find the best path from among the
 		// paths for lastPoint.
-		List<ViterbiPath> paths = lastPoint.getPaths();
-		if (paths.isEmpty()) // no path, we failed
+		if (numPaths == 0) // no path, we failed
 			return null;
 
-		// as paths is no longer a SortedSet, they must be explicitly sorted:
-		Collections.sort(paths);
-		ViterbiPath best = paths.get(0);
+		// of several paths with the best score, the first one wins
+		int best = pathsStart;
+		for (int i = pathsStart + 1; i < pathsStart + numPaths; i++) {
+			if (Double.compare(lattice.pathScore[i], lattice.pathScore[best]) < 0) {
+				best = i;
+			}
+		}
 
-		// Set *next* pointers correctly:
-		ViterbiPath path = best;
-		double totalCost = best.score;
 		int elements = 0;
-		while (path != null) {
+		for (int p = best; p != -1; p = lattice.pathPrevious[p]) {
 			elements++;
-			ViterbiPath prev = path.previous;
-			if (prev != null)
-				prev.setNext(path);
-			path = prev;
 		}
-		return best;
+		int[] indices = new int[elements];
+		for (int p = best, i = elements - 1; p != -1; p = lattice.pathPrevious[p], i--) {
+			indices[i] = p;
+		}
+		// Set *next* pointers correctly, and remember at each point the path leading to it:
+		ViterbiPath path = null;
+		ViterbiPoint point = firstPoint;
+		for (int p : indices) {
+			ViterbiPath next = new ViterbiPath(lattice.pathCandidate[p], path, lattice.pathScore[p]);
+			if (path != null)
+				path.setNext(next);
+			path = next;
+			point.bestPath = path;
+			point = point.next;
+		}
+		return path;
 	}
 
 	private class DebugStats {
@@ -545,6 +691,332 @@ public class Viterbi {
 		double avgCostBestPath;
 		double avgTargetCost;
 		double avgJoinCost;
+		double avgJoinCostHitRate;
+	}
+
+	/**
+	 * Join costs of unit pairs, in an open-addressing hash table of bounded size that is emptied when it gets full.
+	 */
+	static final class JoinCostMemo {
+		private static final long EMPTY = -1;
+
+		private final long[] keys;
+		private final double[] costs;
+		private final int mask;
+		private final int maxSize;
+		private int size;
+		// the join cost function and the request (null if global) the remembered costs belong to
+		private Object function;
+		private Object request;
+
+		/**
+		 * @param size
+		 *            the maximum number of join costs to remember
+		 */
+		JoinCostMemo(int size) {
+			int capacity = capacityFor(size);
+			keys = new long[capacity];
+			costs = new double[capacity];
+			Arrays.fill(keys, EMPTY);
+			mask = capacity - 1;
+			maxSize = size;
+		}
+
+		// a power of two leaving more than a quarter of the table free, so that there is always an empty slot
+		static int capacityFor(int size) {
+			return Integer.highestOneBit(size + size / 3) << 1;
+		}
+
+		/**
+		 * Prepare for looking up join costs computed by the given function for the given request, forgetting those remembered for
+		 * another function or request.
+		 * 
+		 * @param joinCostFunction
+		 *            the join cost function
+		 * @param currentRequest
+		 *            the request, or null if the remembered costs don't belong to a request
+		 */
+		void use(Object joinCostFunction, Object currentRequest) {
+			if (joinCostFunction != function || currentRequest != request) {
+				clear();
+				function = joinCostFunction;
+				request = currentRequest;
+			}
+		}
+
+		void clear() {
+			if (size > 0) {
+				Arrays.fill(keys, EMPTY);
+				size = 0;
+			}
+		}
+
+		/**
+		 * The key of a unit pair. A diphone unit has the index of its left half, so whether a unit is a diphone is part of the
+		 * key.
+		 * 
+		 * @param left
+		 *            left unit
+		 * @param right
+		 *            right unit
+		 * @return the key
+		 */
+		static long key(Unit left, Unit right) {
+			long l = 2L * left.index + (left instanceof DiphoneUnit ? 1 : 0);
+			long r = 2L * right.index + (right instanceof DiphoneUnit ? 1 : 0);
+			return l << 32 | r;
+		}
+
+		/**
+		 * @param key
+		 *            key
+		 * @return the slot that holds key, or the empty slot where it would be put
+		 */
+		int find(long key) {
+			int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+			while (keys[slot] != key && keys[slot] != EMPTY) {
+				slot = (slot + 1) & mask;
+			}
+			return slot;
+		}
+
+		boolean contains(int slot, long key) {
+			return keys[slot] == key;
+		}
+
+		double get(int slot) {
+			return costs[slot];
+		}
+
+		/**
+		 * Remember a join cost in the empty slot found for its key.
+		 * 
+		 * @param slot
+		 *            the slot returned by find(key)
+		 * @param key
+		 *            key
+		 * @param cost
+		 *            cost
+		 */
+		void put(int slot, long key, double cost) {
+			if (size == maxSize) {
+				clear();
+				slot = find(key);
+			}
+			keys[slot] = key;
+			costs[slot] = cost;
+			size++;
+		}
+	}
+
+	/**
+	 * The search space of a Viterbi search, in parallel arrays. It holds the paths found so far, as well as the best extension of
+	 * the current paths to each candidate of the current point.
+	 */
+	private static final class Lattice {
+		// paths: the candidate each one leads to (null for the start path), the index of the path it extends (-1 for the start
+		// path), and its score
+		ViterbiCandidate[] pathCandidate = new ViterbiCandidate[1024];
+		int[] pathPrevious = new int[1024];
+		double[] pathScore = new double[1024];
+		int numPaths;
+
+		// candidates of the current point: their target costs, and the indices of the best ones
+		double[] targetCosts = new double[256];
+		int[] best = new int[256];
+
+		// the best extension leading to each of the best candidates: its score and the path it extends (-1 if none yet);
+		// the candidates that have one are linked in the order in which their extension was last improved
+		double[] extensionScore = new double[256];
+		int[] extensionPath = new int[256];
+		int[] extensionNext = new int[256];
+		int[] extensionPrev = new int[256];
+		int firstExtension;
+		int lastExtension;
+
+		// the join costs of the path being extended with each of the best candidates; and those of them still to be computed:
+		// their positions among the best candidates, their units and their costs
+		double[] joinCost = new double[256];
+		int[] missing = new int[256];
+		Unit[] missingUnits = new Unit[256];
+		double[] missingCosts = new double[256];
+
+		// join costs remembered by the searches on this thread, and the memo used by the current search (null if none)
+		JoinCostMemo joinCostMemo;
+		JoinCostMemo joinCosts;
+
+		int addPath(ViterbiCandidate candidate, int previous, double score) {
+			if (numPaths == pathScore.length) {
+				pathCandidate = Arrays.copyOf(pathCandidate, 2 * numPaths);
+				pathPrevious = Arrays.copyOf(pathPrevious, 2 * numPaths);
+				pathScore = Arrays.copyOf(pathScore, 2 * numPaths);
+			}
+			pathCandidate[numPaths] = candidate;
+			pathPrevious[numPaths] = previous;
+			pathScore[numPaths] = score;
+			return numPaths++;
+		}
+
+		/**
+		 * Find the n candidates with the lowest target costs. Candidates with equal target costs keep their order.
+		 * 
+		 * @param candidates
+		 *            candidates
+		 * @param n
+		 *            the number of candidates to select, at most candidates.size()
+		 * @return the indices of the selected candidates in the first n elements, in order of increasing target cost
+		 */
+		int[] selectBest(List<ViterbiCandidate> candidates, int n) {
+			int size = candidates.size();
+			if (targetCosts.length < size) {
+				targetCosts = new double[Math.max(size, 2 * targetCosts.length)];
+			}
+			if (best.length < n) {
+				best = new int[Math.max(n, 2 * best.length)];
+			}
+			for (int i = 0; i < size; i++) {
+				targetCosts[i] = candidates.get(i).targetCost;
+			}
+			// keep the n best candidates seen so far in a heap, with the worst of them on top
+			for (int i = 0; i < n; i++) {
+				best[i] = i;
+			}
+			for (int i = n / 2 - 1; i >= 0; i--) {
+				siftDown(i, n);
+			}
+			for (int i = n; i < size; i++) {
+				if (worse(best[0], i)) {
+					best[0] = i;
+					siftDown(0, n);
+				}
+			}
+			// and sort them
+			for (int end = n - 1; end > 0; end--) {
+				int worst = best[0];
+				best[0] = best[end];
+				best[end] = worst;
+				siftDown(0, end);
+			}
+			return best;
+		}
+
+		// whether candidate a comes after candidate b when sorted by target cost
+		private boolean worse(int a, int b) {
+			double costA = targetCosts[a];
+			double costB = targetCosts[b];
+			return costA > costB || !(costA < costB) && a > b;
+		}
+
+		private void siftDown(int i, int heapSize) {
+			int top = best[i];
+			int child;
+			while ((child = 2 * i + 1) < heapSize) {
+				if (child + 1 < heapSize && worse(best[child + 1], best[child])) {
+					child++;
+				}
+				if (!worse(best[child], top)) {
+					break;
+				}
+				best[i] = best[child];
+				i = child;
+			}
+			best[i] = top;
+		}
+
+		void clearExtensions(int n) {
+			if (extensionPath.length < n) {
+				int length = Math.max(n, 2 * extensionPath.length);
+				extensionScore = new double[length];
+				extensionPath = new int[length];
+				extensionNext = new int[length];
+				extensionPrev = new int[length];
+				joinCost = new double[length];
+				missing = new int[length];
+				missingUnits = new Unit[length];
+				missingCosts = new double[length];
+			}
+			Arrays.fill(extensionPath, 0, n, -1);
+			firstExtension = -1;
+			lastExtension = -1;
+		}
+
+		/**
+		 * Use the extension of the given path to the given candidate if it has a better score than the previously best one leading
+		 * to that candidate.
+		 * 
+		 * @param candidate
+		 *            the position of the candidate among the best candidates
+		 * @param path
+		 *            the index of the extended path
+		 * @param score
+		 *            the score of the extension
+		 */
+		void extend(int candidate, int path, double score) {
+			if (extensionPath[candidate] == -1) {
+				// we don't have a path for the candidate yet, so this is best
+				extensionPath[candidate] = path;
+				extensionScore[candidate] = score;
+				append(candidate);
+			} else if (score < extensionScore[candidate]) {
+				// this is a better path for the candidate
+				extensionPath[candidate] = path;
+				extensionScore[candidate] = score;
+				unlink(candidate);
+				append(candidate);
+			}
+		}
+
+		private void append(int candidate) {
+			extensionPrev[candidate] = lastExtension;
+			extensionNext[candidate] = -1;
+			if (lastExtension == -1) {
+				firstExtension = candidate;
+			} else {
+				extensionNext[lastExtension] = candidate;
+			}
+			lastExtension = candidate;
+		}
+
+		private void unlink(int candidate) {
+			int prev = extensionPrev[candidate];
+			int next = extensionNext[candidate];
+			if (prev == -1) {
+				firstExtension = next;
+			} else {
+				extensionNext[prev] = next;
+			}
+			if (next == -1) {
+				lastExtension = prev;
+			} else {
+				extensionPrev[next] = prev;
+			}
+		}
+
+		/**
+		 * Add the best extensions as paths, in the order in which they were last improved.
+		 * 
+		 * @param candidates
+		 *            the candidates of the current point
+		 * @param best
+		 *            the indices of the best candidates, as returned by selectBest()
+		 * @return the number of paths added
+		 */
+		int addExtensions(List<ViterbiCandidate> candidates, int[] best) {
+			int n = 0;
+			for (int j = firstExtension; j != -1; j = extensionNext[j]) {
+				addPath(candidates.get(best[j]), extensionPath[j], extensionScore[j]);
+				n++;
+			}
+			return n;
+		}
+
+		void clear() {
+			// don't hold on to the candidates until the next search
+			Arrays.fill(pathCandidate, 0, numPaths, null);
+			numPaths = 0;
+			Arrays.fill(missingUnits, null);
+			joinCosts = null;
+		}
 	}
 
 }
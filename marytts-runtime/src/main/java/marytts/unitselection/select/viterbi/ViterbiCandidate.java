@@ -51,6 +51,23 @@ public class ViterbiCandidate implements Comparable<ViterbiCandidate> {
 		this.targetCost = tcf.cost(target, unit);
 	}
 
+	/**
+	 * Create a candidate whose target cost has already been computed, e.g. by
+	 * {@link TargetCostFunction#cost(Target, Unit[], int, double[])} for all candidates of a target at once.
+	 * 
+	 * @param target
+	 *            target
+	 * @param unit
+	 *            unit
+	 * @param targetCost
+	 *            the target cost of unit for target
+	 */
+	public ViterbiCandidate(Target target, Unit unit, double targetCost) {
+		this.target = target;
+		this.unit = unit;
+		this.targetCost = targetCost;
+	}
+
 	/**
 	 * Calculates and returns the target cost for this candidate
 	 * 
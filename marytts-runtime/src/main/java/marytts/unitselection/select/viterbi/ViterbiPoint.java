@@ -43,7 +43,8 @@ import marytts.unitselection.select.Target;
 public class ViterbiPoint {
 	Target target = null;
 	List<ViterbiCandidate> candidates = null;
-	List<ViterbiPath> paths = new ArrayList<ViterbiPath>();
+	// the part of the best path leading to this point, once the search is done
+	ViterbiPath bestPath = null;
 	ViterbiPoint next = null;
 
 	/**
@@ -95,12 +96,18 @@ public class ViterbiPoint {
 	}
 
 	/**
-	 * Gets the sorted set containting the paths of the candidates of this point, sorted by score. getPaths().first() will return
-	 * the path with the lowest score, i.e. the best path.
+	 * Gets the paths of the candidates of the previous point. The search no longer keeps all of them, so only the part of the best
+	 * path leading to this point is available, once the search is done.
 	 * 
-	 * @return a sorted set.
+	 * @return a list containing the best path leading to this point, or an empty list if there is none
+	 * @deprecated use {@link Viterbi#getSelectedUnits()}, or follow {@link ViterbiPath#getPrevious()} from the best path
 	 */
+	@Deprecated
 	public List<ViterbiPath> getPaths() {
+		List<ViterbiPath> paths = new ArrayList<ViterbiPath>();
+		if (bestPath != null) {
+			paths.add(bestPath);
+		}
 		return paths;
 	}
 
@@ -124,6 +131,6 @@ public class ViterbiPoint {
 	}
 
 	public String toString() {
-		return "ViterbiPoint: target " + target + "; " + paths.size() + " paths";
+		return "ViterbiPoint: target " + target + "; " + (candidates != null ? candidates.size() : 0) + " candidates";
 	}
 }
@@ -25,12 +25,20 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.StringTokenizer;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.sound.sampled.AudioFileFormat;
 import javax.sound.sampled.AudioFormat;
@@ -74,6 +82,76 @@ public class MaryRuntimeUtils {
 		}
 	}
 
+	/**
+	 * The number of threads to use for starting modules and loading voices, as configured by the properties
+	 * modules.parallelstartup and modules.parallelstartup.threads.
+	 * 
+	 * @return 1 if startup is sequential, the number of threads to use otherwise
+	 */
+	public static int getStartupThreads() {
+		if (!MaryProperties.getBoolean("modules.parallelstartup", false)) {
+			return 1;
+		}
+		return Math.max(1,
+				MaryProperties.getInteger("modules.parallelstartup.threads", Runtime.getRuntime().availableProcessors()));
+	}
+
+	/**
+	 * Run the given tasks on a temporary pool of threads, which is shut down when all tasks are done. This is meant for one-off
+	 * work such as startup; with a single thread, the tasks are simply run one after the other in the calling thread.
+	 * 
+	 * @param tasks
+	 *            the tasks to run
+	 * @param numThreads
+	 *            the maximum number of tasks to run at the same time
+	 * @param threadName
+	 *            the name prefix of the pool threads
+	 * @return the results of the tasks, in the order of the tasks
+	 * @throws Exception
+	 *             the exception thrown by the first failing task, in the order of the tasks; the remaining tasks are then
+	 *             cancelled
+	 */
+	public static <T> List<T> runInParallel(List<? extends Callable<T>> tasks, int numThreads, final String threadName)
+			throws Exception {
+		List<T> results = new ArrayList<T>(tasks.size());
+		if (numThreads <= 1 || tasks.size() <= 1) {
+			for (Callable<T> task : tasks) {
+				results.add(task.call());
+			}
+			return results;
+		}
+		final AtomicInteger threadCount = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(numThreads, tasks.size()), new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, threadName + " " + threadCount.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		try {
+			List<Future<T>> futures = new ArrayList<Future<T>>(tasks.size());
+			for (Callable<T> task : tasks) {
+				futures.add(executor.submit(task));
+			}
+			for (Future<T> f : futures) {
+				try {
+					results.add(f.get());
+				} catch (ExecutionException ee) {
+					Throwable cause = ee.getCause();
+					if (cause instanceof Exception) {
+						throw (Exception) cause;
+					} else if (cause instanceof Error) {
+						throw (Error) cause;
+					}
+					throw ee;
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		return results;
+	}
+
 	/**
 	 * Instantiate an object by calling one of its constructors.
 	 * 
@@ -0,0 +1,295 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.util.cache;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * The lookup key of a {@link SynthesisCache} entry. Instead of the full input text, a key holds a SHA-1 digest of it, so that
+ * keys are small and cheap to compare no matter how long the input is. Keys are immutable.
+ */
+public final class CacheKey {
+	private static final String DIGEST_ALGORITHM = "SHA-1";
+	private static final int DIGEST_LENGTH = 20;
+
+	private final String inputType;
+	private final String outputType;
+	private final String locale;
+	private final String voice;
+	private final String outputParams;
+	private final String style;
+	private final String effects;
+	private final byte[] inputDigest;
+	private final int hash;
+
+	/**
+	 * Create a key from the request parameters and the digest of the input data.
+	 * 
+	 * @param inputType
+	 *            the request's input type. Must not be null.
+	 * @param outputType
+	 *            the request's output type. Must not be null.
+	 * @param locale
+	 *            the locale of the request. Must not be null.
+	 * @param voice
+	 *            the voice of the request. Can be null.
+	 * @param outputParams
+	 *            optionally, any output parameters. Can be null.
+	 * @param style
+	 *            optionally, any style. Can be null.
+	 * @param effects
+	 *            optionally, any effects. Can be null.
+	 * @param inputDigest
+	 *            the digest of the input data, as computed by a {@link DigestingOutputStream}. Must not be null.
+	 * @throws NullPointerException
+	 *             if one of the fields is null which must be non-null.
+	 */
+	public CacheKey(String inputType, String outputType, String locale, String voice, String outputParams, String style,
+			String effects, byte[] inputDigest) {
+		if (inputType == null || outputType == null || locale == null || inputDigest == null) {
+			throw new NullPointerException("Null argument");
+		}
+		this.inputType = inputType;
+		this.outputType = outputType;
+		this.locale = locale;
+		this.voice = voice;
+		this.outputParams = outputParams;
+		this.style = style;
+		this.effects = effects;
+		this.inputDigest = inputDigest.clone();
+		int h = Arrays.hashCode(this.inputDigest);
+		h = 31 * h + inputType.hashCode();
+		h = 31 * h + outputType.hashCode();
+		h = 31 * h + locale.hashCode();
+		h = 31 * h + (voice != null ? voice.hashCode() : 0);
+		h = 31 * h + (outputParams != null ? outputParams.hashCode() : 0);
+		h = 31 * h + (style != null ? style.hashCode() : 0);
+		h = 31 * h + (effects != null ? effects.hashCode() : 0);
+		this.hash = h;
+	}
+
+	/**
+	 * Convenience constructor computing the digest of the given input text.
+	 * 
+	 * @param inputType
+	 *            inputType
+	 * @param outputType
+	 *            outputType
+	 * @param locale
+	 *            locale
+	 * @param voice
+	 *            voice
+	 * @param outputParams
+	 *            outputParams
+	 * @param style
+	 *            style
+	 * @param effects
+	 *            effects
+	 * @param inputText
+	 *            the request's input text. Must not be null.
+	 */
+	public CacheKey(String inputType, String outputType, String locale, String voice, String outputParams, String style,
+			String effects, String inputText) {
+		this(inputType, outputType, locale, voice, outputParams, style, effects, digest(inputText));
+	}
+
+	/**
+	 * Get the same key but for a different output type.
+	 * 
+	 * @param otherOutputType
+	 *            the output type of the new key
+	 * @return a new key
+	 */
+	public CacheKey withOutputType(String otherOutputType) {
+		return new CacheKey(inputType, otherOutputType, locale, voice, outputParams, style, effects, inputDigest);
+	}
+
+	public String getInputType() {
+		return inputType;
+	}
+
+	public String getOutputType() {
+		return outputType;
+	}
+
+	public String getLocale() {
+		return locale;
+	}
+
+	public String getVoice() {
+		return voice;
+	}
+
+	public String getOutputParams() {
+		return outputParams;
+	}
+
+	public String getStyle() {
+		return style;
+	}
+
+	public String getEffects() {
+		return effects;
+	}
+
+	/**
+	 * The input digest as a hexadecimal string.
+	 * 
+	 * @return a string of 40 hex digits
+	 */
+	public String getInputDigestAsHex() {
+		StringBuilder sb = new StringBuilder(2 * inputDigest.length);
+		for (byte b : inputDigest) {
+			sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+			sb.append(Character.forDigit(b & 0xF, 16));
+		}
+		return sb.toString();
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof CacheKey)) {
+			return false;
+		}
+		CacheKey other = (CacheKey) obj;
+		return hash == other.hash && Arrays.equals(inputDigest, other.inputDigest) && inputType.equals(other.inputType)
+				&& outputType.equals(other.outputType) && locale.equals(other.locale) && equal(voice, other.voice)
+				&& equal(outputParams, other.outputParams) && equal(style, other.style) && equal(effects, other.effects);
+	}
+
+	@Override
+	public String toString() {
+		return inputType + "->" + outputType + " [" + locale + ", " + voice + ", " + outputParams + ", " + style + ", " + effects
+				+ "] " + getInputDigestAsHex();
+	}
+
+	private static boolean equal(String a, String b) {
+		return a == null ? b == null : a.equals(b);
+	}
+
+	// ////////////////////////////// serialisation //////////////////////////////
+
+	/**
+	 * Write this key in a binary form that can be read back with {@link #readFrom(DataInput)}.
+	 * 
+	 * @param out
+	 *            out
+	 * @throws IOException
+	 *             IOException
+	 */
+	public void writeTo(DataOutput out) throws IOException {
+		out.writeUTF(inputType);
+		out.writeUTF(outputType);
+		out.writeUTF(locale);
+		writeNullable(out, voice);
+		writeNullable(out, outputParams);
+		writeNullable(out, style);
+		writeNullable(out, effects);
+		out.write(inputDigest);
+	}
+
+	public static CacheKey readFrom(DataInput in) throws IOException {
+		String inputType = in.readUTF();
+		String outputType = in.readUTF();
+		String locale = in.readUTF();
+		String voice = readNullable(in);
+		String outputParams = readNullable(in);
+		String style = readNullable(in);
+		String effects = readNullable(in);
+		byte[] digest = new byte[DIGEST_LENGTH];
+		in.readFully(digest);
+		return new CacheKey(inputType, outputType, locale, voice, outputParams, style, effects, digest);
+	}
+
+	private static void writeNullable(DataOutput out, String s) throws IOException {
+		out.writeBoolean(s != null);
+		if (s != null) {
+			out.writeUTF(s);
+		}
+	}
+
+	private static String readNullable(DataInput in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	// ////////////////////////////// digests //////////////////////////////
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance(DIGEST_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform is required to support SHA-1
+			throw new AssertionError(e);
+		}
+	}
+
+	private static byte[] digest(String text) {
+		if (text == null) {
+			throw new NullPointerException("Null argument");
+		}
+		try {
+			return newDigest().digest(text.getBytes("UTF-8"));
+		} catch (UnsupportedEncodingException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	/**
+	 * An output stream which does not store what is written to it but only computes its digest. Use this to compute the input
+	 * digest of a {@link CacheKey} directly from <code>MaryData.writeTo()</code> without serializing the data to a string first.
+	 */
+	public static class DigestingOutputStream extends OutputStream {
+		private final MessageDigest digest = newDigest();
+
+		@Override
+		public void write(int b) {
+			digest.update((byte) b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			digest.update(b, off, len);
+		}
+
+		/**
+		 * Get the digest of everything written so far. This resets the stream.
+		 * 
+		 * @return the digest
+		 */
+		public byte[] digest() {
+			return digest.digest();
+		}
+	}
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.util.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe counters describing how well a {@link SynthesisCache} works.
+ */
+public class CacheStatistics {
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong insertions = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	public void recordHit() {
+		hits.incrementAndGet();
+	}
+
+	public void recordMiss() {
+		misses.incrementAndGet();
+	}
+
+	public void recordInsertion() {
+		insertions.incrementAndGet();
+	}
+
+	public void recordEviction() {
+		evictions.incrementAndGet();
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	public long getInsertions() {
+		return insertions.get();
+	}
+
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	/**
+	 * The share of lookups that were answered from the cache.
+	 * 
+	 * @return a value between 0 and 1, or 0 if there were no lookups yet.
+	 */
+	public double getHitRate() {
+		long h = hits.get();
+		long total = h + misses.get();
+		return total == 0 ? 0 : (double) h / total;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d hits, %d misses (hit rate %.1f%%), %d insertions, %d evictions", getHits(), getMisses(),
+				100 * getHitRate(), getInsertions(), getEvictions());
+	}
+}
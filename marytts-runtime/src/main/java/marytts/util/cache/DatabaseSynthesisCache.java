@@ -0,0 +1,124 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.util.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+
+import marytts.util.MaryCache;
+
+/**
+ * A {@link SynthesisCache} stored in the HSQLDB database of a {@link MaryCache}. This is the cache backend of previous MARY
+ * versions; it serializes all accesses and is only kept for existing installations. Instead of the full input text, the hex
+ * digest from the {@link CacheKey} is stored in the database.
+ */
+public class DatabaseSynthesisCache implements SynthesisCache {
+	private final MaryCache maryCache;
+	private final CacheStatistics statistics = new CacheStatistics();
+
+	/**
+	 * Open or create the cache database.
+	 * 
+	 * @param cacheFile
+	 *            the file name prefix with which to create the cache database.
+	 * @param clearCache
+	 *            if true, clear the cache; if false, keep it.
+	 * @throws IOException
+	 *             if the database cannot be set up
+	 */
+	public DatabaseSynthesisCache(File cacheFile, boolean clearCache) throws IOException {
+		try {
+			maryCache = new MaryCache(cacheFile, clearCache);
+		} catch (ClassNotFoundException e) {
+			throw new IOException("HSQLDB driver not available", e);
+		} catch (SQLException e) {
+			throw new IOException("Cannot open cache database", e);
+		}
+	}
+
+	@Override
+	public String lookupText(CacheKey key) throws IOException {
+		try {
+			String text = maryCache.lookupText(key.getInputType(), key.getOutputType(), key.getLocale(), key.getVoice(),
+					key.getOutputParams(), key.getStyle(), key.getEffects(), key.getInputDigestAsHex());
+			record(text != null);
+			return text;
+		} catch (SQLException e) {
+			throw new IOException(e);
+		}
+	}
+
+	@Override
+	public byte[] lookupAudio(CacheKey key) throws IOException {
+		try {
+			byte[] audio = maryCache.lookupAudio(key.getInputType(), key.getLocale(), key.getVoice(), key.getOutputParams(),
+					key.getStyle(), key.getEffects(), key.getInputDigestAsHex());
+			record(audio != null);
+			return audio;
+		} catch (SQLException e) {
+			throw new IOException(e);
+		}
+	}
+
+	@Override
+	public void insertText(CacheKey key, String outputText) throws IOException {
+		try {
+			maryCache.insertText(key.getInputType(), key.getOutputType(), key.getLocale(), key.getVoice(), key.getOutputParams(),
+					key.getStyle(), key.getEffects(), key.getInputDigestAsHex(), outputText);
+			statistics.recordInsertion();
+		} catch (SQLException e) {
+			throw new IOException(e);
+		}
+	}
+
+	@Override
+	public void insertAudio(CacheKey key, byte[] audio) throws IOException {
+		try {
+			maryCache.insertAudio(key.getInputType(), key.getLocale(), key.getVoice(), key.getOutputParams(), key.getStyle(),
+					key.getEffects(), key.getInputDigestAsHex(), audio);
+			statistics.recordInsertion();
+		} catch (SQLException e) {
+			throw new IOException(e);
+		}
+	}
+
+	@Override
+	public CacheStatistics getStatistics() {
+		return statistics;
+	}
+
+	@Override
+	public void shutdown() throws IOException {
+		try {
+			maryCache.shutdown();
+		} catch (SQLException e) {
+			throw new IOException(e);
+		}
+	}
+
+	private void record(boolean hit) {
+		if (hit) {
+			statistics.recordHit();
+		} else {
+			statistics.recordMiss();
+		}
+	}
+}
@@ -0,0 +1,250 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.util.cache;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A size-bounded in-memory {@link SynthesisCache}, optionally in front of a persistent cache.
+ * <p>
+ * The entries are distributed over a number of independently locked segments by key hash, so that concurrent requests rarely
+ * wait for each other. Each segment evicts its least recently used entries when it exceeds its share of the memory budget.
+ * <p>
+ * If a backing cache is given, all insertions are written through to it, and lookups that miss in memory are answered from the
+ * backing cache; entries found there are kept in memory for subsequent lookups.
+ */
+public class MemorySynthesisCache implements SynthesisCache {
+	public static final int DEFAULT_SEGMENTS = 16;
+
+	private final Segment[] segments;
+	private final SynthesisCache backingCache;
+	private final CacheStatistics statistics = new CacheStatistics();
+
+	/**
+	 * Create an in-memory cache without a backing cache.
+	 * 
+	 * @param maxBytes
+	 *            the approximate maximum amount of memory, in bytes, to use for cached data
+	 */
+	public MemorySynthesisCache(long maxBytes) {
+		this(maxBytes, DEFAULT_SEGMENTS, null);
+	}
+
+	/**
+	 * Create an in-memory cache.
+	 * 
+	 * @param maxBytes
+	 *            the approximate maximum amount of memory, in bytes, to use for cached data
+	 * @param numSegments
+	 *            the number of independently locked segments
+	 * @param backingCache
+	 *            the persistent cache to use behind this one, or null
+	 * @throws IllegalArgumentException
+	 *             if maxBytes or numSegments is not positive
+	 */
+	public MemorySynthesisCache(long maxBytes, int numSegments, SynthesisCache backingCache) {
+		if (maxBytes <= 0) {
+			throw new IllegalArgumentException("Memory budget must be positive, got " + maxBytes);
+		}
+		if (numSegments <= 0) {
+			throw new IllegalArgumentException("Number of segments must be positive, got " + numSegments);
+		}
+		segments = new Segment[numSegments];
+		long perSegment = Math.max(1, maxBytes / numSegments);
+		for (int i = 0; i < numSegments; i++) {
+			segments[i] = new Segment(perSegment);
+		}
+		this.backingCache = backingCache;
+	}
+
+	/**
+	 * The persistent cache behind this one.
+	 * 
+	 * @return the backing cache, or null if there is none.
+	 */
+	public SynthesisCache getBackingCache() {
+		return backingCache;
+	}
+
+	@Override
+	public String lookupText(CacheKey key) throws IOException {
+		Object value = lookup(key);
+		if (value == null && backingCache != null) {
+			String text = backingCache.lookupText(key);
+			if (text != null) {
+				segmentFor(key).put(key, text, weigh(text));
+			}
+			return text;
+		}
+		return (String) value;
+	}
+
+	@Override
+	public byte[] lookupAudio(CacheKey key) throws IOException {
+		Object value = lookup(key);
+		if (value == null && backingCache != null) {
+			byte[] audio = backingCache.lookupAudio(key);
+			if (audio != null) {
+				segmentFor(key).put(key, audio, weigh(audio));
+			}
+			return audio;
+		}
+		return (byte[]) value;
+	}
+
+	@Override
+	public void insertText(CacheKey key, String outputText) throws IOException {
+		if (outputText == null) {
+			throw new NullPointerException("Null argument");
+		}
+		segmentFor(key).put(key, outputText, weigh(outputText));
+		statistics.recordInsertion();
+		if (backingCache != null) {
+			backingCache.insertText(key, outputText);
+		}
+	}
+
+	@Override
+	public void insertAudio(CacheKey key, byte[] audio) throws IOException {
+		if (audio == null) {
+			throw new NullPointerException("Null argument");
+		}
+		segmentFor(key).put(key, audio, weigh(audio));
+		statistics.recordInsertion();
+		if (backingCache != null) {
+			backingCache.insertAudio(key, audio);
+		}
+	}
+
+	@Override
+	public CacheStatistics getStatistics() {
+		return statistics;
+	}
+
+	/**
+	 * The approximate amount of memory currently used for cached data.
+	 * 
+	 * @return a number of bytes
+	 */
+	public long getWeight() {
+		long sum = 0;
+		for (Segment s : segments) {
+			sum += s.getWeight();
+		}
+		return sum;
+	}
+
+	@Override
+	public void shutdown() throws IOException {
+		for (Segment s : segments) {
+			s.clear();
+		}
+		if (backingCache != null) {
+			backingCache.shutdown();
+		}
+	}
+
+	private Object lookup(CacheKey key) {
+		Object value = segmentFor(key).get(key);
+		if (value != null) {
+			statistics.recordHit();
+		} else {
+			statistics.recordMiss();
+		}
+		return value;
+	}
+
+	private Segment segmentFor(CacheKey key) {
+		int h = key.hashCode();
+		h ^= (h >>> 16); // spread the high bits, so that they influence the segment as well
+		return segments[(h & 0x7fffffff) % segments.length];
+	}
+
+	private static long weigh(String text) {
+		return 2L * text.length();
+	}
+
+	private static long weigh(byte[] data) {
+		return data.length;
+	}
+
+	/**
+	 * One independently locked part of the cache: an access-ordered map which evicts the least recently used entries when its
+	 * weight exceeds the budget.
+	 */
+	private class Segment {
+		private final long maxWeight;
+		private final LinkedHashMap<CacheKey, Entry> map = new LinkedHashMap<CacheKey, Entry>(16, 0.75f, true);
+		private long weight = 0;
+
+		Segment(long maxWeight) {
+			this.maxWeight = maxWeight;
+		}
+
+		synchronized Object get(CacheKey key) {
+			Entry e = map.get(key);
+			return e != null ? e.value : null;
+		}
+
+		synchronized void put(CacheKey key, Object value, long valueWeight) {
+			if (valueWeight > maxWeight) {
+				// would evict everything else and still not fit
+				return;
+			}
+			Entry previous = map.put(key, new Entry(value, valueWeight));
+			if (previous != null) {
+				weight -= previous.weight;
+			}
+			weight += valueWeight;
+			Iterator<Map.Entry<CacheKey, Entry>> it = map.entrySet().iterator();
+			while (weight > maxWeight && it.hasNext()) {
+				Map.Entry<CacheKey, Entry> eldest = it.next();
+				if (eldest.getKey().equals(key)) {
+					continue;
+				}
+				it.remove();
+				weight -= eldest.getValue().weight;
+				statistics.recordEviction();
+			}
+		}
+
+		synchronized long getWeight() {
+			return weight;
+		}
+
+		synchronized void clear() {
+			map.clear();
+			weight = 0;
+		}
+	}
+
+	private static class Entry {
+		final Object value;
+		final long weight;
+
+		Entry(Object value, long weight) {
+			this.value = value;
+			this.weight = weight;
+		}
+	}
+}
@@ -0,0 +1,263 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.util.cache;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ConcurrentHashMap;
+
+import marytts.util.MaryUtils;
+
+import org.apache.log4j.Logger;
+
+/**
+ * A persistent {@link SynthesisCache} which appends all entries to a single segment file. An index from keys to file positions is
+ * kept in memory and rebuilt from the file when the cache is opened; the data itself stays on disk and is read with positional
+ * reads, so that concurrent lookups do not block each other or the writer.
+ * <p>
+ * The file format is a header (magic number and version) followed by records of the form
+ * <code>int recordLength, key, byte kind, int valueLength, byte[] value</code>. A record which was only partially written,
+ * e.g. because the process was killed, is discarded when the file is opened.
+ */
+public class SegmentFileSynthesisCache implements SynthesisCache {
+	private static final int MAGIC = 0x4d435347; // "MCSG"
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 8;
+	private static final byte KIND_TEXT = 0;
+	private static final byte KIND_AUDIO = 1;
+
+	private Logger logger = MaryUtils.getLogger(SegmentFileSynthesisCache.class);
+
+	private final File file;
+	private final RandomAccessFile raf;
+	private final FileChannel channel;
+	private final ConcurrentHashMap<CacheKey, Location> index = new ConcurrentHashMap<CacheKey, Location>();
+	private final CacheStatistics statistics = new CacheStatistics();
+	private long writePosition;
+
+	/**
+	 * Open or create a segment file cache.
+	 * 
+	 * @param file
+	 *            the segment file
+	 * @param clearCache
+	 *            if true, discard any existing content of the file; if false, keep it.
+	 * @throws IOException
+	 *             if the file cannot be opened, or is not a segment file.
+	 */
+	public SegmentFileSynthesisCache(File file, boolean clearCache) throws IOException {
+		this.file = file;
+		if (clearCache || !file.exists() || file.length() == 0) {
+			createEmpty(file);
+		}
+		writePosition = buildIndex(file);
+		raf = new RandomAccessFile(file, "rw");
+		channel = raf.getChannel();
+		if (channel.size() > writePosition) {
+			logger.warn("Discarding incomplete record at the end of cache file " + file);
+			channel.truncate(writePosition);
+		}
+		logger.info("Opened cache file " + file + " with " + index.size() + " entries");
+	}
+
+	private static void createEmpty(File file) throws IOException {
+		DataOutputStream out = new DataOutputStream(new FileOutputStream(file));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Read all complete records of the file into the index.
+	 * 
+	 * @return the position after the last complete record
+	 */
+	private long buildIndex(File f) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)));
+		try {
+			if (in.readInt() != MAGIC) {
+				throw new IOException("Not a cache segment file: " + f);
+			}
+			int version = in.readInt();
+			if (version != VERSION) {
+				throw new IOException("Unsupported cache segment file version " + version + " in " + f);
+			}
+			long pos = HEADER_SIZE;
+			long fileLength = f.length();
+			while (true) {
+				int recordLength;
+				CacheKey key;
+				byte kind;
+				int valueLength;
+				try {
+					recordLength = in.readInt();
+					if (pos + 4 + recordLength > fileLength) {
+						break; // incomplete
+					}
+					key = CacheKey.readFrom(in);
+					kind = in.readByte();
+					valueLength = in.readInt();
+				} catch (EOFException e) {
+					break;
+				}
+				long valuePosition = pos + 4 + recordLength - valueLength;
+				index.put(key, new Location(valuePosition, valueLength, kind));
+				long toSkip = valueLength;
+				while (toSkip > 0) {
+					long skipped = in.skip(toSkip);
+					if (skipped <= 0) {
+						break;
+					}
+					toSkip -= skipped;
+				}
+				pos += 4 + recordLength;
+			}
+			return pos;
+		} finally {
+			in.close();
+		}
+	}
+
+	@Override
+	public String lookupText(CacheKey key) throws IOException {
+		byte[] data = lookup(key, KIND_TEXT);
+		return data != null ? new String(data, "UTF-8") : null;
+	}
+
+	@Override
+	public byte[] lookupAudio(CacheKey key) throws IOException {
+		return lookup(key, KIND_AUDIO);
+	}
+
+	@Override
+	public void insertText(CacheKey key, String outputText) throws IOException {
+		if (outputText == null) {
+			throw new NullPointerException("Null argument");
+		}
+		insert(key, KIND_TEXT, outputText.getBytes("UTF-8"));
+	}
+
+	@Override
+	public void insertAudio(CacheKey key, byte[] audio) throws IOException {
+		if (audio == null) {
+			throw new NullPointerException("Null argument");
+		}
+		insert(key, KIND_AUDIO, audio);
+	}
+
+	@Override
+	public CacheStatistics getStatistics() {
+		return statistics;
+	}
+
+	/**
+	 * The number of entries in this cache.
+	 * 
+	 * @return the number of entries
+	 */
+	public int size() {
+		return index.size();
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	@Override
+	public synchronized void shutdown() throws IOException {
+		channel.force(false);
+		raf.close();
+	}
+
+	private byte[] lookup(CacheKey key, byte kind) throws IOException {
+		Location loc = index.get(key);
+		if (loc == null || loc.kind != kind) {
+			statistics.recordMiss();
+			return null;
+		}
+		byte[] data = new byte[loc.length];
+		ByteBuffer bb = ByteBuffer.wrap(data);
+		long pos = loc.position;
+		while (bb.hasRemaining()) {
+			int read = channel.read(bb, pos);
+			if (read < 0) {
+				throw new EOFException("Cache file " + file + " is truncated");
+			}
+			pos += read;
+		}
+		statistics.recordHit();
+		return data;
+	}
+
+	private void insert(CacheKey key, byte kind, byte[] value) throws IOException {
+		if (index.containsKey(key)) {
+			return;
+		}
+		ByteArrayOutputStream baos = new ByteArrayOutputStream(value.length + 200);
+		DataOutputStream out = new DataOutputStream(baos);
+		out.writeInt(0); // placeholder for the record length
+		key.writeTo(out);
+		out.writeByte(kind);
+		out.writeInt(value.length);
+		out.write(value);
+		out.close();
+		ByteBuffer record = ByteBuffer.wrap(baos.toByteArray());
+		int recordLength = record.remaining() - 4;
+		record.putInt(0, recordLength);
+		synchronized (this) {
+			// Need to verify, here in the synchronized code, once again that really we don't have this entry already.
+			if (index.containsKey(key)) {
+				return;
+			}
+			long pos = writePosition;
+			while (record.hasRemaining()) {
+				pos += channel.write(record, pos);
+			}
+			index.put(key, new Location(pos - value.length, value.length, kind));
+			writePosition = pos;
+		}
+		statistics.recordInsertion();
+	}
+
+	private static class Location {
+		final long position;
+		final int length;
+		final byte kind;
+
+		Location(long position, int length, byte kind) {
+			this.position = position;
+			this.length = length;
+			this.kind = kind;
+		}
+	}
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.util.cache;
+
+import java.io.IOException;
+
+/**
+ * A cache for synthesis results, used by <code>Request</code> to avoid processing the same input again. Implementations must be
+ * safe for concurrent use by many request threads.
+ * <p>
+ * Text results (any text output type, including XML) and audio results (complete WAVE files) are stored separately; the output
+ * type is part of the {@link CacheKey}.
+ * 
+ * @see SynthesisCacheManager#getCache()
+ */
+public interface SynthesisCache {
+
+	/**
+	 * Look up the text result for the given key.
+	 * 
+	 * @param key
+	 *            key
+	 * @return the output text, or null if the cache does not contain an entry for this key.
+	 * @throws IOException
+	 *             if there is a problem accessing the cache.
+	 */
+	public String lookupText(CacheKey key) throws IOException;
+
+	/**
+	 * Look up the audio result for the given key.
+	 * 
+	 * @param key
+	 *            key
+	 * @return the WAVE file data, or null if the cache does not contain an entry for this key.
+	 * @throws IOException
+	 *             if there is a problem accessing the cache.
+	 */
+	public byte[] lookupAudio(CacheKey key) throws IOException;
+
+	/**
+	 * Remember a text result. If an entry with the same key exists already, this call may do nothing.
+	 * 
+	 * @param key
+	 *            key
+	 * @param outputText
+	 *            the output text. Must not be null.
+	 * @throws IOException
+	 *             if the entry could not be stored.
+	 */
+	public void insertText(CacheKey key, String outputText) throws IOException;
+
+	/**
+	 * Remember an audio result. If an entry with the same key exists already, this call may do nothing.
+	 * 
+	 * @param key
+	 *            key
+	 * @param audio
+	 *            the WAVE file data. Must not be null, and must not be modified by the caller afterwards.
+	 * @throws IOException
+	 *             if the entry could not be stored.
+	 */
+	public void insertAudio(CacheKey key, byte[] audio) throws IOException;
+
+	/**
+	 * Access the hit, miss and eviction counters of this cache.
+	 * 
+	 * @return the statistics object, which is updated live.
+	 */
+	public CacheStatistics getStatistics();
+
+	/**
+	 * Shut down the cache. After this has been called, the cache must not be used anymore.
+	 * 
+	 * @throws IOException
+	 *             if there is a problem releasing the cache's resources.
+	 */
+	public void shutdown() throws IOException;
+}
@@ -0,0 +1,143 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.util.cache;
+
+import java.io.File;
+import java.io.IOException;
+
+import marytts.server.MaryProperties;
+import marytts.util.MaryUtils;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Creates and holds the {@link SynthesisCache} used by the server, according to the configuration:
+ * <ul>
+ * <li><code>cache.memory.megabytes</code>: the memory budget of the in-memory cache;</li>
+ * <li><code>cache.persistent</code>: the persistent cache behind it, one of <code>hsqldb</code> (the database used by
+ * previous versions, default), <code>segmentfile</code> (an append-only file, which grows until it is cleared) or
+ * <code>none</code>;</li>
+ * <li><code>cache.file</code>: the file (name prefix) of the persistent cache;</li>
+ * <li><code>cache.clearOnStart</code>: whether to discard the content of the persistent cache at startup.</li>
+ * </ul>
+ * The cache is normally created once by {@link #startup()} when the server starts; request threads then only read the
+ * volatile field holding it.
+ */
+public class SynthesisCacheManager {
+	private static volatile SynthesisCache cache;
+	private static volatile boolean initialized = false;
+
+	/**
+	 * Create the cache, unless this has been tried before. To the extent possible this method gives the no-throw guarantee: if
+	 * the cache cannot be created, any exception will be logged.
+	 */
+	public static synchronized void startup() {
+		if (initialized) {
+			return;
+		}
+		try {
+			cache = createCache();
+		} catch (Exception e) {
+			getLogger().warn("Cannot set up cache", e);
+		}
+		initialized = true;
+	}
+
+	/**
+	 * Try to get the cache object. This will either return the previously created cache, or if {@link #startup()} has not been
+	 * called yet, it will try to create one.
+	 * 
+	 * @see #haveCache if you just want to check if the cache exists.
+	 * 
+	 *      To the extent possible this method gives the no-throw guarantee: if the cache cannot be created, null will be returned
+	 *      and any exception will be logged.
+	 * @return the cache singleton object, or null if none could be created.
+	 */
+	public static SynthesisCache getCache() {
+		if (!initialized) {
+			startup();
+		}
+		return cache;
+	}
+
+	/**
+	 * Indicate whether there is a cache currently available.
+	 * 
+	 * @return true if there is a cache, false otherwise.
+	 */
+	public static boolean haveCache() {
+		return cache != null;
+	}
+
+	/**
+	 * Log the cache statistics and shut down the cache, if there is one.
+	 * 
+	 * @throws IOException
+	 *             if there is a problem shutting down the cache.
+	 */
+	public static synchronized void shutdown() throws IOException {
+		if (cache == null) {
+			return;
+		}
+		Logger logger = getLogger();
+		logger.info("Cache: " + cache.getStatistics());
+		if (cache instanceof MemorySynthesisCache) {
+			SynthesisCache backing = ((MemorySynthesisCache) cache).getBackingCache();
+			if (backing != null) {
+				logger.info("Persistent cache: " + backing.getStatistics());
+			}
+		}
+		try {
+			cache.shutdown();
+		} finally {
+			cache = null;
+			initialized = false;
+		}
+	}
+
+	private static SynthesisCache createCache() throws IOException {
+		boolean clear = MaryProperties.getBoolean("cache.clearOnStart", false);
+		String persistent = MaryProperties.getProperty("cache.persistent", "hsqldb");
+		SynthesisCache backing = null;
+		if (persistent.equals("segmentfile")) {
+			backing = new SegmentFileSynthesisCache(new File(getCacheFileName() + ".seg"), clear);
+		} else if (persistent.equals("hsqldb")) {
+			backing = new DatabaseSynthesisCache(new File(getCacheFileName()), clear);
+		} else if (!persistent.equals("none")) {
+			throw new IllegalArgumentException("Unknown value for cache.persistent: '" + persistent
+					+ "' -- expected hsqldb, segmentfile or none");
+		}
+		long maxBytes = 1024L * 1024L * MaryProperties.getInteger("cache.memory.megabytes", 64);
+		return new MemorySynthesisCache(maxBytes, MemorySynthesisCache.DEFAULT_SEGMENTS, backing);
+	}
+
+	private static String getCacheFileName() {
+		File targetFile = new File(MaryProperties.getFilename("cache.file", "maryCache"));
+		File directory = targetFile.getParentFile();
+		if (directory != null && !directory.isDirectory()) {
+			directory.mkdirs();
+		}
+		return targetFile.getPath();
+	}
+
+	private static Logger getLogger() {
+		return MaryUtils.getLogger(SynthesisCacheManager.class);
+	}
+}
@@ -49,6 +49,7 @@ import org.xml.sax.SAXException;
  * @author Marc Schr&ouml;der
  */
 public class MaryDomUtils extends DomUtils {
+	private static final String DOCUMENT_VERSION_KEY = "marytts.util.dom.MaryDomUtils.documentVersion";
 
 	/**
 	 * Create a new &lt;mtu&gt; element, inserted in the tree at the position of t and enclosing t.
@@ -163,6 +164,36 @@ public class MaryDomUtils extends DomUtils {
 		return boundary;
 	}
 
+	/**
+	 * The version of a document, for caches of data derived from it, such as the per-sentence
+	 * {@link marytts.features.UtteranceIndex}. A cache remembers the version it was built for and is not used after the version
+	 * has changed.
+	 * 
+	 * @param doc
+	 *            doc
+	 * @return the number of times {@link #newDocumentVersion(Document)} has been called for doc
+	 */
+	public static int getDocumentVersion(Document doc) {
+		int[] version = (int[]) doc.getUserData(DOCUMENT_VERSION_KEY);
+		return version == null ? 0 : version[0];
+	}
+
+	/**
+	 * Announce that the document may have been changed, so that any data derived from it must be computed again. This is done
+	 * by the Request after each module which may modify the document.
+	 * 
+	 * @param doc
+	 *            doc
+	 */
+	public static void newDocumentVersion(Document doc) {
+		int[] version = (int[]) doc.getUserData(DOCUMENT_VERSION_KEY);
+		if (version == null) {
+			doc.setUserData(DOCUMENT_VERSION_KEY, new int[] { 1 }, null);
+		} else {
+			version[0]++;
+		}
+	}
+
 	/**
 	 * Try to determine the locale of a document by looking at the xml:lang attribute of the document element.
 	 * 
@@ -0,0 +1,142 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.cart;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import marytts.cart.DecisionNode.BinaryByteDecisionNode;
+import marytts.cart.DecisionNode.BinaryFloatDecisionNode;
+import marytts.cart.DecisionNode.BinaryShortDecisionNode;
+import marytts.cart.DecisionNode.ByteDecisionNode;
+import marytts.cart.DecisionNode.ShortDecisionNode;
+import marytts.cart.LeafNode.IntArrayLeafNode;
+import marytts.features.FeatureDefinition;
+import marytts.features.FeatureVector;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class CompiledCARTTest {
+	private static final String DEFINITION = "ByteValuedFeatureProcessors\n" + "phone 0 a b c\n" + "stressed 0 1\n"
+			+ "ShortValuedFeatureProcessors\n" + "tone 0 x y\n" + "ContinuousFeatureProcessors\n" + "dur\n";
+
+	private FeatureDefinition featureDef;
+	private Node root;
+	private FeatureVector[] featureVectors;
+
+	@Before
+	public void setUp() throws Exception {
+		featureDef = new FeatureDefinition(new BufferedReader(new StringReader(DEFINITION)), false);
+
+		BinaryFloatDecisionNode shortDur = new BinaryFloatDecisionNode("dur", 0.5f, featureDef);
+		shortDur.addDaughter(new IntArrayLeafNode(new int[] { 1, 2, 3 }));
+		shortDur.addDaughter(new IntArrayLeafNode(new int[] { 4 }));
+
+		ShortDecisionNode tone = new ShortDecisionNode("tone", 3, featureDef);
+		tone.addDaughter(new IntArrayLeafNode(new int[] { 5, 6 }));
+		tone.addDaughter(new IntArrayLeafNode(new int[0]));
+		tone.addDaughter(null);
+
+		// a float question on a byte-valued feature
+		BinaryFloatDecisionNode earlyPhone = new BinaryFloatDecisionNode("phone", 2f, featureDef);
+		earlyPhone.addDaughter(new IntArrayLeafNode(new int[] { 7 }));
+		earlyPhone.addDaughter(new IntArrayLeafNode(new int[] { 8, 9 }));
+
+		BinaryShortDecisionNode toneY = new BinaryShortDecisionNode("tone", "y", featureDef);
+		toneY.addDaughter(earlyPhone);
+		toneY.addDaughter(new IntArrayLeafNode(new int[] { 10, 11, 12, 13 }));
+
+		ByteDecisionNode stressed = new ByteDecisionNode("stressed", 2, featureDef);
+		stressed.addDaughter(tone);
+		stressed.addDaughter(toneY);
+
+		BinaryByteDecisionNode phoneA = new BinaryByteDecisionNode("phone", "a", featureDef);
+		phoneA.addDaughter(shortDur);
+		phoneA.addDaughter(stressed);
+		phoneA.countData();
+		root = phoneA;
+
+		List<FeatureVector> fvs = new ArrayList<FeatureVector>();
+		for (byte phone = 0; phone < 4; phone++) {
+			for (byte stress = 0; stress < 2; stress++) {
+				for (short t = 0; t < 3; t++) {
+					for (float dur : new float[] { 0.2f, 0.7f }) {
+						fvs.add(featureDef.toFeatureVector(fvs.size(), new byte[] { phone, stress }, new short[] { t },
+								new float[] { dur }));
+					}
+				}
+			}
+		}
+		featureVectors = fvs.toArray(new FeatureVector[fvs.size()]);
+	}
+
+	@Test
+	public void layout() {
+		assertEquals(13, new CompiledCART(root).getNumberOfNodes());
+	}
+
+	@Test
+	public void interpretToNodeAsWalkingTheNodes() {
+		CART walked = new CART(root, featureDef);
+		CART compiled = new CART(root, featureDef);
+		compiled.compile();
+		for (int min = 0; min <= 5; min++) {
+			for (FeatureVector fv : featureVectors) {
+				assertSame(walked.interpretToNode(fv, min), compiled.interpretToNode(fv, min));
+			}
+		}
+	}
+
+	@Test
+	public void interpretAsWalkingTheNodes() {
+		CART walked = new CART(root, featureDef);
+		CART compiled = new CART(root, featureDef);
+		compiled.compile();
+		for (FeatureVector fv : featureVectors) {
+			assertSame(walked.interpret(fv), compiled.interpret(fv));
+		}
+	}
+
+	@Test
+	public void interpretToNodes() {
+		CART cart = new CART(root, featureDef);
+		cart.compile();
+		Node[] nodes = new Node[featureVectors.length];
+		cart.interpretToNodes(featureVectors, 2, nodes);
+		for (int i = 0; i < featureVectors.length; i++) {
+			assertSame(cart.interpretToNode(featureVectors[i], 2), nodes[i]);
+		}
+	}
+
+	@Test
+	public void setRootNodeDropsCompiledForm() {
+		CART cart = new CART(root, featureDef);
+		cart.compile();
+		IntArrayLeafNode leaf = new IntArrayLeafNode(new int[] { 42 });
+		cart.setRootNode(leaf);
+		assertSame(leaf, cart.interpretToNode(featureVectors[0], 0));
+	}
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.datatypes;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+public class AcousticParametersTest {
+
+	private static final String LAZY = "maryxml.acoustparams.lazy";
+
+	private Document doc;
+	private Element phone;
+
+	@Before
+	public void setUp() throws Exception {
+		doc = MaryXML.newDocument();
+		Element para = MaryXML.appendChildElement(doc.getDocumentElement(), MaryXML.PARAGRAPH);
+		Element sentence = MaryXML.appendChildElement(para, MaryXML.SENTENCE);
+		Element token = MaryXML.appendChildElement(sentence, MaryXML.TOKEN);
+		Element syllable = MaryXML.appendChildElement(token, MaryXML.SYLLABLE);
+		phone = MaryXML.appendChildElement(syllable, MaryXML.PHONE);
+		phone.setAttribute("p", "a");
+	}
+
+	@After
+	public void tearDown() {
+		System.clearProperty(LAZY);
+	}
+
+	@Test
+	public void readersFallBackToAttributes() {
+		assertTrue(Double.isNaN(AcousticParameters.getDuration(phone)));
+		assertEquals(0, AcousticParameters.getF0Targets(phone).length);
+		phone.setAttribute("d", "85");
+		phone.setAttribute("end", "0.25");
+		phone.setAttribute("f0", "(0,120) (50,130)");
+		assertEquals(85, AcousticParameters.getDuration(phone), 0);
+		assertEquals(0.25, AcousticParameters.getEnd(phone), 0);
+		assertArrayEquals(new int[] { 0, 120, 50, 130 }, AcousticParameters.getF0Targets(phone));
+		assertFalse(AcousticParameters.isKnown(phone, AcousticParameters.DURATION));
+	}
+
+	@Test
+	public void eagerStoreKeepsNothing() {
+		AcousticParameters params = AcousticParameters.forDocument(doc);
+		assertFalse(params.isLazy());
+		phone.setAttribute("d", "85");
+		params.setDuration(phone, 85);
+		assertFalse(AcousticParameters.isKnown(phone, AcousticParameters.DURATION));
+		assertNull(doc.getUserData("marytts.datatypes.AcousticParameters"));
+		phone.setAttribute("d", "90.5");
+		assertEquals(90.5, AcousticParameters.getDuration(phone), 0);
+	}
+
+	@Test
+	public void lazyValuesAreWrittenOnSerialization() {
+		System.setProperty(LAZY, "true");
+		AcousticParameters params = AcousticParameters.forDocument(doc);
+		assertTrue(params.isLazy());
+		params.setDuration(phone, 85);
+		params.setEnd(phone, 0.25f);
+		params.setF0Targets(phone, new int[] { 0, 120, 50, 130 });
+		assertFalse(phone.hasAttribute("d"));
+		assertEquals(85, AcousticParameters.getDuration(phone), 0);
+		assertEquals("(0,120)(50,130)", AcousticParameters.getAttributeValue(phone, AcousticParameters.F0));
+
+		AcousticParameters.serialize(doc);
+		assertEquals("85", phone.getAttribute("d"));
+		assertEquals("0.25", phone.getAttribute("end"));
+		assertEquals("(0,120)(50,130)", phone.getAttribute("f0"));
+		// from now on, the attributes are authoritative
+		assertFalse(AcousticParameters.isKnown(phone, AcousticParameters.F0));
+		phone.setAttribute("d", "90");
+		assertEquals(90, AcousticParameters.getDuration(phone), 0);
+	}
+
+	@Test
+	public void pendingValuesWinUntilSerialized() {
+		System.setProperty(LAZY, "true");
+		AcousticParameters params = AcousticParameters.forDocument(doc);
+		params.setDuration(phone, 85);
+		phone.setAttribute("d", "90");
+		assertEquals(85, AcousticParameters.getDuration(phone), 0);
+
+		params.setF0Targets(phone, new int[] { 50, 130 });
+		AcousticParameters.serialize(phone);
+		phone.setAttribute("f0", "(0,100)");
+		AcousticParameters.serialize(doc);
+		assertEquals("85", phone.getAttribute("d"));
+		assertEquals("(0,100)", phone.getAttribute("f0"));
+		assertArrayEquals(new int[] { 0, 100 }, AcousticParameters.getF0Targets(phone));
+	}
+}
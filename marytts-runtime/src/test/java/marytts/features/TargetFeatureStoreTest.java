@@ -0,0 +1,138 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.features;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Locale;
+
+import marytts.datatypes.MaryXML;
+import marytts.unitselection.select.HalfPhoneTarget;
+import marytts.unitselection.select.Target;
+import marytts.util.dom.MaryDomUtils;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+public class TargetFeatureStoreTest {
+
+	private Document doc;
+	private Element phone;
+	private CountingProcessor shared;
+	private CountingProcessor other;
+	private TargetFeatureComputer first;
+	private TargetFeatureComputer second;
+
+	@Before
+	public void setUp() throws Exception {
+		doc = MaryXML.newDocument();
+		Element para = MaryXML.appendChildElement(doc.getDocumentElement(), MaryXML.PARAGRAPH);
+		Element sentence = MaryXML.appendChildElement(para, MaryXML.SENTENCE);
+		Element token = MaryXML.appendChildElement(sentence, MaryXML.TOKEN);
+		Element syllable = MaryXML.appendChildElement(token, MaryXML.SYLLABLE);
+		phone = MaryXML.appendChildElement(syllable, MaryXML.PHONE);
+		phone.setAttribute("p", "b");
+
+		System.setProperty(".allophoneset", "jar:/marytts/features/allophones.ROOT.xml");
+		FeatureProcessorManager manager = new FeatureProcessorManager(Locale.ROOT);
+		shared = new CountingProcessor("test_shared");
+		other = new CountingProcessor("test_other");
+		manager.addFeatureProcessor(shared);
+		manager.addFeatureProcessor(other);
+		manager.addFeatureProcessor(new MaryGenericFeatureProcessors.UnitDuration());
+		first = new TargetFeatureComputer(manager, "test_shared unit_duration");
+		second = new TargetFeatureComputer(manager, "test_other test_shared unit_duration");
+	}
+
+	@Test
+	public void compatibleComputersShareValues() {
+		Target target = new Target("b", phone);
+		FeatureVector v1 = first.computeFeatureVector(target);
+		FeatureVector v2 = second.computeFeatureVector(new Target("b", phone));
+		assertEquals(1, shared.count);
+		assertEquals(1, other.count);
+		assertEquals(2, TargetFeatureStore.getStore(target).getNumComputed());
+		assertArrayEquals(first.computeFeatureVectorDirectly(target).getByteValuedDiscreteFeatures(),
+				v1.getByteValuedDiscreteFeatures());
+		assertArrayEquals(second.computeFeatureVectorDirectly(target).getByteValuedDiscreteFeatures(),
+				v2.getByteValuedDiscreteFeatures());
+	}
+
+	@Test
+	public void acousticAttributesKeepStore() {
+		Target target = new Target("b", phone);
+		first.computeFeatureVector(target);
+		TargetFeatureStore store = TargetFeatureStore.getStore(target);
+		phone.setAttribute("d", "80");
+		assertSame(store, TargetFeatureStore.getStore(target));
+		FeatureVector v = first.computeFeatureVector(target);
+		assertEquals(1, shared.count);
+		// continuous features are always computed afresh
+		assertEquals(0.08f, v.getContinuousFeatures()[0], 1e-6f);
+	}
+
+	@Test
+	public void newDocumentVersionDropsStore() {
+		Target target = new Target("b", phone);
+		assertEquals("b", first.toStringValues(first.computeFeatureVector(target)).split(" ")[0]);
+		TargetFeatureStore store = TargetFeatureStore.getStore(target);
+		phone.setAttribute("p", "d");
+		assertSame(store, TargetFeatureStore.getStore(target));
+		MaryDomUtils.newDocumentVersion(doc);
+		assertNotSame(store, TargetFeatureStore.getStore(target));
+		assertEquals("d", first.toStringValues(first.computeFeatureVector(target)).split(" ")[0]);
+		assertEquals(2, shared.count);
+	}
+
+	@Test
+	public void halvesAreStoredSeparately() {
+		first.computeFeatureVector(new HalfPhoneTarget("b_L", phone, true));
+		first.computeFeatureVector(new HalfPhoneTarget("b_R", phone, false));
+		first.computeFeatureVector(new HalfPhoneTarget("b_L", phone, true));
+		assertEquals(2, shared.count);
+	}
+
+	private static class CountingProcessor implements ByteValuedFeatureProcessor {
+		private final String name;
+		int count = 0;
+
+		CountingProcessor(String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public String[] getValues() {
+			return new String[] { "0", "b", "d" };
+		}
+
+		public byte process(Target target) {
+			count++;
+			return (byte) Math.max(0, "0bd".indexOf(target.getMaryxmlElement().getAttribute("p")));
+		}
+	}
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.features;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import marytts.datatypes.MaryXML;
+import marytts.util.dom.MaryDomUtils;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.traversal.TreeWalker;
+
+public class UtteranceIndexTest {
+
+	private Document doc;
+	private Element sentence;
+	private List<Element> segments;
+
+	@Before
+	public void setUp() {
+		doc = MaryXML.newDocument();
+		Element para = MaryXML.appendChildElement(doc.getDocumentElement(), MaryXML.PARAGRAPH);
+		sentence = MaryXML.appendChildElement(para, MaryXML.SENTENCE);
+		Element phrase1 = MaryXML.appendChildElement(sentence, MaryXML.PHRASE);
+		addWord(phrase1, "h E", "l @U");
+		Element comma = MaryXML.appendChildElement(phrase1, MaryXML.TOKEN);
+		comma.setTextContent(",");
+		MaryXML.appendChildElement(phrase1, MaryXML.BOUNDARY);
+		Element phrase2 = MaryXML.appendChildElement(sentence, MaryXML.PHRASE);
+		Element mtu = MaryXML.appendChildElement(phrase2, MaryXML.MTU);
+		addWord(mtu, "b I g");
+		addWord(mtu, "w @r", "r= l d");
+		MaryXML.appendChildElement(phrase2, MaryXML.BOUNDARY);
+		segments = new ArrayList<Element>();
+		TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.PHONE, MaryXML.BOUNDARY);
+		Element e;
+		while ((e = (Element) tw.nextNode()) != null) {
+			segments.add(e);
+		}
+	}
+
+	private void addWord(Element parent, String... syllables) {
+		Element t = MaryXML.appendChildElement(parent, MaryXML.TOKEN);
+		t.setAttribute("ph", "dummy");
+		for (String syl : syllables) {
+			Element s = MaryXML.appendChildElement(t, MaryXML.SYLLABLE);
+			for (String ph : syl.split(" ")) {
+				MaryXML.appendChildElement(s, MaryXML.PHONE).setAttribute("p", ph);
+			}
+		}
+	}
+
+	@Test
+	public void neighboursMatchTreeWalker() {
+		UtteranceIndex index = UtteranceIndex.getIndex(segments.get(0));
+		String[][] kinds = new String[][] { { MaryXML.PHONE, MaryXML.BOUNDARY }, { MaryXML.SYLLABLE }, { MaryXML.TOKEN },
+				{ MaryXML.PHRASE } };
+		for (Element segment : segments) {
+			Element current = segment.getTagName().equals(MaryXML.PHONE) ? (Element) segment.getParentNode() : segment;
+			for (int kind = 0; kind < kinds.length; kind++) {
+				for (int steps = 1; steps <= 3; steps++) {
+					TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, kinds[kind]);
+					tw.setCurrentNode(current);
+					Element expected = null;
+					for (int i = 0; i < steps; i++) {
+						expected = (Element) tw.previousNode();
+					}
+					assertSame(expected, index.getPrevious(kind, current, steps));
+					tw.setCurrentNode(current);
+					for (int i = 0; i < steps; i++) {
+						expected = (Element) tw.nextNode();
+					}
+					assertSame(expected, index.getNext(kind, current, steps));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void descendants() {
+		UtteranceIndex index = UtteranceIndex.getIndex(segments.get(0));
+		Element firstWord = index.getItem(UtteranceIndex.TOKENS, 0);
+		assertSame(segments.get(0), index.getFirstDescendant(UtteranceIndex.SEGMENTS, firstWord));
+		assertSame(segments.get(3), index.getLastDescendant(UtteranceIndex.SEGMENTS, firstWord));
+		Element comma = index.getItem(UtteranceIndex.TOKENS, 1);
+		assertNull(index.getFirstDescendant(UtteranceIndex.SYLLABLES, comma));
+		assertNull(index.getLastDescendant(UtteranceIndex.SYLLABLES, comma));
+		Element phrase2 = index.getItem(UtteranceIndex.PHRASES, 1);
+		assertEquals("r=", ((Element) index.getLastDescendant(UtteranceIndex.SYLLABLES, phrase2)
+				.getFirstChild()).getAttribute("p"));
+		assertEquals(5, index.getNumItems(UtteranceIndex.SYLLABLES));
+		assertEquals(4, index.getNumItems(UtteranceIndex.TOKENS));
+	}
+
+	@Test
+	public void indexIsSharedUntilDocumentVersionChanges() {
+		UtteranceIndex index = UtteranceIndex.getIndex(segments.get(0));
+		assertSame(index, UtteranceIndex.getIndex(segments.get(segments.size() - 1)));
+		segments.get(1).setAttribute("d", "100");
+		assertSame(index, UtteranceIndex.getIndex(segments.get(0)));
+		Element last = segments.get(segments.size() - 1);
+		Element pause = MaryXML.createElement(doc, MaryXML.BOUNDARY);
+		last.getParentNode().appendChild(pause);
+		MaryDomUtils.newDocumentVersion(doc);
+		UtteranceIndex newIndex = UtteranceIndex.getIndex(segments.get(0));
+		assertNotSame(index, newIndex);
+		assertSame(pause, newIndex.getNext(UtteranceIndex.SEGMENTS, last, 1));
+		assertSame(newIndex, UtteranceIndex.getIndex(pause));
+	}
+
+	@Test
+	public void indexIsRebuiltForNewElements() {
+		UtteranceIndex index = UtteranceIndex.getIndex(segments.get(0));
+		Element last = segments.get(segments.size() - 1);
+		Element pause = MaryXML.createElement(doc, MaryXML.BOUNDARY);
+		last.getParentNode().appendChild(pause);
+		UtteranceIndex newIndex = UtteranceIndex.getIndex(pause);
+		assertNotSame(index, newIndex);
+		assertSame(pause, newIndex.getNext(UtteranceIndex.SEGMENTS, last, 1));
+	}
+}
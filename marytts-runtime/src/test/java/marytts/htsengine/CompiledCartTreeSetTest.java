@@ -0,0 +1,261 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.htsengine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.EnumSet;
+import java.util.Properties;
+
+import marytts.features.FeatureDefinition;
+import marytts.features.FeatureVector;
+import marytts.util.io.PropertiesAccessor;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CompiledCartTreeSetTest {
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	private static final String DEFINITION = "ByteValuedFeatureProcessors\n" + "phone 0 a b c\n" + "stressed 0 1\n"
+			+ "ShortValuedFeatureProcessors\n" + "ContinuousFeatureProcessors\n";
+
+	private static final String DUR_TREE = "QS \"C-a\" {*-a+*}\n\n{*}[2]\n{\n0 phone=a -1 \"dur_s2_1\"\n"
+			+ "-1 stressed=1 \"dur_s2_2\" \"dur_s2_3\"\n}\n";
+
+	private static final String STATE_TREES = "QS \"C-a\" {*-a+*}\n\n{*}[2]\n{\n0 stressed=1 \"s2_1\" \"s2_2\"\n}\n\n"
+			+ "{*}[3]\n{\n0 phone=c -1 \"s3_1\"\n-1 phone=b \"s3_2\" \"s3_3\"\n}\n";
+
+	private static final int NUM_STATES = 2;
+	private static final int[] LEAVES_PER_STATE = { 2, 3 };
+	private static final int LF0_STREAMS = 3;
+	private static final int MGC_VSIZE = 3;
+
+	private FeatureDefinition featureDef;
+
+	private HMMData textData() throws Exception {
+		featureDef = new FeatureDefinition(new BufferedReader(new StringReader(DEFINITION)), false);
+		final byte[] durPdf = durPdf();
+		final byte[] lf0Pdf = lf0Pdf();
+		final byte[] mgcPdf = mgcPdf();
+		HMMData data = new HMMData() {
+			public InputStream getTreeDurStream() {
+				return stream(DUR_TREE);
+			}
+
+			public InputStream getPdfDurStream() {
+				return new ByteArrayInputStream(durPdf);
+			}
+
+			public InputStream getTreeLf0Stream() {
+				return stream(STATE_TREES);
+			}
+
+			public InputStream getPdfLf0Stream() {
+				return new ByteArrayInputStream(lf0Pdf);
+			}
+
+			public InputStream getTreeMgcStream() {
+				return stream(STATE_TREES);
+			}
+
+			public InputStream getPdfMgcStream() {
+				return new ByteArrayInputStream(mgcPdf);
+			}
+		};
+		data.getCartTreeSet().loadTreeSet(data, featureDef, new PhoneTranslator(null));
+		return data;
+	}
+
+	private static InputStream stream(String s) {
+		try {
+			return new ByteArrayInputStream(s.getBytes("UTF-8"));
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static byte[] durPdf() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(0);
+		out.writeInt(NUM_STATES);
+		out.writeInt(NUM_STATES);
+		out.writeInt(3);
+		for (int i = 0; i < 3; i++) {
+			for (int s = 0; s < NUM_STATES; s++) {
+				out.writeFloat(2.5f + 3 * i + s);
+				out.writeFloat(0.5f * (i + 1));
+			}
+		}
+		return bytes.toByteArray();
+	}
+
+	private static byte[] lf0Pdf() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(1);
+		out.writeInt(LF0_STREAMS);
+		out.writeInt(1);
+		for (int n : LEAVES_PER_STATE) {
+			out.writeInt(n);
+		}
+		for (int s = 0; s < NUM_STATES; s++) {
+			for (int i = 0; i < LEAVES_PER_STATE[s]; i++) {
+				float voiced = (i % 2 == 0) ? 0.75f : 0.25f;
+				for (int k = 0; k < LF0_STREAMS; k++) {
+					out.writeFloat(5.0f + 0.1f * i + s - k);
+					out.writeFloat(0.01f * (i + k + 1));
+					out.writeFloat(voiced);
+					out.writeFloat(1 - voiced);
+				}
+			}
+		}
+		return bytes.toByteArray();
+	}
+
+	private static byte[] mgcPdf() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(0);
+		out.writeInt(1);
+		out.writeInt(MGC_VSIZE);
+		for (int n : LEAVES_PER_STATE) {
+			out.writeInt(n);
+		}
+		for (int s = 0; s < NUM_STATES; s++) {
+			for (int i = 0; i < LEAVES_PER_STATE[s]; i++) {
+				for (int k = 0; k < MGC_VSIZE; k++) {
+					out.writeFloat(-1.0f + 0.7f * i + 0.11f * k + s);
+					out.writeFloat(0.02f * (i + k + 1));
+				}
+			}
+		}
+		return bytes.toByteArray();
+	}
+
+	private File compile(HMMData textData) throws Exception {
+		File file = new File(tmp.getRoot(), "hts-models.mry");
+		CompiledCartTreeSet.write(textData.getCartTreeSet(), featureDef, file.getPath());
+		return file;
+	}
+
+	private static CompiledCartTreeSet load(File file) throws Exception {
+		Properties props = new Properties();
+		props.setProperty("voice.test.compiledModels", file.getPath());
+		return CompiledCartTreeSet.load(new PropertiesAccessor(props), "voice.test.compiledModels");
+	}
+
+	@Test
+	public void featureSetComesFromLoadedTrees() throws Exception {
+		HMMData textData = textData();
+		HMMData compiledData = new HMMData();
+		compiledData.getCartTreeSet().loadTreeSet(load(compile(textData)), featureDef);
+		EnumSet<HMMData.FeatureType> expected = EnumSet.of(HMMData.FeatureType.DUR, HMMData.FeatureType.LF0,
+				HMMData.FeatureType.MGC);
+		assertEquals(expected, textData.getFeatureSet());
+		assertEquals(expected, compiledData.getFeatureSet());
+	}
+
+	@Test
+	public void compiledModelsAgreeWithTextTrees() throws Exception {
+		HMMData textData = textData();
+		CartTreeSet text = textData.getCartTreeSet();
+		CartTreeSet compiled = new CartTreeSet();
+		compiled.loadTreeSet(load(compile(textData)), featureDef);
+
+		assertEquals(text.getNumStates(), compiled.getNumStates());
+		assertEquals(text.getLf0Stream(), compiled.getLf0Stream());
+		assertEquals(MGC_VSIZE, compiled.getMcepVsize());
+		assertTrue(compiled.hasTrees(HMMData.FeatureType.MGC));
+		assertFalse(compiled.hasTrees(HMMData.FeatureType.STR));
+
+		for (byte phone = 0; phone < 4; phone++) {
+			for (byte stressed = 0; stressed < 2; stressed++) {
+				FeatureVector fv = new FeatureVector(new byte[] { phone, stressed }, new short[0], new float[0], 0);
+				HTSModel expected = new HTSModel(NUM_STATES);
+				HTSModel actual = new HTSModel(NUM_STATES);
+				assertEquals(text.searchDurInCartTree(expected, fv, textData, 0.0),
+						compiled.searchDurInCartTree(actual, fv, textData, 0.0), 0);
+				text.searchLf0InCartTree(expected, fv, featureDef, textData.getUV());
+				compiled.searchLf0InCartTree(actual, fv, featureDef, textData.getUV());
+				text.searchMgcInCartTree(expected, fv, featureDef);
+				compiled.searchMgcInCartTree(actual, fv, featureDef);
+				for (int s = 0; s < NUM_STATES; s++) {
+					assertEquals(expected.getDur(s), actual.getDur(s));
+					assertEquals(expected.getVoiced(s), actual.getVoiced(s));
+					for (int k = 0; k < LF0_STREAMS; k++) {
+						assertEquals(expected.getLf0Mean(s, k), actual.getLf0Mean(s, k), 0);
+						assertEquals(expected.getLf0Variance(s, k), actual.getLf0Variance(s, k), 0);
+					}
+					for (int k = 0; k < MGC_VSIZE; k++) {
+						assertEquals(expected.getMcepMean(s, k), actual.getMcepMean(s, k), 0);
+						assertEquals(expected.getMcepVariance(s, k), actual.getMcepVariance(s, k), 0);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void reusedPdfsAgreeWithSearch() throws Exception {
+		HMMData textData = textData();
+		CartTreeSet cart = textData.getCartTreeSet();
+		for (byte phone = 0; phone < 4; phone++) {
+			FeatureVector fv = new FeatureVector(new byte[] { phone, 1 }, new short[0], new float[0], 0);
+			HTSModel found = new HTSModel(NUM_STATES);
+			cart.searchDurInCartTree(found, fv, textData, 0.0);
+			cart.searchLf0InCartTree(found, fv, featureDef, textData.getUV());
+			HTSModel expected = new HTSModel(NUM_STATES);
+			HTSModel actual = new HTSModel(NUM_STATES);
+			assertEquals(cart.searchDurInCartTree(expected, fv, textData, 0.3), cart.reuseDurPdf(actual, found, textData, 0.3), 0);
+			cart.searchLf0InCartTree(expected, fv, featureDef, textData.getUV());
+			cart.reuseLf0Pdfs(actual, found);
+			assertEquals(expected.getTotalDur(), actual.getTotalDur());
+			for (int s = 0; s < NUM_STATES; s++) {
+				assertEquals(expected.getDur(s), actual.getDur(s));
+				assertEquals(expected.getVoiced(s), actual.getVoiced(s));
+				for (int k = 0; k < LF0_STREAMS; k++) {
+					assertEquals(expected.getLf0Mean(s, k), actual.getLf0Mean(s, k), 0);
+					assertEquals(expected.getLf0Variance(s, k), actual.getLf0Variance(s, k), 0);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void sameFileIsLoadedOnce() throws Exception {
+		File file = compile(textData());
+		assertSame(load(file), load(file));
+	}
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.htsengine;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Compares incremental (windowed) parameter generation to parameter generation over the whole utterance.
+ */
+public class HTSPStreamTest {
+
+	private static final int ORDER = 3;
+	private static final int FRAMES = 230;
+
+	private static HTSPStream newStream() throws Exception {
+		HTSPStream pst = new HTSPStream(ORDER * HTSPStream.NUM, FRAMES, HMMData.FeatureType.MGC, 0);
+		Random random = new Random(1);
+		double[] mean = null;
+		double[] var = null;
+		for (int t = 0; t < FRAMES; t++) {
+			// piecewise constant pdfs, like a sequence of HMM states:
+			if (t % 7 == 0) {
+				mean = new double[ORDER * HTSPStream.NUM];
+				var = new double[ORDER * HTSPStream.NUM];
+				for (int k = 0; k < mean.length; k++) {
+					mean[k] = k < ORDER ? random.nextGaussian() : 0.1 * random.nextGaussian();
+					var[k] = 0.1 + random.nextDouble();
+				}
+			}
+			pst.setMseq(t, mean);
+			pst.setVseq(t, var);
+		}
+		pst.fixDynFeatOnBoundaries();
+		return pst;
+	}
+
+	@Test
+	public void windowOverWholeUtteranceIsMlpg() throws Exception {
+		HTSPStream full = newStream();
+		full.mlpg(new HMMData(), false);
+		HTSPStream windowed = newStream();
+		windowed.mlpgWindow(new HMMData(), false, 0, FRAMES, 0);
+		for (int t = 0; t < FRAMES; t++) {
+			for (int m = 0; m < ORDER; m++) {
+				assertEquals(full.getPar(t, m), windowed.getPar(t, m), 1.e-12);
+			}
+		}
+	}
+
+	@Test
+	public void overlappingWindowsApproximateMlpg() throws Exception {
+		HTSPStream full = newStream();
+		full.mlpg(new HMMData(), false);
+		HTSPStream windowed = newStream();
+		int window = 60;
+		int overlap = 20;
+		for (int start = 0; start < FRAMES; start += window - overlap) {
+			int fadeEnd = start == 0 ? 0 : start + overlap;
+			windowed.mlpgWindow(new HMMData(), false, start, Math.min(FRAMES, start + window), fadeEnd);
+		}
+		double maxDiff = 0;
+		double maxAbs = 0;
+		for (int t = 0; t < FRAMES; t++) {
+			for (int m = 0; m < ORDER; m++) {
+				maxDiff = Math.max(maxDiff, Math.abs(full.getPar(t, m) - windowed.getPar(t, m)));
+				maxAbs = Math.max(maxAbs, Math.abs(full.getPar(t, m)));
+			}
+		}
+		assertEquals(0, maxDiff / maxAbs, 0.05);
+	}
+}
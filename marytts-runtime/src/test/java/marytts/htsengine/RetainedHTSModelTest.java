@@ -0,0 +1,69 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.htsengine;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import marytts.features.FeatureVector;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Element;
+
+public class RetainedHTSModelTest {
+
+	private Element element;
+	private FeatureVector fv;
+	private HTSModel model;
+
+	private static HMMData voice(final String name) {
+		return new HMMData() {
+			public String getVoiceName() {
+				return name;
+			}
+		};
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		element = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument().createElement("ph");
+		fv = new FeatureVector(new byte[] { 1, 2 }, new short[] { 3 }, new float[] { 0.5f }, 0);
+		model = new HTSModel(5);
+		RetainedHTSModel.retain(element, voice("a"), fv, model);
+	}
+
+	@Test
+	public void sameContextGetsRetainedModel() {
+		// continuous features are not used by the trees
+		FeatureVector same = new FeatureVector(new byte[] { 1, 2 }, new short[] { 3 }, new float[] { 0.7f }, 0);
+		assertSame(model, RetainedHTSModel.get(element, voice("a"), same));
+	}
+
+	@Test
+	public void otherContextOrVoiceGetsNothing() {
+		FeatureVector other = new FeatureVector(new byte[] { 1, 4 }, new short[] { 3 }, new float[] { 0.5f }, 0);
+		assertNull(RetainedHTSModel.get(element, voice("a"), other));
+		assertNull(RetainedHTSModel.get(element, voice("b"), fv));
+		assertNull(RetainedHTSModel.get(null, voice("a"), fv));
+	}
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.modules;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import marytts.datatypes.MaryXML;
+import marytts.features.MaryGenericFeatureProcessors.PrevSegmentNavigator;
+import marytts.features.MaryGenericFeatureProcessors.TargetElementNavigator;
+import marytts.unitselection.select.Target;
+import marytts.util.dom.MaryDomUtils;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.traversal.TreeWalker;
+
+/**
+ * Checks that the features of a phone see the changes that the pronunciation model made to the phones before it.
+ * 
+ * @author agent
+ * 
+ */
+public class PronunciationModelTest {
+
+	private Document doc;
+	private List<Element> phones;
+	private TargetElementNavigator prevPhone = new PrevSegmentNavigator();
+
+	@Before
+	public void setUp() {
+		doc = MaryXML.newDocument();
+		Element para = MaryXML.appendChildElement(doc.getDocumentElement(), MaryXML.PARAGRAPH);
+		Element sentence = MaryXML.appendChildElement(para, MaryXML.SENTENCE);
+		Element phrase = MaryXML.appendChildElement(sentence, MaryXML.PHRASE);
+		Element t = MaryXML.appendChildElement(phrase, MaryXML.TOKEN);
+		t.setAttribute("ph", "b I g");
+		Element syllable = MaryXML.appendChildElement(t, MaryXML.SYLLABLE);
+		for (String ph : new String[] { "b", "I", "g" }) {
+			MaryXML.appendChildElement(syllable, MaryXML.PHONE).setAttribute("p", ph);
+		}
+		MaryXML.appendChildElement(phrase, MaryXML.BOUNDARY);
+		phones = new ArrayList<Element>();
+		TreeWalker tw = MaryDomUtils.createTreeWalker(sentence, MaryXML.PHONE);
+		Element e;
+		while ((e = (Element) tw.nextNode()) != null) {
+			phones.add(e);
+		}
+	}
+
+	private String prevPhone(Element ph) {
+		return prevPhone.getElement(new Target(ph.getAttribute("p"), ph)).getAttribute("p");
+	}
+
+	@Test
+	public void deletedPhoneIsNotPrevPhone() {
+		// as in process(), the features of the phones up to the deleted one are computed before it is deleted
+		assertEquals("b", prevPhone(phones.get(1)));
+		PronunciationModel.removePhone(phones.get(1));
+		assertEquals("b", prevPhone(phones.get(2)));
+	}
+
+	@Test
+	public void insertedPhoneIsPrevPhone() {
+		assertEquals("I", prevPhone(phones.get(2)));
+		Element schwa = MaryXML.createElement(doc, MaryXML.PHONE);
+		schwa.setAttribute("p", "@");
+		PronunciationModel.insertPhoneBefore(schwa, phones.get(2));
+		assertEquals("@", prevPhone(phones.get(2)));
+	}
+}
@@ -11,6 +11,7 @@ import marytts.modules.MaryModule;
 import marytts.datatypes.MaryDataType;
 import java.util.Properties;
 import java.util.List;
+import java.util.Locale;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -39,4 +40,14 @@ public class TestOverrideModules {
 		assert (!mod.isEmpty());
 		assertEquals(mod.get(0).name(), "Dummy");
 	}
+
+	@Test
+	public void testProcessingPlanUsesPreferredModuleAndIsShared() throws Exception {
+		ProcessingPlan plan = ModuleRegistry.getProcessingPlan(MaryDataType.TEXT, MaryDataType.AUDIO, Locale.US, null);
+		assertTrue(plan.isPossible());
+		assertEquals(1, plan.getModules().size());
+		assertEquals("Dummy", plan.getModules().get(0).name());
+		assertSame(plan, ModuleRegistry.getProcessingPlan(MaryDataType.TEXT, MaryDataType.AUDIO, Locale.US, null));
+		assertTrue(ModuleRegistry.getProcessingPlans().contains(plan));
+	}
 }
@@ -0,0 +1,92 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.Test;
+
+public class SynthesisSchedulerTest {
+
+	private static Runnable blocker(final CountDownLatch started, final CountDownLatch release) {
+		return new Runnable() {
+			public void run() {
+				started.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+				}
+			}
+		};
+	}
+
+	@Test
+	public void rejectsWhenSaturated() throws Exception {
+		SynthesisScheduler scheduler = new SynthesisScheduler(1, 1, 3, false);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Future<?> running = scheduler.submit("v1", blocker(started, release));
+		started.await();
+		Future<?> waiting = scheduler.submit("v1", blocker(new CountDownLatch(1), release));
+		try {
+			scheduler.submit("v2", blocker(new CountDownLatch(1), release));
+			fail("Expected rejection");
+		} catch (RejectedExecutionException e) {
+			// expected
+		}
+		release.countDown();
+		running.get();
+		waiting.get();
+		assertEquals(3, scheduler.getRetryAfterSeconds());
+		scheduler.shutdown();
+	}
+
+	@Test
+	public void servesVoicesRoundRobin() throws Exception {
+		SynthesisScheduler scheduler = new SynthesisScheduler(1, 10, 1, false);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		scheduler.submit("busy", blocker(started, release));
+		started.await();
+		final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+		List<Future<?>> futures = new ArrayList<Future<?>>();
+		for (final String v : new String[] { "a", "a", "a", "b", "b" }) {
+			futures.add(scheduler.submit(v, new Runnable() {
+				public void run() {
+					order.add(v);
+				}
+			}));
+		}
+		release.countDown();
+		for (Future<?> f : futures) {
+			f.get();
+		}
+		assertEquals("[a, b, a, b, a]", order.toString());
+		scheduler.shutdown();
+	}
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.unitselection.concat;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+
+import marytts.util.data.BufferDatagram;
+import marytts.util.data.BufferedDoubleDataSource;
+import marytts.util.data.Datagram;
+import marytts.util.data.audio.DDSAudioInputStream;
+
+import org.junit.Test;
+
+/**
+ * Checks that the direct PCM path of the {@link OverlapUnitConcatenator} produces the same audio as the double path through
+ * {@link DatagramOverlapDoubleDataSource}.
+ * 
+ * @author agent
+ * 
+ */
+public class OverlapUnitConcatenatorTest {
+	private static final int FRAME_LENGTH = 80;
+	// keep the overlap-added samples in range, so that the double path does not wrap around
+	private static final int MAX_AMPLITUDE = 16000;
+
+	private Random random = new Random(42);
+
+	private Datagram createFrame(boolean buffered) {
+		ByteBuffer pcm = ByteBuffer.allocate(2 * FRAME_LENGTH);
+		for (int i = 0; i < FRAME_LENGTH; i++) {
+			pcm.putShort((short) (random.nextInt(2 * MAX_AMPLITUDE + 1) - MAX_AMPLITUDE));
+		}
+		pcm.flip();
+		if (buffered) {
+			return new BufferDatagram(FRAME_LENGTH, pcm);
+		}
+		return new Datagram(FRAME_LENGTH, pcm.array());
+	}
+
+	private static short[] toSamples(byte[] pcm) {
+		ByteBuffer bb = ByteBuffer.wrap(pcm);
+		short[] samples = new short[pcm.length / 2];
+		for (int i = 0; i < samples.length; i++) {
+			samples[i] = bb.getShort();
+		}
+		return samples;
+	}
+
+	private void assertPathsAgree(boolean buffered) throws Exception {
+		Datagram[][] datagrams = new Datagram[][] { { createFrame(buffered), createFrame(buffered) },
+				{ createFrame(buffered), createFrame(buffered) } };
+		Datagram[] rightContexts = new Datagram[] { createFrame(buffered), null };
+
+		// the direct PCM path, as in OverlapUnitConcatenator.generateAudioStream():
+		ByteArrayOutputStream direct = new ByteArrayOutputStream();
+		for (int i = 0; i < datagrams.length; i++) {
+			for (int j = 0; j < datagrams[i].length; j++) {
+				ByteBuffer pcm;
+				if (j == 0 && i > 0 && rightContexts[i - 1] != null) {
+					pcm = OverlapUnitConcatenator.overlapAdd(datagrams[i][j], rightContexts[i - 1]);
+				} else {
+					pcm = BaseUnitConcatenator.getPCMData(datagrams[i][j]);
+				}
+				byte[] bytes = new byte[pcm.remaining()];
+				pcm.get(bytes);
+				direct.write(bytes);
+			}
+		}
+
+		// the double path:
+		AudioFormat format = new AudioFormat(16000, 16, 1, true, true);
+		AudioInputStream ais = new DDSAudioInputStream(new BufferedDoubleDataSource(new DatagramOverlapDoubleDataSource(
+				datagrams, rightContexts)), format);
+		ByteArrayOutputStream viaDouble = new ByteArrayOutputStream();
+		byte[] b = new byte[1024];
+		int nRead;
+		while ((nRead = ais.read(b)) != -1) {
+			viaDouble.write(b, 0, nRead);
+		}
+
+		short[] expected = toSamples(viaDouble.toByteArray());
+		short[] actual = toSamples(direct.toByteArray());
+		assertEquals(4 * FRAME_LENGTH, expected.length);
+		assertEquals(expected.length, actual.length);
+		for (int i = 0; i < expected.length; i++) {
+			assertTrue("sample " + i + ": expected " + expected[i] + ", got " + actual[i], Math.abs(expected[i] - actual[i]) <= 1);
+		}
+	}
+
+	@Test
+	public void directPCMMatchesDoublePath() throws Exception {
+		assertPathsAgree(false);
+	}
+
+	@Test
+	public void directPCMMatchesDoublePathForBufferDatagrams() throws Exception {
+		assertPathsAgree(true);
+	}
+}
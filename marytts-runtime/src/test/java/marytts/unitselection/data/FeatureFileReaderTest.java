@@ -0,0 +1,108 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.unitselection.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.StringReader;
+
+import marytts.features.FeatureDefinition;
+import marytts.features.FeatureVector;
+import marytts.util.data.MaryHeader;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FeatureFileReaderTest {
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	private static final String DEFINITION = "ByteValuedFeatureProcessors\n" + "phone 0 a b c\n" + "stressed 0 1\n"
+			+ "ShortValuedFeatureProcessors\n" + "word_frequency 0 1 2 3\n" + "ContinuousFeatureProcessors\n"
+			+ "unit_duration\n" + "unit_logf0\n";
+
+	private static final int NUM_UNITS = 5;
+
+	private String fileName;
+
+	@Before
+	public void writeFeatureFile() throws Exception {
+		FeatureDefinition def = new FeatureDefinition(new BufferedReader(new StringReader(DEFINITION)), false);
+		File f = new File(tmp.getRoot(), "test.mry");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(f)));
+		new MaryHeader(MaryHeader.UNITFEATS).writeTo(out);
+		def.writeBinaryTo(out);
+		out.writeInt(NUM_UNITS);
+		for (int i = 0; i < NUM_UNITS; i++) {
+			FeatureVector fv = new FeatureVector(new byte[] { (byte) (i % 4), (byte) (i % 2) },
+					new short[] { (short) (i % 3) }, new float[] { 0.01f * i, i == 2 ? Float.NaN : 4.5f + i }, i);
+			fv.writeTo(out);
+		}
+		out.close();
+		fileName = f.getPath();
+	}
+
+	@Test
+	public void compactStoragesAgreeWithObjects() throws Exception {
+		FeatureFileReader objects = new FeatureFileReader(fileName, FeatureFileReader.Storage.objects);
+		assertTrue(objects.hasFeatureVectorObjects());
+		for (FeatureFileReader.Storage storage : new FeatureFileReader.Storage[] { FeatureFileReader.Storage.heap,
+				FeatureFileReader.Storage.mapped }) {
+			FeatureFileReader compact = new FeatureFileReader(fileName, storage);
+			assertEquals(storage, compact.getStorage());
+			assertFalse(compact.hasFeatureVectorObjects());
+			assertEquals(NUM_UNITS, compact.getNumberOfUnits());
+			for (int u = 0; u < NUM_UNITS; u++) {
+				FeatureVector expected = objects.getFeatureVector(u);
+				FeatureVector actual = compact.getFeatureVector(u);
+				assertEquals(u, actual.getUnitIndex());
+				for (int i = 0; i < 2; i++) {
+					assertEquals(expected.getByteFeature(i), compact.getByteFeature(u, i));
+					assertEquals(expected.getByteFeature(i), actual.getByteFeature(i));
+				}
+				assertEquals(expected.getShortFeature(2), compact.getShortFeature(u, 2));
+				assertEquals(expected.getShortFeature(2), actual.getShortFeature(2));
+				for (int i = 3; i < 5; i++) {
+					assertEquals(expected.getContinuousFeature(i), compact.getContinuousFeature(u, i), 0);
+					assertEquals(expected.getContinuousFeature(i), actual.getContinuousFeature(i), 0);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void materializesFeatureVectorsOnRequest() throws Exception {
+		FeatureFileReader compact = new FeatureFileReader(fileName, FeatureFileReader.Storage.mapped);
+		FeatureVector[] fvs = compact.getFeatureVectors();
+		assertEquals(NUM_UNITS, fvs.length);
+		assertEquals(3, fvs[3].getByteFeature(0));
+		assertTrue(Float.isNaN(fvs[2].getContinuousFeature(4)));
+		assertEquals("a", compact.getFeatureDefinition().getFeatureValueAsString("phone", fvs[1]));
+	}
+}
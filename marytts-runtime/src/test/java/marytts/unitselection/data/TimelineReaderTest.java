@@ -0,0 +1,170 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.unitselection.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Random;
+import java.util.Vector;
+
+import marytts.exceptions.MaryConfigurationException;
+import marytts.unitselection.data.TimelineReader.IndexMode;
+import marytts.util.data.BufferDatagram;
+import marytts.util.data.Datagram;
+import marytts.util.data.MaryHeader;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TimelineReaderTest {
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	private static final int SAMPLE_RATE = 1000;
+	private static final int IDX_INTERVAL = 50;
+	private static final int NUM_DATAGRAMS = 500;
+
+	private String fileName;
+	private long totalDuration;
+
+	@Before
+	public void writeTimeline() throws Exception {
+		File f = new File(tmp.getRoot(), "timeline.mry");
+		Random random = new Random(42);
+		RandomAccessFile raf = new RandomAccessFile(f, "rw");
+		new MaryHeader(MaryHeader.TIMELINE).writeTo(raf);
+		new TimelineReader.ProcHeader("\n").dump(raf);
+		raf.writeInt(SAMPLE_RATE);
+		raf.writeLong(NUM_DATAGRAMS);
+		long datagramsBytePos = raf.getFilePointer() + 16;
+		raf.writeLong(datagramsBytePos);
+		raf.writeLong(0L);
+		Vector<TimelineReader.IdxField> indexData = new Vector<TimelineReader.IdxField>();
+		long prevBytePos = datagramsBytePos;
+		long prevTimePos = 0;
+		long timePos = 0;
+		for (int i = 0; i < NUM_DATAGRAMS; i++) {
+			long bytePos = raf.getFilePointer();
+			while (indexData.size() * (long) IDX_INTERVAL < timePos) {
+				indexData.add(new TimelineReader.IdxField(prevBytePos, prevTimePos));
+			}
+			prevBytePos = bytePos;
+			prevTimePos = timePos;
+			// every tenth datagram has no duration, as at the start of silences
+			int duration = i % 10 == 5 ? 0 : 1 + random.nextInt(20);
+			byte[] data = new byte[random.nextInt(100)];
+			random.nextBytes(data);
+			new Datagram(duration, data).write(raf);
+			timePos += duration;
+		}
+		long timeIdxBytePos = raf.length();
+		new TimelineReader.Index(IDX_INTERVAL, indexData).dump(raf);
+		raf.seek(datagramsBytePos - 8);
+		raf.writeLong(timeIdxBytePos);
+		raf.close();
+		fileName = f.getPath();
+		totalDuration = timePos;
+	}
+
+	private static void assertSameDatagrams(TimelineReader expected, TimelineReader actual, long totalDuration)
+			throws Exception {
+		for (long time = 0; time < totalDuration; time += 7) {
+			long[] expectedOffset = new long[1];
+			long[] actualOffset = new long[1];
+			Datagram[] e = expected.getDatagrams(time, 60, SAMPLE_RATE, expectedOffset);
+			Datagram[] a = actual.getDatagrams(time, 60, SAMPLE_RATE, actualOffset);
+			assertEquals("at time " + time, e.length, a.length);
+			assertEquals("at time " + time, expectedOffset[0], actualOffset[0]);
+			for (int i = 0; i < e.length; i++) {
+				assertEquals(e[i].getDuration(), a[i].getDuration());
+				assertArrayEquals(e[i].getData(), a[i].getData());
+			}
+		}
+	}
+
+	@Test
+	public void denseIndexFindsSameDatagrams() throws Exception {
+		TimelineReader sparse = new TimelineReader(fileName, true, IndexMode.sparse);
+		assertSameDatagrams(sparse, new TimelineReader(fileName, true, IndexMode.dense), totalDuration);
+		assertSameDatagrams(sparse, new TimelineReader(fileName, false, IndexMode.dense), totalDuration);
+		assertEquals(totalDuration, new TimelineReader(fileName, true, IndexMode.dense).getTotalDuration());
+	}
+
+	@Test
+	public void segmentedMappingFindsSameDatagrams() throws Exception {
+		TimelineReader sparse = new TimelineReader(fileName, true, IndexMode.sparse);
+		assertSameDatagrams(sparse, new TimelineReader(fileName, true, IndexMode.sparse, 2048), totalDuration);
+		assertSameDatagrams(sparse, new TimelineReader(fileName, true, IndexMode.dense, 512), totalDuration);
+	}
+
+	@Test
+	public void sidecarIsWrittenAndRead() throws Exception {
+		File sidecar = new File(fileName + TimelineReader.DENSE_INDEX_EXTENSION);
+		TimelineReader sparse = new TimelineReader(fileName, true, IndexMode.sparse);
+		assertSameDatagrams(sparse, new TimelineReader(fileName, true, IndexMode.sidecar), totalDuration);
+		assertTrue(sidecar.exists());
+		assertEquals(24 + 16 * (NUM_DATAGRAMS + 1), sidecar.length());
+		assertSameDatagrams(sparse, new TimelineReader(fileName, true, IndexMode.sidecar), totalDuration);
+	}
+
+	@Test
+	public void unknownIndexModeIsAConfigurationError() throws Exception {
+		System.setProperty("unitselection.timelineindex", "dens");
+		try {
+			new TimelineReader(fileName);
+			fail("expected a MaryConfigurationException");
+		} catch (MaryConfigurationException e) {
+			assertTrue(e.getCause() instanceof MaryConfigurationException);
+		} finally {
+			System.clearProperty("unitselection.timelineindex");
+		}
+		System.setProperty("unitselection.timelineindex", " dense ");
+		try {
+			assertSameDatagrams(new TimelineReader(fileName, true, IndexMode.sparse), new TimelineReader(fileName), totalDuration);
+		} finally {
+			System.clearProperty("unitselection.timelineindex");
+		}
+	}
+
+	@Test
+	public void datagramViewsMatchDatagrams() throws Exception {
+		for (boolean tryMemoryMapping : new boolean[] { true, false }) {
+			TimelineReader timeline = new TimelineReader(fileName, tryMemoryMapping, IndexMode.dense);
+			for (long time = 0; time < totalDuration; time += 13) {
+				Datagram[] expected = timeline.getDatagrams(time, 60);
+				Datagram[] actual = timeline.getDatagramViews(time, 60);
+				assertEquals(expected.length, actual.length);
+				for (int i = 0; i < expected.length; i++) {
+					assertTrue(actual[i] instanceof BufferDatagram);
+					assertEquals(expected[i].getLength(), actual[i].getLength());
+					assertEquals(expected[i], actual[i]);
+				}
+				assertEquals(timeline.getDatagram(time), timeline.getDatagramView(time));
+			}
+		}
+	}
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.unitselection.select;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.StringReader;
+
+import marytts.features.FeatureDefinition;
+import marytts.features.FeatureVector;
+import marytts.unitselection.data.FeatureFileReader;
+import marytts.unitselection.data.Unit;
+import marytts.unitselection.weightingfunctions.WeightFunc;
+import marytts.unitselection.weightingfunctions.WeightFunctionManager;
+import marytts.util.data.MaryHeader;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FFRTargetCostFunctionTest {
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	private static final String DEFINITION = "ByteValuedFeatureProcessors\n" + "2 | phone 0 a b c\n" + "0 | stressed 0 1\n"
+			+ "1.5 | pos_in_syl 0 1 2\n" + "ShortValuedFeatureProcessors\n" + "1 | word_frequency 0 1 2 3\n"
+			+ "ContinuousFeatureProcessors\n" + "0.7 linear | unit_duration\n" + "1.2 step 20% | unit_logf0\n";
+
+	private static final int NUM_UNITS = 23;
+
+	private FeatureDefinition weights;
+	private String fileName;
+
+	@Before
+	public void writeFeatureFile() throws Exception {
+		weights = new FeatureDefinition(new BufferedReader(new StringReader(DEFINITION)), true);
+		File f = new File(tmp.getRoot(), "test.mry");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(f)));
+		new MaryHeader(MaryHeader.UNITFEATS).writeTo(out);
+		weights.writeBinaryTo(out);
+		out.writeInt(NUM_UNITS);
+		for (int i = 0; i < NUM_UNITS; i++) {
+			FeatureVector fv = new FeatureVector(new byte[] { (byte) (i % 4), (byte) (i % 2), (byte) (i % 3) },
+					new short[] { (short) (i % 5) }, new float[] { 0.01f * i, i % 7 == 2 ? Float.NaN : 4.5f + 0.3f * i }, i);
+			fv.writeTo(out);
+		}
+		out.close();
+		fileName = f.getPath();
+	}
+
+	private FFRTargetCostFunction createCostFunction(FeatureFileReader ffr) {
+		FFRTargetCostFunction tcf = new FFRTargetCostFunction();
+		tcf.featureDefinition = weights;
+		tcf.featureFile = ffr;
+		tcf.featureVectors = ffr.hasFeatureVectorObjects() ? ffr.getFeatureVectors() : null;
+		WeightFunctionManager wfm = new WeightFunctionManager();
+		tcf.weightFunction = new WeightFunc[] { wfm.getWeightFunction("linear"), wfm.getWeightFunction("step 20%") };
+		tcf.rememberWhichWeightsAreNonZero();
+		return tcf;
+	}
+
+	@Test
+	public void batchCostsAgreeWithSingleCosts() throws Exception {
+		for (FeatureFileReader.Storage storage : FeatureFileReader.Storage.values()) {
+			FFRTargetCostFunction tcf = createCostFunction(new FeatureFileReader(fileName, storage));
+			Unit[] units = new Unit[NUM_UNITS];
+			for (int i = 0; i < NUM_UNITS; i++) {
+				units[NUM_UNITS - 1 - i] = new Unit(10 * i, 10, i);
+			}
+			float[][] targetFloats = { { 0.05f, 6.1f }, { Float.NaN, 5.2f }, { 0.3f, Float.NaN } };
+			for (float[] floats : targetFloats) {
+				Target target = new Target("b", null);
+				target.setFeatureVector(new FeatureVector(new byte[] { 1, 0, 2 }, new short[] { 3 }, floats, 0));
+				double[] costs = new double[NUM_UNITS];
+				tcf.cost(target, units, NUM_UNITS, costs);
+				for (int k = 0; k < NUM_UNITS; k++) {
+					assertEquals(tcf.cost(target, units[k]), costs[k], 0);
+				}
+				// a prefix of the units:
+				tcf.cost(target, units, 3, costs);
+				for (int k = 0; k < 3; k++) {
+					assertEquals(tcf.cost(target, units[k]), costs[k], 0);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.unitselection.select;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+
+import marytts.unitselection.data.DiphoneUnit;
+import marytts.unitselection.data.Unit;
+import marytts.util.data.MaryHeader;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class JoinCostFeaturesTest {
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	private static final float[] WEIGHTS = { 1.5f, 0.5f, 2f, 1f };
+	private static final String[] WEIGHT_FUNCTIONS = { "", "linear", "step 20%", "" };
+
+	private static final int NUM_UNITS = 17;
+
+	private JoinCostFeatures jcf;
+
+	@Before
+	public void writeJoinCostFile() throws Exception {
+		File f = new File(tmp.getRoot(), "joinCostFeatures.mry");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(f)));
+		new MaryHeader(MaryHeader.JOINFEATS).writeTo(out);
+		out.writeInt(WEIGHTS.length);
+		for (int i = 0; i < WEIGHTS.length; i++) {
+			out.writeFloat(WEIGHTS[i]);
+			out.writeUTF(WEIGHT_FUNCTIONS[i]);
+		}
+		out.writeInt(NUM_UNITS);
+		// left, then right join cost features of each unit
+		for (int u = 0; u < NUM_UNITS; u++) {
+			for (int side = 0; side < 2; side++) {
+				for (int i = 0; i < WEIGHTS.length; i++) {
+					out.writeFloat((u + i) % 6 == 4 ? Float.NaN : 0.37f * ((u * 7 + side * 3 + i * 5) % 11));
+				}
+			}
+		}
+		out.close();
+		jcf = new JoinCostFeatures(f.getPath());
+	}
+
+	@Test
+	public void batchCostsAgreeWithSingleCosts() throws Exception {
+		int[] right = new int[NUM_UNITS];
+		for (int i = 0; i < NUM_UNITS; i++) {
+			right[i] = (5 * i) % NUM_UNITS;
+		}
+		double[] costs = new double[NUM_UNITS];
+		for (int left = 0; left < NUM_UNITS; left++) {
+			jcf.cost(left, right, NUM_UNITS, costs);
+			for (int k = 0; k < NUM_UNITS; k++) {
+				assertEquals(jcf.cost(left, right[k]), costs[k], 0);
+			}
+		}
+	}
+
+	@Test
+	public void batchUnitCostsAgreeWithSingleCosts() throws Exception {
+		Unit[] units = new Unit[NUM_UNITS];
+		for (int i = 0; i < NUM_UNITS; i++) {
+			units[i] = new Unit(10 * i, i == 9 ? 0 : 10, i);
+		}
+		Unit[] right = new Unit[NUM_UNITS - 1];
+		for (int i = 0; i < right.length; i++) {
+			right[i] = i % 3 == 0 ? new DiphoneUnit(units[i], units[i + 1]) : units[i];
+		}
+		Target target = new Target("a", null);
+		double[] costs = new double[right.length];
+		for (int i = 0; i < right.length; i++) {
+			Unit left = i % 2 == 0 ? new DiphoneUnit(units[i], units[i + 1]) : units[i];
+			jcf.cost(target, left, target, right, right.length, costs);
+			for (int k = 0; k < right.length; k++) {
+				assertEquals(jcf.cost(target, left, target, right[k]), costs[k], 0);
+			}
+		}
+	}
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.unitselection.select;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+
+import marytts.unitselection.data.FeatureFileReader.Storage;
+import marytts.util.data.MaryHeader;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PrecompiledJoinCostReaderTest {
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	// left unit index, then pairs of right unit index and cost, in the order JoinCostPrecomputer writes them (by cost)
+	private static final int[][] ROWS = { { 7, 12, 10, 3, 20, 9, 30 }, { 2, 4, 5 }, { 11 }, { 5, 9, 1, 8, 2, 1, 3, 0, 4 } };
+
+	private String fileName;
+
+	@Before
+	public void writeJoinCostFile() throws Exception {
+		File f = new File(tmp.getRoot(), "joinCosts.mry");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(f)));
+		new MaryHeader(MaryHeader.PRECOMPUTED_JOINCOSTS).writeTo(out);
+		out.writeInt(ROWS.length);
+		for (int[] row : ROWS) {
+			out.writeInt(row[0]);
+			out.writeInt(row.length / 2);
+			for (int j = 1; j < row.length; j += 2) {
+				out.writeInt(row[j]);
+				out.writeFloat(row[j + 1] / 10f);
+			}
+		}
+		out.close();
+		fileName = f.getPath();
+	}
+
+	@Test
+	public void heapStorage() throws Exception {
+		assertCosts(new PrecompiledJoinCostReader(fileName, Storage.heap));
+	}
+
+	@Test
+	public void mappedStorage() throws Exception {
+		assertCosts(new PrecompiledJoinCostReader(fileName, Storage.mapped));
+	}
+
+	private void assertCosts(PrecompiledJoinCostReader reader) {
+		for (int[] row : ROWS) {
+			for (int j = 1; j < row.length; j += 2) {
+				assertEquals(row[j + 1] / 10f, reader.cost(row[0], row[j]), 0);
+			}
+		}
+		assertEquals(Double.POSITIVE_INFINITY, reader.cost(7, 11), 0);
+		assertEquals(Double.POSITIVE_INFINITY, reader.cost(11, 0), 0);
+		assertEquals(Double.POSITIVE_INFINITY, reader.cost(0, 4), 0);
+		assertEquals(Double.POSITIVE_INFINITY, reader.cost(100, 4), 0);
+	}
+}
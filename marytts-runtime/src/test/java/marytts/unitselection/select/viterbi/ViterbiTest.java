@@ -0,0 +1,300 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.unitselection.select.viterbi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import marytts.exceptions.MaryConfigurationException;
+import marytts.unitselection.data.DiphoneUnit;
+import marytts.unitselection.data.Unit;
+import marytts.unitselection.data.UnitDatabase;
+import marytts.unitselection.select.JoinCostFeatures;
+import marytts.unitselection.select.JoinCostFunction;
+import marytts.unitselection.select.SelectedUnit;
+import marytts.unitselection.select.Target;
+
+import org.junit.Test;
+
+public class ViterbiTest {
+	private static final int NUM_UNITS = 40;
+	private static final int[] BEAM_SIZES = { -1, 1, 2, 3, 5, 8 };
+
+	/**
+	 * Random join costs between all units, few of them different and some of them infinite, so that many paths have equal scores.
+	 */
+	private static class TableJoinCost implements JoinCostFunction {
+		private final double[][] costs = new double[NUM_UNITS][NUM_UNITS];
+
+		TableJoinCost(Random random) {
+			for (int i = 0; i < NUM_UNITS; i++) {
+				for (int j = 0; j < NUM_UNITS; j++) {
+					costs[i][j] = random.nextInt(10) == 0 ? Double.POSITIVE_INFINITY : random.nextInt(4);
+				}
+			}
+		}
+
+		public double cost(Target t1, Unit u1, Target t2, Unit u2) {
+			return costs[u1.index][u2.index];
+		}
+
+		public void init(String configPrefix) throws MaryConfigurationException {
+		}
+
+		@Deprecated
+		public void load(String joinFileName, InputStream weightStream, String precompiledCostFileName, float wSignal) {
+		}
+	}
+
+	/**
+	 * For each target, a random choice of units with random, often equal, target costs. Each call returns new candidates, as the
+	 * old search kept its best paths in them.
+	 */
+	private static class RandomDatabase extends UnitDatabase {
+		private final List<Target> targets = new ArrayList<Target>();
+		private final List<int[]> units = new ArrayList<int[]>();
+		private final List<double[]> targetCosts = new ArrayList<double[]>();
+
+		RandomDatabase(Random random, int numTargets) {
+			joinCostFunction = new TableJoinCost(random);
+			for (int t = 0; t < numTargets; t++) {
+				targets.add(new Target("t" + t, null));
+				int n = 1 + random.nextInt(12);
+				int[] u = new int[n];
+				double[] c = new double[n];
+				for (int i = 0; i < n; i++) {
+					u[i] = random.nextInt(NUM_UNITS);
+					c[i] = random.nextInt(8) == 0 ? Double.POSITIVE_INFINITY : 0.5 * random.nextInt(5);
+				}
+				units.add(u);
+				targetCosts.add(c);
+			}
+		}
+
+		@Override
+		public List<ViterbiCandidate> getCandidates(Target target) {
+			int t = targets.indexOf(target);
+			int[] u = units.get(t);
+			double[] c = targetCosts.get(t);
+			List<ViterbiCandidate> candidates = new ArrayList<ViterbiCandidate>();
+			for (int i = 0; i < u.length; i++) {
+				candidates.add(new ViterbiCandidate(target, new Unit(10L * u[i], 10, u[i]), c[i]));
+			}
+			return candidates;
+		}
+	}
+
+	@Test
+	public void searchAgreesWithPreviousSearch() throws Exception {
+		Random random = new Random(20261017L);
+		for (int run = 0; run < 200; run++) {
+			RandomDatabase db = new RandomDatabase(random, 1 + random.nextInt(10));
+			float wTargetCosts = 0.25f * (1 + random.nextInt(3));
+			for (int beamSize : BEAM_SIZES) {
+				String message = "run " + run + ", beam size " + beamSize;
+				Viterbi viterbi = new Viterbi(db.targets, db, wTargetCosts, beamSize);
+				viterbi.apply();
+				List<SelectedUnit> selected = viterbi.getSelectedUnits();
+				ViterbiPath expected = previousSearch(db, wTargetCosts, beamSize);
+
+				assertNotNull(message, selected);
+				List<Integer> expectedUnits = new ArrayList<Integer>();
+				for (ViterbiPath path = expected; path.candidate != null; path = path.previous) {
+					expectedUnits.add(0, path.candidate.unit.index);
+				}
+				List<Integer> selectedUnits = new ArrayList<Integer>();
+				for (SelectedUnit unit : selected) {
+					selectedUnits.add(unit.getUnit().index);
+				}
+				assertEquals(message, expectedUnits, selectedUnits);
+				List<ViterbiPath> paths = viterbi.lastPoint.getPaths();
+				assertEquals(message, 1, paths.size());
+				assertEquals(message, expected.score, paths.get(0).score, 0);
+			}
+		}
+	}
+
+	@Test
+	public void pointsKeepTheBestPathLeadingToThem() throws Exception {
+		RandomDatabase db = new RandomDatabase(new Random(42), 6);
+		Viterbi viterbi = new Viterbi(db.targets, db, 0.5f, -1);
+		viterbi.apply();
+		ViterbiPath path = viterbi.firstPoint.getPaths().get(0);
+		assertEquals(null, path.candidate);
+		for (ViterbiPoint point = viterbi.firstPoint; point.next != null; point = point.next) {
+			ViterbiPath next = point.next.getPaths().get(0);
+			assertEquals(path, next.previous);
+			assertEquals(next, path.getNext());
+			assertEquals(point.target, next.candidate.target);
+			path = next;
+		}
+	}
+
+	@Test
+	public void memoFindsRememberedCosts() {
+		Viterbi.JoinCostMemo memo = new Viterbi.JoinCostMemo(100);
+		for (int i = 0; i < 100; i++) {
+			long key = Viterbi.JoinCostMemo.key(new Unit(0, 10, i), new Unit(0, 10, 99 - i));
+			memo.put(memo.find(key), key, i / 4.);
+		}
+		for (int i = 0; i < 100; i++) {
+			long key = Viterbi.JoinCostMemo.key(new Unit(0, 10, i), new Unit(0, 10, 99 - i));
+			int slot = memo.find(key);
+			assertTrue(memo.contains(slot, key));
+			assertEquals(i / 4., memo.get(slot), 0);
+		}
+		long key = Viterbi.JoinCostMemo.key(new Unit(0, 10, 99), new Unit(0, 10, 99));
+		assertFalse(memo.contains(memo.find(key), key));
+	}
+
+	@Test
+	public void fullMemoStartsAfresh() {
+		Viterbi.JoinCostMemo memo = new Viterbi.JoinCostMemo(4);
+		long[] keys = new long[5];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = Viterbi.JoinCostMemo.key(new Unit(0, 10, i), new Unit(0, 10, i + 1));
+			memo.put(memo.find(keys[i]), keys[i], i);
+		}
+		for (int i = 0; i < 4; i++) {
+			assertFalse(memo.contains(memo.find(keys[i]), keys[i]));
+		}
+		assertTrue(memo.contains(memo.find(keys[4]), keys[4]));
+	}
+
+	@Test
+	public void memoForgetsCostsOfOtherFunctionOrRequest() {
+		Viterbi.JoinCostMemo memo = new Viterbi.JoinCostMemo(10);
+		Object function = new Object();
+		Object request = new Object();
+		long key = Viterbi.JoinCostMemo.key(new Unit(0, 10, 1), new Unit(0, 10, 2));
+		memo.use(function, request);
+		memo.put(memo.find(key), key, 1);
+		memo.use(function, request);
+		assertTrue(memo.contains(memo.find(key), key));
+		memo.use(function, new Object());
+		assertFalse(memo.contains(memo.find(key), key));
+		memo.put(memo.find(key), key, 1);
+		memo.use(new Object(), request);
+		assertFalse(memo.contains(memo.find(key), key));
+		// global:
+		memo.use(function, null);
+		memo.put(memo.find(key), key, 1);
+		memo.use(function, null);
+		assertTrue(memo.contains(memo.find(key), key));
+	}
+
+	@Test
+	public void memoKeysTellDiphonesFromUnits() {
+		Unit unit = new Unit(0, 10, 3);
+		Unit diphone = new DiphoneUnit(new Unit(0, 10, 3), new Unit(10, 10, 4));
+		Unit right = new Unit(0, 10, 7);
+		assertFalse(Viterbi.JoinCostMemo.key(unit, right) == Viterbi.JoinCostMemo.key(diphone, right));
+		assertFalse(Viterbi.JoinCostMemo.key(right, unit) == Viterbi.JoinCostMemo.key(right, diphone));
+		assertFalse(Viterbi.JoinCostMemo.key(unit, right) == Viterbi.JoinCostMemo.key(right, unit));
+	}
+
+	@Test
+	public void memoCapacityLeavesMoreThanAQuarterFree() {
+		for (int size = 1; size < 5000; size++) {
+			int capacity = Viterbi.JoinCostMemo.capacityFor(size);
+			assertEquals(Integer.highestOneBit(capacity), capacity);
+			assertTrue("size " + size, 4L * size < 3L * capacity);
+		}
+	}
+
+	@Test
+	public void unitsFollowingEachOtherAreAdjacent() {
+		Viterbi viterbi = new Viterbi(Collections.singletonList(new Target("t", null)), new UnitDatabase() {
+			{
+				joinCostFunction = new JoinCostFeatures();
+			}
+		}, 0.5f, -1);
+		Unit u3 = new Unit(30, 10, 3);
+		Unit u4 = new Unit(40, 10, 4);
+		assertTrue(viterbi.isAdjacent(u3, u4));
+		assertFalse(viterbi.isAdjacent(u4, u3));
+		assertFalse(viterbi.isAdjacent(u3, u3));
+		assertFalse(viterbi.isAdjacent(u3, new Unit(40, 0, 4)));
+		assertFalse(viterbi.isAdjacent(new Unit(30, 0, 3), u4));
+		// diphones are joined in the middle of the phone:
+		DiphoneUnit d23 = new DiphoneUnit(new Unit(20, 10, 2), u3);
+		DiphoneUnit d45 = new DiphoneUnit(u4, new Unit(50, 10, 5));
+		assertTrue(viterbi.isAdjacent(d23, d45));
+		assertTrue(viterbi.isAdjacent(d23, u4));
+		assertTrue(viterbi.isAdjacent(u3, d45));
+		assertFalse(viterbi.isAdjacent(d45, d23));
+	}
+
+	@Test
+	public void onlyUnitJoinCostsAreFreeForAdjacentUnits() {
+		Viterbi viterbi = new Viterbi(Collections.singletonList(new Target("t", null)), new RandomDatabase(new Random(1), 1), 0.5f,
+				-1);
+		assertFalse(viterbi.isAdjacent(new Unit(30, 10, 3), new Unit(40, 10, 4)));
+	}
+
+	/**
+	 * The search as it was done before the search space was kept in parallel arrays: the paths ending in each point are kept in a
+	 * list, where a path replacing a worse one leading to the same candidate goes to the end.
+	 */
+	private static ViterbiPath previousSearch(UnitDatabase db, float wTargetCosts, int beamSize) {
+		JoinCostFunction joinCostFunction = db.getJoinCostFunction();
+		float wJoinCosts = 1 - wTargetCosts;
+		List<ViterbiPath> paths = new ArrayList<ViterbiPath>();
+		paths.add(new ViterbiPath(null, null, 0));
+		for (Target target : ((RandomDatabase) db).targets) {
+			List<ViterbiCandidate> candidates = db.getCandidates(target);
+			Collections.sort(candidates);
+			List<ViterbiPath> nextPaths = new ArrayList<ViterbiPath>();
+			int i = 0;
+			for (ViterbiPath pp : paths) {
+				int j = 0;
+				for (ViterbiCandidate c : candidates) {
+					double joinCost = pp.candidate == null ? 0 : joinCostFunction.cost(pp.candidate.target, pp.candidate.unit,
+							c.target, c.unit);
+					double score = joinCost * wJoinCosts + c.targetCost * wTargetCosts + pp.score;
+					ViterbiPath np = new ViterbiPath(c, pp, score);
+					if (c.bestPath == null) {
+						nextPaths.add(np);
+						c.setBestPath(np);
+					} else if (np.score < c.bestPath.score) {
+						nextPaths.remove(c.bestPath);
+						nextPaths.add(np);
+						c.setBestPath(np);
+					}
+					if (++j == beamSize)
+						break;
+				}
+				if (++i == beamSize)
+					break;
+			}
+			paths = nextPaths;
+		}
+		Collections.sort(paths);
+		return paths.get(0);
+	}
+}
@@ -0,0 +1,72 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.junit.Test;
+
+public class MaryRuntimeUtilsTest {
+
+	private static List<Callable<Integer>> tasks(int n, final int failing) {
+		List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+		for (int i = 0; i < n; i++) {
+			final int value = i;
+			tasks.add(new Callable<Integer>() {
+				public Integer call() throws Exception {
+					if (value == failing) {
+						throw new IOException("task " + value);
+					}
+					// finish in reverse order:
+					Thread.sleep(5 * (10 - value));
+					return value;
+				}
+			});
+		}
+		return tasks;
+	}
+
+	@Test
+	public void runInParallelKeepsOrder() throws Exception {
+		assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7), MaryRuntimeUtils.runInParallel(tasks(8, -1), 4, "Test"));
+	}
+
+	@Test
+	public void runInParallelWithOneThread() throws Exception {
+		assertEquals(Arrays.asList(0, 1, 2), MaryRuntimeUtils.runInParallel(tasks(3, -1), 1, "Test"));
+	}
+
+	@Test
+	public void runInParallelThrowsTaskException() throws Exception {
+		try {
+			MaryRuntimeUtils.runInParallel(tasks(8, 3), 4, "Test");
+			fail("exception expected");
+		} catch (IOException e) {
+			assertEquals("task 3", e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.util.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class MemorySynthesisCacheTest {
+	private static CacheKey key(String text) {
+		return new CacheKey("TEXT", "RAWMARYXML", "de", "de1", null, null, null, text);
+	}
+
+	@Test
+	public void keysWithSameInputAreEqual() {
+		assertEquals(key("Hallo Welt"), key("Hallo Welt"));
+		assertEquals(key("Hallo Welt").hashCode(), key("Hallo Welt").hashCode());
+		assertTrue(!key("Hallo Welt").equals(key("Hallo Welt!")));
+		assertTrue(!key("Hallo Welt").equals(key("Hallo Welt").withOutputType("AUDIO")));
+	}
+
+	@Test
+	public void canLookupWhatWasInserted() throws Exception {
+		MemorySynthesisCache c = new MemorySynthesisCache(1000000);
+		c.insertText(key("a"), "<rawmaryxml/>");
+		byte[] audio = new byte[1234];
+		c.insertAudio(key("b").withOutputType("AUDIO"), audio);
+		assertEquals("<rawmaryxml/>", c.lookupText(key("a")));
+		assertArrayEquals(audio, c.lookupAudio(key("b").withOutputType("AUDIO")));
+		assertNull(c.lookupText(key("c")));
+		assertEquals(2, c.getStatistics().getHits());
+		assertEquals(1, c.getStatistics().getMisses());
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsed() throws Exception {
+		// one segment, room for two entries of 100 bytes
+		MemorySynthesisCache c = new MemorySynthesisCache(250, 1, null);
+		c.insertAudio(key("1"), new byte[100]);
+		c.insertAudio(key("2"), new byte[100]);
+		c.lookupAudio(key("1")); // now "2" is the least recently used
+		c.insertAudio(key("3"), new byte[100]);
+		assertNull(c.lookupAudio(key("2")));
+		assertEquals(100, c.lookupAudio(key("1")).length);
+		assertEquals(100, c.lookupAudio(key("3")).length);
+		assertEquals(1, c.getStatistics().getEvictions());
+		assertEquals(200, c.getWeight());
+	}
+
+	@Test
+	public void promotesFromBackingCache() throws Exception {
+		MemorySynthesisCache backing = new MemorySynthesisCache(1000000);
+		MemorySynthesisCache c = new MemorySynthesisCache(1000000, 4, backing);
+		byte[] audio = new byte[10];
+		backing.insertAudio(key("x"), audio);
+		assertSame(audio, c.lookupAudio(key("x")));
+		assertEquals(1, c.getStatistics().getMisses());
+		assertSame(audio, c.lookupAudio(key("x")));
+		assertEquals(1, c.getStatistics().getHits());
+		c.insertText(key("y"), "written through");
+		assertEquals("written through", backing.lookupText(key("y")));
+	}
+}
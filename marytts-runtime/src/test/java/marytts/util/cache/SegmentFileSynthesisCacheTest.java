@@ -0,0 +1,90 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.util.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SegmentFileSynthesisCacheTest {
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	private static CacheKey key = new CacheKey("TEXT", "RAWMARYXML", "de", "de1", null, null, null,
+			"Welcome to the world of speech synthesis");
+	private static CacheKey audioKey = key.withOutputType("AUDIO");
+	private static byte[] targetAudio = new byte[12345];
+
+	@Test
+	public void isPersistent() throws Exception {
+		File f = new File(tmp.getRoot(), "cache.seg");
+		SegmentFileSynthesisCache c = new SegmentFileSynthesisCache(f, false);
+		c.insertText(key, "<rawmaryxml/>");
+		c.insertAudio(audioKey, targetAudio);
+		c.insertText(key, "<rawmaryxml/>"); // inserting again is harmless
+		assertEquals(2, c.size());
+		c.shutdown();
+
+		c = new SegmentFileSynthesisCache(f, false);
+		assertEquals("<rawmaryxml/>", c.lookupText(key));
+		assertArrayEquals(targetAudio, c.lookupAudio(audioKey));
+		assertNull(c.lookupAudio(key)); // different output type
+		c.shutdown();
+	}
+
+	@Test
+	public void isClearable() throws Exception {
+		File f = new File(tmp.getRoot(), "cache.seg");
+		SegmentFileSynthesisCache c = new SegmentFileSynthesisCache(f, false);
+		c.insertText(key, "<rawmaryxml/>");
+		c.shutdown();
+		c = new SegmentFileSynthesisCache(f, true);
+		assertNull(c.lookupText(key));
+		c.shutdown();
+	}
+
+	@Test
+	public void discardsIncompleteRecord() throws Exception {
+		File f = new File(tmp.getRoot(), "cache.seg");
+		SegmentFileSynthesisCache c = new SegmentFileSynthesisCache(f, false);
+		c.insertText(key, "<rawmaryxml/>");
+		c.insertAudio(audioKey, targetAudio);
+		c.shutdown();
+		// simulate a crash while writing the last record:
+		RandomAccessFile raf = new RandomAccessFile(f, "rw");
+		raf.setLength(f.length() - 100);
+		raf.close();
+		c = new SegmentFileSynthesisCache(f, false);
+		assertEquals(1, c.size());
+		assertEquals("<rawmaryxml/>", c.lookupText(key));
+		c.insertAudio(audioKey, targetAudio);
+		c.shutdown();
+		c = new SegmentFileSynthesisCache(f, false);
+		assertArrayEquals(targetAudio, c.lookupAudio(audioKey));
+		c.shutdown();
+	}
+}
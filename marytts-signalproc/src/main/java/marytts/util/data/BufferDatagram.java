@@ -0,0 +1,78 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.util.data;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A datagram whose data is a view of a byte buffer, typically a slice of a memory-mapped timeline file. The data is only copied
+ * into a byte array when {@link #getData()} is called; {@link #getDataBuffer()} gives access to it without copying.
+ */
+public class BufferDatagram extends Datagram {
+	private final ByteBuffer buffer;
+
+	/**
+	 * Create a datagram whose data is the remaining content of the given byte buffer. The buffer's content must not change
+	 * afterwards.
+	 * 
+	 * @param duration
+	 *            the datagram duration, in samples. Must be non-negative.
+	 * @param buffer
+	 *            the datagram data, from the buffer's position to its limit
+	 * @throws IllegalArgumentException
+	 *             if duration is negative
+	 */
+	public BufferDatagram(long duration, ByteBuffer buffer) {
+		super(duration);
+		this.buffer = buffer.slice();
+	}
+
+	/**
+	 * A view of the datagram data, positioned at its start.
+	 * 
+	 * @return a new read-only byte buffer sharing the datagram data
+	 */
+	public ByteBuffer getDataBuffer() {
+		return buffer.asReadOnlyBuffer();
+	}
+
+	@Override
+	public int getLength() {
+		return buffer.limit();
+	}
+
+	@Override
+	public byte[] getData() {
+		if (data == null) {
+			byte[] copy = new byte[buffer.limit()];
+			buffer.duplicate().get(copy);
+			data = copy;
+		}
+		return data;
+	}
+
+	@Override
+	public void write(DataOutput raf) throws IOException {
+		getData();
+		super.write(raf);
+	}
+}
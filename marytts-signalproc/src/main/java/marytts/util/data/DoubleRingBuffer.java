@@ -0,0 +1,269 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package marytts.util.data;
+
+/**
+ * A bounded ring buffer of primitive doubles for passing data from exactly one producer thread to exactly one consumer thread.
+ * Data is transferred in blocks with {@link #put(double[], int, int)} and {@link #read(double[], int, int)}; neither boxes nor
+ * allocates. A thread only takes a lock when it has to wait for the other side, i.e. when the buffer is full (producer) or
+ * empty (consumer).
+ *
+ * @author agent
+ *
+ */
+public class DoubleRingBuffer {
+	public static final int DEFAULT_CAPACITY = 8192;
+
+	private final double[] data;
+	private final int mask;
+	// Total number of values ever written and read; only the producer writes head, only the consumer writes tail.
+	private volatile long head = 0;
+	private volatile long tail = 0;
+	private volatile boolean closed = false;
+
+	private final Object lock = new Object();
+	private volatile boolean producerWaiting = false;
+	private volatile boolean consumerWaiting = false;
+
+	public DoubleRingBuffer() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Create a ring buffer that can hold at least minCapacity values.
+	 *
+	 * @param minCapacity
+	 *            the minimum capacity; the actual capacity is the next power of two.
+	 * @throws IllegalArgumentException
+	 *             if minCapacity is not positive
+	 */
+	public DoubleRingBuffer(int minCapacity) {
+		if (minCapacity <= 0 || minCapacity > (1 << 30)) {
+			throw new IllegalArgumentException("Illegal capacity: " + minCapacity);
+		}
+		int capacity = Integer.highestOneBit(minCapacity);
+		if (capacity < minCapacity) {
+			capacity <<= 1;
+		}
+		data = new double[capacity];
+		mask = capacity - 1;
+	}
+
+	public int capacity() {
+		return data.length;
+	}
+
+	/**
+	 * The number of values that can currently be read without blocking.
+	 *
+	 * @return the number of values in the buffer
+	 */
+	public int available() {
+		return (int) (head - tail);
+	}
+
+	/**
+	 * Whether the producer has closed this buffer. Values written before closing can still be read.
+	 *
+	 * @return true if {@link #close()} has been called
+	 */
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Producer side: write len values from source, starting at off, waiting for space as needed.
+	 *
+	 * @param source
+	 *            the values to write
+	 * @param off
+	 *            position of the first value in source
+	 * @param len
+	 *            number of values to write
+	 * @throws IllegalStateException
+	 *             if the buffer has been closed
+	 * @throws RuntimeException
+	 *             if the thread is interrupted while waiting for space
+	 */
+	public void put(double[] source, int off, int len) {
+		if (closed) {
+			throw new IllegalStateException("Cannot write to closed buffer");
+		}
+		int capacity = data.length;
+		while (len > 0) {
+			long h = head;
+			int space = capacity - (int) (h - tail);
+			if (space == 0) {
+				awaitSpace();
+				continue;
+			}
+			int n = Math.min(space, len);
+			int start = (int) h & mask;
+			int firstPart = Math.min(n, capacity - start);
+			System.arraycopy(source, off, data, start, firstPart);
+			if (firstPart < n) {
+				System.arraycopy(source, off + firstPart, data, 0, n - firstPart);
+			}
+			head = h + n;
+			off += n;
+			len -= n;
+			if (consumerWaiting) {
+				wakeUp();
+			}
+		}
+	}
+
+	/**
+	 * Producer side: write a single value, waiting for space as needed.
+	 *
+	 * @param value
+	 *            the value to write
+	 * @throws IllegalStateException
+	 *             if the buffer has been closed
+	 */
+	public void put(double value) {
+		if (closed) {
+			throw new IllegalStateException("Cannot write to closed buffer");
+		}
+		long h = head;
+		while (h - tail == data.length) {
+			awaitSpace();
+		}
+		data[(int) h & mask] = value;
+		head = h + 1;
+		if (consumerWaiting) {
+			wakeUp();
+		}
+	}
+
+	/**
+	 * Producer side: signal that no more data will be written.
+	 */
+	public void close() {
+		closed = true;
+		wakeUp();
+	}
+
+	/**
+	 * Consumer side: read up to len values into target, starting at off. Blocks until at least one value is available or the
+	 * buffer is closed, and then copies as many values as are available, up to len.
+	 *
+	 * @param target
+	 *            the array to read into
+	 * @param off
+	 *            position in target of the first value to read
+	 * @param len
+	 *            maximum number of values to read
+	 * @return the number of values read, or -1 if the buffer is closed and all values have been read.
+	 * @throws RuntimeException
+	 *             if the thread is interrupted while waiting for data
+	 */
+	public int read(double[] target, int off, int len) {
+		if (len == 0) {
+			return 0;
+		}
+		long t = tail;
+		int avail;
+		while ((avail = (int) (head - t)) == 0) {
+			if (closed) {
+				// re-check: the producer may have written more before closing
+				if (head == t) {
+					return -1;
+				}
+				continue;
+			}
+			awaitData();
+		}
+		int n = Math.min(avail, len);
+		int capacity = data.length;
+		int start = (int) t & mask;
+		int firstPart = Math.min(n, capacity - start);
+		System.arraycopy(data, start, target, off, firstPart);
+		if (firstPart < n) {
+			System.arraycopy(data, 0, target, off + firstPart, n - firstPart);
+		}
+		tail = t + n;
+		if (producerWaiting) {
+			wakeUp();
+		}
+		return n;
+	}
+
+	/**
+	 * Consumer side: read exactly len values into target, unless the buffer is closed before that many values are available.
+	 *
+	 * @param target
+	 *            the array to read into
+	 * @param off
+	 *            position in target of the first value to read
+	 * @param len
+	 *            number of values to read
+	 * @return the number of values read; less than len only if the end of the data has been reached.
+	 */
+	public int readFully(double[] target, int off, int len) {
+		int readSum = 0;
+		while (readSum < len) {
+			int n = read(target, off + readSum, len - readSum);
+			if (n < 0) {
+				break;
+			}
+			readSum += n;
+		}
+		return readSum;
+	}
+
+	private void awaitSpace() {
+		synchronized (lock) {
+			// Set the flag before re-checking, so that the consumer either sees the flag or we see its progress:
+			producerWaiting = true;
+			try {
+				while (head - tail == data.length) {
+					lock.wait();
+				}
+			} catch (InterruptedException e) {
+				throw new RuntimeException("Unexpected interruption", e);
+			} finally {
+				producerWaiting = false;
+			}
+		}
+	}
+
+	private void awaitData() {
+		synchronized (lock) {
+			consumerWaiting = true;
+			try {
+				while (head == tail && !closed) {
+					lock.wait();
+				}
+			} catch (InterruptedException e) {
+				throw new RuntimeException("Unexpected interruption", e);
+			} finally {
+				consumerWaiting = false;
+			}
+		}
+	}
+
+	private void wakeUp() {
+		synchronized (lock) {
+			lock.notifyAll();
+		}
+	}
+}
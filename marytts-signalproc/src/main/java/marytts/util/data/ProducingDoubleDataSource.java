@@ -20,8 +20,6 @@
 
 package marytts.util.data;
 
-import java.util.concurrent.ArrayBlockingQueue;
-
 import marytts.signalproc.process.InlineDataProcessor;
 
 /**
@@ -29,11 +27,8 @@ import marytts.signalproc.process.InlineDataProcessor;
  *
  */
 public abstract class ProducingDoubleDataSource extends BufferedDoubleDataSource implements Runnable {
-	private static final Double END_OF_STREAM = Double.NEGATIVE_INFINITY;
-
-	protected ArrayBlockingQueue<Double> queue = new ArrayBlockingQueue<Double>(1024);
+	protected DoubleRingBuffer ringBuffer = new DoubleRingBuffer(DoubleRingBuffer.DEFAULT_CAPACITY);
 	private Thread dataProducingThread = null;
-	private boolean hasSentEndOfStream = false;
 	private boolean hasReceivedEndOfStream = false;
 
 	protected ProducingDoubleDataSource() {
@@ -60,13 +55,14 @@ public abstract class ProducingDoubleDataSource extends BufferedDoubleDataSource
 	}
 
 	/**
-	 * Subclasses must implement this method such that it produces data and sends it through {@link #putOneDataPoint(double)}.
-	 * When all data is sent, the subclass must call {@link #putEndOfStream()} exactly once.
+	 * Subclasses must implement this method such that it produces data and sends it through {@link #putData(double[], int, int)}
+	 * or {@link #putOneDataPoint(double)}. When all data is sent, the subclass must call {@link #putEndOfStream()} exactly once.
 	 */
 	public abstract void run();
 
 	/**
-	 * The producing thread tries to put ont data item into the queue.
+	 * The producing thread tries to put one data item into the ring buffer. Where the data is available in blocks, prefer
+	 * {@link #putData(double[], int, int)}.
 	 * 
 	 * @param value
 	 *            value
@@ -74,16 +70,27 @@ public abstract class ProducingDoubleDataSource extends BufferedDoubleDataSource
 	 *             runtime exception
 	 */
 	public void putOneDataPoint(double value) {
-		try {
-			queue.put(value);
-		} catch (InterruptedException e) {
-			throw new RuntimeException("Unexpected interruption", e);
-		}
+		ringBuffer.put(value);
+	}
+
+	/**
+	 * The producing thread puts a block of data into the ring buffer, waiting for the consumer as needed.
+	 * 
+	 * @param data
+	 *            the array holding the data
+	 * @param off
+	 *            the position of the first value to send
+	 * @param len
+	 *            the number of values to send
+	 * @throws RuntimeException
+	 *             if interrupted while waiting
+	 */
+	public void putData(double[] data, int off, int len) {
+		ringBuffer.put(data, off, len);
 	}
 
 	protected void putEndOfStream() {
-		putOneDataPoint(END_OF_STREAM);
-		hasSentEndOfStream = true;
+		ringBuffer.close();
 	}
 
 	@Override
@@ -102,11 +109,7 @@ public abstract class ProducingDoubleDataSource extends BufferedDoubleDataSource
 		if (isAllProductionDataRead()) {
 			return 0;
 		}
-		int inQueue = queue.size();
-		if (hasSentEndOfStream && !hasReceivedEndOfStream) {
-			inQueue -= 1;
-		}
-		return inQueue;
+		return ringBuffer.available();
 	}
 
 	@Override
@@ -123,36 +126,17 @@ public abstract class ProducingDoubleDataSource extends BufferedDoubleDataSource
 			compact(); // create a contiguous space for the new data
 		}
 		// Now we have a buffer that can hold at least minLength new data points
-		int readSum = 0;
-		while (readSum < minLength) {
-			double data = getOneDataPoint();
-			if (data == END_OF_STREAM) {
-				hasReceivedEndOfStream = true;
-				break;
-			}
-			buf[writePos] = data;
-			writePos++;
-			readSum++;
+		int readSum = ringBuffer.readFully(buf, writePos, minLength);
+		if (readSum < minLength) {
+			hasReceivedEndOfStream = true;
 		}
+		writePos += readSum;
 		if (dataProcessor != null) {
 			dataProcessor.applyInline(buf, writePos - readSum, readSum);
 		}
 		return readSum == minLength;
 	}
 
-	/**
-	 * The reading thread tries to get one data item from the queue.
-	 * 
-	 * @return queue.take
-	 */
-	private double getOneDataPoint() {
-		try {
-			return queue.take();
-		} catch (InterruptedException e) {
-			throw new RuntimeException("Unexpected interruption", e);
-		}
-	}
-
 	/**
 	 * @throws IllegalStateException
 	 */
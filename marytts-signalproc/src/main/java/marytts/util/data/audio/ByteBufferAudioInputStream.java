@@ -0,0 +1,151 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.util.data.audio;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+
+/**
+ * An audio input stream reading audio data, already in the target format, from a sequence of byte buffers. The buffers are
+ * read as they are, without conversion; they can be views of memory-mapped files, so that audio can be passed on without
+ * copying it into intermediate arrays.
+ */
+public class ByteBufferAudioInputStream extends AudioInputStream {
+	private final ByteBuffer[] buffers;
+	private int current;
+
+	/**
+	 * Construct an audio input stream from the given buffers. Each buffer contributes the data between its position and its
+	 * limit; the buffers' positions and limits are not changed.
+	 * 
+	 * @param buffers
+	 *            the audio data, in the given format. The data of each buffer must consist of whole frames.
+	 * @param format
+	 *            the format of the audio data
+	 */
+	public ByteBufferAudioInputStream(List<ByteBuffer> buffers, AudioFormat format) {
+		super(new ByteArrayInputStream(new byte[0]), format, countBytes(buffers) / format.getFrameSize());
+		this.buffers = new ByteBuffer[buffers.size()];
+		for (int i = 0; i < this.buffers.length; i++) {
+			this.buffers[i] = buffers.get(i).duplicate();
+		}
+		this.current = 0;
+	}
+
+	private static long countBytes(List<ByteBuffer> buffers) {
+		long n = 0;
+		for (ByteBuffer b : buffers) {
+			n += b.remaining();
+		}
+		return n;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		len -= len % frameSize; // only read whole frames
+		int totalRead = 0;
+		while (totalRead < len && current < buffers.length) {
+			ByteBuffer buffer = buffers[current];
+			int n = Math.min(len - totalRead, buffer.remaining());
+			buffer.get(b, off + totalRead, n);
+			totalRead += n;
+			if (!buffer.hasRemaining()) {
+				current++;
+			}
+		}
+		if (totalRead == 0 && len > 0) {
+			return -1;
+		}
+		framePos += totalRead / frameSize;
+		return totalRead;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		n -= n % frameSize;
+		long skipped = 0;
+		while (skipped < n && current < buffers.length) {
+			ByteBuffer buffer = buffers[current];
+			int s = (int) Math.min(n - skipped, buffer.remaining());
+			buffer.position(buffer.position() + s);
+			skipped += s;
+			if (!buffer.hasRemaining()) {
+				current++;
+			}
+		}
+		framePos += skipped / frameSize;
+		return skipped;
+	}
+
+	@Override
+	public int available() throws IOException {
+		long available = 0;
+		for (int i = current; i < buffers.length; i++) {
+			available += buffers[i].remaining();
+		}
+		return (int) Math.min(available, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Write the remaining audio data to the given channel, without copying it into intermediate arrays. Afterwards, nothing more
+	 * can be read from this stream.
+	 * 
+	 * @param channel
+	 *            the channel to write to
+	 * @return the number of bytes written
+	 * @throws IOException
+	 *             if the data cannot be written
+	 */
+	public long writeTo(WritableByteChannel channel) throws IOException {
+		long written = 0;
+		for (; current < buffers.length; current++) {
+			ByteBuffer buffer = buffers[current];
+			while (buffer.hasRemaining()) {
+				written += channel.write(buffer);
+			}
+		}
+		framePos += written / frameSize;
+		return written;
+	}
+
+	@Override
+	public void close() throws IOException {
+	}
+
+	@Override
+	public void mark(int readlimit) {
+	}
+
+	@Override
+	public void reset() throws IOException {
+		throw new IOException("mark/reset not supported");
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+}
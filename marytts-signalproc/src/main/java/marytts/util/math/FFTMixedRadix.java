@@ -112,10 +112,7 @@ public class FFTMixedRadix {
 			h.imag[w] = 0.0;
 		}
 
-		mixedRadixFFTBase(h.real, h.imag, fftSize, fftSize, fftSize, 1);
-
-		for (w = 0; w < fftSize; w++)
-			h.imag[w] = -h.imag[w];
+		fftRealInPlace(h.real, h.imag, fftSize);
 
 		for (w = 0; w < fftSize; w++)
 			Ps[w] = 10 * MathUtils.log10(h.real[w] * h.real[w] + h.imag[w] * h.imag[w]);
@@ -150,10 +147,7 @@ public class FFTMixedRadix {
 			h.imag[w] = 0.0;
 		}
 
-		mixedRadixFFTBase(h.real, h.imag, fftSize, fftSize, fftSize, 1);
-
-		for (w = 0; w < fftSize; w++)
-			h.imag[w] = -h.imag[w];
+		fftRealInPlace(h.real, h.imag, fftSize);
 
 		for (w = 0; w < fftSize; w++)
 			Ps[w] = Math.sqrt(h.real[w] * h.real[w] + h.imag[w] * h.imag[w]);
@@ -176,10 +170,7 @@ public class FFTMixedRadix {
 			h.imag[w] = 0.0;
 		}
 
-		mixedRadixFFTBase(h.real, h.imag, xlen, xlen, xlen, 1);
-
-		for (w = 0; w < xlen; w++)
-			h.imag[w] = -h.imag[w];
+		fftRealInPlace(h.real, h.imag, xlen);
 
 		return h;
 	}
@@ -224,6 +215,11 @@ public class FFTMixedRadix {
 			h.imag[w] = 0.0;
 		}
 
+		if (isPowerOfTwo(fftSize)) {
+			FFTPlan.forSize(fftSize).transform(h.real, h.imag, false);
+			return h;
+		}
+
 		mixedRadixFFTBase(h.real, h.imag, fftSize, fftSize, fftSize, 1);
 
 		int midVal = (int) (Math.floor(fftSize / 2) + 1);
@@ -311,6 +307,13 @@ public class FFTMixedRadix {
 	public static ComplexArray ifft(ComplexArray x) {
 		ComplexArray h = new ComplexArray(x.real.length);
 
+		if (isPowerOfTwo(x.real.length)) {
+			System.arraycopy(x.real, 0, h.real, 0, x.real.length);
+			System.arraycopy(x.imag, 0, h.imag, 0, x.real.length);
+			FFTPlan.forSize(x.real.length).transform(h.real, h.imag, true);
+			return h;
+		}
+
 		int w;
 		for (w = 0; w < x.real.length; w++) {
 			h.real[w] = x.real[w] / x.real.length;
@@ -355,6 +358,24 @@ public class FFTMixedRadix {
 		return y;
 	}
 
+	// In place fftSize-point FFT of real valued data in real, with imag all 0.
+	// Power-of-two sizes are transformed with the FFTPlan for the size.
+	private static void fftRealInPlace(double[] real, double[] imag, int fftSize) {
+		if (isPowerOfTwo(fftSize)) {
+			FFTPlan.forSize(fftSize).transform(real, imag, false);
+			return;
+		}
+
+		mixedRadixFFTBase(real, imag, fftSize, fftSize, fftSize, 1);
+
+		for (int w = 0; w < fftSize; w++)
+			imag[w] = -imag[w];
+	}
+
+	private static boolean isPowerOfTwo(int n) {
+		return n > 0 && (n & (n - 1)) == 0;
+	}
+
 	// In place mixed-radix FFT/IFFT algorithm
 	// a: Real part of sequence to be transformed
 	// b: Imaginary part of sequence to be transformed
@@ -366,7 +387,8 @@ public class FFTMixedRadix {
 	// Extra scaling and re-arranging of the output might be required for different cases.
 	// Please use wrapper functions fftComplex, fftReal, ifft, ifftReal for simplicity.
 	// Please refer to these functions if you want to add new functions calling mixedRadixFFTBase.
-	private static void mixedRadixFFTBase(double[] a, double[] b, int ntot, int fftSize, int nspan, int isn) {
+	// This works on static fields, so only one thread at a time may use it.
+	private static synchronized void mixedRadixFFTBase(double[] a, double[] b, int ntot, int fftSize, int nspan, int isn) {
 		// Local variables for handling goto statements
 		boolean bLoopLine924 = false;
 		boolean bJumpToLine924 = false;
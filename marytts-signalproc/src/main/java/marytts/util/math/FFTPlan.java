@@ -0,0 +1,326 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.util.math;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A fast Fourier transform of a fixed power-of-two size, with the bit-reversal permutation and the twiddle factors computed
+ * once. Plans are immutable, so that one plan can be used by any number of threads at the same time; {@link #forSize(int)}
+ * keeps one plan per size.
+ * <p>
+ * The transforms compute the same as the corresponding static methods in {@link FFT}, which use these plans: the forward
+ * transform computes X(k) = sum x(n) exp(-2 PI i k n / N), and the inverse transform includes the division by N.
+ * 
+ * @see FFT#transform(double[], double[], boolean)
+ * @see FFT#transform(double[], boolean)
+ * @see FFT#realTransform(double[], boolean)
+ */
+public final class FFTPlan {
+	// the plans created so far, by the base-2 logarithm of their size
+	private static final AtomicReferenceArray<FFTPlan> plans = new AtomicReferenceArray<FFTPlan>(31);
+
+	/**
+	 * Get the plan for transforms of the given size.
+	 * 
+	 * @param size
+	 *            the number of complex values to transform, a power of two
+	 * @return the plan
+	 * @throws IllegalArgumentException
+	 *             if size is not a power of two
+	 */
+	public static FFTPlan forSize(int size) {
+		if (size <= 0 || (size & (size - 1)) != 0) {
+			throw new IllegalArgumentException("FFT size must be a power of two, got " + size);
+		}
+		int log2 = Integer.numberOfTrailingZeros(size);
+		FFTPlan plan = plans.get(log2);
+		if (plan == null) {
+			plans.compareAndSet(log2, null, new FFTPlan(size));
+			plan = plans.get(log2);
+		}
+		return plan;
+	}
+
+	private final int size;
+	// the pairs of indices to swap for the bit-reversal permutation
+	private final int[] swaps;
+	// the twiddle factors exp(-+PI i n / h) of the butterflies combining blocks of length 2 * h, at index h + n for n < h:
+	// their real part, and their imaginary part for the forward and for the inverse transform
+	private final double[] twiddleReal;
+	private final double[] twiddleImag;
+	private final double[] inverseTwiddleImag;
+	// cos(PI k / size) and sin(PI k / size), for k < size / 2, to separate the transform of real data of length 2 * size
+	private final double[] realCos;
+	private final double[] realSin;
+
+	private FFTPlan(int size) {
+		this.size = size;
+		int nSwaps = 0;
+		int[] pairs = new int[size];
+		for (int i = 0; i < size; i++) {
+			int iReverse = size == 1 ? 0 : Integer.reverse(i) >>> Integer.numberOfLeadingZeros(size - 1);
+			if (i < iReverse) {
+				pairs[nSwaps++] = i;
+				pairs[nSwaps++] = iReverse;
+			}
+		}
+		swaps = new int[nSwaps];
+		System.arraycopy(pairs, 0, swaps, 0, nSwaps);
+		twiddleReal = new double[size];
+		twiddleImag = new double[size];
+		inverseTwiddleImag = new double[size];
+		for (int h = 1; h < size; h <<= 1) {
+			for (int n = 0; n < h; n++) {
+				double phi = Math.PI * n / h;
+				twiddleReal[h + n] = Math.cos(phi);
+				twiddleImag[h + n] = -Math.sin(phi);
+				inverseTwiddleImag[h + n] = Math.sin(phi);
+			}
+		}
+		int halfSize = size / 2;
+		realCos = new double[halfSize];
+		realSin = new double[halfSize];
+		for (int k = 0; k < halfSize; k++) {
+			double phi = Math.PI * k / size;
+			realCos[k] = Math.cos(phi);
+			realSin[k] = Math.sin(phi);
+		}
+	}
+
+	/**
+	 * @return the number of complex values transformed by this plan
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Carry out the FFT or inverse FFT in place, like {@link FFT#transform(double[], double[], boolean)}.
+	 * 
+	 * @param real
+	 *            the real parts, of length getSize()
+	 * @param imag
+	 *            the imaginary parts, of length getSize()
+	 * @param inverse
+	 *            whether to calculate the FFT or the inverse FFT.
+	 */
+	public void transform(double[] real, double[] imag, boolean inverse) {
+		if (real == null || imag == null)
+			throw new NullPointerException("Received null argument");
+		if (real.length != size || imag.length != size)
+			throw new IllegalArgumentException("Arrays must have length " + size);
+		for (int s = 0; s < swaps.length; s += 2) {
+			int i = swaps[s];
+			int j = swaps[s + 1];
+			double tmpReal = real[i];
+			double tmpImag = imag[i];
+			real[i] = real[j];
+			imag[i] = imag[j];
+			real[j] = tmpReal;
+			imag[j] = tmpImag;
+		}
+		// Blocks of length 2 need no twiddle factors:
+		for (int i = 0; i + 1 < size; i += 2) {
+			double tmpReal = real[i + 1];
+			double tmpImag = imag[i + 1];
+			real[i + 1] = real[i] - tmpReal;
+			imag[i + 1] = imag[i] - tmpImag;
+			real[i] += tmpReal;
+			imag[i] += tmpImag;
+		}
+		// Combine blocks of increasing length 2 * h; within each block, the inner loop runs over neighbouring elements,
+		// pairing the nth element with the (n + h)th, using the twiddle factors of the block length in order
+		double[] wImagTable = inverse ? inverseTwiddleImag : twiddleImag;
+		for (int h = 2; h < size; h <<= 1) {
+			int blockLength = h << 1;
+			for (int start = 0; start < size; start += blockLength) {
+				for (int n = 0; n < h; n++) {
+					double wReal = twiddleReal[h + n];
+					double wImag = wImagTable[h + n];
+					int i = start + n;
+					int j = i + h;
+					double tmpReal = wReal * real[j] - wImag * imag[j];
+					double tmpImag = wReal * imag[j] + wImag * real[j];
+					real[j] = real[i] - tmpReal;
+					imag[j] = imag[i] - tmpImag;
+					real[i] += tmpReal;
+					imag[i] += tmpImag;
+				}
+			}
+		}
+		if (inverse) {
+			for (int i = 0; i < size; i++) {
+				real[i] /= size;
+				imag[i] /= size;
+			}
+		}
+	}
+
+	/**
+	 * Carry out the FFT or inverse FFT in place, like {@link FFT#transform(double[], boolean)}: the even indices of the array
+	 * hold the real parts, the odd indices the imaginary parts.
+	 * 
+	 * @param realAndImag
+	 *            the complex numbers to transform, of length 2 * getSize()
+	 * @param inverse
+	 *            whether to calculate the FFT or the inverse FFT.
+	 */
+	public void transform(double[] realAndImag, boolean inverse) {
+		if (realAndImag == null)
+			throw new NullPointerException("Received null argument");
+		if (realAndImag.length != 2 * size)
+			throw new IllegalArgumentException("Array must have length " + 2 * size);
+		for (int s = 0; s < swaps.length; s += 2) {
+			int twoi = swaps[s] << 1;
+			int twoj = swaps[s + 1] << 1;
+			double tmpReal = realAndImag[twoi];
+			double tmpImag = realAndImag[twoi + 1];
+			realAndImag[twoi] = realAndImag[twoj];
+			realAndImag[twoi + 1] = realAndImag[twoj + 1];
+			realAndImag[twoj] = tmpReal;
+			realAndImag[twoj + 1] = tmpImag;
+		}
+		for (int twoi = 0; twoi + 3 < realAndImag.length; twoi += 4) {
+			double tmpReal = realAndImag[twoi + 2];
+			double tmpImag = realAndImag[twoi + 3];
+			realAndImag[twoi + 2] = realAndImag[twoi] - tmpReal;
+			realAndImag[twoi + 3] = realAndImag[twoi + 1] - tmpImag;
+			realAndImag[twoi] += tmpReal;
+			realAndImag[twoi + 1] += tmpImag;
+		}
+		double[] wImagTable = inverse ? inverseTwiddleImag : twiddleImag;
+		for (int h = 2; h < size; h <<= 1) {
+			int blockLength = h << 1;
+			for (int start = 0; start < size; start += blockLength) {
+				for (int n = 0; n < h; n++) {
+					double wReal = twiddleReal[h + n];
+					double wImag = wImagTable[h + n];
+					int twoi = (start + n) << 1;
+					int twoi1 = twoi + 1;
+					int twoj = twoi + blockLength;
+					int twoj1 = twoj + 1;
+					double tmpReal = wReal * realAndImag[twoj] - wImag * realAndImag[twoj1];
+					double tmpImag = wReal * realAndImag[twoj1] + wImag * realAndImag[twoj];
+					realAndImag[twoj] = realAndImag[twoi] - tmpReal;
+					realAndImag[twoj1] = realAndImag[twoi1] - tmpImag;
+					realAndImag[twoi] += tmpReal;
+					realAndImag[twoi1] += tmpImag;
+				}
+			}
+		}
+		if (inverse) {
+			for (int i = 0; i < realAndImag.length; i++) {
+				realAndImag[i] /= size;
+			}
+		}
+	}
+
+	/**
+	 * Carry out the FFT of real data, or its inverse, in place, like {@link FFT#realTransform(double[], boolean)}. The real data
+	 * are of length 2 * getSize(); their transform is packed into the same array as the positive frequency half of the complex
+	 * transform, with the real-valued first and last components in data[0] and data[1].
+	 * 
+	 * @param data
+	 *            the data to transform, of length 2 * getSize()
+	 * @param inverse
+	 *            whether to calculate the FFT or the inverse FFT.
+	 */
+	public void realTransform(double[] data, boolean inverse) {
+		int n = data.length;
+		if (n != 2 * size)
+			throw new IllegalArgumentException("Array must have length " + 2 * size);
+		double c1 = 0.5;
+		double c2;
+		double sign;
+		if (!inverse) {
+			c2 = -0.5;
+			sign = -1;
+			transform(data, false); // The forward transform is here.
+		} else {
+			c2 = 0.5; // Otherwise set up for an inverse transform
+			sign = 1;
+		}
+		int n4 = n >> 2;
+		for (int i = 1; i < n4; i++) { // Case i=0 done separately below.
+			double wReal = realCos[i];
+			double wImag = sign * realSin[i];
+			int twoI = i << 1;
+			int twoIPlus1 = twoI + 1;
+			int nMinusTwoI = n - twoI;
+			int nMinusTwoIPlus1 = nMinusTwoI + 1;
+			double h1r = c1 * (data[twoI] + data[nMinusTwoI]); // The two separate transforms are separated out of data.
+			double h1i = c1 * (data[twoIPlus1] - data[nMinusTwoIPlus1]);
+			double h2r = -c2 * (data[twoIPlus1] + data[nMinusTwoIPlus1]);
+			double h2i = c2 * (data[twoI] - data[nMinusTwoI]);
+			// Here they are recombined to form the true transform of the original real data.
+			data[twoI] = h1r + wReal * h2r - wImag * h2i;
+			data[twoIPlus1] = h1i + wReal * h2i + wImag * h2r;
+			data[nMinusTwoI] = h1r - wReal * h2r + wImag * h2i;
+			data[nMinusTwoIPlus1] = -h1i + wReal * h2i + wImag * h2r;
+		}
+		if (!inverse) {
+			double tmp = data[0];
+			// Squeeze the first and last data together to get them all within the original array.
+			data[0] += data[1];
+			data[1] = tmp - data[1];
+			data[n / 2 + 1] = -data[n / 2 + 1];
+		} else { // inverse
+			double tmp = data[0];
+			data[0] = 0.5 * (tmp + data[1]);
+			data[1] = 0.5 * (tmp - data[1]);
+			data[n / 2 + 1] = -data[n / 2 + 1];
+			transform(data, true);
+		}
+	}
+
+	/**
+	 * Transform several frames of the same size, as {@link #transform(double[], double[], boolean)} does for each of them.
+	 * 
+	 * @param real
+	 *            the real parts of each frame
+	 * @param imag
+	 *            the imaginary parts of each frame
+	 * @param inverse
+	 *            whether to calculate the FFT or the inverse FFT.
+	 */
+	public void transform(double[][] real, double[][] imag, boolean inverse) {
+		if (real.length != imag.length)
+			throw new IllegalArgumentException("Need as many real as imaginary frames");
+		for (int f = 0; f < real.length; f++) {
+			transform(real[f], imag[f], inverse);
+		}
+	}
+
+	/**
+	 * Transform several frames of real data of the same length, as {@link #realTransform(double[], boolean)} does for each of
+	 * them.
+	 * 
+	 * @param frames
+	 *            the frames, each of length 2 * getSize()
+	 * @param inverse
+	 *            whether to calculate the FFT or the inverse FFT.
+	 */
+	public void realTransform(double[][] frames, boolean inverse) {
+		for (int f = 0; f < frames.length; f++) {
+			realTransform(frames[f], inverse);
+		}
+	}
+}
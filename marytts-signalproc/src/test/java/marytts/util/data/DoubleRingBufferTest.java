@@ -0,0 +1,98 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.util.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class DoubleRingBufferTest {
+
+	@Test
+	public void capacityIsRoundedToPowerOfTwo() {
+		assertEquals(16, new DoubleRingBuffer(10).capacity());
+		assertEquals(16, new DoubleRingBuffer(16).capacity());
+	}
+
+	@Test
+	public void canReadWhatWasPutAcrossWrapAround() {
+		DoubleRingBuffer ring = new DoubleRingBuffer(8);
+		double[] in = new double[] { 1, 2, 3, 4, 5, 6 };
+		double[] out = new double[6];
+		ring.put(in, 0, 6);
+		assertEquals(4, ring.read(out, 0, 4));
+		ring.put(in, 0, 6); // wraps around the end of the array
+		assertEquals(8, ring.available());
+		assertEquals(2, ring.read(out, 4, 2));
+		for (int i = 0; i < 6; i++) {
+			assertEquals(in[i], out[i], 0);
+		}
+		assertEquals(6, ring.readFully(out, 0, 6));
+		for (int i = 0; i < 6; i++) {
+			assertEquals(in[i], out[i], 0);
+		}
+	}
+
+	@Test
+	public void readReturnsMinusOneAfterClose() {
+		DoubleRingBuffer ring = new DoubleRingBuffer(4);
+		ring.put(0.5);
+		ring.close();
+		assertTrue(ring.isClosed());
+		double[] out = new double[4];
+		assertEquals(1, ring.readFully(out, 0, 4));
+		assertEquals(0.5, out[0], 0);
+		assertEquals(-1, ring.read(out, 0, 4));
+	}
+
+	@Test
+	public void canTransferBetweenThreads() throws Exception {
+		final int total = 100000;
+		final DoubleRingBuffer ring = new DoubleRingBuffer(64);
+		Thread producer = new Thread() {
+			public void run() {
+				double[] block = new double[37];
+				int sent = 0;
+				while (sent < total) {
+					int n = Math.min(block.length, total - sent);
+					for (int i = 0; i < n; i++) {
+						block[i] = sent + i;
+					}
+					ring.put(block, 0, n);
+					sent += n;
+				}
+				ring.close();
+			}
+		};
+		producer.start();
+		double[] out = new double[50];
+		int received = 0;
+		int n;
+		while ((n = ring.read(out, 0, out.length)) > 0) {
+			for (int i = 0; i < n; i++) {
+				assertEquals(received + i, out[i], 0);
+			}
+			received += n;
+		}
+		producer.join();
+		assertEquals(total, received);
+	}
+}
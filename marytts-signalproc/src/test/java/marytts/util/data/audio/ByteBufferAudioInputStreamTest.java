@@ -0,0 +1,96 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.util.data.audio;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sound.sampled.AudioFormat;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ByteBufferAudioInputStreamTest {
+	private static final AudioFormat FORMAT = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, 16000, 16, 1, 2, 16000, true);
+
+	private static List<ByteBuffer> getBuffers(byte[] expected) {
+		List<ByteBuffer> buffers = new ArrayList<ByteBuffer>();
+		int[] lengths = { 10, 0, 2, 36, 0, 52 };
+		int pos = 0;
+		for (int length : lengths) {
+			// surround the data with bytes that must not be read
+			ByteBuffer b = ByteBuffer.allocate(length + 4);
+			b.putShort((short) -1);
+			b.put(expected, pos, length);
+			b.putShort((short) -1);
+			b.position(2);
+			b.limit(2 + length);
+			buffers.add(b);
+			pos += length;
+		}
+		return buffers;
+	}
+
+	private static byte[] getExpected() {
+		byte[] expected = new byte[100];
+		for (int i = 0; i < expected.length; i++) {
+			expected[i] = (byte) i;
+		}
+		return expected;
+	}
+
+	@Test
+	public void readsAllBuffersInOrder() throws Exception {
+		byte[] expected = getExpected();
+		List<ByteBuffer> buffers = getBuffers(expected);
+		ByteBufferAudioInputStream ais = new ByteBufferAudioInputStream(buffers, FORMAT);
+		Assert.assertEquals(expected.length / 2, ais.getFrameLength());
+		Assert.assertEquals(expected.length, ais.available());
+		byte[] actual = new byte[expected.length];
+		int total = 0;
+		int n;
+		while ((n = ais.read(actual, total, Math.min(7, actual.length - total))) > 0) {
+			total += n;
+		}
+		Assert.assertEquals(expected.length, total);
+		Assert.assertArrayEquals(expected, actual);
+		Assert.assertEquals(-1, ais.read(new byte[2], 0, 2));
+		// the given buffers are left as they were
+		Assert.assertEquals(2, buffers.get(0).position());
+	}
+
+	@Test
+	public void skipsAndWritesToChannel() throws Exception {
+		byte[] expected = getExpected();
+		ByteBufferAudioInputStream ais = new ByteBufferAudioInputStream(getBuffers(expected), FORMAT);
+		Assert.assertEquals(20, ais.skip(20));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Assert.assertEquals(expected.length - 20, ais.writeTo(Channels.newChannel(out)));
+		byte[] actual = out.toByteArray();
+		Assert.assertEquals(expected.length - 20, actual.length);
+		for (int i = 0; i < actual.length; i++) {
+			Assert.assertEquals(expected[20 + i], actual[i]);
+		}
+		Assert.assertEquals(0, ais.available());
+	}
+}
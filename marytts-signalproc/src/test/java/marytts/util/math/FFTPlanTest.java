@@ -0,0 +1,143 @@
+/**
+ * Copyright 2026 agent.
+ * All Rights Reserved.  Use is subject to license terms.
+ *
+ * This file is part of MARY TTS.
+ *
+ * MARY TTS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package marytts.util.math;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FFTPlanTest {
+
+	// the discrete Fourier transform computed from its definition
+	private static void dft(double[] real, double[] imag, double[] outReal, double[] outImag) {
+		int n = real.length;
+		for (int k = 0; k < n; k++) {
+			double sumReal = 0;
+			double sumImag = 0;
+			for (int t = 0; t < n; t++) {
+				double phi = -MathUtils.TWOPI * ((long) k * t % n) / n;
+				sumReal += real[t] * Math.cos(phi) - imag[t] * Math.sin(phi);
+				sumImag += real[t] * Math.sin(phi) + imag[t] * Math.cos(phi);
+			}
+			outReal[k] = sumReal;
+			outImag[k] = sumImag;
+		}
+	}
+
+	private static double[] randomSignal(Random random, int length) {
+		double[] signal = new double[length];
+		for (int i = 0; i < length; i++) {
+			signal[i] = random.nextGaussian();
+		}
+		return signal;
+	}
+
+	@Test
+	public void transformComputesDFT() {
+		Random random = new Random(1);
+		for (int n = 1; n <= 1024; n <<= 1) {
+			double[] real = randomSignal(random, n);
+			double[] imag = randomSignal(random, n);
+			double[] expectedReal = new double[n];
+			double[] expectedImag = new double[n];
+			dft(real, imag, expectedReal, expectedImag);
+			FFTPlan plan = FFTPlan.forSize(n);
+			double[] realAndImag = new double[2 * n];
+			for (int i = 0; i < n; i++) {
+				realAndImag[2 * i] = real[i];
+				realAndImag[2 * i + 1] = imag[i];
+			}
+			double[] signalReal = real.clone();
+			double[] signalImag = imag.clone();
+			plan.transform(real, imag, false);
+			plan.transform(realAndImag, false);
+			for (int k = 0; k < n; k++) {
+				Assert.assertEquals(expectedReal[k], real[k], 1.E-10);
+				Assert.assertEquals(expectedImag[k], imag[k], 1.E-10);
+				Assert.assertEquals(expectedReal[k], realAndImag[2 * k], 1.E-10);
+				Assert.assertEquals(expectedImag[k], realAndImag[2 * k + 1], 1.E-10);
+			}
+			plan.transform(real, imag, true);
+			Assert.assertTrue(MathUtils.sumSquaredError(signalReal, real) < 1.E-20);
+			Assert.assertTrue(MathUtils.sumSquaredError(signalImag, imag) < 1.E-20);
+		}
+	}
+
+	@Test
+	public void realTransformPacksPositiveFrequencies() {
+		Random random = new Random(2);
+		int n = 256;
+		double[] signal = randomSignal(random, n);
+		double[] expectedReal = new double[n];
+		double[] expectedImag = new double[n];
+		dft(signal, new double[n], expectedReal, expectedImag);
+		double[] data = signal.clone();
+		FFTPlan.forSize(n / 2).realTransform(data, false);
+		Assert.assertEquals(expectedReal[0], data[0], 1.E-10);
+		Assert.assertEquals(expectedReal[n / 2], data[1], 1.E-10);
+		for (int k = 1; k < n / 2; k++) {
+			Assert.assertEquals(expectedReal[k], data[2 * k], 1.E-10);
+			Assert.assertEquals(expectedImag[k], data[2 * k + 1], 1.E-10);
+		}
+	}
+
+	@Test
+	public void batchTransformEqualsSingleTransforms() {
+		Random random = new Random(3);
+		FFTPlan plan = FFTPlan.forSize(64);
+		double[][] real = new double[5][];
+		double[][] imag = new double[5][];
+		double[][] frames = new double[5][];
+		for (int f = 0; f < 5; f++) {
+			real[f] = randomSignal(random, 64);
+			imag[f] = new double[64];
+			frames[f] = randomSignal(random, 128);
+		}
+		double[][] expectedReal = new double[5][];
+		double[][] expectedImag = new double[5][];
+		double[][] expectedFrames = new double[5][];
+		for (int f = 0; f < 5; f++) {
+			expectedReal[f] = real[f].clone();
+			expectedImag[f] = imag[f].clone();
+			plan.transform(expectedReal[f], expectedImag[f], false);
+			expectedFrames[f] = frames[f].clone();
+			plan.realTransform(expectedFrames[f], false);
+		}
+		plan.transform(real, imag, false);
+		plan.realTransform(frames, false);
+		for (int f = 0; f < 5; f++) {
+			Assert.assertArrayEquals(expectedReal[f], real[f], 0);
+			Assert.assertArrayEquals(expectedImag[f], imag[f], 0);
+			Assert.assertArrayEquals(expectedFrames[f], frames[f], 0);
+		}
+	}
+
+	@Test
+	public void plansAreShared() {
+		Assert.assertSame(FFTPlan.forSize(512), FFTPlan.forSize(512));
+		Assert.assertEquals(512, FFTPlan.forSize(512).getSize());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void sizeMustBePowerOfTwo() {
+		FFTPlan.forSize(300);
+	}
+}